@@ -3,6 +3,7 @@ package com.chrono.chrono.config;
 import com.chrono.chrono.entities.User;
 import com.chrono.chrono.repositories.UserRepository;
 import com.chrono.chrono.services.DemoDataService;
+import com.chrono.chrono.utils.JwtPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
@@ -35,6 +36,10 @@ public class DemoUserInterceptor implements HandlerInterceptor {
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth != null && auth.isAuthenticated()) {
+            // Bei Token-Authentifizierung steht das Demo-Flag im Token; nur Demo-User brauchen die Entität
+            if (auth.getPrincipal() instanceof JwtPrincipal jwtPrincipal && !jwtPrincipal.isDemo()) {
+                return true;
+            }
             User user = userRepository.findByUsername(auth.getName()).orElse(null);
             if (user != null && user.isDemo()) {
                 demoDataService.refreshDemoDataIfOutdated(user);
@@ -1,7 +1,6 @@
 package com.chrono.chrono.config;
 
-import com.chrono.chrono.entities.ReadAccessAudit;
-import com.chrono.chrono.repositories.ReadAccessAuditRepository;
+import com.chrono.chrono.services.ReadAccessAuditService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -10,23 +9,19 @@ import org.springframework.web.servlet.HandlerInterceptor;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import java.time.LocalDateTime;
 
 @Component
 public class ReadAccessInterceptor implements HandlerInterceptor {
     @Autowired
-    private ReadAccessAuditRepository repo;
+    private ReadAccessAuditService auditService;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
         if ("GET".equalsIgnoreCase(request.getMethod())) {
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
             if (auth != null && auth.isAuthenticated()) {
-                ReadAccessAudit log = new ReadAccessAudit();
-                log.setUsername(auth.getName());
-                log.setPath(request.getRequestURI());
-                log.setTimestamp(LocalDateTime.now());
-                repo.save(log);
+                // Asynchron: der Request wartet nicht auf den Audit-Insert
+                auditService.record(auth.getName(), request.getRequestURI());
             }
         }
         return true;
@@ -4,6 +4,7 @@ import com.chrono.chrono.entities.Company;
 import com.chrono.chrono.entities.User;
 import com.chrono.chrono.repositories.CompanyRepository;
 import com.chrono.chrono.repositories.UserRepository;
+import com.chrono.chrono.services.PdfService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -30,6 +31,8 @@ public class AdminCompanyController {
     private UserRepository userRepository;
     @Autowired
     private CompanyRepository companyRepository;
+    @Autowired
+    private PdfService pdfService;
 
     @GetMapping
     public ResponseEntity<?> getCompany(Principal principal) {
@@ -68,6 +71,7 @@ public class AdminCompanyController {
         Company company = admin.getCompany();
         dto.applyToEntity(company);
         companyRepository.save(company);
+        pdfService.evictTemplates(company.getId());
         return ResponseEntity.ok(CompanySettingsDTO.fromEntity(company));
     }
 
@@ -94,6 +98,7 @@ public class AdminCompanyController {
             }
             company.setLogoPath(target.toString());
             companyRepository.save(company);
+            pdfService.evictTemplates(company.getId());
             return ResponseEntity.ok(Map.of("logoPath", company.getLogoPath()));
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -7,12 +7,14 @@ import com.chrono.chrono.entities.VacationRequest;
 import com.chrono.chrono.repositories.UserRepository;
 import com.chrono.chrono.repositories.UserScheduleRuleRepository;
 import com.chrono.chrono.repositories.VacationRequestRepository;
+import com.chrono.chrono.services.TimeTrackingService;
 import com.chrono.chrono.services.WorkScheduleService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,6 +34,9 @@ public class AdminScheduleRuleController {
     @Autowired
     private UserScheduleRuleRepository ruleRepository;
 
+    @Autowired
+    private TimeTrackingService timeTrackingService;
+
     /**
      * GET /api/admin/schedule-rules?userId=XY
      * Liefert alle Regeln für einen bestimmten User.
@@ -73,6 +78,8 @@ public class AdminScheduleRuleController {
         rule.setDayMode(dto.getDayMode());
 
         ruleRepository.save(rule);
+        workScheduleService.invalidateUserCalendar(rule.getUser());
+        recomputeBalanceSince(rule.getUser(), rule.getStartDate());
         return ResponseEntity.ok(new UserScheduleRuleDTO(rule));
     }
 
@@ -87,6 +94,7 @@ public class AdminScheduleRuleController {
             return ResponseEntity.badRequest().body("Rule not found");
         }
         UserScheduleRule rule = ruleOpt.get();
+        LocalDate previousStart = rule.getStartDate();
         if (dto.getRuleType() != null) {
             rule.setRuleType(dto.getRuleType());
         }
@@ -103,6 +111,11 @@ public class AdminScheduleRuleController {
             rule.setDayMode(dto.getDayMode());
         }
         ruleRepository.save(rule);
+        workScheduleService.invalidateUserCalendar(rule.getUser());
+        // Alte und neue Fassung der Regel können betroffen sein: ab dem früheren Startdatum
+        LocalDate affectedFrom = previousStart == null || rule.getStartDate() == null
+                ? null : (previousStart.isBefore(rule.getStartDate()) ? previousStart : rule.getStartDate());
+        recomputeBalanceSince(rule.getUser(), affectedFrom);
         return ResponseEntity.ok(new UserScheduleRuleDTO(rule));
     }
 
@@ -112,10 +125,26 @@ public class AdminScheduleRuleController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteRule(@PathVariable Long id) {
-        if (!ruleRepository.existsById(id)) {
+        Optional<UserScheduleRule> ruleOpt = ruleRepository.findById(id);
+        if (ruleOpt.isEmpty()) {
             return ResponseEntity.badRequest().body("Rule not found");
         }
-        ruleRepository.deleteById(id);
+        ruleRepository.delete(ruleOpt.get());
+        workScheduleService.invalidateUserCalendar(ruleOpt.get().getUser());
+        recomputeBalanceSince(ruleOpt.get().getUser(), ruleOpt.get().getStartDate());
         return ResponseEntity.ok("Rule deleted");
     }
+
+    /**
+     * Regeln ändern das Soll der Tage ab ihrem Startdatum; die gespeicherten Tagesdifferenzen
+     * werden deshalb von dort bis heute neu berechnet. Ohne Startdatum wirkt die Regel auf
+     * den ganzen Zeitraum, dann wird der Saldo vollständig neu aufgebaut.
+     */
+    private void recomputeBalanceSince(User user, LocalDate from) {
+        LocalDate today = LocalDate.now(ZoneId.of("Europe/Berlin"));
+        if (from != null && from.isAfter(today)) {
+            return;
+        }
+        timeTrackingService.updateUserBalanceForRange(user, from, today);
+    }
 }
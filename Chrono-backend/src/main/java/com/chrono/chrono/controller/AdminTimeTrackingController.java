@@ -5,15 +5,20 @@ import com.chrono.chrono.dto.TimeTrackingEntryDTO;
 import com.chrono.chrono.dto.TimeTrackingImportRowDTO;
 import com.chrono.chrono.entities.User;
 import com.chrono.chrono.repositories.UserRepository;
+import com.chrono.chrono.services.BalanceRebuildJobService;
+import com.chrono.chrono.services.BalanceTraceService;
 import com.chrono.chrono.services.TimeTrackingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.time.LocalDate;
 import java.util.*;
@@ -29,6 +34,10 @@ public class AdminTimeTrackingController {
     private UserRepository userRepository;
     @Autowired
     private TimeTrackingService timeTrackingService;
+    @Autowired
+    private BalanceRebuildJobService balanceRebuildJobService;
+    @Autowired
+    private BalanceTraceService balanceTraceService;
 
     @GetMapping("/all-summaries")
     @PreAuthorize("hasRole('ADMIN') or hasRole('SUPERADMIN')")
@@ -107,9 +116,112 @@ public class AdminTimeTrackingController {
 
     @PostMapping("/rebuild-balances")
     @PreAuthorize("hasRole('ADMIN') or hasRole('SUPERADMIN')")
-    public ResponseEntity<String> rebuildBalances() {
-        timeTrackingService.rebuildAllUserBalancesOnce();
-        return ResponseEntity.accepted().body("Balance-Rebuild erfolgreich angestoßen.");
+    public ResponseEntity<?> rebuildBalances(Principal principal) {
+        String jobId = balanceRebuildJobService.startRebuild("admin:" + principal.getName());
+        return ResponseEntity.accepted().body(Map.of("jobId", jobId, "message", "Balance-Rebuild angestoßen."));
+    }
+
+    @GetMapping("/rebuild-balances/{jobId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPERADMIN')")
+    public ResponseEntity<?> getRebuildJobStatus(@PathVariable String jobId) {
+        return balanceRebuildJobService.getJob(jobId)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok(job.toStatus()))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Job nicht gefunden.")));
+    }
+
+    @GetMapping("/balance-check/{targetUsername}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPERADMIN')")
+    public ResponseEntity<?> checkBalanceConsistency(@PathVariable String targetUsername,
+                                                     @RequestParam(defaultValue = "false") boolean repair,
+                                                     Principal principal) {
+        User adminUser = userRepository.findByUsername(principal.getName()).orElseThrow();
+        User targetUser = userRepository.findByUsername(targetUsername).orElse(null);
+        if (targetUser == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Zielbenutzer nicht gefunden."));
+        }
+        if (!adminUser.getRoles().stream().anyMatch(r -> r.getRoleName().equals("ROLE_SUPERADMIN")) &&
+            (adminUser.getCompany() == null || targetUser.getCompany() == null || !adminUser.getCompany().getId().equals(targetUser.getCompany().getId()))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Admin kann keine Benutzer anderer Firmen prüfen."));
+        }
+        return ResponseEntity.ok(timeTrackingService.checkBalanceConsistency(targetUsername, repair));
+    }
+
+    @GetMapping("/balance-trace")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPERADMIN')")
+    public ResponseEntity<?> getTracedUsers(Principal principal) {
+        User adminUser = userRepository.findByUsername(principal.getName()).orElseThrow();
+        Set<String> traced = balanceTraceService.getTracedUsernames();
+        if (adminUser.getRoles().stream().anyMatch(r -> r.getRoleName().equals("ROLE_SUPERADMIN"))) {
+            return ResponseEntity.ok(traced);
+        }
+        if (adminUser.getCompany() == null || traced.isEmpty()) {
+            return ResponseEntity.ok(Collections.emptySet());
+        }
+        Set<String> companyUsernames = userRepository.findByCompany_Id(adminUser.getCompany().getId()).stream()
+                .map(User::getUsername)
+                .collect(Collectors.toSet());
+        traced.retainAll(companyUsernames);
+        return ResponseEntity.ok(traced);
+    }
+
+    /**
+     * Aktiviert die Soll/Ist-Aufzeichnung für einen Benutzer. Mit {@code rebuild=true}
+     * wird das Saldo direkt neu berechnet, sodass der Puffer die komplette Historie enthält.
+     */
+    @PostMapping("/balance-trace/{targetUsername}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPERADMIN')")
+    public ResponseEntity<?> enableBalanceTrace(@PathVariable String targetUsername,
+                                                @RequestParam(defaultValue = "false") boolean rebuild,
+                                                Principal principal) {
+        User targetUser = userRepository.findByUsername(targetUsername).orElse(null);
+        if (targetUser == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Zielbenutzer nicht gefunden."));
+        }
+        if (!canAccessUser(principal, targetUser)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Admin kann keine Benutzer anderer Firmen prüfen."));
+        }
+        balanceTraceService.enable(targetUsername);
+        if (rebuild) {
+            timeTrackingService.rebuildUserBalance(targetUser);
+        }
+        return ResponseEntity.ok(Map.of("message", "Saldo-Trace für " + targetUsername + " aktiviert."));
+    }
+
+    @DeleteMapping("/balance-trace/{targetUsername}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPERADMIN')")
+    public ResponseEntity<?> disableBalanceTrace(@PathVariable String targetUsername, Principal principal) {
+        User targetUser = userRepository.findByUsername(targetUsername).orElse(null);
+        if (targetUser != null && !canAccessUser(principal, targetUser)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Admin kann keine Benutzer anderer Firmen prüfen."));
+        }
+        balanceTraceService.disable(targetUsername);
+        return ResponseEntity.ok(Map.of("message", "Saldo-Trace für " + targetUsername + " deaktiviert."));
+    }
+
+    @GetMapping("/balance-trace/{targetUsername}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPERADMIN')")
+    public ResponseEntity<?> downloadBalanceTrace(@PathVariable String targetUsername, Principal principal) {
+        User targetUser = userRepository.findByUsername(targetUsername).orElse(null);
+        if (targetUser == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Zielbenutzer nicht gefunden."));
+        }
+        if (!canAccessUser(principal, targetUser)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", "Admin kann keine Benutzer anderer Firmen prüfen."));
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=balance-trace-" + targetUsername + ".csv");
+        return ResponseEntity.ok().headers(headers)
+                .body(balanceTraceService.exportCsv(targetUsername).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private boolean canAccessUser(Principal principal, User targetUser) {
+        User adminUser = userRepository.findByUsername(principal.getName()).orElseThrow();
+        if (adminUser.getRoles().stream().anyMatch(r -> r.getRoleName().equals("ROLE_SUPERADMIN"))) {
+            return true;
+        }
+        return adminUser.getCompany() != null && targetUser.getCompany() != null
+                && adminUser.getCompany().getId().equals(targetUser.getCompany().getId());
     }
 
     @GetMapping("/admin/weekly-balance")
@@ -7,8 +7,10 @@ import com.chrono.chrono.entities.Role;
 import com.chrono.chrono.entities.User;
 import com.chrono.chrono.repositories.*;
 import com.chrono.chrono.services.EmploymentModelHistoryService;
+import com.chrono.chrono.services.PrincipalCacheService;
 import com.chrono.chrono.services.TimeTrackingService;
 import com.chrono.chrono.services.VacationService;
+import com.chrono.chrono.services.WorkScheduleService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -62,6 +64,12 @@ public class AdminUserController {
     @Autowired
     private EmploymentModelHistoryService employmentModelHistoryService;
 
+    @Autowired
+    private WorkScheduleService workScheduleService;
+
+    @Autowired
+    private PrincipalCacheService principalCacheService;
+
     @GetMapping
     public ResponseEntity<List<UserDTO>> getAllUsers(Principal principal) {
         User admin = userRepository.findByUsername(principal.getName())
@@ -290,6 +298,9 @@ public class AdminUserController {
                 return ResponseEntity.status(403).body("Admin cannot update user from a different company or a user not assigned to any company.");
             }
         }
+        // Passwort-, Rollen- oder Firmenwechsel entwerten bestehende Tokens
+        boolean revokeTokens = false;
+
         // SUPERADMIN specific logic for changing user's company
         if (userDTO.getCompanyId() != null && adminUser.getRoles().stream().anyMatch(r -> r.getRoleName().equals("ROLE_SUPERADMIN"))) {
             if (existingUser.getCompany() == null || !userDTO.getCompanyId().equals(existingUser.getCompany().getId())) {
@@ -297,8 +308,10 @@ public class AdminUserController {
                         .orElse(null);
                 if (newCompany != null) {
                     existingUser.setCompany(newCompany);
+                    revokeTokens = true;
                 } else if (userDTO.getCompanyId() == 0L) { // Convention for unassigning company
                     existingUser.setCompany(null);
+                    revokeTokens = true;
                 }
                 else {
                     return ResponseEntity.badRequest().body("Target companyId for user update not found.");
@@ -376,6 +389,7 @@ public class AdminUserController {
 
         if (newPassword != null && !newPassword.trim().isEmpty()) {
             existingUser.setPassword(passwordEncoder.encode(newPassword));
+            revokeTokens = true;
             // If user is admin/superadmin, update adminPassword as well
             if (existingUser.getRoles().stream().anyMatch(r -> r.getRoleName().equals("ROLE_ADMIN") || r.getRoleName().equals("ROLE_SUPERADMIN"))) {
                 existingUser.setAdminPassword(existingUser.getPassword());
@@ -399,6 +413,9 @@ public class AdminUserController {
 
             Role dbRole = roleRepository.findByRoleName(finalRoleName)
                     .orElseGet(() -> roleRepository.save(new Role(finalRoleName)));
+            boolean roleChanged = existingUser.getRoles().size() != 1
+                    || !finalRoleName.equals(existingUser.getRoles().iterator().next().getRoleName());
+            revokeTokens = revokeTokens || roleChanged;
             existingUser.getRoles().clear();
             existingUser.getRoles().add(dbRole);
         }
@@ -484,6 +501,9 @@ public class AdminUserController {
             // If schedule DTO fields are all null, the existing schedule is preserved.
         }
 
+        if (revokeTokens) {
+            principalCacheService.revokeTokens(existingUser);
+        }
         User updatedUser = userRepository.save(existingUser);
         EmploymentModelType updatedModel = employmentModelHistoryService.deriveCurrentModel(updatedUser);
         if (updatedModel != previousModel) {
@@ -507,6 +527,7 @@ public class AdminUserController {
             }
         }
 
+        workScheduleService.invalidateUserCalendar(updatedUser);
         try {
             timeTrackingService.rebuildUserBalance(updatedUser);
             logger.info("User balance rebuilt for {} after update by admin {}", updatedUser.getUsername(), adminUser.getUsername());
@@ -547,6 +568,7 @@ public class AdminUserController {
         }
 
         userToDelete.setDeleted(true);
+        principalCacheService.revokeTokens(userToDelete);
         userRepository.save(userToDelete);
         logger.info("Admin {} marked user {} as deleted", adminUser.getUsername(), userToDelete.getUsername());
         return ResponseEntity.ok(Map.of("message", "User deleted successfully"));
@@ -7,6 +7,7 @@ import com.chrono.chrono.repositories.CompanyRepository;
 import com.chrono.chrono.repositories.RoleRepository;
 import com.chrono.chrono.repositories.UserRepository;
 import com.chrono.chrono.services.StripeService;
+import com.chrono.chrono.services.TimeTrackingService;
 import com.stripe.model.PaymentIntent;
 import com.chrono.chrono.utils.RegistrationFeatures;
 // import com.chrono.chrono.utils.PasswordEncoderConfig; // Wird nicht direkt verwendet, PasswordEncoder reicht
@@ -28,6 +29,7 @@ public class CompanyManagementController {
     @Autowired private RoleRepository    roleRepository;
     @Autowired private PasswordEncoder   passwordEncoder;
     @Autowired private StripeService     stripeService;
+    @Autowired private TimeTrackingService timeTrackingService;
 
     @GetMapping
     public List<CompanyDTO> getAllCompanies() {
@@ -157,6 +159,7 @@ public class CompanyManagementController {
                     // Das DTO sollte den aktuellen 'active' Status enthalten, nicht nur für den Toggle
                     existingCompany.setActive(companyDTO.isActive());
 
+                    String previousCanton = existingCompany.getCantonAbbreviation();
                     if (companyDTO.getCantonAbbreviation() != null) {
                         String canton = companyDTO.getCantonAbbreviation().trim().toUpperCase();
                         existingCompany.setCantonAbbreviation(canton.isEmpty() ? null : canton);
@@ -179,6 +182,11 @@ public class CompanyManagementController {
                     // existingCompany.setCanceled(companyDTO.isCanceled());
 
                     companyRepository.save(existingCompany);
+                    // Anderer Kanton heisst andere Feiertage: Salden aller Mitarbeitenden neu aufbauen
+                    if (!Objects.equals(previousCanton, existingCompany.getCantonAbbreviation())) {
+                        userRepository.findByCompany_IdAndDeletedFalse(existingCompany.getId())
+                                .forEach(timeTrackingService::rebuildUserBalance);
+                    }
                     return ResponseEntity.ok(CompanyDTO.fromEntity(existingCompany));
                 })
                 .orElseGet(() -> ResponseEntity.badRequest().body("Company not found"));
@@ -3,6 +3,8 @@ package com.chrono.chrono.controller;
 import com.chrono.chrono.entities.Payslip;
 import com.chrono.chrono.dto.PayslipDTO;
 import com.chrono.chrono.services.PayrollService;
+import com.chrono.chrono.services.PayslipArchiveService;
+import com.chrono.chrono.services.PayslipExportService;
 import com.chrono.chrono.entities.User;
 import com.chrono.chrono.repositories.UserRepository;
 import com.chrono.chrono.repositories.PayslipRepository;
@@ -14,7 +16,10 @@ import org.springframework.http.MediaType;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import jakarta.servlet.http.HttpServletResponse;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 import java.security.Principal;
@@ -31,6 +36,12 @@ public class PayslipController {
     @Autowired
     private PayslipRepository payslipRepository;
 
+    @Autowired
+    private PayslipArchiveService payslipArchiveService;
+
+    @Autowired
+    private PayslipExportService payslipExportService;
+
     @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
     @PostMapping("/generate")
     public ResponseEntity<PayslipDTO> generate(
@@ -93,7 +104,7 @@ public class PayslipController {
      */
     @GetMapping("/pdf/{id}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<byte[]> myPayslipPdf(@PathVariable Long id,
+    public ResponseEntity<StreamingResponseBody> myPayslipPdf(@PathVariable Long id,
                                                @RequestParam(defaultValue = "de") String lang,
                                                Principal principal) {
         User user = userRepository.findByUsername(principal.getName()).orElseThrow();
@@ -108,12 +119,7 @@ public class PayslipController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
 
-        byte[] bytes = payrollService.getPayslipPdf(id, lang);
-        if (bytes == null) return ResponseEntity.notFound().build();
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=payslip-" + id + ".pdf");
-        return ResponseEntity.ok().headers(headers).body(bytes);
+        return pdfResponse(id, lang);
     }
 
     @PreAuthorize("hasRole('ADMIN') or hasRole('PAYROLL_ADMIN')")
@@ -188,45 +194,99 @@ public class PayslipController {
 
     @PreAuthorize("hasRole('ADMIN') or hasRole('PAYROLL_ADMIN')")
     @GetMapping("/admin/pdf/{id}")
-    public ResponseEntity<byte[]> downloadPdf(@PathVariable Long id,
+    public ResponseEntity<StreamingResponseBody> downloadPdf(@PathVariable Long id,
             @RequestParam(defaultValue = "de") String lang) {
-        byte[] bytes = payrollService.getPayslipPdf(id, lang);
-        if (bytes == null) return ResponseEntity.notFound().build();
+        if (!payslipRepository.existsById(id)) return ResponseEntity.notFound().build();
+        return pdfResponse(id, lang);
+    }
+
+    /**
+     * Streams all payslips of the admin's company in the given period as one ZIP archive.
+     * Written synchronously to the response because large archives take longer than the
+     * async request timeout.
+     */
+    @PreAuthorize("hasRole('ADMIN') or hasRole('PAYROLL_ADMIN')")
+    @GetMapping("/admin/export/zip")
+    public void exportZip(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+                          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+                          @RequestParam(defaultValue = "de") String lang,
+                          Principal principal,
+                          HttpServletResponse response) throws IOException {
+        User admin = userRepository.findByUsername(principal.getName()).orElseThrow();
+        if (admin.getCompany() == null) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Admin has no company");
+            return;
+        }
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=payslips-" + start + "-" + end + ".zip");
+        payslipArchiveService.writeArchive(admin.getCompany().getId(), start, end, lang, response.getOutputStream());
+    }
+
+    private ResponseEntity<StreamingResponseBody> pdfResponse(Long id, String lang) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_PDF);
         headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=payslip-" + id + ".pdf");
-        return ResponseEntity.ok().headers(headers).body(bytes);
+        StreamingResponseBody body = out -> payrollService.writePayslipPdf(id, lang, out);
+        return ResponseEntity.ok().headers(headers).body(body);
     }
 
+    /**
+     * Streams the payslips of the admin's company as CSV. Rows are read with a database cursor
+     * and written one by one, so the export does not depend on the number of payslips.
+     * Superadmins without a company export all companies.
+     */
     @PreAuthorize("hasRole('ADMIN') or hasRole('PAYROLL_ADMIN')")
     @GetMapping("/admin/export")
-    public ResponseEntity<String> exportCsv(@RequestParam(defaultValue = "en") String lang) {
-        StringBuilder sb = new StringBuilder();
-        if ("de".equalsIgnoreCase(lang)) {
-            sb.append("BenutzerID,Start,Ende,Brutto,Abzuege,Netto,Waehrung\n");
-        } else {
-            sb.append("userId,periodStart,periodEnd,gross,deductions,net,currency\n");
-        }
-        payrollService.getAllPayslips().forEach(ps -> {
-            String currency = (ps.getUser() != null && "DE".equalsIgnoreCase(ps.getUser().getCountry())) ? "EUR" : "CHF";
-            sb.append(ps.getUser().getId()).append(',')
-              .append(ps.getPeriodStart()).append(',')
-              .append(ps.getPeriodEnd()).append(',')
-              .append(ps.getGrossSalary()).append(',')
-              .append(ps.getDeductions()).append(',')
-              .append(ps.getNetSalary()).append(',')
-              .append(currency).append('\n');
-        });
+    public ResponseEntity<StreamingResponseBody> exportCsv(
+            @RequestParam(defaultValue = "en") String lang,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(required = false) Boolean approved,
+            Principal principal) {
+        PayslipExportService.Filter filter = exportFilter(principal, start, end, approved);
+        if (filter == null) return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.TEXT_PLAIN);
         headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=payslips.csv");
-        return ResponseEntity.ok().headers(headers).body(sb.toString());
+        StreamingResponseBody body = out -> payslipExportService.writeCsv(filter, lang, out);
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    /**
+     * Same rows as {@link #exportCsv} as an Excel workbook, written with a sliding row window.
+     */
+    @PreAuthorize("hasRole('ADMIN') or hasRole('PAYROLL_ADMIN')")
+    @GetMapping("/admin/export/xlsx")
+    public ResponseEntity<StreamingResponseBody> exportExcel(
+            @RequestParam(defaultValue = "en") String lang,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(required = false) Boolean approved,
+            Principal principal) {
+        PayslipExportService.Filter filter = exportFilter(principal, start, end, approved);
+        if (filter == null) return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(
+                "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=payslips.xlsx");
+        StreamingResponseBody body = out -> payslipExportService.writeExcel(filter, lang, out);
+        return ResponseEntity.ok().headers(headers).body(body);
     }
 
     @PreAuthorize("hasRole('ADMIN') or hasRole('PAYROLL_ADMIN')")
     @GetMapping("/admin/backup")
-    public ResponseEntity<String> backup() {
+    public ResponseEntity<StreamingResponseBody> backup(Principal principal) {
         // Default-Sprache: Englisch
-        return exportCsv("en");
+        return exportCsv("en", null, null, null, principal);
+    }
+
+    private PayslipExportService.Filter exportFilter(Principal principal, LocalDate start, LocalDate end, Boolean approved) {
+        User admin = userRepository.findByUsername(principal.getName()).orElseThrow();
+        if (admin.getCompany() != null) {
+            return new PayslipExportService.Filter(admin.getCompany().getId(), start, end, approved);
+        }
+        boolean superAdmin = admin.getRoles().stream().anyMatch(r -> r.getRoleName().equals("ROLE_SUPERADMIN"));
+        return superAdmin ? new PayslipExportService.Filter(null, start, end, approved) : null;
     }
 }
@@ -8,6 +8,7 @@ import com.chrono.chrono.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.security.Principal;
@@ -84,22 +85,26 @@ public class ReportController {
         }
     }
 
+    /**
+     * Streams the timesheet CSV month by month instead of building it in memory.
+     */
     @GetMapping("/timesheet/csv")
-    public ResponseEntity<byte[]> downloadCsv(
+    public ResponseEntity<StreamingResponseBody> downloadCsv(
             @RequestParam String username,
             @RequestParam String startDate,
             @RequestParam String endDate
     ) {
-        byte[] csv = reportService.generateCsv(
-                username,
-                LocalDate.parse(startDate),
-                LocalDate.parse(endDate));
+        // Benutzer vor dem Streamen prüfen, damit ein Fehler noch als Status ankommt
+        userService.getUserByUsername(username);
+        LocalDate start = LocalDate.parse(startDate);
+        LocalDate end = LocalDate.parse(endDate);
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.TEXT_PLAIN);
         headers.setContentDisposition(ContentDisposition.attachment().filename("timesheet.csv").build());
 
-        return new ResponseEntity<>(csv, headers, HttpStatus.OK);
+        StreamingResponseBody body = out -> reportService.writeCsv(username, start, end, out);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
 
     @GetMapping("/timesheet/ics")
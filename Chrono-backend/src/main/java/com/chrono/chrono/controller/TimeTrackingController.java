@@ -96,7 +96,11 @@ public class TimeTrackingController {
     }
 
     @GetMapping("/history")
-    public ResponseEntity<List<DailyTimeSummaryDTO>> getUserHistory(@RequestParam String username, Principal principal) {
+    public ResponseEntity<List<DailyTimeSummaryDTO>> getUserHistory(
+            @RequestParam String username,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) LocalDate endDate,
+            Principal principal) {
         User requestingUser = userService.getUserByUsername(principal.getName());
         User targetUser = userService.getUserByUsername(username);
         boolean canAccess = requestingUser.getId().equals(targetUser.getId()) ||
@@ -105,6 +109,9 @@ public class TimeTrackingController {
                              requestingUser.getCompany() != null && targetUser.getCompany() != null &&
                              requestingUser.getCompany().getId().equals(targetUser.getCompany().getId()));
         if (canAccess) {
+            if (startDate != null && endDate != null) {
+                return ResponseEntity.ok(timeTrackingService.getUserHistory(username, startDate, endDate));
+            }
             return ResponseEntity.ok(timeTrackingService.getUserHistory(username));
         } else {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
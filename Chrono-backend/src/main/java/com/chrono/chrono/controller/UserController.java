@@ -5,6 +5,7 @@ import com.chrono.chrono.dto.UserDTO;
 import com.chrono.chrono.entities.User;
 import com.chrono.chrono.exceptions.UserNotFoundException;
 import com.chrono.chrono.repositories.UserRepository;
+import com.chrono.chrono.services.PrincipalCacheService;
 import com.chrono.chrono.services.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +25,9 @@ public class UserController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PrincipalCacheService principalCacheService;
+
     public UserController(UserService userService) {
         this.userService = userService;
     }
@@ -57,6 +61,8 @@ public class UserController {
             user.setAdminPassword(encodedNew);
         }
 
+        // Bestehende Sessions auf anderen Geräten abmelden
+        principalCacheService.revokeTokens(user);
         userRepository.save(user);
         return ResponseEntity.ok("Password updated successfully");
     }
@@ -113,6 +119,7 @@ public class UserController {
     public ResponseEntity<Void> softDelete(@PathVariable Long id) {
         User u = userRepository.findById(id).orElseThrow();
         u.setDeleted(true);
+        principalCacheService.revokeTokens(u);
         userRepository.save(u);
         return ResponseEntity.ok().build();
     }
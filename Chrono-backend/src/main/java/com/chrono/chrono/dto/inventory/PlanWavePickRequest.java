@@ -6,6 +6,7 @@ public class PlanWavePickRequest {
 
     private List<Long> salesOrderIds;
     private Integer maxOrdersPerWave;
+    private Integer maxUnitsPerWave;
     private Boolean includeDrafts;
 
     public List<Long> getSalesOrderIds() {
@@ -24,6 +25,14 @@ public class PlanWavePickRequest {
         this.maxOrdersPerWave = maxOrdersPerWave;
     }
 
+    public Integer getMaxUnitsPerWave() {
+        return maxUnitsPerWave;
+    }
+
+    public void setMaxUnitsPerWave(Integer maxUnitsPerWave) {
+        this.maxUnitsPerWave = maxUnitsPerWave;
+    }
+
     public Boolean getIncludeDrafts() {
         return includeDrafts;
     }
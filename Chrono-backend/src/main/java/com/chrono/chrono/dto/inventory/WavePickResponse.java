@@ -11,10 +11,15 @@ public class WavePickResponse {
     private double totalDistance;
     private double totalEstimatedDurationSeconds;
     private double averageUnitsPerWave;
+    private String strategy;
+    private double baselineDistance;
+    private double distanceSavings;
+    private double distanceSavingsPercent;
 
     public WavePickResponse(List<WavePickWaveDTO> waves, int totalOrders, int totalUnits,
                             int totalSkus, double totalDistance, double totalEstimatedDurationSeconds,
-                            double averageUnitsPerWave) {
+                            double averageUnitsPerWave, String strategy, double baselineDistance,
+                            double distanceSavings, double distanceSavingsPercent) {
         this.waves = waves;
         this.totalOrders = totalOrders;
         this.totalUnits = totalUnits;
@@ -22,6 +27,10 @@ public class WavePickResponse {
         this.totalDistance = totalDistance;
         this.totalEstimatedDurationSeconds = totalEstimatedDurationSeconds;
         this.averageUnitsPerWave = averageUnitsPerWave;
+        this.strategy = strategy;
+        this.baselineDistance = baselineDistance;
+        this.distanceSavings = distanceSavings;
+        this.distanceSavingsPercent = distanceSavingsPercent;
     }
 
     public List<WavePickWaveDTO> getWaves() {
@@ -51,4 +60,20 @@ public class WavePickResponse {
     public double getAverageUnitsPerWave() {
         return averageUnitsPerWave;
     }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    public double getBaselineDistance() {
+        return baselineDistance;
+    }
+
+    public double getDistanceSavings() {
+        return distanceSavings;
+    }
+
+    public double getDistanceSavingsPercent() {
+        return distanceSavingsPercent;
+    }
 }
@@ -0,0 +1,93 @@
+package com.chrono.chrono.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Materialisierte Tageszusammenfassung der Stempelungen eines Users. Wird bei jeder
+ * Änderung der Stempelungen eines Tages neu geschrieben, damit Verlauf, Dashboard und
+ * Reports nur den angefragten Datumsbereich lesen müssen.
+ */
+@Entity
+@Table(name = "daily_time_summary",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "summary_date"}))
+public class DailyTimeSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "summary_date", nullable = false)
+    private LocalDate summaryDate;
+
+    @Column(name = "worked_minutes", nullable = false)
+    private int workedMinutes;
+
+    @Column(name = "break_minutes", nullable = false)
+    private int breakMinutes;
+
+    @Column(name = "entry_count", nullable = false)
+    private int entryCount;
+
+    /** Prüfsumme über Zeitpunkt, Typ und Quelle der Stempelungen; erkennt auch reine Zeitkorrekturen. */
+    @Column(name = "entries_checksum")
+    private Long entriesChecksum;
+
+    @Column(name = "first_start_time")
+    private LocalTime firstStartTime;
+
+    @Column(name = "last_end_time")
+    private LocalTime lastEndTime;
+
+    @Column(name = "is_open", nullable = false)
+    private boolean open;
+
+    @Column(name = "needs_correction", nullable = false)
+    private boolean needsCorrection;
+
+    public DailyTimeSummary() {
+    }
+
+    public DailyTimeSummary(User user, LocalDate summaryDate) {
+        this.user = user;
+        this.summaryDate = summaryDate;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public User getUser() { return user; }
+    public void setUser(User user) { this.user = user; }
+    public LocalDate getSummaryDate() { return summaryDate; }
+    public void setSummaryDate(LocalDate summaryDate) { this.summaryDate = summaryDate; }
+    public int getWorkedMinutes() { return workedMinutes; }
+    public void setWorkedMinutes(int workedMinutes) { this.workedMinutes = workedMinutes; }
+    public int getBreakMinutes() { return breakMinutes; }
+    public void setBreakMinutes(int breakMinutes) { this.breakMinutes = breakMinutes; }
+    public int getEntryCount() { return entryCount; }
+    public void setEntryCount(int entryCount) { this.entryCount = entryCount; }
+    public Long getEntriesChecksum() { return entriesChecksum; }
+    public void setEntriesChecksum(Long entriesChecksum) { this.entriesChecksum = entriesChecksum; }
+    public LocalTime getFirstStartTime() { return firstStartTime; }
+    public void setFirstStartTime(LocalTime firstStartTime) { this.firstStartTime = firstStartTime; }
+    public LocalTime getLastEndTime() { return lastEndTime; }
+    public void setLastEndTime(LocalTime lastEndTime) { this.lastEndTime = lastEndTime; }
+    public boolean isOpen() { return open; }
+    public void setOpen(boolean open) { this.open = open; }
+    public boolean isNeedsCorrection() { return needsCorrection; }
+    public void setNeedsCorrection(boolean needsCorrection) { this.needsCorrection = needsCorrection; }
+}
@@ -2,6 +2,7 @@ package com.chrono.chrono.entities;
 
 import jakarta.persistence.*;
 import jakarta.persistence.Convert;
+import org.hibernate.annotations.BatchSize;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -30,14 +31,17 @@ public class Payslip {
     private boolean payoutOvertime = false;
 
     @ElementCollection
+    @BatchSize(size = 50)
     @CollectionTable(name = "payslip_earnings", joinColumns = @JoinColumn(name = "payslip_id"))
     private List<PayComponent> earnings = new ArrayList<>();
 
     @ElementCollection
+    @BatchSize(size = 50)
     @CollectionTable(name = "payslip_deductions", joinColumns = @JoinColumn(name = "payslip_id"))
     private List<PayComponent> deductionsList = new ArrayList<>();
 
     @ElementCollection
+    @BatchSize(size = 50)
     @CollectionTable(name = "payslip_employer_contribs", joinColumns = @JoinColumn(name = "payslip_id"))
     private List<PayComponent> employerContribList = new ArrayList<>();
 
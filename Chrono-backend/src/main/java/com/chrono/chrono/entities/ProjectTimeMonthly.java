@@ -0,0 +1,63 @@
+package com.chrono.chrono.entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Vorberechnete Projektzeit eines abgeschlossenen Monats: Minuten je User und
+ * START/ENDE-Paar-Schlüssel. Projekt und Aufgabe werden erst beim Lesen aufgelöst, damit
+ * Änderungen an Aufgaben (Projektzuordnung, abrechenbar) den Cache nicht ungültig machen.
+ * Wird von {@link com.chrono.chrono.services.ProjectAnalyticsService} per JDBC geschrieben.
+ */
+@Entity
+@Table(name = "project_time_monthly",
+        indexes = @Index(name = "idx_project_time_monthly_company_month", columnList = "company_id, month_start"))
+public class ProjectTimeMonthly {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "end_project_id")
+    private Long endProjectId;
+
+    @Column(name = "end_task_id")
+    private Long endTaskId;
+
+    @Column(name = "start_project_id")
+    private Long startProjectId;
+
+    @Column(name = "start_task_id")
+    private Long startTaskId;
+
+    @Column(nullable = false)
+    private long minutes;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getCompanyId() { return companyId; }
+    public void setCompanyId(Long companyId) { this.companyId = companyId; }
+    public LocalDate getMonthStart() { return monthStart; }
+    public void setMonthStart(LocalDate monthStart) { this.monthStart = monthStart; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public Long getEndProjectId() { return endProjectId; }
+    public void setEndProjectId(Long endProjectId) { this.endProjectId = endProjectId; }
+    public Long getEndTaskId() { return endTaskId; }
+    public void setEndTaskId(Long endTaskId) { this.endTaskId = endTaskId; }
+    public Long getStartProjectId() { return startProjectId; }
+    public void setStartProjectId(Long startProjectId) { this.startProjectId = startProjectId; }
+    public Long getStartTaskId() { return startTaskId; }
+    public void setStartTaskId(Long startTaskId) { this.startTaskId = startTaskId; }
+    public long getMinutes() { return minutes; }
+    public void setMinutes(long minutes) { this.minutes = minutes; }
+}
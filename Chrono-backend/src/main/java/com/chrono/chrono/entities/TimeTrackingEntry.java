@@ -2,6 +2,7 @@ package com.chrono.chrono.entities;
 
 import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDateTime;
 import java.time.LocalDate; // Import für getEntryDate
 import java.time.LocalTime; // Import für getEntryTime
@@ -14,8 +15,11 @@ import com.chrono.chrono.entities.Task;
 @Table(name = "time_tracking_entries",
         indexes = {
                 // Index für schnelle Abfragen pro User und Zeit
-                @Index(columnList = "user_id, entry_timestamp")
+                @Index(columnList = "user_id, entry_timestamp"),
+                // Index für tagesbezogene Abfragen über alle User (z.B. automatisches Arbeitsende)
+                @Index(name = "idx_time_tracking_entries_timestamp", columnList = "entry_timestamp")
         })
+@EntityListeners(com.chrono.chrono.entities.listeners.TimeTrackingEntryAnalyticsListener.class)
 public class TimeTrackingEntry {
 
     @Id
@@ -65,6 +69,11 @@ public class TimeTrackingEntry {
     @Column(name = "approved", nullable = false)
     private boolean approved = false;
 
+    // Zeitpunkt beim Laden, damit bei einer Verschiebung auch der alte Monat der Projektauswertung verworfen wird
+    @Transient
+    @JsonIgnore
+    private LocalDateTime loadedEntryTimestamp;
+
     public enum PunchType {
         START,
         ENDE
@@ -140,6 +149,13 @@ public class TimeTrackingEntry {
     public boolean isApproved() { return approved; }
     public void setApproved(boolean approved) { this.approved = approved; }
 
+    public LocalDateTime getLoadedEntryTimestamp() { return loadedEntryTimestamp; }
+
+    @PostLoad
+    public void rememberLoadedEntryTimestamp() {
+        this.loadedEntryTimestamp = entryTimestamp;
+    }
+
     @Transient
     public LocalDate getEntryDate() {
         return entryTimestamp != null ? entryTimestamp.toLocalDate() : null;
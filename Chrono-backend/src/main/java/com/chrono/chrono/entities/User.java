@@ -86,6 +86,10 @@ public class User {
     @Column(name = "demo", nullable = false)
     private boolean demo = false;
 
+    // Wird bei Passwort-, Rollen- oder Firmenwechsel erhöht und entwertet damit alle bestehenden Tokens
+    @Column(name = "token_version", nullable = false)
+    private long tokenVersion = 0;
+
     @Column(nullable = false)
     private Integer trackingBalanceInMinutes = 0; // Default-Wert direkt hier
 
@@ -274,6 +278,9 @@ public class User {
     public boolean isDemo() { return demo; }
     public void setDemo(boolean demo) { this.demo = demo; }
 
+    public long getTokenVersion() { return tokenVersion; }
+    public void setTokenVersion(long tokenVersion) { this.tokenVersion = tokenVersion; }
+
     public Integer getTrackingBalanceInMinutes() {
         return trackingBalanceInMinutes != null ? trackingBalanceInMinutes : 0;
     }
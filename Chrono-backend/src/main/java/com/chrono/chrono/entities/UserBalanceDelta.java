@@ -0,0 +1,71 @@
+package com.chrono.chrono.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import java.time.LocalDate;
+
+/**
+ * Saldo-Differenz (Ist - Soll) eines Users für einen Tag bzw. – bei prozentualen
+ * Mitarbeitenden – für eine Woche. Die Summe aller Zeilen eines Users (abzüglich
+ * ausbezahlter Überstunden) ergibt {@link User#getTrackingBalanceInMinutes()}.
+ */
+@Entity
+@Table(name = "user_balance_deltas",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "period_start"}))
+public class UserBalanceDelta {
+
+    public enum PeriodType {
+        DAY,
+        WEEK
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "period_type", nullable = false, length = 10)
+    private PeriodType periodType;
+
+    @Column(name = "delta_minutes", nullable = false)
+    private int deltaMinutes;
+
+    public UserBalanceDelta() {
+    }
+
+    public UserBalanceDelta(User user, LocalDate periodStart, PeriodType periodType, int deltaMinutes) {
+        this.user = user;
+        this.periodStart = periodStart;
+        this.periodType = periodType;
+        this.deltaMinutes = deltaMinutes;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public User getUser() { return user; }
+    public void setUser(User user) { this.user = user; }
+    public LocalDate getPeriodStart() { return periodStart; }
+    public void setPeriodStart(LocalDate periodStart) { this.periodStart = periodStart; }
+    public PeriodType getPeriodType() { return periodType; }
+    public void setPeriodType(PeriodType periodType) { this.periodType = periodType; }
+    public int getDeltaMinutes() { return deltaMinutes; }
+    public void setDeltaMinutes(int deltaMinutes) { this.deltaMinutes = deltaMinutes; }
+}
@@ -0,0 +1,82 @@
+package com.chrono.chrono.entities.inventory;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Vermerk über eine gelöschte Lagerstammdaten- oder Bestandszeile. Der periodische Abgleich
+ * liest nur geänderte Zeilen über {@code updated_at}; gelöschte Zeilen tauchen dort nicht mehr
+ * auf und werden über diese Vermerke aus den abgeleiteten Indizes entfernt.
+ */
+@Entity
+@Table(name = "inv_tombstones", indexes = @Index(name = "idx_inv_tombstones_deleted_at", columnList = "deleted_at"))
+public class InventoryTombstone {
+
+    public enum EntityType {
+        PRODUCT,
+        WAREHOUSE,
+        STOCK_LEVEL
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 16)
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    /** Bei Bestandszeilen: Produkt und Lager der gelöschten Zeile. */
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "warehouse_id")
+    private Long warehouseId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+
+    public InventoryTombstone() {
+    }
+
+    public InventoryTombstone(EntityType entityType, Long entityId, Long productId, Long warehouseId,
+                              Instant deletedAt) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.productId = productId;
+        this.warehouseId = warehouseId;
+        this.deletedAt = deletedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Long getWarehouseId() {
+        return warehouseId;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+}
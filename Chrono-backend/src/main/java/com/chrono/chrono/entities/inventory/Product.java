@@ -3,8 +3,10 @@ package com.chrono.chrono.entities.inventory;
 import jakarta.persistence.*;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 @Entity
+@EntityListeners(com.chrono.chrono.entities.listeners.InventoryTombstoneListener.class)
 @Table(name = "inv_products")
 public class Product {
 
@@ -33,6 +35,15 @@ public class Product {
     @Column(nullable = false)
     private boolean active = true;
 
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    public void touch() {
+        this.updatedAt = Instant.now();
+    }
+
     public Long getId() {
         return id;
     }
@@ -96,4 +107,8 @@ public class Product {
     public void setActive(boolean active) {
         this.active = active;
     }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
 }
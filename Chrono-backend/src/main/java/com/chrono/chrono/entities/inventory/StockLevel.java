@@ -3,8 +3,10 @@ package com.chrono.chrono.entities.inventory;
 import jakarta.persistence.*;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 @Entity
+@EntityListeners(com.chrono.chrono.entities.listeners.InventoryTombstoneListener.class)
 @Table(name = "inv_stock_levels", uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "warehouse_id"}))
 public class StockLevel {
 
@@ -23,6 +25,15 @@ public class StockLevel {
     @Column(precision = 19, scale = 4, nullable = false)
     private BigDecimal quantity = BigDecimal.ZERO;
 
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    public void touch() {
+        this.updatedAt = Instant.now();
+    }
+
     public Long getId() {
         return id;
     }
@@ -54,4 +65,8 @@ public class StockLevel {
     public void setQuantity(BigDecimal quantity) {
         this.quantity = quantity;
     }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
 }
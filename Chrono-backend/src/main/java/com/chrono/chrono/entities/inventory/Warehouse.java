@@ -2,7 +2,10 @@ package com.chrono.chrono.entities.inventory;
 
 import jakarta.persistence.*;
 
+import java.time.Instant;
+
 @Entity
+@EntityListeners(com.chrono.chrono.entities.listeners.InventoryTombstoneListener.class)
 @Table(name = "inv_warehouses")
 public class Warehouse {
 
@@ -19,6 +22,15 @@ public class Warehouse {
     @Column(length = 512)
     private String location;
 
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    public void touch() {
+        this.updatedAt = Instant.now();
+    }
+
     public Long getId() {
         return id;
     }
@@ -50,4 +62,8 @@ public class Warehouse {
     public void setLocation(String location) {
         this.location = location;
     }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
 }
@@ -0,0 +1,57 @@
+package com.chrono.chrono.entities.inventory;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Stand eines Ledger-Snapshots: alle Einträge bis einschliesslich {@code lastSequence}
+ * sind in den Tagesaggregaten enthalten. {@code lastHash} dient der Kettenprüfung als
+ * Ankerpunkt.
+ */
+@Entity
+@Table(name = "wh_ledger_checkpoint")
+public class WarehouseLedgerCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "last_sequence", nullable = false)
+    private long lastSequence;
+
+    @Column(name = "last_hash", length = 64)
+    private String lastHash;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public WarehouseLedgerCheckpoint() {
+    }
+
+    public WarehouseLedgerCheckpoint(long lastSequence, String lastHash, Instant createdAt) {
+        this.lastSequence = lastSequence;
+        this.lastHash = lastHash;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public String getLastHash() {
+        return lastHash;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,83 @@
+package com.chrono.chrono.entities.inventory;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * Tagesaggregat der Lagerbewegungen pro Produkt. Wird beim Snapshot des Ledgers
+ * geschrieben und beim Start anstelle eines vollständigen Replays geladen.
+ */
+@Entity
+@Table(name = "wh_movement_daily",
+        uniqueConstraints = @UniqueConstraint(name = "uq_wh_movement_daily_product_date",
+                columnNames = {"product_id", "movement_date"}))
+public class WarehouseLedgerDailyAggregate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false, length = 128)
+    private String productId;
+
+    @Column(name = "movement_date", nullable = false)
+    private LocalDate movementDate;
+
+    @Column(name = "inbound_quantity", nullable = false)
+    private int inboundQuantity;
+
+    @Column(name = "outbound_quantity", nullable = false)
+    private int outboundQuantity;
+
+    @Column(name = "movement_count", nullable = false)
+    private int movementCount;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public LocalDate getMovementDate() {
+        return movementDate;
+    }
+
+    public void setMovementDate(LocalDate movementDate) {
+        this.movementDate = movementDate;
+    }
+
+    public int getInboundQuantity() {
+        return inboundQuantity;
+    }
+
+    public void setInboundQuantity(int inboundQuantity) {
+        this.inboundQuantity = inboundQuantity;
+    }
+
+    public int getOutboundQuantity() {
+        return outboundQuantity;
+    }
+
+    public void setOutboundQuantity(int outboundQuantity) {
+        this.outboundQuantity = outboundQuantity;
+    }
+
+    public int getMovementCount() {
+        return movementCount;
+    }
+
+    public void setMovementCount(int movementCount) {
+        this.movementCount = movementCount;
+    }
+}
@@ -0,0 +1,117 @@
+package com.chrono.chrono.entities.inventory;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Unveränderlicher Eintrag des Lagerbewegungs-Ledgers. Die Id dient als fortlaufende
+ * Sequenznummer für Replay und Snapshots.
+ */
+@Entity
+@Table(name = "wh_movement_ledger",
+        indexes = {
+                @Index(name = "idx_wh_movement_ledger_recorded_at", columnList = "recorded_at")
+        })
+public class WarehouseLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "movement_id", nullable = false, unique = true, length = 36, updatable = false)
+    private String movementId;
+
+    @Column(name = "product_id", nullable = false, length = 128, updatable = false)
+    private String productId;
+
+    @Column(name = "from_location", length = 128, updatable = false)
+    private String fromLocation;
+
+    @Column(name = "to_location", length = 128, updatable = false)
+    private String toLocation;
+
+    @Column(nullable = false, updatable = false)
+    private int quantity;
+
+    @Column(name = "recorded_at", nullable = false, updatable = false)
+    private Instant recordedAt;
+
+    @Column(length = 64, updatable = false)
+    private String hash;
+
+    @Column(name = "previous_hash", length = 64, updatable = false)
+    private String previousHash;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getMovementId() {
+        return movementId;
+    }
+
+    public void setMovementId(String movementId) {
+        this.movementId = movementId;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public String getFromLocation() {
+        return fromLocation;
+    }
+
+    public void setFromLocation(String fromLocation) {
+        this.fromLocation = fromLocation;
+    }
+
+    public String getToLocation() {
+        return toLocation;
+    }
+
+    public void setToLocation(String toLocation) {
+        this.toLocation = toLocation;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public Instant getRecordedAt() {
+        return recordedAt;
+    }
+
+    public void setRecordedAt(Instant recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public String getPreviousHash() {
+        return previousHash;
+    }
+
+    public void setPreviousHash(String previousHash) {
+        this.previousHash = previousHash;
+    }
+}
@@ -0,0 +1,55 @@
+package com.chrono.chrono.entities.listeners;
+
+import com.chrono.chrono.entities.inventory.InventoryTombstone;
+import com.chrono.chrono.entities.inventory.Product;
+import com.chrono.chrono.entities.inventory.StockLevel;
+import com.chrono.chrono.entities.inventory.Warehouse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.PostRemove;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Schreibt beim Löschen von Produkten, Lagern und Beständen einen Vermerk in
+ * {@code inv_tombstones}, damit der Lagerabgleich auch Löschungen anderer Instanzen
+ * übernimmt. Läuft über JDBC in derselben Transaktion wie die Löschung.
+ */
+@Component
+public class InventoryTombstoneListener {
+
+    private static final String INSERT_SQL = "INSERT INTO inv_tombstones "
+            + "(entity_type, entity_id, product_id, warehouse_id, deleted_at) VALUES (?, ?, ?, ?, ?)";
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public void init(JdbcTemplate template) {
+        jdbcTemplate = template;
+    }
+
+    @PostRemove
+    public void removed(Object entity) {
+        if (jdbcTemplate == null) {
+            return;
+        }
+        if (entity instanceof Product product) {
+            insert(InventoryTombstone.EntityType.PRODUCT, product.getId(), product.getId(), null);
+        } else if (entity instanceof Warehouse warehouse) {
+            insert(InventoryTombstone.EntityType.WAREHOUSE, warehouse.getId(), null, warehouse.getId());
+        } else if (entity instanceof StockLevel level) {
+            insert(InventoryTombstone.EntityType.STOCK_LEVEL, level.getId(),
+                    level.getProduct() != null ? level.getProduct().getId() : null,
+                    level.getWarehouse() != null ? level.getWarehouse().getId() : null);
+        }
+    }
+
+    private static void insert(InventoryTombstone.EntityType type, Long entityId, Long productId, Long warehouseId) {
+        if (entityId == null) {
+            return;
+        }
+        jdbcTemplate.update(INSERT_SQL, type.name(), entityId, productId, warehouseId, Timestamp.from(Instant.now()));
+    }
+}
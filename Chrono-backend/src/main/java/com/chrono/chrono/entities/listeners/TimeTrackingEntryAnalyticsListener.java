@@ -0,0 +1,36 @@
+package com.chrono.chrono.entities.listeners;
+
+import com.chrono.chrono.entities.TimeTrackingEntry;
+import com.chrono.chrono.services.ProjectAnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Verwirft die vorberechneten Monate der Projektauswertung, sobald sich eine Stempelung
+ * ändert. Läuft in derselben Transaktion wie die Änderung.
+ */
+@Component
+public class TimeTrackingEntryAnalyticsListener {
+
+    private static ProjectAnalyticsService analytics;
+
+    @Autowired
+    public void init(ProjectAnalyticsService service) {
+        analytics = service;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(TimeTrackingEntry entry) {
+        if (analytics == null || entry.getUser() == null) {
+            return;
+        }
+        analytics.invalidate(entry.getUser().getId(), entry.getEntryTimestamp(), entry.getLoadedEntryTimestamp());
+        entry.rememberLoadedEntryTimestamp();
+    }
+}
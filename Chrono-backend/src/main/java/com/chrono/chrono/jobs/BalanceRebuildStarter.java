@@ -1,6 +1,6 @@
 package com.chrono.chrono.jobs;
 
-import com.chrono.chrono.services.TimeTrackingService;
+import com.chrono.chrono.services.BalanceRebuildJobService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
@@ -8,20 +8,19 @@ import org.springframework.context.ApplicationListener;
 import org.springframework.stereotype.Component;
 
 /**
- * Ruft einmalig nach erfolgreichem Start des Back-Ends die
- * komplette Salden-Neuberechnung auf.
+ * Stößt einmalig nach erfolgreichem Start des Back-Ends die
+ * komplette Salden-Neuberechnung als Hintergrund-Job an.
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class BalanceRebuildStarter implements ApplicationListener<ApplicationReadyEvent> {
 
-    private final TimeTrackingService timeTrackingService;
+    private final BalanceRebuildJobService balanceRebuildJobService;
 
     @Override
     public void onApplicationEvent(ApplicationReadyEvent event) {
-        log.info("ApplicationReady – starte einmalige Balance-Neuberechnung …");
-        timeTrackingService.rebuildAllUserBalancesOnce();
-        log.info("Balance-Rebuild abgeschlossen ✅");
+        String jobId = balanceRebuildJobService.startRebuild("startup");
+        log.info("ApplicationReady – Balance-Neuberechnung als Job {} gestartet.", jobId);
     }
 }
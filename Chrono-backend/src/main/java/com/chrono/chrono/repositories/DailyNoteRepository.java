@@ -5,8 +5,11 @@ import com.chrono.chrono.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 public interface DailyNoteRepository extends JpaRepository<DailyNote, Long> {
     Optional<DailyNote> findByUserAndNoteDate(User user, LocalDate noteDate);
+
+    List<DailyNote> findByUserAndNoteDateBetween(User user, LocalDate start, LocalDate end);
 }
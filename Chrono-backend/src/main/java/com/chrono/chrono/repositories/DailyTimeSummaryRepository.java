@@ -0,0 +1,29 @@
+package com.chrono.chrono.repositories;
+
+import com.chrono.chrono.entities.DailyTimeSummary;
+import com.chrono.chrono.entities.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyTimeSummaryRepository extends JpaRepository<DailyTimeSummary, Long> {
+
+    List<DailyTimeSummary> findByUserAndSummaryDateBetweenOrderBySummaryDateDesc(User user, LocalDate start, LocalDate end);
+
+    /** Sperrende Variante für refreshDailySummaries; liest den zuletzt committeten Stand. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM DailyTimeSummary s WHERE s.user = :user AND s.summaryDate BETWEEN :start AND :end")
+    List<DailyTimeSummary> findForUpdate(@Param("user") User user,
+                                         @Param("start") LocalDate start,
+                                         @Param("end") LocalDate end);
+
+    @Modifying
+    @Query("DELETE FROM DailyTimeSummary s WHERE s.user = :user")
+    void deleteByUser(@Param("user") User user);
+}
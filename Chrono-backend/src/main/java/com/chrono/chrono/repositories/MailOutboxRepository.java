@@ -0,0 +1,38 @@
+package com.chrono.chrono.repositories;
+
+import com.chrono.chrono.entities.MailOutboxMessage;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface MailOutboxRepository extends JpaRepository<MailOutboxMessage, Long> {
+
+    /**
+     * Fällige Nachrichten, älteste zuerst. Gesperrte Zeilen werden übersprungen (SKIP LOCKED),
+     * damit mehrere Instanzen parallel abholen können, ohne sich zu blockieren.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT m FROM MailOutboxMessage m WHERE m.status = :status AND m.nextAttemptAt <= :now ORDER BY m.nextAttemptAt, m.id")
+    List<MailOutboxMessage> findDue(@Param("status") MailOutboxMessage.Status status,
+                                    @Param("now") LocalDateTime now,
+                                    Pageable pageable);
+
+    long countByStatus(MailOutboxMessage.Status status);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM MailOutboxMessage m WHERE m.status = :status AND m.sentAt < :before")
+    int deleteSentBefore(@Param("status") MailOutboxMessage.Status status,
+                         @Param("before") LocalDateTime before);
+}
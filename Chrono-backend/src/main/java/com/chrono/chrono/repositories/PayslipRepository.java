@@ -3,7 +3,10 @@ package com.chrono.chrono.repositories;
 import com.chrono.chrono.entities.Payslip;
 import com.chrono.chrono.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface PayslipRepository extends JpaRepository<Payslip, Long> {
@@ -12,4 +15,20 @@ public interface PayslipRepository extends JpaRepository<Payslip, Long> {
     List<Payslip> findByApproved(boolean approved);
     List<Payslip> findByUser_Company_IdAndApproved(Long companyId, boolean approved);
     List<Payslip> findByUserAndPeriodStartAndPeriodEnd(User user, java.time.LocalDate start, java.time.LocalDate end);
+
+    /** Höchste Version je User für eine Periode als Paare [userId, version]. */
+    @Query("SELECT p.user.id, MAX(p.version) FROM Payslip p " +
+            "WHERE p.periodStart = :start AND p.periodEnd = :end AND p.user.id IN :userIds " +
+            "GROUP BY p.user.id")
+    List<Object[]> findLatestVersions(@Param("start") java.time.LocalDate start,
+                                      @Param("end") java.time.LocalDate end,
+                                      @Param("userIds") Collection<Long> userIds);
+
+    /** Abrechnungen einer Firma und Periode mit User und Firma, sortiert für den Archiv-Export. */
+    @Query("SELECT p FROM Payslip p JOIN FETCH p.user u JOIN FETCH u.company c " +
+            "WHERE c.id = :companyId AND p.periodStart >= :start AND p.periodEnd <= :end " +
+            "ORDER BY u.id, p.periodStart, p.version")
+    List<Payslip> findForArchive(@Param("companyId") Long companyId,
+                                 @Param("start") java.time.LocalDate start,
+                                 @Param("end") java.time.LocalDate end);
 }
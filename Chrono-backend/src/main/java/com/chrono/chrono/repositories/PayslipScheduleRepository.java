@@ -3,12 +3,24 @@ package com.chrono.chrono.repositories;
 import com.chrono.chrono.entities.PayslipSchedule;
 import com.chrono.chrono.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface PayslipScheduleRepository extends JpaRepository<PayslipSchedule, Long> {
     Optional<PayslipSchedule> findByUser(User user);
     List<PayslipSchedule> findByNextRunLessThanEqual(LocalDate date);
+
+    @Query("SELECT s FROM PayslipSchedule s JOIN FETCH s.user u LEFT JOIN FETCH u.company LEFT JOIN FETCH u.roles " +
+            "WHERE s.nextRun <= :date ORDER BY u.id")
+    List<PayslipSchedule> findDueWithUsers(@Param("date") LocalDate date);
+
+    @Modifying
+    @Query("UPDATE PayslipSchedule s SET s.nextRun = :nextRun WHERE s.id IN :ids")
+    int updateNextRun(@Param("ids") Collection<Long> ids, @Param("nextRun") LocalDate nextRun);
 }
@@ -9,36 +9,62 @@ import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface TimeTrackingEntryRepository extends JpaRepository<TimeTrackingEntry, Long> {
 
-    @Query("SELECT tte FROM TimeTrackingEntry tte WHERE tte.user = :user AND FUNCTION('DATE', tte.entryTimestamp) = :date ORDER BY tte.entryTimestamp ASC")
-    List<TimeTrackingEntry> findByUserAndEntryDateOrderByEntryTimestampAsc(@Param("user") User user, @Param("date") LocalDate date);
+    // Tagesabfragen als halboffene Zeitstempel-Bereiche [Tag 00:00, Folgetag 00:00),
+    // damit der Index (user_id, entry_timestamp) genutzt werden kann.
+    default List<TimeTrackingEntry> findByUserAndEntryDateOrderByEntryTimestampAsc(User user, LocalDate date) {
+        return findByUserAndEntryTimestampBetweenOrderByEntryTimestampAsc(user, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
 
-    @Query("SELECT tte FROM TimeTrackingEntry tte WHERE tte.user = :user AND FUNCTION('DATE', tte.entryTimestamp) = :date ORDER BY tte.entryTimestamp DESC")
-    List<TimeTrackingEntry> findByUserAndEntryDateOrderByEntryTimestampDesc(@Param("user") User user, @Param("date") LocalDate date);
+    default List<TimeTrackingEntry> findByUserAndEntryDateOrderByEntryTimestampDesc(User user, LocalDate date) {
+        return findByUserAndEntryTimestampBetweenOrderByEntryTimestampDesc(user, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
 
     default Optional<TimeTrackingEntry> findLastEntryByUserAndDate(User user, LocalDate date) {
-        return findByUserAndEntryDateOrderByEntryTimestampDesc(user, date).stream().findFirst();
+        return findFirstByUserAndEntryTimestampGreaterThanEqualAndEntryTimestampLessThanOrderByEntryTimestampDescIdDesc(
+                user, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
     }
 
+    /** Letzter Stempel im Bereich, per LIMIT 1 über den Index (user_id, entry_timestamp). */
+    Optional<TimeTrackingEntry> findFirstByUserAndEntryTimestampGreaterThanEqualAndEntryTimestampLessThanOrderByEntryTimestampDescIdDesc(
+            User user, LocalDateTime startDateTime, LocalDateTime endDateTime);
+
     @Query("SELECT tte FROM TimeTrackingEntry tte WHERE tte.user = :user AND tte.entryTimestamp >= :startDateTime AND tte.entryTimestamp < :endDateTime ORDER BY tte.entryTimestamp ASC")
     List<TimeTrackingEntry> findByUserAndEntryTimestampBetweenOrderByEntryTimestampAsc(
             @Param("user") User user,
             @Param("startDateTime") LocalDateTime startDateTime,
             @Param("endDateTime") LocalDateTime endDateTime
     );
+
+    @Query("SELECT tte FROM TimeTrackingEntry tte WHERE tte.user = :user AND tte.entryTimestamp >= :startDateTime AND tte.entryTimestamp < :endDateTime ORDER BY tte.entryTimestamp DESC")
+    List<TimeTrackingEntry> findByUserAndEntryTimestampBetweenOrderByEntryTimestampDesc(
+            @Param("user") User user,
+            @Param("startDateTime") LocalDateTime startDateTime,
+            @Param("endDateTime") LocalDateTime endDateTime
+    );
     List<TimeTrackingEntry> findByUserOrderByEntryTimestampAsc(User user);
 
     List<TimeTrackingEntry> findByUserOrderByEntryTimestampDesc(User user);
 
+    Optional<TimeTrackingEntry> findFirstByUserOrderByEntryTimestampAsc(User user);
+
+    Optional<TimeTrackingEntry> findFirstByUserOrderByEntryTimestampDesc(User user);
+
+    default List<User> findUsersWithLastEntryAsStartOnDate(LocalDate date) {
+        return findUsersWithLastEntryAsStartBetween(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
     @Query("SELECT DISTINCT tte.user FROM TimeTrackingEntry tte " +
-       "WHERE FUNCTION('DATE', tte.entryTimestamp) = :date " +
-       "AND tte.id = (SELECT MAX(sub_tte.id) FROM TimeTrackingEntry sub_tte WHERE sub_tte.user = tte.user AND FUNCTION('DATE', sub_tte.entryTimestamp) = :date) " +
+       "WHERE tte.entryTimestamp >= :start AND tte.entryTimestamp < :end " +
+       "AND tte.id = (SELECT MAX(sub_tte.id) FROM TimeTrackingEntry sub_tte WHERE sub_tte.user = tte.user " +
+       "AND sub_tte.entryTimestamp >= :start AND sub_tte.entryTimestamp < :end) " +
        "AND tte.punchType = com.chrono.chrono.entities.TimeTrackingEntry.PunchType.START")
-    List<User> findUsersWithLastEntryAsStartOnDate(@Param("date") LocalDate date);
+    List<User> findUsersWithLastEntryAsStartBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
     
     void deleteByUser(User user);
 
@@ -52,15 +78,27 @@ public interface TimeTrackingEntryRepository extends JpaRepository<TimeTrackingE
     );
 
     @Query("SELECT t FROM TimeTrackingEntry t " +
-            "WHERE t.user.company.id = :companyId " +
+            "WHERE t.user.id IN :userIds " +
             "AND t.entryTimestamp >= :start AND t.entryTimestamp < :end " +
             "ORDER BY t.user.id, t.entryTimestamp ASC")
-    List<TimeTrackingEntry> findByCompanyIdAndEntryTimestampBetween(
-            @Param("companyId") Long companyId,
+    List<TimeTrackingEntry> findByUserIdInAndEntryTimestampBetween(
+            @Param("userIds") Collection<Long> userIds,
             @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end);
 
-    List<TimeTrackingEntry> findByProjectIdInAndEntryTimestampBetween(List<Long> projectIds,
-                                                                     LocalDateTime startDateTime,
-                                                                     LocalDateTime endDateTime);
+    /**
+     * Abrechenbare Minuten je Projekt und Aufgabe: [projectId, projectName, taskId, taskName, minutes],
+     * in der Reihenfolge des ersten Eintrags.
+     */
+    @Query("SELECT p.id, p.name, tk.id, tk.name, SUM(t.durationMinutes) FROM TimeTrackingEntry t " +
+            "JOIN t.project p LEFT JOIN t.task tk " +
+            "WHERE p.id IN :projectIds " +
+            "AND t.entryTimestamp BETWEEN :start AND :end " +
+            "AND t.durationMinutes > 0 " +
+            "AND (tk IS NULL OR tk.billable IS NULL OR tk.billable = TRUE) " +
+            "GROUP BY p.id, p.name, tk.id, tk.name " +
+            "ORDER BY MIN(t.entryTimestamp)")
+    List<Object[]> sumBillableMinutesByProjectAndTask(@Param("projectIds") Collection<Long> projectIds,
+                                                      @Param("start") LocalDateTime start,
+                                                      @Param("end") LocalDateTime end);
 }
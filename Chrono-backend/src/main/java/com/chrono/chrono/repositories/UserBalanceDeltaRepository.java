@@ -0,0 +1,29 @@
+package com.chrono.chrono.repositories;
+
+import com.chrono.chrono.entities.User;
+import com.chrono.chrono.entities.UserBalanceDelta;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserBalanceDeltaRepository extends JpaRepository<UserBalanceDelta, Long> {
+
+    Optional<UserBalanceDelta> findFirstByUserOrderByPeriodStartAsc(User user);
+
+    Optional<UserBalanceDelta> findFirstByUserOrderByPeriodStartDesc(User user);
+
+    /** Sperrendes Lesen: liefert auch Zeilen, die nach Beginn der Transaktion committet wurden. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<UserBalanceDelta> findByUserAndPeriodStartBetween(User user, LocalDate start, LocalDate end);
+
+    @Modifying
+    @Query("DELETE FROM UserBalanceDelta d WHERE d.user = :user")
+    void deleteByUser(@Param("user") User user);
+}
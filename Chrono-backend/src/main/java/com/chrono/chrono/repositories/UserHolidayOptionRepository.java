@@ -13,4 +13,5 @@ import java.util.Optional;
 public interface UserHolidayOptionRepository extends JpaRepository<UserHolidayOption, Long> {
     Optional<UserHolidayOption> findByUserAndHolidayDate(User user, LocalDate holidayDate);
     List<UserHolidayOption> findByUserAndHolidayDateBetween(User user, LocalDate startDate, LocalDate endDate);
+    List<UserHolidayOption> findByUser(User user);
 }
\ No newline at end of file
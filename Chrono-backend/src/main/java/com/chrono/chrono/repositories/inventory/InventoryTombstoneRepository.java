@@ -0,0 +1,23 @@
+package com.chrono.chrono.repositories.inventory;
+
+import com.chrono.chrono.entities.inventory.InventoryTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface InventoryTombstoneRepository extends JpaRepository<InventoryTombstone, Long> {
+
+    List<InventoryTombstone> findByDeletedAtAfterAndIdGreaterThanOrderByIdAsc(Instant since, Long afterId,
+                                                                               Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM InventoryTombstone t WHERE t.deletedAt < :before")
+    int deleteOlderThan(@Param("before") Instant before);
+}
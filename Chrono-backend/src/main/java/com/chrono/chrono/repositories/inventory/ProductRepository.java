@@ -1,10 +1,17 @@
 package com.chrono.chrono.repositories.inventory;
 
 import com.chrono.chrono.entities.inventory.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
     Optional<Product> findBySku(String sku);
+
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    List<Product> findByUpdatedAtAfterAndIdGreaterThanOrderByIdAsc(Instant since, Long afterId, Pageable pageable);
 }
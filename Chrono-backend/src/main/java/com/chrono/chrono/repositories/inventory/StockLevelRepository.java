@@ -3,8 +3,13 @@ package com.chrono.chrono.repositories.inventory;
 import com.chrono.chrono.entities.inventory.Product;
 import com.chrono.chrono.entities.inventory.StockLevel;
 import com.chrono.chrono.entities.inventory.Warehouse;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +17,15 @@ public interface StockLevelRepository extends JpaRepository<StockLevel, Long> {
     Optional<StockLevel> findByProductAndWarehouse(Product product, Warehouse warehouse);
 
     List<StockLevel> findByProduct(Product product);
+
+    List<StockLevel> findByProductIn(Collection<Product> products);
+
+    @Query("SELECT s FROM StockLevel s JOIN FETCH s.product JOIN FETCH s.warehouse "
+            + "WHERE s.id > :afterId ORDER BY s.id")
+    List<StockLevel> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT s FROM StockLevel s JOIN FETCH s.product JOIN FETCH s.warehouse "
+            + "WHERE s.updatedAt > :since AND s.id > :afterId ORDER BY s.id")
+    List<StockLevel> findChangedPageAfter(@Param("since") Instant since, @Param("afterId") Long afterId,
+                                          Pageable pageable);
 }
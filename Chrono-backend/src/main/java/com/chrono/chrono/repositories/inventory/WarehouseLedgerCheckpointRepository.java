@@ -0,0 +1,16 @@
+package com.chrono.chrono.repositories.inventory;
+
+import com.chrono.chrono.entities.inventory.WarehouseLedgerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface WarehouseLedgerCheckpointRepository extends JpaRepository<WarehouseLedgerCheckpoint, Long> {
+
+    Optional<WarehouseLedgerCheckpoint> findTopByOrderByIdDesc();
+
+    List<WarehouseLedgerCheckpoint> findAllByOrderByLastSequenceAsc();
+
+    void deleteByIdLessThan(Long id);
+}
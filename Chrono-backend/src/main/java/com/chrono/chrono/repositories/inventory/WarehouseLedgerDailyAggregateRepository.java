@@ -0,0 +1,12 @@
+package com.chrono.chrono.repositories.inventory;
+
+import com.chrono.chrono.entities.inventory.WarehouseLedgerDailyAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface WarehouseLedgerDailyAggregateRepository extends JpaRepository<WarehouseLedgerDailyAggregate, Long> {
+
+    Optional<WarehouseLedgerDailyAggregate> findByProductIdAndMovementDate(String productId, LocalDate movementDate);
+}
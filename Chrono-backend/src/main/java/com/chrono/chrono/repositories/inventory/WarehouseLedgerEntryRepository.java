@@ -0,0 +1,22 @@
+package com.chrono.chrono.repositories.inventory;
+
+import com.chrono.chrono.entities.inventory.WarehouseLedgerEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface WarehouseLedgerEntryRepository extends JpaRepository<WarehouseLedgerEntry, Long> {
+
+    List<WarehouseLedgerEntry> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<WarehouseLedgerEntry> findByRecordedAtGreaterThanEqualOrderByIdAsc(Instant since);
+
+    List<WarehouseLedgerEntry> findAllByOrderByIdDesc(Pageable pageable);
+
+    List<WarehouseLedgerEntry> findByIdBetweenOrderByIdAsc(Long fromId, Long toId);
+
+    Optional<WarehouseLedgerEntry> findTopByOrderByIdDesc();
+}
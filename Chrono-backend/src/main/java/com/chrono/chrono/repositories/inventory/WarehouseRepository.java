@@ -1,10 +1,17 @@
 package com.chrono.chrono.repositories.inventory;
 
 import com.chrono.chrono.entities.inventory.Warehouse;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface WarehouseRepository extends JpaRepository<Warehouse, Long> {
     Optional<Warehouse> findByCode(String code);
+
+    List<Warehouse> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    List<Warehouse> findByUpdatedAtAfterAndIdGreaterThanOrderByIdAsc(Instant since, Long afterId, Pageable pageable);
 }
@@ -0,0 +1,264 @@
+package com.chrono.chrono.services;
+
+import com.chrono.chrono.repositories.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Führt die Saldo-Neuberechnung aller User als Hintergrund-Job aus. Die User werden in
+ * Blöcken verarbeitet, jeder Block in einer eigenen Transaktion auf einem begrenzten
+ * Worker-Pool. Fortschritt, Durchsatz und Fehler landen im Micrometer-Registry.
+ */
+@Service
+public class BalanceRebuildJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceRebuildJobService.class);
+    private static final int MAX_REMEMBERED_JOBS = 20;
+
+    public enum JobState {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final TimeTrackingService timeTrackingService;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final ExecutorService coordinator;
+    private final ExecutorService workers;
+
+    private final Map<String, RebuildJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicReference<RebuildJob> currentJob = new AtomicReference<>();
+    private final AtomicReference<RebuildJob> lastJob = new AtomicReference<>();
+
+    private final Counter succeededCounter;
+    private final Counter failedCounter;
+    private final Timer chunkTimer;
+
+    public BalanceRebuildJobService(TimeTrackingService timeTrackingService,
+                                    UserRepository userRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.balance-rebuild.chunk-size:50}") int chunkSize,
+                                    @Value("${app.balance-rebuild.threads:4}") int threads) {
+        this.timeTrackingService = timeTrackingService;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.coordinator = Executors.newSingleThreadExecutor(namedThreads("balance-rebuild-coordinator"));
+        this.workers = Executors.newFixedThreadPool(Math.max(1, threads), namedThreads("balance-rebuild-worker"));
+
+        this.succeededCounter = Counter.builder("chrono.balance.rebuild.users")
+                .description("Neu berechnete Salden")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("chrono.balance.rebuild.users")
+                .description("Neu berechnete Salden")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("chrono.balance.rebuild.chunk.duration")
+                .description("Dauer eines Rebuild-Blocks")
+                .register(meterRegistry);
+        Gauge.builder("chrono.balance.rebuild.running", currentJob, ref -> ref.get() != null ? 1 : 0)
+                .description("1, solange ein Rebuild-Job läuft")
+                .register(meterRegistry);
+        Gauge.builder("chrono.balance.rebuild.progress", lastJob, ref -> ref.get() != null ? ref.get().progress() : 0)
+                .description("Anteil der verarbeiteten User des letzten Jobs (0-1)")
+                .register(meterRegistry);
+        Gauge.builder("chrono.balance.rebuild.throughput", lastJob, ref -> ref.get() != null ? ref.get().usersPerSecond() : 0)
+                .description("Verarbeitete User pro Sekunde des letzten Jobs")
+                .baseUnit("users/s")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Startet einen Rebuild-Job und kehrt sofort zurück. Läuft bereits ein Job, wird
+     * dessen Id zurückgegeben statt einen zweiten zu starten.
+     */
+    public String startRebuild(String trigger) {
+        RebuildJob job = new RebuildJob(UUID.randomUUID().toString(), trigger);
+        if (!currentJob.compareAndSet(null, job)) {
+            RebuildJob running = currentJob.get();
+            if (running != null) {
+                logger.info("Balance-Rebuild ({}) läuft bereits als Job {}.", trigger, running.id);
+                return running.id;
+            }
+            return startRebuild(trigger);
+        }
+        rememberJob(job);
+        lastJob.set(job);
+        coordinator.submit(() -> runJob(job));
+        return job.id;
+    }
+
+    public Optional<RebuildJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void runJob(RebuildJob job) {
+        try {
+            List<Long> userIds = userRepository.findAllIds();
+            job.total.set(userIds.size());
+            logger.info("Balance-Rebuild {} ({}) gestartet: {} User in Blöcken à {}.", job.id, job.trigger, userIds.size(), chunkSize);
+
+            List<CompletableFuture<Void>> chunks = new ArrayList<>();
+            for (int i = 0; i < userIds.size(); i += chunkSize) {
+                List<Long> chunk = userIds.subList(i, Math.min(i + chunkSize, userIds.size()));
+                chunks.add(CompletableFuture.runAsync(() -> processChunk(job, chunk), workers));
+            }
+            CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).join();
+
+            job.finish(JobState.COMPLETED);
+            logger.info("Balance-Rebuild {} abgeschlossen: {} verarbeitet, {} fehlgeschlagen, {} s.",
+                    job.id, job.processed.get(), job.failed.get(), job.elapsed().toSeconds());
+        } catch (Exception e) {
+            job.finish(JobState.FAILED);
+            logger.error("Balance-Rebuild {} abgebrochen: {}", job.id, e.getMessage(), e);
+        } finally {
+            currentJob.compareAndSet(job, null);
+        }
+    }
+
+    private void processChunk(RebuildJob job, List<Long> userIds) {
+        Timer.Sample sample = Timer.start();
+        try {
+            transactionTemplate.executeWithoutResult(status -> userIds.forEach(this::rebuildUser));
+            job.processed.addAndGet(userIds.size());
+            succeededCounter.increment(userIds.size());
+        } catch (Exception chunkError) {
+            // Block zurückgerollt: User einzeln wiederholen, damit nur der fehlerhafte User ausfällt
+            logger.warn("Balance-Rebuild {}: Block mit {} Usern fehlgeschlagen ({}), verarbeite einzeln.",
+                    job.id, userIds.size(), chunkError.getMessage());
+            for (Long userId : userIds) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> rebuildUser(userId));
+                    succeededCounter.increment();
+                } catch (Exception userError) {
+                    job.failed.incrementAndGet();
+                    failedCounter.increment();
+                    logger.error("Balance-Rebuild {}: Saldo für User-Id {} konnte nicht berechnet werden: {}",
+                            job.id, userId, userError.getMessage(), userError);
+                }
+                job.processed.incrementAndGet();
+            }
+        } finally {
+            sample.stop(chunkTimer);
+        }
+    }
+
+    private void rebuildUser(Long userId) {
+        userRepository.findById(userId).ifPresent(timeTrackingService::rebuildUserBalance);
+    }
+
+    private void rememberJob(RebuildJob job) {
+        jobs.put(job.id, job);
+        if (jobs.size() > MAX_REMEMBERED_JOBS) {
+            jobs.values().stream()
+                    .filter(j -> j.state != JobState.RUNNING)
+                    .min(Comparator.comparing((RebuildJob j) -> j.startedAt))
+                    .ifPresent(oldest -> jobs.remove(oldest.id));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private static java.util.concurrent.ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static final class RebuildJob {
+        private final String id;
+        private final String trigger;
+        private final Instant startedAt = Instant.now();
+        private final AtomicInteger total = new AtomicInteger();
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private volatile Instant finishedAt;
+        private volatile JobState state = JobState.RUNNING;
+        private final CompletableFuture<JobState> completion = new CompletableFuture<>();
+
+        private RebuildJob(String id, String trigger) {
+            this.id = id;
+            this.trigger = trigger;
+        }
+
+        private void finish(JobState finalState) {
+            this.finishedAt = Instant.now();
+            this.state = finalState;
+            completion.complete(finalState);
+        }
+
+        private Duration elapsed() {
+            return Duration.between(startedAt, finishedAt != null ? finishedAt : Instant.now());
+        }
+
+        double progress() {
+            int totalUsers = total.get();
+            if (totalUsers == 0) {
+                return state == JobState.RUNNING ? 0 : 1;
+            }
+            return (double) processed.get() / totalUsers;
+        }
+
+        double usersPerSecond() {
+            long millis = Math.max(1, elapsed().toMillis());
+            return processed.get() * 1000.0 / millis;
+        }
+
+        public String getId() { return id; }
+        public JobState getState() { return state; }
+
+        /** Wird mit dem Endzustand abgeschlossen, sobald der Job fertig ist. */
+        CompletableFuture<JobState> completion() { return completion; }
+
+        public Map<String, Object> toStatus() {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("jobId", id);
+            status.put("trigger", trigger);
+            status.put("state", state);
+            status.put("startedAt", startedAt.toString());
+            status.put("finishedAt", finishedAt != null ? finishedAt.toString() : null);
+            status.put("totalUsers", total.get());
+            status.put("processedUsers", processed.get());
+            status.put("failedUsers", failed.get());
+            status.put("progress", progress());
+            status.put("usersPerSecond", usersPerSecond());
+            return status;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.chrono.chrono.services;
+
+import com.chrono.chrono.entities.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Diagnose-Modus für die Saldo-Berechnung. Für einzelne, zur Laufzeit aktivierte Benutzer
+ * wird die Soll/Ist/Differenz-Aufschlüsselung pro Tag bzw. Woche in einem begrenzten
+ * Puffer gesammelt. Ist kein Benutzer aktiviert, kostet {@link #isTracing(User)} nur
+ * einen Map-Zugriff.
+ */
+@Service
+public class BalanceTraceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceTraceService.class);
+
+    public enum PeriodType {
+        DAY,
+        WEEK
+    }
+
+    public record TraceRecord(Instant recordedAt,
+                              String username,
+                              LocalDate periodStart,
+                              PeriodType periodType,
+                              int workedMinutes,
+                              int expectedMinutes,
+                              int differenceMinutes) {
+    }
+
+    private final int bufferSize;
+    private final Map<String, Deque<TraceRecord>> buffers = new ConcurrentHashMap<>();
+
+    public BalanceTraceService(@Value("${app.balance-trace.buffer-size:5000}") int bufferSize) {
+        this.bufferSize = Math.max(1, bufferSize);
+    }
+
+    public boolean isTracing(User user) {
+        return !buffers.isEmpty() && user != null && user.getUsername() != null && buffers.containsKey(user.getUsername());
+    }
+
+    public void enable(String username) {
+        buffers.computeIfAbsent(username, key -> new ArrayDeque<>());
+        logger.info("Saldo-Trace für {} aktiviert (Puffer: {} Einträge).", username, bufferSize);
+    }
+
+    public void disable(String username) {
+        if (buffers.remove(username) != null) {
+            logger.info("Saldo-Trace für {} deaktiviert.", username);
+        }
+    }
+
+    public Set<String> getTracedUsernames() {
+        return new TreeSet<>(buffers.keySet());
+    }
+
+    public void record(User user, LocalDate periodStart, PeriodType periodType, int workedMinutes, int expectedMinutes, int differenceMinutes) {
+        Deque<TraceRecord> buffer = buffers.get(user.getUsername());
+        if (buffer == null) {
+            return;
+        }
+        TraceRecord traceRecord = new TraceRecord(Instant.now(), user.getUsername(), periodStart, periodType,
+                workedMinutes, expectedMinutes, differenceMinutes);
+        synchronized (buffer) {
+            if (buffer.size() >= bufferSize) {
+                buffer.pollFirst(); // Älteste Einträge verwerfen
+            }
+            buffer.addLast(traceRecord);
+        }
+    }
+
+    public List<TraceRecord> getTrace(String username) {
+        Deque<TraceRecord> buffer = buffers.get(username);
+        if (buffer == null) {
+            return List.of();
+        }
+        synchronized (buffer) {
+            return new ArrayList<>(buffer);
+        }
+    }
+
+    public String exportCsv(String username) {
+        StringBuilder sb = new StringBuilder("Erfasst;Benutzer;Periode;Typ;Ist (Min);Soll (Min);Differenz (Min)\n");
+        for (TraceRecord r : getTrace(username)) {
+            sb.append(r.recordedAt()).append(';')
+                    .append(r.username()).append(';')
+                    .append(r.periodStart()).append(';')
+                    .append(r.periodType()).append(';')
+                    .append(r.workedMinutes()).append(';')
+                    .append(r.expectedMinutes()).append(';')
+                    .append(r.differenceMinutes()).append('\n');
+        }
+        return sb.toString();
+    }
+}
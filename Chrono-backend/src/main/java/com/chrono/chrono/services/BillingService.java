@@ -3,8 +3,6 @@ package com.chrono.chrono.services;
 import com.chrono.chrono.dto.InvoiceLineDTO;
 import com.chrono.chrono.dto.InvoiceSummaryDTO;
 import com.chrono.chrono.entities.Project;
-import com.chrono.chrono.entities.Task;
-import com.chrono.chrono.entities.TimeTrackingEntry;
 import com.chrono.chrono.entities.User;
 import com.chrono.chrono.repositories.TimeTrackingEntryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,9 +13,7 @@ import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import com.chrono.chrono.services.accounting.AccountsReceivableService;
@@ -51,45 +47,28 @@ public class BillingService {
 
         LocalDateTime startDt = start.atStartOfDay();
         LocalDateTime endDt = end.plusDays(1).atStartOfDay();
-        List<Long> idList = new ArrayList<>(projectIds);
-
-        List<TimeTrackingEntry> entries = idList.isEmpty()
-                ? List.of()
-                : timeTrackingEntryRepository.findByProjectIdInAndEntryTimestampBetween(idList, startDt, endDt);
 
         BigDecimal rateToUse = overrideRate != null ? overrideRate : project.getHourlyRate();
         if (rateToUse == null) {
             rateToUse = BigDecimal.ZERO;
         }
 
-        Map<String, InvoiceLineDTO> lines = new LinkedHashMap<>();
-        for (TimeTrackingEntry entry : entries) {
-            if (entry.getDurationMinutes() == null || entry.getDurationMinutes() <= 0) {
-                continue;
-            }
-            Task task = entry.getTask();
-            boolean billable = task == null || task.getBillable() == null || Boolean.TRUE.equals(task.getBillable());
-            if (!billable) {
-                continue;
-            }
-            Project entryProject = entry.getProject() != null ? entry.getProject() : project;
-            Long projectId = entryProject.getId();
-            String taskKey = projectId + ":" + (task != null ? task.getId() : "_none");
-            InvoiceLineDTO line = lines.get(taskKey);
-            if (line == null) {
-                line = new InvoiceLineDTO(
-                        projectId,
-                        entryProject.getName(),
-                        task != null ? task.getId() : null,
-                        task != null ? task.getName() : "Allgemeine Projektarbeit",
-                        0L,
-                        rateToUse
-                );
-                lines.put(taskKey, line);
-            }
-            long newMinutes = line.getMinutes() + entry.getDurationMinutes();
-            line.setMinutes(newMinutes);
-            line.recalcAmount(rateToUse);
+        // Summen je Projekt und Aufgabe kommen fertig gruppiert aus der Datenbank
+        List<Object[]> rows = projectIds.isEmpty()
+                ? List.of()
+                : timeTrackingEntryRepository.sumBillableMinutesByProjectAndTask(projectIds, startDt, endDt);
+
+        List<InvoiceLineDTO> lines = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Long taskId = (Long) row[2];
+            lines.add(new InvoiceLineDTO(
+                    (Long) row[0],
+                    (String) row[1],
+                    taskId,
+                    taskId != null ? (String) row[3] : "Allgemeine Projektarbeit",
+                    ((Number) row[4]).longValue(),
+                    rateToUse
+            ));
         }
 
         InvoiceSummaryDTO summary = new InvoiceSummaryDTO();
@@ -101,7 +80,7 @@ public class BillingService {
         summary.setIncludeChildren(includeChildren);
         summary.setHourlyRate(project.getHourlyRate());
         summary.setOverrideRate(overrideRate);
-        summary.setLineItems(new ArrayList<>(lines.values()));
+        summary.setLineItems(lines);
         summary.setCurrency(currency != null ? currency : "CHF");
 
         long totalMinutes = summary.getLineItems().stream().mapToLong(InvoiceLineDTO::getMinutes).sum();
@@ -179,7 +179,8 @@ public class CorrectionRequestService {
             correctionRepo.save(req);
         }
 
-        timeTrackingService.rebuildUserBalance(targetUser);
+        timeTrackingService.refreshDailySummaries(targetUser, correctionDate, correctionDate);
+        timeTrackingService.updateUserBalanceForDay(targetUser, correctionDate);
 
         return initialRequest;
     }
@@ -30,8 +30,8 @@ public class DashboardService {
 
         String roleName = user.getRoles().isEmpty() ? "NONE" : user.getRoles().iterator().next().getRoleName();
 
-        // Holt ALLE Zusammenfassungen des Benutzers
-        List<DailyTimeSummaryDTO> allSummaries = timeTrackingService.getUserHistory(username);
+        // Holt nur die Zusammenfassungen des angefragten Zeitraums
+        List<DailyTimeSummaryDTO> allSummaries = timeTrackingService.getUserHistory(username, startDate, endDate);
 
         // Filtert die Zusammenfassungen auf den gewünschten Zeitraum
         List<DailyTimeSummaryDTO> weekSummaries = allSummaries.stream()
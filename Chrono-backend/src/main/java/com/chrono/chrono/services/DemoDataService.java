@@ -35,6 +35,9 @@ public class DemoDataService {
     @Autowired
     private TimeTrackingEntryRepository timeTrackingEntryRepository;
 
+    @Autowired
+    private DailyTimeSummaryRepository dailyTimeSummaryRepository;
+
     @Autowired
     private VacationRequestRepository vacationRequestRepository;
 
@@ -44,6 +47,9 @@ public class DemoDataService {
     @Autowired
     private RoleRepository roleRepository;
 
+    @Autowired
+    private TimeTrackingService timeTrackingService;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -184,6 +190,7 @@ public class DemoDataService {
             correctionRequestRepository.deleteByUser(member);
             vacationRequestRepository.deleteByUser(member);
             timeTrackingEntryRepository.deleteByUser(member);
+            dailyTimeSummaryRepository.deleteByUser(member);
         });
 
         if (company.getId() != null) {
@@ -220,6 +227,8 @@ public class DemoDataService {
         createWorkBlock(david, website, today.minusDays(2), 10, 0, 360, "CMS Anpassungen");
         createWorkBlock(david, erpRollout, today.minusDays(4), 9, 30, 300, "Reporting Automatisierung");
 
+        teamMembers.forEach(member -> timeTrackingService.refreshDailySummaries(member, today.minusDays(5), today.minusDays(1)));
+
         createCorrection(
                 demoAdmin,
                 today.minusDays(1),
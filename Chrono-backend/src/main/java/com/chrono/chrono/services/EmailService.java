@@ -2,26 +2,27 @@ package com.chrono.chrono.services;
 
 import com.chrono.chrono.dto.ApplicationData;
 import com.chrono.chrono.dto.ContactMessage;
+import com.chrono.chrono.entities.MailOutboxMessage;
 import com.chrono.chrono.entities.Payslip;
 import com.chrono.chrono.entities.User;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.chrono.chrono.repositories.MailOutboxRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.MailException;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+/**
+ * Erstellt die ausgehenden E-Mails und legt sie in der Mail-Outbox ab. Innerhalb einer
+ * Transaktion wird die Nachricht mit ihr zusammen geschrieben oder zurückgerollt; zugestellt
+ * wird sie asynchron vom {@link MailOutboxSender}.
+ */
 @Service
 public class EmailService {
 
-    private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
-
-    private final JavaMailSender mailSender;
+    private final MailOutboxRepository outboxRepository;
 
     @Autowired
-    public EmailService(JavaMailSender mailSender) {
-        this.mailSender = mailSender;
+    public EmailService(MailOutboxRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
     }
 
     public void sendRegistrationMail(ApplicationData data) {
@@ -64,7 +65,7 @@ public class EmailService {
         mailText.append("\nWeitere Infos:\n").append(data.getAdditionalInfo());
 
         message.setText(mailText.toString());
-        sendSafely(message, "registration");
+        enqueue(message, "registration");
     }
 
     public void sendContactMail(ContactMessage contact) {
@@ -76,7 +77,7 @@ public class EmailService {
                 "E-Mail: " + contact.getEmail() + "\n\n" +
                 contact.getMessage();
         msg.setText(text);
-        sendSafely(msg, "contact");
+        enqueue(msg, "contact");
     }
 
     public void sendPayslipGeneratedMail(User user, Payslip payslip) {
@@ -87,7 +88,7 @@ public class EmailService {
         msg.setTo(user.getEmail());
         msg.setSubject("Neue Gehaltsabrechnung bereit");
         msg.setText("Ihre Abrechnung vom " + payslip.getPeriodStart() + " bis " + payslip.getPeriodEnd() + " ist erstellt.");
-        sendSafely(msg, "payslip-generated");
+        enqueue(msg, "payslip-generated");
     }
 
     public void sendPayslipApprovedMail(User user, Payslip payslip) {
@@ -98,14 +99,11 @@ public class EmailService {
         msg.setTo(user.getEmail());
         msg.setSubject("Gehaltsabrechnung freigegeben");
         msg.setText("Ihre Abrechnung vom " + payslip.getPeriodStart() + " bis " + payslip.getPeriodEnd() + " wurde freigegeben.");
-        sendSafely(msg, "payslip-approved");
+        enqueue(msg, "payslip-approved");
     }
 
-    private void sendSafely(SimpleMailMessage message, String context) {
-        try {
-            mailSender.send(message);
-        } catch (MailException ex) {
-            logger.error("Failed to send {} email.", context, ex);
-        }
+    private void enqueue(SimpleMailMessage message, String context) {
+        outboxRepository.save(new MailOutboxMessage(context, message.getFrom(),
+                String.join(",", message.getTo()), message.getSubject(), message.getText()));
     }
 }
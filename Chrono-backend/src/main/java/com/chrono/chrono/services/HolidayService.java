@@ -3,24 +3,267 @@ package com.chrono.chrono.services;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
 
+/**
+ * Feiertagskalender für die Schweiz.
+ * <p>
+ * Für ein rollierendes Fenster von Jahren werden beim Start alle 26 Kantone (plus der
+ * allgemeine Kalender ohne Kanton) vorberechnet und als unveränderliche Bitsets pro Tag
+ * des Jahres abgelegt. Lookups sind dadurch lock-frei und ohne {@code LocalDate}-Hashing.
+ * Jahre ausserhalb des Fensters werden bei Bedarf berechnet und in einer
+ * {@link ConcurrentHashMap} abgelegt.
+ */
 @Service
 public class HolidayService {
 
     private static final Logger logger = LoggerFactory.getLogger(HolidayService.class);
 
-    // Cache für Feiertage pro Jahr und Kanton, um Neuberechnungen zu vermeiden
-    private final Map<Integer, Map<String, Set<LocalDate>>> holidayCache = new HashMap<>();
-    // Cache für rein nationale Feiertage (unabhängig von "weit verbreitet")
-    private final Map<Integer, Set<LocalDate>> nationalHolidayCache = new HashMap<>();
+    private static final String GENERAL = "GENERAL";
+
+    private record HolidayRule(String name, IntFunction<LocalDate> date) {
+    }
+
+    private static final HolidayRule BERCHTOLDSTAG = new HolidayRule("Berchtoldstag", y -> LocalDate.of(y, 1, 2));
+    private static final HolidayRule DREIKOENIGSTAG = new HolidayRule("Dreikönigstag", y -> LocalDate.of(y, 1, 6));
+    private static final HolidayRule REPUBLIKFEIER_NE = new HolidayRule("Instauration de la République", y -> LocalDate.of(y, 3, 1));
+    private static final HolidayRule JOSEFSTAG = new HolidayRule("Josefstag", y -> LocalDate.of(y, 3, 19));
+    private static final HolidayRule NAEFELSER_FAHRT = new HolidayRule("Näfelser Fahrt", HolidayService::naefelserFahrt);
+    private static final HolidayRule FRONLEICHNAM = new HolidayRule("Fronleichnam", y -> calculateEasterSunday(y).plusDays(60));
+    private static final HolidayRule UNABHAENGIGKEIT_JU = new HolidayRule("Commémoration du plébiscite", y -> LocalDate.of(y, 6, 23));
+    private static final HolidayRule PETER_UND_PAUL = new HolidayRule("Peter und Paul", y -> LocalDate.of(y, 6, 29));
+    private static final HolidayRule MARIAE_HIMMELFAHRT = new HolidayRule("Mariä Himmelfahrt", y -> LocalDate.of(y, 8, 15));
+    private static final HolidayRule JEUNE_GENEVOIS = new HolidayRule("Jeûne genevois",
+            y -> LocalDate.of(y, 9, 1).with(TemporalAdjusters.firstInMonth(DayOfWeek.SUNDAY)).plusDays(4));
+    private static final HolidayRule MAURITIUS = new HolidayRule("Mauritiustag", y -> LocalDate.of(y, 9, 22));
+    private static final HolidayRule BRUDER_KLAUS = new HolidayRule("Bruder Klaus", y -> LocalDate.of(y, 9, 25));
+    private static final HolidayRule BETTAGSMONTAG = new HolidayRule("Lundi du Jeûne",
+            y -> LocalDate.of(y, 9, 1).with(TemporalAdjusters.dayOfWeekInMonth(3, DayOfWeek.SUNDAY)).plusDays(1));
+    private static final HolidayRule ALLERHEILIGEN = new HolidayRule("Allerheiligen", y -> LocalDate.of(y, 11, 1));
+    private static final HolidayRule MARIAE_EMPFAENGNIS = new HolidayRule("Mariä Empfängnis", y -> LocalDate.of(y, 12, 8));
+    private static final HolidayRule RESTAURATION_GE = new HolidayRule("Restauration de la République", y -> LocalDate.of(y, 12, 31));
+
+    /**
+     * Kantonale Feiertage zusätzlich zu den nationalen und weit verbreiteten Feiertagen.
+     * Kantone ohne Eintrag verwenden nur den allgemeinen Kalender.
+     */
+    private static final Map<String, List<HolidayRule>> CANTONAL_RULES = Map.ofEntries(
+            Map.entry("AG", List.of(BERCHTOLDSTAG, FRONLEICHNAM, MARIAE_HIMMELFAHRT, ALLERHEILIGEN, MARIAE_EMPFAENGNIS)),
+            Map.entry("AI", List.of(FRONLEICHNAM, MARIAE_HIMMELFAHRT, MAURITIUS, ALLERHEILIGEN, MARIAE_EMPFAENGNIS)),
+            Map.entry("AR", List.of()),
+            Map.entry("BE", List.of(BERCHTOLDSTAG)),
+            Map.entry("BL", List.of()),
+            Map.entry("BS", List.of()),
+            Map.entry("FR", List.of(BERCHTOLDSTAG, FRONLEICHNAM, MARIAE_HIMMELFAHRT, ALLERHEILIGEN, MARIAE_EMPFAENGNIS)),
+            Map.entry("GE", List.of(JEUNE_GENEVOIS, RESTAURATION_GE)),
+            Map.entry("GL", List.of(BERCHTOLDSTAG, NAEFELSER_FAHRT, ALLERHEILIGEN)),
+            Map.entry("GR", List.of(BERCHTOLDSTAG)),
+            Map.entry("JU", List.of(BERCHTOLDSTAG, FRONLEICHNAM, UNABHAENGIGKEIT_JU, MARIAE_HIMMELFAHRT, ALLERHEILIGEN)),
+            Map.entry("LU", List.of(BERCHTOLDSTAG, FRONLEICHNAM, MARIAE_HIMMELFAHRT, ALLERHEILIGEN, MARIAE_EMPFAENGNIS)),
+            Map.entry("NE", List.of(BERCHTOLDSTAG, REPUBLIKFEIER_NE, BETTAGSMONTAG)),
+            Map.entry("NW", List.of(JOSEFSTAG, FRONLEICHNAM, MARIAE_HIMMELFAHRT, ALLERHEILIGEN, MARIAE_EMPFAENGNIS)),
+            Map.entry("OW", List.of(BERCHTOLDSTAG, FRONLEICHNAM, MARIAE_HIMMELFAHRT, BRUDER_KLAUS, ALLERHEILIGEN, MARIAE_EMPFAENGNIS)),
+            Map.entry("SG", List.of(BERCHTOLDSTAG, ALLERHEILIGEN)),
+            Map.entry("SH", List.of(BERCHTOLDSTAG)),
+            Map.entry("SO", List.of(BERCHTOLDSTAG, JOSEFSTAG, FRONLEICHNAM, MARIAE_HIMMELFAHRT, ALLERHEILIGEN, MARIAE_EMPFAENGNIS)),
+            Map.entry("SZ", List.of(DREIKOENIGSTAG, JOSEFSTAG, FRONLEICHNAM, MARIAE_HIMMELFAHRT, ALLERHEILIGEN, MARIAE_EMPFAENGNIS)),
+            Map.entry("TG", List.of(BERCHTOLDSTAG)),
+            Map.entry("TI", List.of(DREIKOENIGSTAG, JOSEFSTAG, FRONLEICHNAM, PETER_UND_PAUL, MARIAE_HIMMELFAHRT, ALLERHEILIGEN, MARIAE_EMPFAENGNIS)),
+            Map.entry("UR", List.of(DREIKOENIGSTAG, JOSEFSTAG, FRONLEICHNAM, MARIAE_HIMMELFAHRT, ALLERHEILIGEN, MARIAE_EMPFAENGNIS)),
+            Map.entry("VD", List.of(BERCHTOLDSTAG, BETTAGSMONTAG)),
+            Map.entry("VS", List.of(JOSEFSTAG, FRONLEICHNAM, MARIAE_HIMMELFAHRT, ALLERHEILIGEN, MARIAE_EMPFAENGNIS)),
+            Map.entry("ZG", List.of(BERCHTOLDSTAG, FRONLEICHNAM, MARIAE_HIMMELFAHRT, ALLERHEILIGEN, MARIAE_EMPFAENGNIS)),
+            Map.entry("ZH", List.of(BERCHTOLDSTAG, ALLERHEILIGEN))
+    );
+
+    /** Index 0 ist der allgemeine Kalender, danach die Kantone in alphabetischer Reihenfolge. */
+    private static final List<String> CALENDAR_KEYS;
+    private static final Map<String, Integer> CALENDAR_INDEX;
+
+    static {
+        List<String> keys = new ArrayList<>();
+        keys.add(GENERAL);
+        CANTONAL_RULES.keySet().stream().sorted().forEach(keys::add);
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            index.put(keys.get(i), i);
+        }
+        CALENDAR_KEYS = List.copyOf(keys);
+        CALENDAR_INDEX = Map.copyOf(index);
+    }
+
+    /**
+     * Unveränderliche Feiertage eines Jahres: pro Kalender ein Bitset über den Tag des Jahres
+     * (Bit 0 = 1. Januar).
+     */
+    private static final class YearCalendar {
+        private final int year;
+        private final long[][] bitsByCalendar;
+        private final long[] nationalBits;
+
+        private YearCalendar(int year) {
+            this.year = year;
+            this.bitsByCalendar = new long[CALENDAR_KEYS.size()][];
+            for (int i = 0; i < CALENDAR_KEYS.size(); i++) {
+                bitsByCalendar[i] = toBits(year, calculateHolidays(year, CALENDAR_KEYS.get(i)));
+            }
+            this.nationalBits = toBits(year, calculateStrictNationalHolidays(year));
+        }
+
+        private boolean contains(int calendarIndex, LocalDate date) {
+            return isSet(bitsByCalendar[calendarIndex], date.getDayOfYear() - 1);
+        }
+
+        private Set<LocalDate> dates(long[] bits) {
+            Set<LocalDate> result = new LinkedHashSet<>();
+            BitSet bitSet = BitSet.valueOf(bits);
+            for (int i = bitSet.nextSetBit(0); i >= 0; i = bitSet.nextSetBit(i + 1)) {
+                result.add(LocalDate.ofYearDay(year, i + 1));
+            }
+            return Collections.unmodifiableSet(result);
+        }
+
+        private static long[] toBits(int year, Collection<LocalDate> holidays) {
+            long[] bits = new long[(366 + 63) / 64];
+            for (LocalDate holiday : holidays) {
+                if (holiday.getYear() == year) {
+                    int dayIndex = holiday.getDayOfYear() - 1;
+                    bits[dayIndex >>> 6] |= 1L << dayIndex;
+                }
+            }
+            return bits;
+        }
+    }
+
+    /** Vorberechnetes, unveränderliches Fenster zusammenhängender Jahre. */
+    private record CalendarWindow(int firstYear, YearCalendar[] years) {
+        YearCalendar get(int year) {
+            int offset = year - firstYear;
+            return offset >= 0 && offset < years.length ? years[offset] : null;
+        }
+    }
+
+    /**
+     * Feiertage eines zusammenhängenden Zeitraums als Bitset (Bit 0 = Startdatum).
+     * Für Schleifen über viele Tage gedacht: ein Aufruf von {@link #holidaysBetween}
+     * ersetzt einen {@link #isHoliday}-Aufruf pro Tag.
+     */
+    public static final class HolidayRange {
+        private final LocalDate start;
+        private final LocalDate end;
+        private final long startEpochDay;
+        private final BitSet bits;
+
+        private HolidayRange(LocalDate start, LocalDate end, BitSet bits) {
+            this.start = start;
+            this.end = end;
+            this.startEpochDay = start.toEpochDay();
+            this.bits = bits;
+        }
+
+        public static HolidayRange of(LocalDate start, LocalDate end, Collection<LocalDate> holidays) {
+            BitSet bits = new BitSet();
+            for (LocalDate holiday : holidays) {
+                if (!holiday.isBefore(start) && !holiday.isAfter(end)) {
+                    bits.set((int) (holiday.toEpochDay() - start.toEpochDay()));
+                }
+            }
+            return new HolidayRange(start, end, bits);
+        }
+
+        public LocalDate getStart() { return start; }
+        public LocalDate getEnd() { return end; }
+
+        public boolean contains(LocalDate date) {
+            if (date == null) {
+                return false;
+            }
+            long offset = date.toEpochDay() - startEpochDay;
+            return offset >= 0 && date.compareTo(end) <= 0 && bits.get((int) offset);
+        }
+
+        public int count() {
+            return bits.cardinality();
+        }
+
+        public List<LocalDate> toList() {
+            List<LocalDate> result = new ArrayList<>(bits.cardinality());
+            for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                result.add(start.plusDays(i));
+            }
+            return result;
+        }
+    }
+
+    private final int yearsBack;
+    private final int yearsAhead;
+    private volatile CalendarWindow window;
+    // Jahre ausserhalb des Fensters (z.B. sehr alte Saldo-Neuberechnungen)
+    private final Map<Integer, YearCalendar> overflowYears = new ConcurrentHashMap<>();
+
+    public HolidayService(@Value("${app.holidays.years-back:5}") int yearsBack,
+                          @Value("${app.holidays.years-ahead:5}") int yearsAhead) {
+        this.yearsBack = Math.max(0, yearsBack);
+        this.yearsAhead = Math.max(0, yearsAhead);
+        this.window = buildWindow(LocalDate.now().getYear());
+    }
+
+    /**
+     * Verschiebt das vorberechnete Fenster zum Jahreswechsel.
+     */
+    @Scheduled(cron = "0 5 0 1 1 *")
+    public void rollWindow() {
+        int currentYear = LocalDate.now().getYear();
+        if (window.firstYear() != currentYear - yearsBack) {
+            window = buildWindow(currentYear);
+            overflowYears.keySet().removeIf(year -> window.get(year) != null);
+        }
+    }
+
+    private CalendarWindow buildWindow(int currentYear) {
+        int firstYear = currentYear - yearsBack;
+        YearCalendar[] years = new YearCalendar[yearsBack + yearsAhead + 1];
+        for (int i = 0; i < years.length; i++) {
+            years[i] = new YearCalendar(firstYear + i);
+        }
+        logger.info("Feiertagskalender für {} Kantone von {} bis {} vorberechnet.",
+                CANTONAL_RULES.size(), firstYear, firstYear + years.length - 1);
+        return new CalendarWindow(firstYear, years);
+    }
+
+    private YearCalendar yearCalendar(int year) {
+        YearCalendar calendar = window.get(year);
+        if (calendar != null) {
+            return calendar;
+        }
+        return overflowYears.computeIfAbsent(year, YearCalendar::new);
+    }
+
+    private static int calendarIndex(String cantonAbbreviation) {
+        if (cantonAbbreviation == null || cantonAbbreviation.isBlank()) {
+            return 0;
+        }
+        // Unbekannte Kürzel verwenden den allgemeinen Kalender
+        return CALENDAR_INDEX.getOrDefault(cantonAbbreviation.trim().toUpperCase(Locale.ROOT), 0);
+    }
 
     /**
      * Gibt alle relevanten Feiertage für ein Jahr und einen Kanton zurück.
@@ -28,31 +271,52 @@ public class HolidayService {
      * @param year Jahr
      * @param cantonAbbreviation Zweistelliges Kantonskürzel (z.B. "SG", "ZH").
      * Wenn null oder leer, werden nur nationale und sehr weit verbreitete Feiertage berücksichtigt.
-     * @return Set von Feiertagsdaten
+     * @return Unveränderliches Set von Feiertagsdaten
      */
     public Set<LocalDate> getHolidays(int year, String cantonAbbreviation) {
-        String cantonKey = (cantonAbbreviation == null || cantonAbbreviation.trim().isEmpty()) ? "GENERAL" : cantonAbbreviation.toUpperCase();
-
-        return holidayCache
-                .computeIfAbsent(year, k -> new HashMap<>())
-                .computeIfAbsent(cantonKey, k -> calculateHolidaysForCache(year, cantonAbbreviation));
+        YearCalendar calendar = yearCalendar(year);
+        return calendar.dates(calendar.bitsByCalendar[calendarIndex(cantonAbbreviation)]);
     }
 
     /**
      * Gibt die rein nationalen Feiertage der Schweiz zurück.
      * @param year Jahr
-     * @return Set von Feiertagsdaten
+     * @return Unveränderliches Set von Feiertagsdaten
      */
     public Set<LocalDate> getNationalHolidays(int year) {
-        return nationalHolidayCache.computeIfAbsent(year, this::calculateStrictNationalHolidays);
+        YearCalendar calendar = yearCalendar(year);
+        return calendar.dates(calendar.nationalBits);
     }
 
     /**
-     * Berechnet die Feiertage für den Cache.
-     * Diese Methode wird intern vom Caching-Mechanismus aufgerufen.
+     * Liefert alle Feiertage zwischen {@code start} und {@code end} (inklusive) für einen Kanton.
      */
-    private Set<LocalDate> calculateHolidaysForCache(int year, String cantonAbbreviation) {
-        Set<LocalDate> holidays = new HashSet<>();
+    public HolidayRange holidaysBetween(LocalDate start, LocalDate end, String cantonAbbreviation) {
+        if (start == null || end == null || end.isBefore(start)) {
+            throw new IllegalArgumentException("Ungültiger Zeitraum: " + start + " bis " + end);
+        }
+        int index = calendarIndex(cantonAbbreviation);
+        BitSet bits = new BitSet();
+        long startEpochDay = start.toEpochDay();
+        for (int year = start.getYear(); year <= end.getYear(); year++) {
+            YearCalendar calendar = yearCalendar(year);
+            BitSet yearBits = BitSet.valueOf(calendar.bitsByCalendar[index]);
+            long yearStartEpochDay = LocalDate.ofYearDay(year, 1).toEpochDay();
+            for (int i = yearBits.nextSetBit(0); i >= 0; i = yearBits.nextSetBit(i + 1)) {
+                long offset = yearStartEpochDay + i - startEpochDay;
+                if (offset >= 0 && yearStartEpochDay + i <= end.toEpochDay()) {
+                    bits.set((int) offset);
+                }
+            }
+        }
+        return new HolidayRange(start, end, bits);
+    }
+
+    /**
+     * Berechnet die Feiertage eines Jahres für einen Kalender-Schlüssel (Kanton oder {@code GENERAL}).
+     */
+    private static Set<LocalDate> calculateHolidays(int year, String calendarKey) {
+        Set<LocalDate> holidays = new LinkedHashSet<>();
         LocalDate easterSunday = calculateEasterSunday(year);
 
         // 1. Nationale Feiertage (Bundesfeiertag + dem Bundesfeiertag gleichgestellte Tage)
@@ -70,42 +334,12 @@ public class HolidayService {
 
         // Tag der Arbeit - variiert stark, aber für "Geschäfte geschlossen" in vielen urbanen Gebieten relevant
         // Hier als "allgemein" drin, kann aber kantonal präzisiert werden.
-        // In einigen Kantonen ganz frei, in anderen halbtags oder gar nicht.
-        // Für das Kriterium "Geschäfte geschlossen" ist es oft ein Indikator.
         holidays.add(LocalDate.of(year, 5, 1));   // Tag der Arbeit
 
-        // 3. Kantonale Feiertage (Beispiele, erweiterbar)
-        // Wichtig: Die Logik hier sollte auf verlässlichen Quellen für kantonale Feiertage basieren.
-        if (cantonAbbreviation != null && !cantonAbbreviation.trim().isEmpty()) {
-            String cantonUpper = cantonAbbreviation.toUpperCase();
-            switch (cantonUpper) {
-                case "SG": // St. Gallen
-                    holidays.add(LocalDate.of(year, 1, 2));  // Berchtoldstag
-                    holidays.add(LocalDate.of(year, 11, 1)); // Allerheiligen
-                    // Weitere spezifische Feiertage für SG, falls bekannt und relevant für "Geschäfte geschlossen"
-                    break;
-                case "ZH": // Zürich
-                    holidays.add(LocalDate.of(year, 1, 2));  // Berchtoldstag
-                    // Sechseläuten (Montagnachmittag) und Knabenschiessen (Montag) sind typischerweise halbe Feiertage,
-                    // an denen Geschäfte oft früher schliessen oder ganz zu sind. Für "ganztägig geschlossen" ggf. nicht relevant.
-                    // Ggf. spezifische Logik für halbe Feiertage einführen, falls das Wochensoll beeinflusst wird.
-                    holidays.add(LocalDate.of(year, 11, 1)); // Allerheiligen (in einigen Gemeinden) - prüfen!
-                    break;
-                // Fügen Sie hier weitere Kantone nach Bedarf hinzu:
-                // AG, AI, AR, BE, BL, BS, FR, GE, GL, GR, JU, LU, NE, NW, OW, SH, SO, SZ, TG, TI, UR, VD, VS, ZG
-                // Beispiel für einen weiteren Kanton:
-                // case "BE": // Bern
-                //     holidays.add(LocalDate.of(year, 1, 2));  // Berchtoldstag
-                //     holidays.add(LocalDate.of(year, 12, 26)); // Stephanstag ist in BE ein hoher Feiertag
-                //     break;
-                default:
-                    // Für nicht explizit definierte Kantone werden nur die nationalen und oben genannten
-                    // weit verbreiteten Feiertage verwendet.
-                    logger.debug("Keine spezifischen kantonalen Feiertage für Kürzel '{}' im Jahr {} definiert. Verwende allgemeine Feiertage.", cantonUpper, year);
-                    break;
-            }
+        // 3. Kantonale Feiertage
+        for (HolidayRule rule : CANTONAL_RULES.getOrDefault(calendarKey, List.of())) {
+            holidays.add(rule.date().apply(year));
         }
-        logger.info("Calculated holidays for year {} and canton '{}': {} days", year, cantonAbbreviation, holidays.size());
         return holidays;
     }
 
@@ -113,8 +347,8 @@ public class HolidayService {
      * Berechnet die *strikt* nationalen Feiertage gemäss Bundesgesetz oder Gleichstellung.
      * (1. August ist der einzige eidgenössische. Neujahr, Auffahrt, Weihnachten sind kantonal, aber allen gleichgestellt)
      */
-    private Set<LocalDate> calculateStrictNationalHolidays(int year) {
-        Set<LocalDate> holidays = new HashSet<>();
+    private static Set<LocalDate> calculateStrictNationalHolidays(int year) {
+        Set<LocalDate> holidays = new LinkedHashSet<>();
         holidays.add(LocalDate.of(year, 1, 1)); // Neujahr
         LocalDate easterSunday = calculateEasterSunday(year); // Wird für Auffahrt benötigt
         holidays.add(easterSunday.plusDays(39)); // Auffahrt
@@ -123,12 +357,27 @@ public class HolidayService {
         return holidays;
     }
 
+    /**
+     * Näfelser Fahrt: erster Donnerstag im April, fällt dieser in die Karwoche, eine Woche später.
+     */
+    private static LocalDate naefelserFahrt(int year) {
+        LocalDate firstThursday = LocalDate.of(year, 4, 1).with(TemporalAdjusters.firstInMonth(DayOfWeek.THURSDAY));
+        LocalDate easterSunday = calculateEasterSunday(year);
+        if (!firstThursday.isBefore(easterSunday.minusDays(3)) && !firstThursday.isAfter(easterSunday.plusDays(1))) {
+            return firstThursday.plusWeeks(1);
+        }
+        return firstThursday;
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
 
     public boolean isHoliday(LocalDate date, String cantonAbbreviation) {
         if (date == null) {
             return false;
         }
-        return getHolidays(date.getYear(), cantonAbbreviation).contains(date);
+        return yearCalendar(date.getYear()).contains(calendarIndex(cantonAbbreviation), date);
     }
 
     /**
@@ -136,15 +385,11 @@ public class HolidayService {
      * Nützlich, wenn kein spezifischer Kanton bekannt ist.
      */
     public boolean isGenerallyConsideredHoliday(LocalDate date) {
-        if (date == null) {
-            return false;
-        }
-        // Verwendet die Logik von getHolidays ohne spezifisches Kantonskürzel
-        return getHolidays(date.getYear(), null).contains(date);
+        return isHoliday(date, null);
     }
 
 
-    private LocalDate calculateEasterSunday(int year) {
+    private static LocalDate calculateEasterSunday(int year) {
         // Gauss-Osterformel (Meeus/Jones/Butcher Algorithmus)
         int a = year % 19;
         int b = year / 100;
@@ -169,24 +414,14 @@ public class HolidayService {
      */
     public Map<LocalDate, String> getHolidayDetails(int year, String cantonAbbreviation, LocalDate startDate, LocalDate endDate) {
         Map<LocalDate, String> holidayDetails = new HashMap<>();
-
-        // Behandle jahresübergreifende Zeiträume
-        Set<Integer> yearsToConsider = new HashSet<>();
-        yearsToConsider.add(startDate.getYear());
-        yearsToConsider.add(endDate.getYear());
-
-        for (Integer currentYear : yearsToConsider) {
-            Set<LocalDate> holidaysInYear = getHolidays(currentYear, cantonAbbreviation);
-            holidaysInYear.stream()
-                    .filter(holiday -> !holiday.isBefore(startDate) && !holiday.isAfter(endDate))
-                    .sorted() // Sortieren für konsistente Reihenfolge, falls relevant
-                    .forEach(holiday -> holidayDetails.put(holiday, getHolidayName(holiday, currentYear, cantonAbbreviation)));
+        for (LocalDate holiday : holidaysBetween(startDate, endDate, cantonAbbreviation).toList()) {
+            holidayDetails.put(holiday, getHolidayName(holiday, holiday.getYear(), cantonAbbreviation));
         }
         return holidayDetails;
     }
 
     // Hilfsmethode, um den Namen eines Feiertags zu bekommen
-    // Diese Methode sollte konsistent mit `calculateHolidaysForCache` sein.
+    // Diese Methode sollte konsistent mit `calculateHolidays` sein.
     public String getHolidayName(LocalDate date, int year, String cantonAbbreviation) {
         LocalDate easterSunday = calculateEasterSunday(year);
 
@@ -203,22 +438,20 @@ public class HolidayService {
         if (date.equals(LocalDate.of(year, 12, 26))) return "Stephanstag";
 
         // Kantonsspezifische Namen
-        if (cantonAbbreviation != null && !cantonAbbreviation.trim().isEmpty()) {
-            String cantonUpper = cantonAbbreviation.toUpperCase();
-            if ("SG".equals(cantonUpper)) {
-                if (date.equals(LocalDate.of(year, 1, 2))) return "Berchtoldstag (SG)";
-                if (date.equals(LocalDate.of(year, 11, 1))) return "Allerheiligen (SG)";
-            } else if ("ZH".equals(cantonUpper)) {
-                if (date.equals(LocalDate.of(year, 1, 2))) return "Berchtoldstag (ZH)";
-                // Ggf. weitere Namen für ZH
+        int index = calendarIndex(cantonAbbreviation);
+        if (index > 0) {
+            String canton = CALENDAR_KEYS.get(index);
+            for (HolidayRule rule : CANTONAL_RULES.get(canton)) {
+                if (date.equals(rule.date().apply(year))) {
+                    return rule.name() + " (" + canton + ")";
+                }
             }
-            // Fügen Sie hier weitere Namen für kantonale Feiertage hinzu
         }
         // Fallback, falls kein spezifischer Name gefunden wird, aber als Feiertag gilt
-        if (getHolidays(year, cantonAbbreviation).contains(date)) {
+        if (isHoliday(date, cantonAbbreviation)) {
             return "Feiertag";
         }
 
         return "Unbekannter Feiertag"; // Sollte nicht oft erreicht werden
     }
-}
\ No newline at end of file
+}
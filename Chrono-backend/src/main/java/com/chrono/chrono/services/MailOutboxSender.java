@@ -0,0 +1,297 @@
+package com.chrono.chrono.services;
+
+import com.chrono.chrono.entities.MailOutboxMessage;
+import com.chrono.chrono.repositories.MailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stellt die Nachrichten der Mail-Outbox im Hintergrund zu. Pro Durchlauf wird ein Block
+ * fälliger Nachrichten abgeholt und in einem Aufruf über eine SMTP-Verbindung verschickt.
+ * Fehlgeschlagene Nachrichten werden mit exponentiellem Backoff wiederholt und nach
+ * {@code max-attempts} Versuchen als {@code FAILED} abgelegt. Ein Token-Bucket begrenzt die
+ * Zustellrate, damit der SMTP-Server nicht drosselt. Zugestellte Nachrichten werden nach
+ * {@code retention} gelöscht.
+ */
+@Service
+public class MailOutboxSender {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailOutboxSender.class);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final MailOutboxRepository outboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final int batchSize;
+    private final double ratePerSecond;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final Duration retention;
+
+    private double tokens;
+    private long lastRefillMillis;
+
+    private final AtomicLong pendingBacklog = new AtomicLong();
+    private final AtomicLong failedBacklog = new AtomicLong();
+    private final Counter sentCounter;
+    private final Counter retryCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+
+    @Autowired
+    public MailOutboxSender(MailOutboxRepository outboxRepository,
+                            JavaMailSender mailSender,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.mail.outbox.batch-size:50}") int batchSize,
+                            @Value("${app.mail.outbox.rate-per-second:5}") double ratePerSecond,
+                            @Value("${app.mail.outbox.max-attempts:8}") int maxAttempts,
+                            @Value("${app.mail.outbox.initial-backoff:PT30S}") Duration initialBackoff,
+                            @Value("${app.mail.outbox.max-backoff:PT1H}") Duration maxBackoff,
+                            @Value("${app.mail.outbox.lease:PT5M}") Duration lease,
+                            @Value("${app.mail.outbox.retention:P30D}") Duration retention) {
+        this(outboxRepository, mailSender, transactionManager, meterRegistry, Clock.systemDefaultZone(),
+                batchSize, ratePerSecond, maxAttempts, initialBackoff, maxBackoff, lease, retention);
+    }
+
+    MailOutboxSender(MailOutboxRepository outboxRepository,
+                     JavaMailSender mailSender,
+                     PlatformTransactionManager transactionManager,
+                     MeterRegistry meterRegistry,
+                     Clock clock,
+                     int batchSize,
+                     double ratePerSecond,
+                     int maxAttempts,
+                     Duration initialBackoff,
+                     Duration maxBackoff,
+                     Duration lease,
+                     Duration retention) {
+        this.outboxRepository = outboxRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.batchSize = Math.max(1, batchSize);
+        this.ratePerSecond = ratePerSecond > 0 ? ratePerSecond : Double.MAX_VALUE;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.lease = lease;
+        this.retention = retention;
+        this.tokens = this.batchSize;
+        this.lastRefillMillis = clock.millis();
+
+        this.sentCounter = Counter.builder("chrono.mail.outbox.deliveries")
+                .description("Zustellversuche der Mail-Outbox")
+                .tag("outcome", "sent")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("chrono.mail.outbox.deliveries")
+                .description("Zustellversuche der Mail-Outbox")
+                .tag("outcome", "retry")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("chrono.mail.outbox.deliveries")
+                .description("Zustellversuche der Mail-Outbox")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("chrono.mail.outbox.batch.duration")
+                .description("Dauer eines Zustellblocks inklusive SMTP")
+                .register(meterRegistry);
+        Gauge.builder("chrono.mail.outbox.backlog", pendingBacklog, AtomicLong::get)
+                .description("Nachrichten in der Outbox nach Status")
+                .tag("status", "pending")
+                .register(meterRegistry);
+        Gauge.builder("chrono.mail.outbox.backlog", failedBacklog, AtomicLong::get)
+                .description("Nachrichten in der Outbox nach Status")
+                .tag("status", "failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stellt fällige Nachrichten blockweise zu, bis keine mehr fällig sind oder das
+     * Ratenlimit erreicht ist.
+     */
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval:PT5S}")
+    public synchronized void deliverDue() {
+        try {
+            while (true) {
+                int permits = acquire(batchSize);
+                if (permits == 0) {
+                    break;
+                }
+                int claimed = deliverBatch(permits);
+                if (claimed < permits) {
+                    release(permits - claimed);
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Mail-Outbox: Zustellung unterbrochen: {}", e.getMessage(), e);
+        } finally {
+            refreshBacklog();
+        }
+    }
+
+    /**
+     * Löscht zugestellte Nachrichten, die älter als {@code retention} sind. Fehlgeschlagene
+     * bleiben für die Nachverfolgung stehen.
+     */
+    @Scheduled(fixedDelayString = "${app.mail.outbox.purge-interval:PT1H}")
+    public void purgeSent() {
+        try {
+            int deleted = outboxRepository.deleteSentBefore(MailOutboxMessage.Status.SENT,
+                    LocalDateTime.now(clock).minus(retention));
+            if (deleted > 0) {
+                logger.info("Mail-Outbox: {} zugestellte Nachrichten älter als {} gelöscht.", deleted, retention);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Mail-Outbox: Aufräumen fehlgeschlagen: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Holt bis zu {@code limit} fällige Nachrichten ab, verschickt sie über eine Verbindung
+     * und hält das Ergebnis fest. Liefert die Anzahl abgeholter Nachrichten.
+     */
+    int deliverBatch(int limit) {
+        List<MailOutboxMessage> claimed = transactionTemplate.execute(status -> claim(limit));
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+        Timer.Sample sample = Timer.start();
+        Map<Long, String> failures = send(claimed);
+        transactionTemplate.executeWithoutResult(status -> recordResults(claimed, failures));
+        sample.stop(batchTimer);
+        return claimed.size();
+    }
+
+    private List<MailOutboxMessage> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<MailOutboxMessage> due = outboxRepository.findDue(MailOutboxMessage.Status.PENDING, now,
+                PageRequest.of(0, limit));
+        for (MailOutboxMessage message : due) {
+            message.setAttempts(message.getAttempts() + 1);
+            // Lease: bricht die Zustellung ab, wird die Nachricht danach erneut fällig
+            message.setNextAttemptAt(now.plus(lease));
+        }
+        return due;
+    }
+
+    private Map<Long, String> send(List<MailOutboxMessage> messages) {
+        SimpleMailMessage[] mails = new SimpleMailMessage[messages.size()];
+        for (int i = 0; i < mails.length; i++) {
+            mails[i] = toMail(messages.get(i));
+        }
+        Map<Long, String> failures = new HashMap<>();
+        try {
+            mailSender.send(mails);
+        } catch (MailSendException e) {
+            Map<Object, Exception> failed = e.getFailedMessages();
+            for (int i = 0; i < mails.length; i++) {
+                if (failed.isEmpty()) {
+                    failures.put(messages.get(i).getId(), e.getMessage());
+                } else if (failed.containsKey(mails[i])) {
+                    failures.put(messages.get(i).getId(), failed.get(mails[i]).getMessage());
+                }
+            }
+        } catch (MailException e) {
+            messages.forEach(message -> failures.put(message.getId(), e.getMessage()));
+        }
+        return failures;
+    }
+
+    private void recordResults(List<MailOutboxMessage> claimed, Map<Long, String> failures) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<Long> ids = claimed.stream().map(MailOutboxMessage::getId).toList();
+        for (MailOutboxMessage message : outboxRepository.findAllById(ids)) {
+            if (!failures.containsKey(message.getId())) {
+                message.setStatus(MailOutboxMessage.Status.SENT);
+                message.setSentAt(now);
+                message.setLastError(null);
+                sentCounter.increment();
+                continue;
+            }
+            message.setLastError(truncate(failures.get(message.getId())));
+            if (message.getAttempts() >= maxAttempts) {
+                message.setStatus(MailOutboxMessage.Status.FAILED);
+                failedCounter.increment();
+                logger.error("Mail-Outbox: Nachricht {} ({}) nach {} Versuchen aufgegeben: {}",
+                        message.getId(), message.getContext(), message.getAttempts(), message.getLastError());
+            } else {
+                message.setNextAttemptAt(now.plus(backoff(message.getAttempts())));
+                retryCounter.increment();
+                logger.warn("Mail-Outbox: Nachricht {} ({}) fehlgeschlagen, Versuch {} von {}: {}",
+                        message.getId(), message.getContext(), message.getAttempts(), maxAttempts, message.getLastError());
+            }
+        }
+    }
+
+    /** Wartezeit nach dem n-ten Fehlversuch: initial * 2^(n-1), höchstens {@code max-backoff}. */
+    Duration backoff(int attempts) {
+        int exponent = Math.min(Math.max(0, attempts - 1), 30);
+        Duration delay = initialBackoff.multipliedBy(1L << exponent);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private synchronized int acquire(int wanted) {
+        long now = clock.millis();
+        tokens = Math.min(batchSize, tokens + (now - lastRefillMillis) / 1000.0 * ratePerSecond);
+        lastRefillMillis = now;
+        int granted = (int) Math.min(wanted, Math.floor(tokens));
+        tokens -= granted;
+        return granted;
+    }
+
+    private synchronized void release(int unused) {
+        tokens = Math.min(batchSize, tokens + unused);
+    }
+
+    private void refreshBacklog() {
+        try {
+            pendingBacklog.set(outboxRepository.countByStatus(MailOutboxMessage.Status.PENDING));
+            failedBacklog.set(outboxRepository.countByStatus(MailOutboxMessage.Status.FAILED));
+        } catch (RuntimeException e) {
+            logger.debug("Mail-Outbox: Rückstand konnte nicht gezählt werden: {}", e.getMessage());
+        }
+    }
+
+    private static SimpleMailMessage toMail(MailOutboxMessage message) {
+        SimpleMailMessage mail = new SimpleMailMessage();
+        mail.setFrom(message.getSender());
+        mail.setTo(message.getRecipients().split(","));
+        mail.setSubject(message.getSubject());
+        mail.setText(message.getBody());
+        return mail;
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -0,0 +1,295 @@
+package com.chrono.chrono.services;
+
+import com.chrono.chrono.entities.Payslip;
+import com.chrono.chrono.entities.PayslipSchedule;
+import com.chrono.chrono.entities.TimeTrackingEntry;
+import com.chrono.chrono.entities.User;
+import com.chrono.chrono.repositories.PayslipRepository;
+import com.chrono.chrono.repositories.PayslipScheduleRepository;
+import com.chrono.chrono.repositories.TimeTrackingEntryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monatlicher Lohnlauf über alle fälligen Abrechnungspläne. User, Stempelungen und bisherige
+ * Abrechnungsversionen der Periode werden mit wenigen mengenbasierten Abfragen geladen statt
+ * pro User. Berechnung und Speicherung laufen in Partitionen parallel, jede Partition in einer
+ * eigenen Transaktion; Audit-Einträge gehen per JDBC-Batch in die Datenbank. Benachrichtigungen
+ * und das Weiterschieben der Pläne laufen in derselben Transaktion, ein Absturz kann also keine
+ * doppelte Abrechnung oder Mail erzeugen. Eine fehlerhafte Partition wird zurückgerollt, ihre
+ * Pläne bleiben fällig und werden beim nächsten Lauf wiederholt.
+ */
+@Service
+public class PayrollRunService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayrollRunService.class);
+    private static final String AUDIT_SQL =
+            "INSERT INTO payslip_audit (payslip_id, action, author, comment, timestamp) VALUES (?, ?, ?, ?, ?)";
+    /** Obergrenze für IN-Listen, damit auch große Belegschaften in wenigen Abfragen geladen werden. */
+    private static final int IN_CLAUSE_LIMIT = 1000;
+
+    /**
+     * Ergebnis eines Lohnlaufs mit Gesamtdauer und Dauer je Phase. Berechnung und Speicherung
+     * laufen parallel; ihre Dauer ist die Summe über alle Partitionen.
+     */
+    public record RunReport(LocalDate runDate,
+                            int scheduled,
+                            int generated,
+                            int failed,
+                            Duration duration,
+                            Map<String, Duration> stages) {
+    }
+
+    private record Period(LocalDate start, LocalDate end) {
+    }
+
+    private record Partition(Period period,
+                             List<PayslipSchedule> schedules,
+                             Map<Long, List<TimeTrackingEntry>> entriesByUser,
+                             Map<Long, Integer> latestVersions) {
+    }
+
+    private record PartitionResult(List<PayslipSchedule> completed, int failed) {
+    }
+
+    private final PayslipScheduleRepository scheduleRepository;
+    private final TimeTrackingEntryRepository timeTrackingEntryRepository;
+    private final PayslipRepository payslipRepository;
+    private final PayrollService payrollService;
+    private final EmailService emailService;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int partitionSize;
+    private final ExecutorService workers;
+
+    public PayrollRunService(PayslipScheduleRepository scheduleRepository,
+                             TimeTrackingEntryRepository timeTrackingEntryRepository,
+                             PayslipRepository payslipRepository,
+                             PayrollService payrollService,
+                             EmailService emailService,
+                             EntityManager entityManager,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.payroll.run.partition-size:250}") int partitionSize,
+                             @Value("${app.payroll.run.threads:4}") int threads) {
+        this.scheduleRepository = scheduleRepository;
+        this.timeTrackingEntryRepository = timeTrackingEntryRepository;
+        this.payslipRepository = payslipRepository;
+        this.payrollService = payrollService;
+        this.emailService = emailService;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.partitionSize = Math.max(1, partitionSize);
+        this.workers = Executors.newFixedThreadPool(Math.max(1, threads), namedThreads("payroll-run-worker"));
+    }
+
+    /**
+     * Erstellt die Abrechnungen aller bis {@code today} fälligen Pläne für den jeweiligen
+     * Vormonat und schiebt die erfolgreich abgerechneten Pläne um einen Monat weiter.
+     */
+    public synchronized RunReport runScheduled(LocalDate today) {
+        long runStart = System.nanoTime();
+        Map<String, Duration> stages = new LinkedHashMap<>();
+
+        long stageStart = System.nanoTime();
+        List<PayslipSchedule> due = scheduleRepository.findDueWithUsers(today);
+        Map<Period, List<PayslipSchedule>> byPeriod = new LinkedHashMap<>();
+        for (PayslipSchedule schedule : due) {
+            LocalDate start = schedule.getNextRun().minusMonths(1).withDayOfMonth(1);
+            byPeriod.computeIfAbsent(new Period(start, start.plusMonths(1).minusDays(1)), key -> new ArrayList<>())
+                    .add(schedule);
+        }
+        List<Partition> partitions = new ArrayList<>();
+        byPeriod.forEach((period, schedules) -> {
+            List<Long> userIds = schedules.stream().map(schedule -> schedule.getUser().getId()).distinct().toList();
+            Map<Long, List<TimeTrackingEntry>> entriesByUser = loadEntries(userIds, period);
+            Map<Long, Integer> latestVersions = loadLatestVersions(userIds, period);
+            for (int i = 0; i < schedules.size(); i += partitionSize) {
+                partitions.add(new Partition(period, schedules.subList(i, Math.min(i + partitionSize, schedules.size())),
+                        entriesByUser, latestVersions));
+            }
+        });
+        stages.put("load", recordStage("load", System.nanoTime() - stageStart));
+
+        LongAdder computeNanos = new LongAdder();
+        LongAdder persistNanos = new LongAdder();
+        List<CompletableFuture<PartitionResult>> futures = partitions.stream()
+                .map(partition -> CompletableFuture.supplyAsync(
+                        () -> runPartition(partition, computeNanos, persistNanos), workers))
+                .toList();
+        List<PayslipSchedule> completed = new ArrayList<>();
+        int failed = 0;
+        for (CompletableFuture<PartitionResult> future : futures) {
+            PartitionResult result = future.join();
+            completed.addAll(result.completed());
+            failed += result.failed();
+        }
+        stages.put("compute", recordStage("compute", computeNanos.sum()));
+        stages.put("persist", recordStage("persist", persistNanos.sum()));
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - runStart);
+        Timer.builder("chrono.payroll.run.duration")
+                .description("Gesamtdauer eines Lohnlaufs")
+                .register(meterRegistry)
+                .record(duration);
+        RunReport report = new RunReport(today, due.size(), completed.size(), failed, duration, stages);
+        logger.info("Lohnlauf {}: {} fällig, {} erstellt, {} fehlgeschlagen in {} ms (Phasen: {}).",
+                today, due.size(), completed.size(), failed, duration.toMillis(), stages);
+        return report;
+    }
+
+    private Map<Long, List<TimeTrackingEntry>> loadEntries(List<Long> userIds, Period period) {
+        LocalDateTime start = period.start().atStartOfDay();
+        LocalDateTime end = period.end().plusDays(1).atStartOfDay();
+        Map<Long, List<TimeTrackingEntry>> entriesByUser = new HashMap<>();
+        for (int i = 0; i < userIds.size(); i += IN_CLAUSE_LIMIT) {
+            List<Long> chunk = userIds.subList(i, Math.min(i + IN_CLAUSE_LIMIT, userIds.size()));
+            for (TimeTrackingEntry entry : timeTrackingEntryRepository.findByUserIdInAndEntryTimestampBetween(chunk, start, end)) {
+                entriesByUser.computeIfAbsent(entry.getUser().getId(), key -> new ArrayList<>()).add(entry);
+            }
+        }
+        return entriesByUser;
+    }
+
+    private Map<Long, Integer> loadLatestVersions(List<Long> userIds, Period period) {
+        Map<Long, Integer> latest = new HashMap<>();
+        for (int i = 0; i < userIds.size(); i += IN_CLAUSE_LIMIT) {
+            List<Long> chunk = userIds.subList(i, Math.min(i + IN_CLAUSE_LIMIT, userIds.size()));
+            for (Object[] row : payslipRepository.findLatestVersions(period.start(), period.end(), chunk)) {
+                if (row[1] != null) {
+                    latest.put((Long) row[0], ((Number) row[1]).intValue());
+                }
+            }
+        }
+        return latest;
+    }
+
+    private PartitionResult runPartition(Partition partition, LongAdder computeNanos, LongAdder persistNanos) {
+        long computeStart = System.nanoTime();
+        List<Payslip> payslips = new ArrayList<>(partition.schedules().size());
+        List<PayslipSchedule> computed = new ArrayList<>(partition.schedules().size());
+        int failed = 0;
+        for (PayslipSchedule schedule : partition.schedules()) {
+            User user = schedule.getUser();
+            try {
+                Integer latest = partition.latestVersions().get(user.getId());
+                payslips.add(payrollService.calculatePayslip(user,
+                        partition.entriesByUser().getOrDefault(user.getId(), List.of()),
+                        partition.period().start(), partition.period().end(), null, null, false,
+                        latest == null ? 1 : latest + 1));
+                computed.add(schedule);
+            } catch (RuntimeException e) {
+                failed++;
+                logger.error("Lohnlauf: Abrechnung für User-Id {} konnte nicht berechnet werden: {}",
+                        user.getId(), e.getMessage(), e);
+            }
+        }
+        computeNanos.add(System.nanoTime() - computeStart);
+
+        long persistStart = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                persist(payslips);
+                advanceSchedules(computed);
+            });
+        } catch (RuntimeException e) {
+            logger.error("Lohnlauf: Partition mit {} Abrechnungen ({} bis {}) zurückgerollt: {}",
+                    payslips.size(), partition.period().start(), partition.period().end(), e.getMessage(), e);
+            return new PartitionResult(List.of(), partition.schedules().size());
+        } finally {
+            persistNanos.add(System.nanoTime() - persistStart);
+        }
+        return new PartitionResult(computed, failed);
+    }
+
+    private void persist(List<Payslip> payslips) {
+        if (payslips.isEmpty()) {
+            return;
+        }
+        for (Payslip payslip : payslips) {
+            entityManager.persist(payslip);
+        }
+        entityManager.flush();
+        for (Payslip payslip : payslips) {
+            emailService.sendPayslipGeneratedMail(payslip.getUser(), payslip);
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(AUDIT_SQL, payslips, payslips.size(), (statement, payslip) -> {
+            statement.setLong(1, payslip.getId());
+            statement.setString(2, "GENERATED");
+            statement.setString(3, payslip.getUser().getUsername());
+            statement.setString(4, null);
+            statement.setTimestamp(5, now);
+        });
+        entityManager.clear();
+    }
+
+    /** Läuft in der Transaktion der Partition, damit Abrechnungen und Pläne gemeinsam committen. */
+    private void advanceSchedules(List<PayslipSchedule> completed) {
+        Map<LocalDate, List<Long>> idsByNextRun = new LinkedHashMap<>();
+        for (PayslipSchedule schedule : completed) {
+            LocalDate next = schedule.getNextRun().plusMonths(1);
+            next = next.withDayOfMonth(Math.min(schedule.getDayOfMonth(), next.lengthOfMonth()));
+            idsByNextRun.computeIfAbsent(next, key -> new ArrayList<>()).add(schedule.getId());
+        }
+        idsByNextRun.forEach((next, ids) -> {
+            for (int i = 0; i < ids.size(); i += IN_CLAUSE_LIMIT) {
+                scheduleRepository.updateNextRun(ids.subList(i, Math.min(i + IN_CLAUSE_LIMIT, ids.size())), next);
+            }
+        });
+    }
+
+    private Duration recordStage(String stage, long nanos) {
+        Duration duration = Duration.ofNanos(nanos);
+        Timer.builder("chrono.payroll.run.stage")
+                .description("Dauer einer Phase des Lohnlaufs")
+                .tag("stage", stage)
+                .register(meterRegistry)
+                .record(duration);
+        return duration;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -62,11 +62,37 @@ public class PayrollService {
 
     @Transactional
     public Payslip generatePayslip(Long userId, LocalDate start, LocalDate end, LocalDate payoutDate, Double overtimeHours, boolean payoutOvertime) {
-        User user = userRepository.findById(userId).orElseThrow();
+        // Gleiche Zeilensperre wie die Saldo-Fortschreibung, damit die Auszahlung nicht überschrieben wird
+        User user = userRepository.findByIdForUpdate(userId).orElseThrow();
         LocalDateTime startDt = start.atStartOfDay();
         LocalDateTime endDt = end.plusDays(1).atStartOfDay();
         List<TimeTrackingEntry> entries = timeTrackingEntryRepository
                 .findByUserAndEntryTimestampBetweenOrderByEntryTimestampAsc(user, startDt, endDt);
+        Integer maxVersion = payslipRepository.findByUserAndPeriodStartAndPeriodEnd(user, start, end)
+                .stream().map(Payslip::getVersion).max(Integer::compareTo).orElse(0);
+        int version = maxVersion == null ? 0 : maxVersion + 1;
+
+        Payslip ps = calculatePayslip(user, entries, start, end, payoutDate, overtimeHours, payoutOvertime, version);
+        if (ps.isPayoutOvertime()) {
+            int minutesToDeduct = (int) Math.round(ps.getOvertimeHours() * 60);
+            int currentBalance = user.getTrackingBalanceInMinutes() != null
+                    ? user.getTrackingBalanceInMinutes()
+                    : 0;
+            user.setTrackingBalanceInMinutes(currentBalance - minutesToDeduct);
+            userRepository.save(user);
+        }
+        Payslip saved = payslipRepository.save(ps);
+        audit(saved, "GENERATED", user.getUsername(), null);
+        emailService.sendPayslipGeneratedMail(user, saved);
+        return saved;
+    }
+
+    /**
+     * Berechnet eine Abrechnung aus bereits geladenen Stempelungen, ohne zu speichern oder
+     * den Überstundensaldo zu verändern. Wird auch vom Lohnlauf parallel für viele User genutzt.
+     */
+    Payslip calculatePayslip(User user, List<TimeTrackingEntry> entries, LocalDate start, LocalDate end,
+                             LocalDate payoutDate, Double overtimeHours, boolean payoutOvertime, int version) {
         long minutes = 0;
         LocalDateTime lastStart = null;
         for (TimeTrackingEntry e : entries) {
@@ -105,12 +131,6 @@ public class PayrollService {
                     : overtimeHours;
             paidOvertimeHours = Math.min(overtimeHours, available);
             manualOvertimePay = paidOvertimeHours * rate * (1 + OVERTIME_BONUS);
-            int minutesToDeduct = (int) Math.round(paidOvertimeHours * 60);
-            int currentBalance = user.getTrackingBalanceInMinutes() != null
-                    ? user.getTrackingBalanceInMinutes()
-                    : 0;
-            user.setTrackingBalanceInMinutes(currentBalance - minutesToDeduct);
-            userRepository.save(user);
         }
 
         double gross = basePay + overtimePay + manualOvertimePay;
@@ -122,9 +142,7 @@ public class PayrollService {
         ps.setUser(user);
         ps.setPeriodStart(start);
         ps.setPeriodEnd(end);
-        Integer maxVersion = payslipRepository.findByUserAndPeriodStartAndPeriodEnd(user, start, end)
-                .stream().map(Payslip::getVersion).max(Integer::compareTo).orElse(0);
-        ps.setVersion(maxVersion == null ? 0 : maxVersion + 1);
+        ps.setVersion(version);
         ps.setGrossSalary(gross);
         ps.setDeductions(deductions);
         ps.setNetSalary(net);
@@ -157,10 +175,7 @@ public class PayrollService {
         ps.setSocialSecurityNumber(user.getSocialSecurityNumber());
         ps.setPayType(user.getIsHourly() != null && user.getIsHourly() ? "hourly" : "salary");
         ps.setApproved(false);
-        Payslip saved = payslipRepository.save(ps);
-        audit(saved, "GENERATED", user.getUsername(), null);
-        emailService.sendPayslipGeneratedMail(user, saved);
-        return saved;
+        return ps;
     }
 
     @Transactional(readOnly = true)
@@ -228,7 +243,7 @@ public class PayrollService {
             throw new IllegalStateException("Cannot delete approved payslip");
         }
         if (ps.isPayoutOvertime() && ps.getOvertimeHours() != null && ps.getOvertimeHours() > 0) {
-            User user = ps.getUser();
+            User user = userRepository.findByIdForUpdate(ps.getUser().getId()).orElseThrow();
             int minutesToRestore = (int) Math.round(ps.getOvertimeHours() * 60);
             int currentBalance = user.getTrackingBalanceInMinutes() != null
                     ? user.getTrackingBalanceInMinutes()
@@ -305,42 +320,19 @@ public class PayrollService {
     }
 
 
-    @Transactional
-    public byte[] getPayslipPdf(Long id) {
-        return getPayslipPdf(id, "de");
-    }
-
-    @Transactional
-    public byte[] getPayslipPdf(Long id, String lang) {
+    /**
+     * Schreibt das PDF einer Abrechnung in den Stream. Eine bei der Freigabe abgelegte
+     * deutsche Fassung wird direkt kopiert, sonst wird das Dokument in den Stream gerendert.
+     */
+    @Transactional(readOnly = true)
+    public void writePayslipPdf(Long id, String lang, java.io.OutputStream out) throws java.io.IOException {
         Payslip ps = payslipRepository.findById(id).orElseThrow();
         String path = ps.getPdfPath();
-        if (path != null && "de".equalsIgnoreCase(lang)) {
-            try {
-                return java.nio.file.Files.readAllBytes(java.nio.file.Path.of(path));
-            } catch (java.io.IOException ignore) {
-                // fall through to regeneration
-            }
+        if (path != null && "de".equalsIgnoreCase(lang) && java.nio.file.Files.isReadable(java.nio.file.Path.of(path))) {
+            java.nio.file.Files.copy(java.nio.file.Path.of(path), out);
+            return;
         }
-
-        byte[] bytes = pdfService.generatePayslipPdfBytes(ps, lang);
-        if (bytes == null) {
-            return null;
-        }
-
-        if ("de".equalsIgnoreCase(lang)) {
-            try {
-                path = "/tmp/payslip-" + ps.getId() + ".pdf";
-                java.nio.file.Files.write(java.nio.file.Path.of(path), bytes);
-                ps.setPdfPath(path);
-                payslipRepository.save(ps);
-            } catch (java.io.IOException ignore) {
-                // ignore write error, still return bytes
-            }
-        }
-
-        return bytes;
-
-
+        pdfService.writePayslipPdf(ps, lang, out);
     }
 
     @Transactional
@@ -0,0 +1,162 @@
+package com.chrono.chrono.services;
+
+import com.chrono.chrono.entities.Payslip;
+import com.chrono.chrono.repositories.PayslipRepository;
+import jakarta.annotation.PreDestroy;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exportiert die Abrechnungen einer Periode als ZIP. Die PDFs werden parallel gerendert,
+ * aber in fester Reihenfolge und einzeln in den Stream geschrieben. Es sind höchstens
+ * {@code 2 * threads} fertige oder laufende PDFs gleichzeitig im Speicher, unabhängig von
+ * der Anzahl Abrechnungen.
+ */
+@Service
+public class PayslipArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayslipArchiveService.class);
+
+    private record PendingEntry(String name, CompletableFuture<byte[]> pdf) {
+    }
+
+    private final PayslipRepository payslipRepository;
+    private final PdfService pdfService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService renderers;
+    private final int maxInFlight;
+
+    public PayslipArchiveService(PayslipRepository payslipRepository,
+                                 PdfService pdfService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.payroll.pdf.export-threads:4}") int threads) {
+        this.payslipRepository = payslipRepository;
+        this.pdfService = pdfService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        int workerCount = Math.max(1, threads);
+        this.renderers = Executors.newFixedThreadPool(workerCount, namedThreads("payslip-pdf-worker"));
+        this.maxInFlight = workerCount * 2;
+    }
+
+    /**
+     * Schreibt alle Abrechnungen der Firma im Zeitraum als ZIP in den Stream und liefert
+     * die Anzahl geschriebener Einträge. Abrechnungen, deren PDF nicht erstellt werden kann,
+     * werden protokolliert und ausgelassen.
+     */
+    @Transactional(readOnly = true)
+    public int writeArchive(Long companyId, LocalDate start, LocalDate end, String lang, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        List<Payslip> payslips = payslipRepository.findForArchive(companyId, start, end);
+        ZipOutputStream zip = new ZipOutputStream(out);
+        Deque<PendingEntry> window = new ArrayDeque<>();
+        int written = 0;
+        try {
+            for (Payslip ps : payslips) {
+                // Lohnarten im Request-Thread laden (blockweise per @BatchSize), Worker lesen nur
+                Hibernate.initialize(ps.getEarnings());
+                Hibernate.initialize(ps.getDeductionsList());
+                Hibernate.initialize(ps.getEmployerContribList());
+                window.add(new PendingEntry(entryName(ps),
+                        CompletableFuture.supplyAsync(() -> render(ps, lang), renderers)));
+                if (window.size() >= maxInFlight && writeEntry(zip, window.poll())) {
+                    written++;
+                }
+            }
+            while (!window.isEmpty()) {
+                if (writeEntry(zip, window.poll())) {
+                    written++;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            window.forEach(pending -> pending.pdf().cancel(true));
+            throw e;
+        }
+        zip.finish();
+        zip.flush();
+        logger.info("Abrechnungsarchiv Firma {} ({} bis {}): {} von {} PDFs in {} ms.", companyId, start, end,
+                written, payslips.size(), (System.nanoTime() - started) / 1_000_000);
+        return written;
+    }
+
+    private byte[] render(Payslip ps, String lang) {
+        // bei der Freigabe abgelegte deutsche Fassung wiederverwenden
+        if ("de".equalsIgnoreCase(lang) && ps.getPdfPath() != null && Files.isReadable(Path.of(ps.getPdfPath()))) {
+            try {
+                return Files.readAllBytes(Path.of(ps.getPdfPath()));
+            } catch (IOException ignore) {
+                // neu rendern
+            }
+        }
+        // eigene Lese-Transaktion, damit der Urlaubssaldo im Worker-Thread geladen werden kann
+        return readOnlyTransaction.execute(status -> {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+            try {
+                pdfService.writePayslipPdf(ps, lang, buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return buffer.toByteArray();
+        });
+    }
+
+    private boolean writeEntry(ZipOutputStream zip, PendingEntry entry) throws IOException {
+        byte[] pdf;
+        try {
+            pdf = entry.pdf().join();
+        } catch (CompletionException e) {
+            logger.error("Abrechnungsarchiv: {} konnte nicht erstellt werden: {}", entry.name(),
+                    e.getCause() != null ? e.getCause().getMessage() : e.getMessage(), e.getCause());
+            return false;
+        }
+        zip.putNextEntry(new ZipEntry(entry.name()));
+        zip.write(pdf);
+        zip.closeEntry();
+        return true;
+    }
+
+    private static String entryName(Payslip ps) {
+        String username = ps.getUser() != null && ps.getUser().getUsername() != null
+                ? ps.getUser().getUsername().replaceAll("[^A-Za-z0-9._-]", "_") : "user";
+        return "payslip-" + ps.getPeriodStart() + "-" + username + "-" + ps.getId() + ".pdf";
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderers.shutdownNow();
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,200 @@
+package com.chrono.chrono.services;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exportiert Abrechnungen als CSV oder Excel, ohne sie in den Speicher zu laden. Die Zeilen
+ * kommen über einen Vorwärts-Cursor direkt aus der Datenbank, der Join auf die User und alle
+ * Filter laufen in SQL. Jede Zeile wird sofort in den Ausgabestrom geschrieben, der
+ * Heap-Bedarf ist unabhängig von der Anzahl Zeilen.
+ */
+@Service
+public class PayslipExportService {
+
+    /**
+     * Filter des Exports; {@code null} bedeutet jeweils "nicht einschränken".
+     */
+    public record Filter(Long companyId, LocalDate start, LocalDate end, Boolean approved) {
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+
+    /** Zeilen, die SXSSF im Speicher hält; ältere werden in eine temporäre Datei ausgelagert. */
+    private static final int EXCEL_WINDOW = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+
+    public PayslipExportService(JdbcTemplate jdbcTemplate,
+                                @Value("${app.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    /**
+     * Schreibt die Abrechnungen als CSV und liefert die Anzahl Datenzeilen.
+     */
+    public long writeCsv(Filter filter, String lang, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if ("de".equalsIgnoreCase(lang)) {
+            writer.write("BenutzerID,Start,Ende,Brutto,Abzuege,Netto,Waehrung\n");
+        } else {
+            writer.write("userId,periodStart,periodEnd,gross,deductions,net,currency\n");
+        }
+        long rows = stream(filter, rs -> {
+            writer.write(Long.toString(rs.getLong("user_id")));
+            writer.write(',');
+            writer.write(String.valueOf(rs.getObject("period_start", LocalDate.class)));
+            writer.write(',');
+            writer.write(String.valueOf(rs.getObject("period_end", LocalDate.class)));
+            writer.write(',');
+            writer.write(String.valueOf(rs.getObject("gross_salary", Double.class)));
+            writer.write(',');
+            writer.write(String.valueOf(rs.getObject("deductions", Double.class)));
+            writer.write(',');
+            writer.write(String.valueOf(rs.getObject("net_salary", Double.class)));
+            writer.write(',');
+            writer.write(currency(rs.getString("country")));
+            writer.write('\n');
+        });
+        writer.flush();
+        return rows;
+    }
+
+    /**
+     * Schreibt die Abrechnungen als XLSX. SXSSF hält nur ein Fenster von Zeilen im Speicher
+     * und lagert den Rest in eine temporäre Datei aus, die danach gelöscht wird.
+     */
+    public long writeExcel(Filter filter, String lang, OutputStream out) throws IOException {
+        boolean de = "de".equalsIgnoreCase(lang);
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = workbook.createSheet(de ? "Abrechnungen" : "Payslips");
+            String[] headers = de
+                    ? new String[]{"BenutzerID", "Start", "Ende", "Brutto", "Abzuege", "Netto", "Waehrung"}
+                    : new String[]{"userId", "periodStart", "periodEnd", "gross", "deductions", "net", "currency"};
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < headers.length; i++) {
+                header.createCell(i).setCellValue(headers[i]);
+            }
+            long rows = stream(filter, new RowWriter() {
+                private int rowIndex = 1;
+
+                @Override
+                public void write(ResultSet rs) throws SQLException {
+                    Row row = sheet.createRow(rowIndex++);
+                    row.createCell(0).setCellValue(rs.getLong("user_id"));
+                    row.createCell(1).setCellValue(String.valueOf(rs.getObject("period_start", LocalDate.class)));
+                    row.createCell(2).setCellValue(String.valueOf(rs.getObject("period_end", LocalDate.class)));
+                    setAmount(row.createCell(3), rs.getObject("gross_salary", Double.class));
+                    setAmount(row.createCell(4), rs.getObject("deductions", Double.class));
+                    setAmount(row.createCell(5), rs.getObject("net_salary", Double.class));
+                    row.createCell(6).setCellValue(currency(rs.getString("country")));
+                }
+            });
+            workbook.write(out);
+            out.flush();
+            return rows;
+        } finally {
+            workbook.close();
+            workbook.dispose();
+        }
+    }
+
+    private long stream(Filter filter, RowWriter rowWriter) throws IOException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT p.user_id, p.period_start, p.period_end, p.gross_salary, p.deductions, p.net_salary, u.country " +
+                "FROM payslips p JOIN users u ON u.id = p.user_id WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (filter.companyId() != null) {
+            sql.append(" AND u.company_id = ?");
+            params.add(filter.companyId());
+        }
+        if (filter.start() != null) {
+            sql.append(" AND p.period_end >= ?");
+            params.add(Date.valueOf(filter.start()));
+        }
+        if (filter.end() != null) {
+            sql.append(" AND p.period_start <= ?");
+            params.add(Date.valueOf(filter.end()));
+        }
+        if (filter.approved() != null) {
+            sql.append(" AND p.approved = ?");
+            params.add(filter.approved());
+        }
+        sql.append(" ORDER BY p.user_id, p.period_start, p.id");
+
+        long[] rows = {0};
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize(connection));
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+                return statement;
+            }, (ResultSet rs) -> {
+                try {
+                    rowWriter.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return rows[0];
+    }
+
+    /**
+     * MySQL Connector/J liest sonst das ganze Ergebnis in den Speicher. Ohne
+     * {@code useCursorFetch=true} in der URL streamt er nur mit {@link Integer#MIN_VALUE}
+     * Zeile für Zeile; mit Cursor-Fetch gilt die konfigurierte Fetch-Size.
+     */
+    private int fetchSize(Connection connection) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        if ("MySQL".equalsIgnoreCase(meta.getDatabaseProductName())
+                && (meta.getURL() == null || !meta.getURL().contains("useCursorFetch=true"))) {
+            return Integer.MIN_VALUE;
+        }
+        return fetchSize;
+    }
+
+    private static void setAmount(Cell cell, Double amount) {
+        if (amount != null) {
+            cell.setCellValue(amount);
+        }
+    }
+
+    private static String currency(String country) {
+        return "DE".equalsIgnoreCase(country) ? "EUR" : "CHF";
+    }
+}
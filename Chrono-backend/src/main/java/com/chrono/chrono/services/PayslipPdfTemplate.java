@@ -0,0 +1,225 @@
+package com.chrono.chrono.services;
+
+import com.chrono.chrono.entities.Company;
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.FontFactory;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Vorbereitete Vorlage für Lohnabrechnungen einer Firma in einer Sprache: Beschriftungen,
+ * Schriften und das skalierte Logo werden einmal erstellt und für alle Abrechnungen
+ * wiederverwendet. Der Fingerabdruck aus Firmendaten und Logo-Datei zeigt an, wann die
+ * Vorlage veraltet ist.
+ * <p>
+ * Die Kopftabelle wird pro Dokument aus den vorbereiteten Teilen gebaut, weil iText
+ * Tabellen beim Layout verändert und sie deshalb nicht zwischen parallelen Renderings
+ * geteilt werden dürfen.
+ */
+final class PayslipPdfTemplate {
+
+    static final Font TITLE_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 16);
+    static final Font COMPANY_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 13);
+    static final Font TOTAL_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 11);
+    static final Font LABEL_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
+    static final Font NORMAL_FONT = FontFactory.getFont(FontFactory.HELVETICA, 10);
+    static final Font SIGNATURE_FONT = FontFactory.getFont(FontFactory.HELVETICA, 9);
+    static final Font FOOTER_FONT = FontFactory.getFont(FontFactory.HELVETICA, 8, BaseColor.DARK_GRAY);
+    static final Font PAGE_NUMBER_FONT = FontFactory.getFont(FontFactory.HELVETICA, 8);
+
+    private static final Map<String, String> LABELS_DE = labels(false);
+    private static final Map<String, String> LABELS_EN = labels(true);
+    private static final Map<String, String> COMPONENTS_DE = componentNames();
+    private static final Image DEFAULT_LOGO = loadDefaultLogo();
+
+    private final String fingerprint;
+    private final boolean english;
+    private final Map<String, String> labels;
+    private final Image logo;
+    private final String companyName;
+    private final String[] addressLines;
+
+    private PayslipPdfTemplate(String fingerprint, boolean english, Image logo, String companyName, String[] addressLines) {
+        this.fingerprint = fingerprint;
+        this.english = english;
+        this.labels = english ? LABELS_EN : LABELS_DE;
+        this.logo = logo;
+        this.companyName = companyName;
+        this.addressLines = addressLines;
+    }
+
+    static PayslipPdfTemplate create(Company company, boolean english, String fingerprint) {
+        String logoPath = company != null ? company.getLogoPath() : null;
+        Image logo = null;
+        try {
+            if (logoPath != null && Files.exists(Path.of(logoPath))) {
+                logo = Image.getInstance(logoPath);
+                logo.scaleToFit(110, 50);
+            }
+        } catch (Exception e) {
+            logo = null;
+        }
+        if (logo == null) {
+            logo = DEFAULT_LOGO;
+        }
+        String name = company != null && company.getName() != null ? company.getName() : "";
+        String[] lines = new String[0];
+        if (company != null) {
+            String plzOrt = ((company.getPostalCode() != null ? company.getPostalCode() : "") + " "
+                    + (company.getCity() != null ? company.getCity() : "")).trim();
+            lines = Stream.of(company.getAddressLine1(), company.getAddressLine2(), plzOrt)
+                    .filter(line -> line != null && !line.isBlank())
+                    .toArray(String[]::new);
+        }
+        return new PayslipPdfTemplate(fingerprint, english, logo, name, lines);
+    }
+
+    /**
+     * Firmendaten und Änderungszeitpunkt der Logo-Datei. Ändert sich einer der Werte,
+     * muss die Vorlage neu erstellt werden.
+     */
+    static String fingerprint(Company company) {
+        if (company == null) {
+            return "";
+        }
+        long logoModified = 0;
+        if (company.getLogoPath() != null) {
+            try {
+                logoModified = Files.getLastModifiedTime(Path.of(company.getLogoPath())).toMillis();
+            } catch (Exception e) {
+                logoModified = -1;
+            }
+        }
+        return String.join("|", Objects.toString(company.getName(), ""),
+                Objects.toString(company.getAddressLine1(), ""), Objects.toString(company.getAddressLine2(), ""),
+                Objects.toString(company.getPostalCode(), ""), Objects.toString(company.getCity(), ""),
+                Objects.toString(company.getLogoPath(), ""), Long.toString(logoModified));
+    }
+
+    boolean matches(String currentFingerprint) {
+        return fingerprint.equals(currentFingerprint);
+    }
+
+    boolean isEnglish() {
+        return english;
+    }
+
+    String label(String key) {
+        return labels.get(key);
+    }
+
+    /** Übersetzt Lohnarten ins Deutsche; im Englischen bleibt die Bezeichnung unverändert. */
+    String componentName(String type) {
+        if (english || type == null) {
+            return type;
+        }
+        return COMPONENTS_DE.getOrDefault(type, type);
+    }
+
+    /** Neue Kopftabelle mit Logo und Firmenanschrift für ein Dokument. */
+    PdfPTable newHeader() throws DocumentException {
+        PdfPTable header = new PdfPTable(2);
+        header.setWidthPercentage(100);
+        header.setWidths(new float[]{2, 4});
+        // PdfPCell kopiert das Bild, die Vorlage bleibt unverändert
+        PdfPCell logoCell = logo != null ? new PdfPCell(logo, false) : new PdfPCell(new Phrase(""));
+        logoCell.setBorder(Rectangle.NO_BORDER);
+        header.addCell(logoCell);
+
+        PdfPCell companyCell = new PdfPCell();
+        companyCell.addElement(new Phrase(companyName, COMPANY_FONT));
+        for (String line : addressLines) {
+            companyCell.addElement(new Phrase(line, NORMAL_FONT));
+        }
+        companyCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        companyCell.setVerticalAlignment(Element.ALIGN_TOP);
+        companyCell.setBorder(Rectangle.NO_BORDER);
+        header.addCell(companyCell);
+        return header;
+    }
+
+    private static Image loadDefaultLogo() {
+        try {
+            java.net.URL logoUrl = PayslipPdfTemplate.class.getClassLoader().getResource("static/logo.png");
+            if (logoUrl == null) {
+                return null;
+            }
+            Image image = Image.getInstance(logoUrl);
+            image.scaleToFit(110, 50);
+            return image;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static Map<String, String> labels(boolean en) {
+        Map<String, String> labels = new HashMap<>();
+        labels.put("title", en ? "Payslip" : "Lohnabrechnung");
+        labels.put("employee", en ? "Employee" : "Mitarbeiter");
+        labels.put("personnel", en ? "Personnel no." : "Personalnummer");
+        labels.put("address", en ? "Address" : "Adresse");
+        labels.put("birth", en ? "Birthdate" : "Geburtsdatum");
+        labels.put("entry", en ? "Entry" : "Eintritt");
+        labels.put("ahv", en ? "AHV no." : "AHV-Nr.");
+        labels.put("bank", "Bank");
+        labels.put("dept", en ? "Department" : "Abteilung");
+        labels.put("nationality", en ? "Nationality" : "Nationalität");
+        labels.put("civil", en ? "Marital status" : "Zivilstand");
+        labels.put("children", en ? "Children" : "Kinder");
+        labels.put("religion", "Religion");
+        labels.put("pensum", en ? "Workload" : "Pensum");
+        labels.put("tax", en ? "Withholding tax" : "Quellensteuer");
+        labels.put("period", en ? "Payroll period" : "Abrechnungsmonat");
+        labels.put("earnings", en ? "Earnings" : "Bezüge");
+        labels.put("amount", en ? "Amount" : "Betrag");
+        labels.put("currency", en ? "Currency" : "Währung");
+        labels.put("deductions", en ? "Deductions" : "Abzüge");
+        labels.put("employer", en ? "Employer contribution" : "Arbeitgeberbeitrag");
+        labels.put("overtime", en ? "Overtime balance" : "Überstundensaldo");
+        labels.put("billedOvertime", en ? "Billed overtime" : "Abgerechnete Überstunden");
+        labels.put("vacation", en ? "Remaining vacation" : "Resturlaub");
+        labels.put("total", en ? "Total" : "Summe");
+        labels.put("gross", en ? "Gross salary" : "Bruttolohn");
+        labels.put("net", en ? "Net salary" : "Nettolohn");
+        labels.put("payoutPrefix", en ? "Payout date: " : "Auszahlungsdatum: ");
+        labels.put("legal", en ? "This document was generated electronically and is valid without a signature." : "Dieses Dokument wurde maschinell erstellt und ist ohne Unterschrift gültig.");
+        labels.put("contact", en ? "If you have any questions, please contact your HR department." : "Bei Fragen wenden Sie sich bitte an Ihre Personalabteilung.");
+        labels.put("signature", en ? "  Employer                   Employee" : "  Arbeitgeber                Mitarbeiter");
+        labels.put("pension", en ? "Pension fund" : "Pensionskasse");
+        labels.put("hours", en ? "hrs" : "Std.");
+        labels.put("days", en ? "days" : "Tage");
+        return Map.copyOf(labels);
+    }
+
+    private static Map<String, String> componentNames() {
+        Map<String, String> names = new HashMap<>();
+        names.put("Base salary", "Grundlohn");
+        names.put("Overtime", "Überstunden");
+        names.put("Overtime payout", "Überstundenauszahlung");
+        names.put("Tax", "Steuer");
+        names.put("Social", "Sozialabgaben");
+        names.put("Income tax", "Einkommensteuer");
+        names.put("Solidarity surcharge", "Solidaritätszuschlag");
+        names.put("Church tax", "Kirchensteuer");
+        names.put("Pension insurance", "Rentenversicherung");
+        names.put("Health insurance", "Krankenversicherung");
+        names.put("Nursing insurance", "Pflegeversicherung");
+        names.put("Unemployment insurance", "Arbeitslosenversicherung");
+        names.put("Insolvency levy", "Insolvenzgeldumlage");
+        names.put("Withholding tax", "Quellensteuer");
+        return Map.copyOf(names);
+    }
+}
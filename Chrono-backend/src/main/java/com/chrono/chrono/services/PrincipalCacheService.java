@@ -0,0 +1,113 @@
+package com.chrono.chrono.services;
+
+import com.chrono.chrono.entities.Role;
+import com.chrono.chrono.entities.User;
+import com.chrono.chrono.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Kurzlebiger, grössenbegrenzter Cache der für die Authentifizierung benötigten
+ * Benutzerdaten. Der JWT-Filter prüft damit die Token-Version, ohne pro Request
+ * Benutzer und Rollen aus der Datenbank zu laden.
+ */
+@Service
+public class PrincipalCacheService {
+
+    public record CachedPrincipal(Long userId,
+                                  String username,
+                                  long tokenVersion,
+                                  boolean deleted,
+                                  boolean demo,
+                                  Long companyId,
+                                  List<String> roles,
+                                  long loadedAtMillis) {
+    }
+
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+    private final Map<String, CachedPrincipal> cache;
+
+    public PrincipalCacheService(UserRepository userRepository,
+                                 @Value("${app.security.principal-cache.ttl:PT30S}") Duration ttl,
+                                 @Value("${app.security.principal-cache.max-size:10000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttl.toMillis();
+        int limit = Math.max(1, maxSize);
+        // LRU: bei Überschreitung der Grösse wird der am längsten nicht genutzte Eintrag entfernt
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPrincipal> eldest) {
+                return size() > limit;
+            }
+        };
+    }
+
+    public Optional<CachedPrincipal> get(String username) {
+        if (username == null) {
+            return Optional.empty();
+        }
+        synchronized (cache) {
+            CachedPrincipal cached = cache.get(username);
+            if (cached != null && System.currentTimeMillis() - cached.loadedAtMillis() < ttlMillis) {
+                return Optional.of(cached);
+            }
+        }
+        Optional<CachedPrincipal> loaded = userRepository.findByUsername(username).map(this::toPrincipal);
+        synchronized (cache) {
+            loaded.ifPresentOrElse(p -> cache.put(username, p), () -> cache.remove(username));
+        }
+        return loaded;
+    }
+
+    public void evict(String username) {
+        if (username == null) {
+            return;
+        }
+        synchronized (cache) {
+            cache.remove(username);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    synchronized (cache) {
+                        cache.remove(username);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Entwertet alle bisher ausgestellten Tokens des Benutzers. Muss vor dem Speichern
+     * des Benutzers aufgerufen werden.
+     */
+    public void revokeTokens(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        evict(user.getUsername());
+    }
+
+    private CachedPrincipal toPrincipal(User user) {
+        List<String> roles = user.getRoles() != null
+                ? user.getRoles().stream().map(Role::getRoleName).toList()
+                : List.of();
+        return new CachedPrincipal(
+                user.getId(),
+                user.getUsername(),
+                user.getTokenVersion(),
+                user.isDeleted(),
+                user.isDemo(),
+                user.getCompany() != null ? user.getCompany().getId() : null,
+                roles,
+                System.currentTimeMillis());
+    }
+}
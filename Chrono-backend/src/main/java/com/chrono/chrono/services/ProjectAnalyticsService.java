@@ -0,0 +1,340 @@
+package com.chrono.chrono.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Summiert Projektzeiten je Projekt, Aufgabe und User direkt in der Datenbank. START- und
+ * ENDE-Stempel werden per {@code LAG} über die Stempel eines Users gepaart, Projekt und
+ * Aufgabe erst danach über die Aufgaben aufgelöst. Java sieht nur noch die fertigen Summen.
+ * <p>
+ * Optional werden abgeschlossene Monate in {@code project_time_monthly} vorberechnet. Liegt
+ * ein Monat dort vor, liest die Auswertung für ihn keine Stempelungen mehr. Änderungen an
+ * Stempelungen verwerfen den betroffenen Monat über den
+ * {@link com.chrono.chrono.entities.listeners.TimeTrackingEntryAnalyticsListener}.
+ */
+@Service
+public class ProjectAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectAnalyticsService.class);
+
+    /**
+     * Summe eines Projekts, einer Aufgabe ({@code null} = ohne Aufgabe) und eines Users.
+     */
+    public record ProjectMinutes(Long projectId, Long taskId, Long userId, long minutes, long billableMinutes) {
+    }
+
+    /** Zeitabschnitt der Auswertung (beide Grenzen inklusive), aus dem Cache oder aus den Stempelungen. */
+    record Segment(LocalDate from, LocalDate to, boolean cached) {
+    }
+
+    /**
+     * Wie weit vor dem Zeitraum nach dem zugehörigen START gesucht wird. Damit gehört ein
+     * Paar immer zum Tag seines ENDE-Stempels, und Monatssummen lassen sich addieren.
+     */
+    static final int PAIR_LOOKBACK_DAYS = 1;
+
+    /** Ein Datensatz je ENDE-Stempel mit dem unmittelbar vorausgehenden Stempel desselben Users. */
+    private static final String PAIRS_SQL =
+            "SELECT x.user_id, x.project_id AS end_project_id, x.task_id AS end_task_id, " +
+            "CASE WHEN x.prev_type = 'START' THEN x.prev_project_id END AS start_project_id, " +
+            "CASE WHEN x.prev_type = 'START' THEN x.prev_task_id END AS start_task_id, " +
+            "x.entry_timestamp, " +
+            "COALESCE(x.duration_minutes, CASE WHEN x.prev_type = 'START' " +
+            "THEN TIMESTAMPDIFF(MINUTE, x.prev_timestamp, x.entry_timestamp) END) AS minutes " +
+            "FROM (SELECT e.user_id, e.project_id, e.task_id, e.punch_type, e.entry_timestamp, e.duration_minutes, " +
+            "LAG(e.punch_type) OVER w AS prev_type, LAG(e.entry_timestamp) OVER w AS prev_timestamp, " +
+            "LAG(e.project_id) OVER w AS prev_project_id, LAG(e.task_id) OVER w AS prev_task_id " +
+            "FROM time_tracking_entries e JOIN users u ON u.id = e.user_id " +
+            "WHERE u.company_id = ? AND e.entry_timestamp >= ? AND e.entry_timestamp < ? " +
+            "WINDOW w AS (PARTITION BY e.user_id ORDER BY e.entry_timestamp, e.id)) x " +
+            "WHERE x.punch_type = 'ENDE' AND x.entry_timestamp >= ?";
+
+    private static final String RAW_SOURCE_SQL =
+            "SELECT p.user_id, p.end_project_id, p.end_task_id, p.start_project_id, p.start_task_id, p.minutes " +
+            "FROM (" + PAIRS_SQL + ") p WHERE p.minutes > 0";
+
+    private static final String CACHED_SOURCE_SQL =
+            "SELECT c.user_id, c.end_project_id, c.end_task_id, c.start_project_id, c.start_task_id, c.minutes " +
+            "FROM project_time_monthly c WHERE c.company_id = ? AND c.month_start >= ? AND c.month_start <= ?";
+
+    /** Projekt wie bisher: ENDE-Projekt, Projekt der ENDE-Aufgabe, dann dasselbe für den START. */
+    private static final String RESOLVE_SQL_PREFIX =
+            "SELECT r.project_id, r.task_id, r.user_id, SUM(r.minutes) AS minutes, " +
+            "SUM(CASE WHEN r.billable = TRUE THEN r.minutes ELSE 0 END) AS billable_minutes " +
+            "FROM (SELECT COALESCE(s.end_project_id, et.project_id, s.start_project_id, st.project_id) AS project_id, " +
+            "COALESCE(s.end_task_id, s.start_task_id) AS task_id, s.user_id, s.minutes, bt.billable " +
+            "FROM (";
+
+    private static final String RESOLVE_SQL_SUFFIX =
+            ") s LEFT JOIN tasks et ON et.id = s.end_task_id " +
+            "LEFT JOIN tasks st ON st.id = s.start_task_id " +
+            "LEFT JOIN tasks bt ON bt.id = COALESCE(s.end_task_id, s.start_task_id)) r " +
+            "WHERE r.project_id IS NOT NULL " +
+            "GROUP BY r.project_id, r.task_id, r.user_id";
+
+    private static final String MONTHLY_SQL =
+            "SELECT q.entry_year, q.entry_month, q.user_id, q.end_project_id, q.end_task_id, " +
+            "q.start_project_id, q.start_task_id, SUM(q.minutes) AS minutes " +
+            "FROM (SELECT YEAR(p.entry_timestamp) AS entry_year, MONTH(p.entry_timestamp) AS entry_month, " +
+            "p.user_id, p.end_project_id, p.end_task_id, p.start_project_id, p.start_task_id, p.minutes " +
+            "FROM (" + PAIRS_SQL + ") p WHERE p.minutes > 0) q " +
+            "GROUP BY q.entry_year, q.entry_month, q.user_id, q.end_project_id, q.end_task_id, " +
+            "q.start_project_id, q.start_task_id";
+
+    private static final String STATE_SQL =
+            "SELECT month_start FROM project_time_monthly_state WHERE company_id = ? AND month_start >= ? AND month_start <= ?";
+
+    private static final String INSERT_STATE_SQL =
+            "INSERT INTO project_time_monthly_state (company_id, month_start, computed_at) VALUES (?, ?, ?)";
+
+    private static final String INSERT_MONTHLY_SQL =
+            "INSERT INTO project_time_monthly (company_id, month_start, user_id, end_project_id, end_task_id, " +
+            "start_project_id, start_task_id, minutes) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_STATE_SQL =
+            "DELETE FROM project_time_monthly_state WHERE month_start = ? " +
+            "AND company_id = (SELECT u.company_id FROM users u WHERE u.id = ?)";
+
+    private static final String DELETE_MONTHLY_SQL =
+            "DELETE FROM project_time_monthly WHERE month_start = ? " +
+            "AND company_id = (SELECT u.company_id FROM users u WHERE u.id = ?)";
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate fillTransaction;
+    private final boolean cacheEnabled;
+    private final Clock clock;
+
+    @Autowired
+    public ProjectAnalyticsService(EntityManager entityManager,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.analytics.monthly-cache.enabled:false}") boolean cacheEnabled) {
+        this(entityManager, jdbcTemplate, transactionManager, cacheEnabled, Clock.systemDefaultZone());
+    }
+
+    ProjectAnalyticsService(EntityManager entityManager,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            boolean cacheEnabled,
+                            Clock clock) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.fillTransaction = new TransactionTemplate(transactionManager);
+        // eigene Transaktion, damit ein parallel befüllter Monat die aufrufende nicht abbricht
+        this.fillTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.cacheEnabled = cacheEnabled;
+        this.clock = clock;
+    }
+
+    /**
+     * Projektzeiten der Firma für ENDE-Stempel im Zeitraum (beide Grenzen inklusive).
+     */
+    @SuppressWarnings("unchecked")
+    public List<ProjectMinutes> aggregate(Long companyId, LocalDate start, LocalDate end) {
+        if (companyId == null || start == null || end == null || end.isBefore(start)) {
+            return List.of();
+        }
+        List<Segment> segments = plan(start, end, LocalDate.now(clock), cacheEnabled);
+        for (Segment segment : segments) {
+            if (segment.cached() && !ensureCached(companyId, segment.from(), segment.to())) {
+                segments = List.of(new Segment(start, end, false));
+                break;
+            }
+        }
+
+        StringBuilder sql = new StringBuilder(RESOLVE_SQL_PREFIX);
+        List<Object> params = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            if (i > 0) {
+                sql.append(" UNION ALL ");
+            }
+            if (segment.cached()) {
+                sql.append(CACHED_SOURCE_SQL);
+                params.add(companyId);
+                params.add(segment.from());
+                params.add(segment.to());
+            } else {
+                sql.append(RAW_SOURCE_SQL);
+                params.addAll(pairParams(companyId, segment.from(), segment.to()));
+            }
+        }
+        sql.append(RESOLVE_SQL_SUFFIX);
+
+        List<ProjectMinutes> result = new ArrayList<>();
+        for (Object[] row : (List<Object[]>) nativeQuery(sql.toString(), params).getResultList()) {
+            result.add(new ProjectMinutes(
+                    toLong(row[0]),
+                    toLong(row[1]),
+                    toLong(row[2]),
+                    row[3] != null ? ((Number) row[3]).longValue() : 0L,
+                    row[4] != null ? ((Number) row[4]).longValue() : 0L));
+        }
+        return result;
+    }
+
+    /**
+     * Verwirft die vorberechneten Monate, die eine Stempelung des Users zu diesen Zeitpunkten
+     * beeinflusst: den eigenen Monat und, wegen der Paarbildung über den Monatswechsel, den
+     * Monat des Folgetags. Der laufende Monat wird nie vorberechnet und kostet nichts.
+     */
+    public void invalidate(Long userId, LocalDateTime... timestamps) {
+        if (!cacheEnabled || userId == null) {
+            return;
+        }
+        LocalDate currentMonth = LocalDate.now(clock).withDayOfMonth(1);
+        Set<LocalDate> months = new TreeSet<>();
+        for (LocalDateTime timestamp : timestamps) {
+            if (timestamp == null) {
+                continue;
+            }
+            months.add(timestamp.toLocalDate().withDayOfMonth(1));
+            months.add(timestamp.toLocalDate().plusDays(PAIR_LOOKBACK_DAYS).withDayOfMonth(1));
+        }
+        for (LocalDate month : months) {
+            if (month.isBefore(currentMonth)) {
+                jdbcTemplate.update(DELETE_STATE_SQL, Date.valueOf(month), userId);
+                jdbcTemplate.update(DELETE_MONTHLY_SQL, Date.valueOf(month), userId);
+            }
+        }
+    }
+
+    /**
+     * Teilt den Zeitraum in Rand-Abschnitte aus den Stempelungen und einen Block ganzer,
+     * abgeschlossener Monate aus dem Cache.
+     */
+    static List<Segment> plan(LocalDate start, LocalDate end, LocalDate today, boolean cacheEnabled) {
+        if (!cacheEnabled) {
+            return List.of(new Segment(start, end, false));
+        }
+        LocalDate firstFull = start.getDayOfMonth() == 1 ? start : start.withDayOfMonth(1).plusMonths(1);
+        LocalDate lastFull = end.getDayOfMonth() == end.lengthOfMonth() ? end : end.withDayOfMonth(1).minusDays(1);
+        LocalDate lastClosed = today.withDayOfMonth(1).minusDays(1);
+        LocalDate cachedEnd = lastFull.isBefore(lastClosed) ? lastFull : lastClosed;
+        if (cachedEnd.isBefore(firstFull)) {
+            return List.of(new Segment(start, end, false));
+        }
+        List<Segment> segments = new ArrayList<>();
+        if (start.isBefore(firstFull)) {
+            segments.add(new Segment(start, firstFull.minusDays(1), false));
+        }
+        segments.add(new Segment(firstFull, cachedEnd, true));
+        if (cachedEnd.isBefore(end)) {
+            segments.add(new Segment(cachedEnd.plusDays(1), end, false));
+        }
+        return segments;
+    }
+
+    /**
+     * Berechnet fehlende Monate im Block vor. Liefert {@code false}, wenn ein anderer Aufruf
+     * denselben Monat gleichzeitig befüllt; dann wird dieses Mal aus den Stempelungen gelesen.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean ensureCached(Long companyId, LocalDate from, LocalDate to) {
+        Set<LocalDate> present = new HashSet<>(jdbcTemplate.queryForList(STATE_SQL, LocalDate.class,
+                companyId, Date.valueOf(from), Date.valueOf(to)));
+        List<LocalDate> missing = new ArrayList<>();
+        for (LocalDate month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            if (!present.contains(month)) {
+                missing.add(month);
+            }
+        }
+        if (missing.isEmpty()) {
+            return true;
+        }
+        LocalDate fillFrom = missing.get(0);
+        LocalDate fillTo = missing.get(missing.size() - 1).plusMonths(1).minusDays(1);
+        Set<LocalDate> missingMonths = new HashSet<>(missing);
+        try {
+            fillTransaction.executeWithoutResult(status -> {
+                // Statuszeilen zuerst: der Unique-Key hält parallele Befüllungen desselben Monats ab
+                Timestamp computedAt = Timestamp.valueOf(LocalDateTime.now(clock));
+                jdbcTemplate.batchUpdate(INSERT_STATE_SQL, missing, missing.size(), (ps, month) -> {
+                    ps.setLong(1, companyId);
+                    ps.setDate(2, Date.valueOf(month));
+                    ps.setTimestamp(3, computedAt);
+                });
+                List<Object[]> rows = new ArrayList<>();
+                for (Object[] row : (List<Object[]>) nativeQuery(MONTHLY_SQL,
+                        pairParams(companyId, fillFrom, fillTo)).getResultList()) {
+                    LocalDate month = LocalDate.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue(), 1);
+                    if (missingMonths.contains(month)) {
+                        rows.add(new Object[]{month, row[2], row[3], row[4], row[5], row[6], row[7]});
+                    }
+                }
+                jdbcTemplate.batchUpdate(INSERT_MONTHLY_SQL, rows, 500, (ps, row) -> {
+                    ps.setLong(1, companyId);
+                    ps.setDate(2, Date.valueOf((LocalDate) row[0]));
+                    ps.setObject(3, toLong(row[1]));
+                    ps.setObject(4, toLong(row[2]));
+                    ps.setObject(5, toLong(row[3]));
+                    ps.setObject(6, toLong(row[4]));
+                    ps.setObject(7, toLong(row[5]));
+                    ps.setLong(8, ((Number) row[6]).longValue());
+                });
+                logger.info("Projektauswertung Firma {}: {} Monat(e) ab {} vorberechnet ({} Zeilen).",
+                        companyId, missing.size(), fillFrom, rows.size());
+            });
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Projektauswertung Firma {}: Monate ab {} werden parallel befüllt, lese Stempelungen.",
+                    companyId, fillFrom);
+            return false;
+        }
+    }
+
+    private static List<Object> pairParams(Long companyId, LocalDate from, LocalDate to) {
+        return List.of(companyId,
+                from.minusDays(PAIR_LOOKBACK_DAYS).atStartOfDay(),
+                to.plusDays(1).atStartOfDay(),
+                from.atStartOfDay());
+    }
+
+    /**
+     * Native Abfrage über den EntityManager, damit noch nicht geschriebene Stempelungen der
+     * laufenden Transaktion vorher geflusht werden.
+     */
+    private Query nativeQuery(String sql, List<Object> params) {
+        StringBuilder numbered = new StringBuilder(sql.length() + params.size() * 2);
+        int index = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            numbered.append(c);
+            if (c == '?') {
+                numbered.append(++index);
+            }
+        }
+        Query query = entityManager.createNativeQuery(numbered.toString());
+        for (int i = 0; i < params.size(); i++) {
+            query.setParameter(i + 1, params.get(i));
+        }
+        return query;
+    }
+
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+}
@@ -0,0 +1,196 @@
+package com.chrono.chrono.services;
+
+import com.chrono.chrono.entities.ReadAccessAudit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Schreibt Lese-Zugriffe asynchron ins Audit-Log. Die Request-Threads legen die Einträge
+ * nur in eine begrenzte Queue; ein Hintergrund-Thread schreibt sie gebündelt per
+ * JDBC-Batch. Ist die Queue voll, wird der Eintrag verworfen und gezählt, statt den
+ * Request zu blockieren. Beim Herunterfahren wird die Queue vollständig geleert.
+ */
+@Service
+public class ReadAccessAuditService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadAccessAuditService.class);
+    private static final String INSERT_SQL = "INSERT INTO read_access_audit (username, path, timestamp) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final LinkedBlockingDeque<ReadAccessAudit> queue;
+    private final ScheduledExecutorService writer;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private volatile boolean closed;
+
+    private final Counter enqueuedCounter;
+    private final Counter droppedCounter;
+    private final Counter writtenCounter;
+    private final Counter failedBatchCounter;
+    private final Timer flushTimer;
+
+    public ReadAccessAuditService(JdbcTemplate jdbcTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.audit.read-access.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${app.audit.read-access.batch-size:500}") int batchSize,
+                                  @Value("${app.audit.read-access.flush-interval:PT2S}") Duration flushInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(1, batchSize);
+        this.queue = new LinkedBlockingDeque<>(Math.max(1, queueCapacity));
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "read-access-audit-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.enqueuedCounter = Counter.builder("chrono.audit.read_access.events")
+                .description("In die Audit-Queue gestellte Lese-Zugriffe")
+                .tag("outcome", "enqueued")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("chrono.audit.read_access.events")
+                .description("Wegen voller Queue verworfene Lese-Zugriffe")
+                .tag("outcome", "dropped")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("chrono.audit.read_access.events")
+                .description("In die Datenbank geschriebene Lese-Zugriffe")
+                .tag("outcome", "written")
+                .register(meterRegistry);
+        this.failedBatchCounter = Counter.builder("chrono.audit.read_access.batch.failures")
+                .description("Fehlgeschlagene Batch-Inserts")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("chrono.audit.read_access.batch.duration")
+                .description("Dauer eines Batch-Inserts")
+                .register(meterRegistry);
+        Gauge.builder("chrono.audit.read_access.queue.size", queue, LinkedBlockingDeque::size)
+                .description("Wartende Audit-Einträge")
+                .register(meterRegistry);
+        Gauge.builder("chrono.audit.read_access.queue.remaining", queue, LinkedBlockingDeque::remainingCapacity)
+                .description("Freie Plätze in der Audit-Queue")
+                .register(meterRegistry);
+
+        long intervalMillis = Math.max(1L, flushInterval.toMillis());
+        writer.scheduleWithFixedDelay(this::flushSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Nimmt einen Lese-Zugriff entgegen, ohne auf die Datenbank zu warten.
+     */
+    public void record(String username, String path) {
+        ReadAccessAudit audit = new ReadAccessAudit(username, path);
+        if (closed) {
+            // Nach dem Herunterfahren gibt es keinen Writer mehr: direkt schreiben
+            writeBatch(List.of(audit));
+            return;
+        }
+        if (!queue.offerLast(audit)) {
+            droppedCounter.increment();
+            logger.warn("Audit-Queue voll ({} Einträge), Lese-Zugriff von {} auf {} verworfen.",
+                    queue.size(), username, path);
+            return;
+        }
+        enqueuedCounter.increment();
+        if (queue.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            writer.execute(this::flushSafely);
+        }
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Schreibt alle wartenden Einträge in Batches. Schlägt ein Batch fehl, wird er an den
+     * Anfang der Queue zurückgelegt und beim nächsten Durchlauf erneut versucht.
+     *
+     * @return Anzahl geschriebener Einträge
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            flushRequested.set(false);
+            int written = 0;
+            List<ReadAccessAudit> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                if (!writeBatch(batch)) {
+                    requeue(batch);
+                    break;
+                }
+                written += batch.size();
+                batch = new ArrayList<>(batchSize);
+            }
+            return written;
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("Fehler beim Schreiben des Lese-Audit-Logs: {}", e.getMessage(), e);
+        }
+    }
+
+    private boolean writeBatch(List<ReadAccessAudit> batch) {
+        try {
+            flushTimer.record(() -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, audit) -> {
+                ps.setString(1, audit.getUsername());
+                ps.setString(2, audit.getPath());
+                ps.setTimestamp(3, audit.getTimestamp() != null ? Timestamp.valueOf(audit.getTimestamp()) : null);
+            }));
+            writtenCounter.increment(batch.size());
+            return true;
+        } catch (RuntimeException e) {
+            failedBatchCounter.increment();
+            logger.error("Batch-Insert von {} Lese-Audit-Einträgen fehlgeschlagen: {}", batch.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void requeue(List<ReadAccessAudit> batch) {
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            if (!queue.offerFirst(batch.get(i))) {
+                droppedCounter.increment(i + 1);
+                logger.warn("Audit-Queue voll, {} Lese-Audit-Einträge nach Fehler verworfen.", i + 1);
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        int written = flush();
+        if (!queue.isEmpty()) {
+            logger.error("{} Lese-Audit-Einträge konnten beim Herunterfahren nicht geschrieben werden.", queue.size());
+        } else {
+            logger.info("Lese-Audit-Queue geleert ({} Einträge beim Herunterfahren geschrieben).", written);
+        }
+    }
+}
@@ -24,8 +24,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.awt.Color;
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
@@ -52,6 +57,9 @@ public class ReportService {
     @Autowired
     private TimeTrackingEntryRepository timeTrackingEntryRepository;
 
+    @Autowired
+    private ProjectAnalyticsService projectAnalyticsService;
+
     private static final DateTimeFormatter DATE_FORMATTER_REPORT = DateTimeFormatter.ofPattern("EEEE, dd.MM.yyyy", Locale.GERMAN);
     private static final DateTimeFormatter TIME_FORMATTER_REPORT = DateTimeFormatter.ofPattern("HH:mm");
 
@@ -61,8 +69,6 @@ public class ReportService {
         }
         LocalDate startDate = start != null ? start : LocalDate.now().minusMonths(1);
         LocalDate endDate = end != null ? end : LocalDate.now();
-        LocalDateTime startDt = startDate.atStartOfDay();
-        LocalDateTime endDt = endDate.plusDays(1).atStartOfDay();
 
         List<Project> projects = projectRepository.findByCustomerCompanyIdOrderByNameAsc(companyId);
         Map<Long, ProjectHierarchyNodeDTO> nodeMap = new java.util.LinkedHashMap<>();
@@ -92,54 +98,13 @@ public class ReportService {
             }
         }
 
-        List<TimeTrackingEntry> relevantEntries = timeTrackingEntryRepository
-                .findByCompanyIdAndEntryTimestampBetween(companyId, startDt, endDt);
-
+        // Paarbildung und Summen laufen in der Datenbank, hier nur noch je Projekt zusammenfassen
         Map<Long, Long> totalDurations = new java.util.HashMap<>();
         Map<Long, Long> billableDurations = new java.util.HashMap<>();
-        Map<Long, TimeTrackingEntry> openStartByUser = new java.util.HashMap<>();
-
-        for (TimeTrackingEntry entry : relevantEntries) {
-            if (entry == null || entry.getUser() == null || entry.getUser().getId() == null) {
-                continue;
-            }
-            Long userId = entry.getUser().getId();
-
-            if (entry.getPunchType() == TimeTrackingEntry.PunchType.START) {
-                openStartByUser.put(userId, entry);
-                continue;
-            }
-
-            if (entry.getPunchType() != TimeTrackingEntry.PunchType.ENDE) {
-                continue;
-            }
-
-            TimeTrackingEntry startEntry = openStartByUser.remove(userId);
-
-            Project project = resolveProject(entry, startEntry);
-            if (project == null || project.getId() == null) {
-                continue;
-            }
-
-            Integer durationMinutes = entry.getDurationMinutes();
-            if (durationMinutes == null && startEntry != null && startEntry.getEntryTimestamp() != null
-                    && entry.getEntryTimestamp() != null) {
-                durationMinutes = (int) java.time.Duration.between(
-                        startEntry.getEntryTimestamp(),
-                        entry.getEntryTimestamp()
-                ).toMinutes();
-            }
-            if (durationMinutes == null || durationMinutes <= 0) {
-                continue;
-            }
-
-            totalDurations.merge(project.getId(), durationMinutes.longValue(), Long::sum);
-
-            com.chrono.chrono.entities.Task relevantTask = entry.getTask() != null
-                    ? entry.getTask()
-                    : (startEntry != null ? startEntry.getTask() : null);
-            if (relevantTask != null && Boolean.TRUE.equals(relevantTask.getBillable())) {
-                billableDurations.merge(project.getId(), durationMinutes.longValue(), Long::sum);
+        for (ProjectAnalyticsService.ProjectMinutes row : projectAnalyticsService.aggregate(companyId, startDate, endDate)) {
+            totalDurations.merge(row.projectId(), row.minutes(), Long::sum);
+            if (row.billableMinutes() > 0) {
+                billableDurations.merge(row.projectId(), row.billableMinutes(), Long::sum);
             }
         }
 
@@ -150,23 +115,6 @@ public class ReportService {
         return roots;
     }
 
-    private Project resolveProject(TimeTrackingEntry endEntry, TimeTrackingEntry startEntry) {
-        Project project = null;
-        if (endEntry != null) {
-            project = endEntry.getProject();
-            if (project == null && endEntry.getTask() != null) {
-                project = endEntry.getTask().getProject();
-            }
-        }
-        if (project == null && startEntry != null) {
-            project = startEntry.getProject();
-            if (project == null && startEntry.getTask() != null) {
-                project = startEntry.getTask().getProject();
-            }
-        }
-        return project;
-    }
-
     private long aggregateDurations(ProjectHierarchyNodeDTO node, Map<Long, Long> totalDurations,
                                     Map<Long, Long> billableDurations) {
         if (node == null) {
@@ -227,8 +175,7 @@ public class ReportService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UserNotFoundException("User not found: " + username));
 
-        List<DailyTimeSummaryDTO> dailySummaries = timeTrackingService.getUserHistory(username).stream()
-                .filter(summary -> !summary.getDate().isBefore(start) && !summary.getDate().isAfter(end))
+        List<DailyTimeSummaryDTO> dailySummaries = timeTrackingService.getUserHistory(username, start, end).stream()
                 .sorted(java.util.Comparator.comparing(DailyTimeSummaryDTO::getDate))
                 .collect(Collectors.toList());
 
@@ -359,43 +306,59 @@ public class ReportService {
     }
 
     public byte[] generateCsv(String username, LocalDate start, LocalDate end) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            writeCsv(username, start, end, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Schreibt den Stundenzettel als CSV in den Stream. Der Zeitraum wird monatsweise gelesen
+     * und sofort geschrieben, im Speicher liegt nie mehr als ein Monat Tageszusammenfassungen.
+     */
+    public void writeCsv(String username, LocalDate start, LocalDate end, OutputStream out) throws IOException {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UserNotFoundException("User not found: " + username));
-        List<DailyTimeSummaryDTO> dailySummaries = timeTrackingService.getUserHistory(username).stream()
-                .filter(summary -> !summary.getDate().isBefore(start) && !summary.getDate().isAfter(end))
-                .sorted(java.util.Comparator.comparing(DailyTimeSummaryDTO::getDate))
-                .collect(Collectors.toList());
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("Benutzer;").append(user.getFirstName()).append(" ").append(user.getLastName()).append(" (").append(user.getUsername()).append(")\n");
-        sb.append("Zeitraum;").append(start.format(DATE_FORMATTER_REPORT)).append(" - ").append(end.format(DATE_FORMATTER_REPORT)).append("\n\n");
-        sb.append("Datum;Arbeitszeit (Min);Pausenzeit (Min);Stempelungen (Typ:Zeit);Notiz;Korrektur Nötig\n");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("Benutzer;" + user.getFirstName() + " " + user.getLastName() + " (" + user.getUsername() + ")\n");
+        writer.write("Zeitraum;" + start.format(DATE_FORMATTER_REPORT) + " - " + end.format(DATE_FORMATTER_REPORT) + "\n\n");
+        writer.write("Datum;Arbeitszeit (Min);Pausenzeit (Min);Stempelungen (Typ:Zeit);Notiz;Korrektur Nötig\n");
 
         long totalWorkedMinutesOverall = 0;
-
-        for (DailyTimeSummaryDTO summary : dailySummaries) {
-            sb.append(summary.getDate().format(DATE_FORMATTER_REPORT)).append(";");
-            sb.append(summary.getWorkedMinutes()).append(";");
-            sb.append(summary.getBreakMinutes()).append(";");
-            totalWorkedMinutesOverall += summary.getWorkedMinutes();
-
-            String stamps = summary.getEntries().stream()
-                .map(e -> e.getPunchType().toString() + ":" + e.getEntryTimestamp().format(TIME_FORMATTER_REPORT) + 
-                           (e.getSource() == TimeTrackingEntry.PunchSource.SYSTEM_AUTO_END && !e.isCorrectedByUser() ? "(Auto)" : ""))
-                .collect(Collectors.joining(" | "));
-            sb.append("\"").append(stamps).append("\"").append(";");
-
-            sb.append(summary.getDailyNote() != null ? "\"" + summary.getDailyNote().replace("\"", "\"\"") + "\"" : "").append(";");
-            sb.append(summary.isNeedsCorrection() ? "JA" : "NEIN").append("\n");
+        for (LocalDate from = start; !from.isAfter(end); from = from.withDayOfMonth(1).plusMonths(1)) {
+            LocalDate monthEnd = from.withDayOfMonth(from.lengthOfMonth());
+            LocalDate to = monthEnd.isBefore(end) ? monthEnd : end;
+            List<DailyTimeSummaryDTO> dailySummaries = new ArrayList<>(timeTrackingService.getUserHistory(username, from, to));
+            dailySummaries.sort(java.util.Comparator.comparing(DailyTimeSummaryDTO::getDate));
+
+            for (DailyTimeSummaryDTO summary : dailySummaries) {
+                StringBuilder sb = new StringBuilder();
+                sb.append(summary.getDate().format(DATE_FORMATTER_REPORT)).append(";");
+                sb.append(summary.getWorkedMinutes()).append(";");
+                sb.append(summary.getBreakMinutes()).append(";");
+                totalWorkedMinutesOverall += summary.getWorkedMinutes();
+
+                String stamps = summary.getEntries().stream()
+                    .map(e -> e.getPunchType().toString() + ":" + e.getEntryTimestamp().format(TIME_FORMATTER_REPORT) + 
+                               (e.getSource() == TimeTrackingEntry.PunchSource.SYSTEM_AUTO_END && !e.isCorrectedByUser() ? "(Auto)" : ""))
+                    .collect(Collectors.joining(" | "));
+                sb.append("\"").append(stamps).append("\"").append(";");
+
+                sb.append(summary.getDailyNote() != null ? "\"" + summary.getDailyNote().replace("\"", "\"\"") + "\"" : "").append(";");
+                sb.append(summary.isNeedsCorrection() ? "JA" : "NEIN").append("\n");
+                writer.write(sb.toString());
+            }
+            writer.flush();
         }
-        
-        sb.append("\nGesamte Arbeitszeit (Min);").append(totalWorkedMinutesOverall).append("\n");
+
+        writer.write("\nGesamte Arbeitszeit (Min);" + totalWorkedMinutesOverall + "\n");
         long totalHours = totalWorkedMinutesOverall / 60;
         long totalMinutes = totalWorkedMinutesOverall % 60;
-        sb.append("Gesamte Arbeitszeit (Formatiert);").append(String.format("%d Std. %02d Min.", totalHours, totalMinutes)).append("\n");
-
-
-        return sb.toString().getBytes(StandardCharsets.UTF_8);
+        writer.write("Gesamte Arbeitszeit (Formatiert);" + String.format("%d Std. %02d Min.", totalHours, totalMinutes) + "\n");
+        writer.flush();
     }
 
     public byte[] generateIcs(String username, LocalDate start, LocalDate end, ZoneId zoneId) {
@@ -30,6 +30,9 @@ public class SickLeaveService {
     @Autowired
     private TimeTrackingService timeTrackingService; // Für Saldo-Neuberechnung
 
+    @Autowired
+    private WorkScheduleService workScheduleService; // Kalender-Cache nach Änderungen verwerfen
+
     @Transactional
     public SickLeave reportSickLeave(String reporterUsername, String targetUsername, LocalDate startDate, LocalDate endDate, boolean halfDay, String comment) {
         User reporter = userRepo.findByUsername(reporterUsername)
@@ -74,8 +77,9 @@ public class SickLeaveService {
         logger.info("Krankheit für {} (von {} bis {}, halbtags: {}) durch {} gemeldet.",
                 targetUsername, startDate, endDate, halfDay, reporterUsername);
 
-        // Saldo des betroffenen Benutzers neu berechnen, da Krankheit das Soll beeinflusst
-        timeTrackingService.rebuildUserBalance(targetUser);
+        // Saldo des betroffenen Benutzers für den Krankheitszeitraum neu berechnen, da Krankheit das Soll beeinflusst
+        workScheduleService.invalidateUserCalendar(targetUser);
+        timeTrackingService.updateUserBalanceForRange(targetUser, startDate, endDate);
 
         return savedSickLeave;
     }
@@ -144,11 +148,14 @@ public class SickLeaveService {
         }
         // SuperAdmin darf immer löschen
 
+        LocalDate removedStart = sickLeave.getStartDate();
+        LocalDate removedEnd = sickLeave.getEndDate();
         sickLeaveRepo.delete(sickLeave);
         logger.info("Krankmeldung ID {} für Benutzer {} durch Admin {} gelöscht.", sickLeaveId, targetUser.getUsername(), adminUsername);
 
         // Saldo des betroffenen Benutzers neu berechnen, da die gelöschte Krankheit das Soll wieder beeinflusst
-        timeTrackingService.rebuildUserBalance(targetUser);
+        workScheduleService.invalidateUserCalendar(targetUser);
+        timeTrackingService.updateUserBalanceForRange(targetUser, removedStart, removedEnd);
     }
 
     @Transactional
@@ -187,13 +194,18 @@ public class SickLeaveService {
             throw new IllegalArgumentException("Halbtägige Krankmeldung ist nur für einen einzelnen Tag zulässig.");
         }
 
+        // Alter und neuer Zeitraum sind beide vom Soll betroffen
+        LocalDate affectedStart = sickLeave.getStartDate() != null && sickLeave.getStartDate().isBefore(startDate) ? sickLeave.getStartDate() : startDate;
+        LocalDate affectedEnd = sickLeave.getEndDate() != null && sickLeave.getEndDate().isAfter(endDate) ? sickLeave.getEndDate() : endDate;
+
         sickLeave.setStartDate(startDate);
         sickLeave.setEndDate(endDate);
         sickLeave.setHalfDay(halfDay);
         sickLeave.setComment(comment);
 
         SickLeave saved = sickLeaveRepo.save(sickLeave);
-        timeTrackingService.rebuildUserBalance(targetUser);
+        workScheduleService.invalidateUserCalendar(targetUser);
+        timeTrackingService.updateUserBalanceForRange(targetUser, affectedStart, affectedEnd);
         logger.info("Krankmeldung ID {} für Benutzer {} durch Admin {} aktualisiert ({} - {}, halbtags={}).",
                 sickLeaveId, targetUser.getUsername(), adminUsername, startDate, endDate, halfDay);
         return saved;
@@ -12,6 +12,8 @@ import com.chrono.chrono.entities.VacationRequest;
 import com.chrono.chrono.entities.DailyNote;
 import com.chrono.chrono.entities.Task;
 import com.chrono.chrono.entities.Payslip;
+import com.chrono.chrono.entities.UserBalanceDelta;
+import com.chrono.chrono.entities.DailyTimeSummary;
 import com.chrono.chrono.exceptions.UserNotFoundException;
 import com.chrono.chrono.repositories.SickLeaveRepository;
 import com.chrono.chrono.repositories.TimeTrackingEntryRepository;
@@ -22,6 +24,8 @@ import com.chrono.chrono.repositories.ProjectRepository;
 import com.chrono.chrono.repositories.DailyNoteRepository;
 import com.chrono.chrono.repositories.TaskRepository;
 import com.chrono.chrono.repositories.PayslipRepository;
+import com.chrono.chrono.repositories.UserBalanceDeltaRepository;
+import com.chrono.chrono.repositories.DailyTimeSummaryRepository;
 import org.apache.poi.ss.usermodel.*; // Für Excel-Verarbeitung
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -66,6 +70,12 @@ public class TimeTrackingService {
     private TaskRepository taskRepository;
     @Autowired
     private PayslipRepository payslipRepository;
+    @Autowired
+    private UserBalanceDeltaRepository balanceDeltaRepository;
+    @Autowired
+    private DailyTimeSummaryRepository dailySummaryRepository;
+    @Autowired
+    private BalanceTraceService balanceTraceService;
 
     private User loadUserByUsername(String username) {
         return userRepository.findByUsername(username)
@@ -139,7 +149,8 @@ public class TimeTrackingService {
             userRepository.save(user);
         }
         logger.info("User '{}' punched {}. Timestamp: {}, Source: {}", username, nextPunchType, now, source);
-        rebuildUserBalance(user); // Saldo nach jedem Stempel neu berechnen
+        refreshDailySummaries(user, today, today);
+        updateUserBalanceForDay(user, today); // Nur den heutigen Tag neu bewerten
         return TimeTrackingEntryDTO.fromEntity(savedEntry);
     }
 
@@ -162,7 +173,8 @@ public class TimeTrackingService {
             TimeTrackingEntry autoEndEntry = new TimeTrackingEntry(user, autoEndTime, TimeTrackingEntry.PunchType.ENDE, TimeTrackingEntry.PunchSource.SYSTEM_AUTO_END);
             autoEndEntry.setSystemGeneratedNote("Automatischer Arbeitsende-Stempel. Bitte korrigieren Sie die tatsächliche Endzeit.");
             timeTrackingEntryRepository.save(autoEndEntry);
-            rebuildUserBalance(user); // Saldo neu berechnen
+            refreshDailySummaries(user, date, date);
+            updateUserBalanceForDay(user, date); // Saldo für den Tag neu berechnen
         }
     }
 
@@ -194,26 +206,100 @@ public class TimeTrackingService {
         return timeTrackingEntryRepository.findByUserAndEntryDateOrderByEntryTimestampAsc(freshUser, date);
     }
 
+    @Transactional(readOnly = true)
     public List<DailyTimeSummaryDTO> getUserHistory(String username) {
         User user = loadUserByUsername(username);
-        List<TimeTrackingEntry> allEntries = timeTrackingEntryRepository.findByUserOrderByEntryTimestampDesc(user);
+        Optional<TimeTrackingEntry> first = timeTrackingEntryRepository.findFirstByUserOrderByEntryTimestampAsc(user);
+        Optional<TimeTrackingEntry> last = timeTrackingEntryRepository.findFirstByUserOrderByEntryTimestampDesc(user);
+        if (first.isEmpty() || last.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return loadDailySummaries(user, first.get().getEntryDate(), last.get().getEntryDate());
+    }
+
+    /**
+     * Verlauf für einen Datumsbereich (inklusive beider Grenzen), nach Datum absteigend sortiert.
+     * Liest nur die Tageszusammenfassungen und Stempelungen dieses Bereichs.
+     */
+    @Transactional(readOnly = true)
+    public List<DailyTimeSummaryDTO> getUserHistory(String username, LocalDate from, LocalDate to) {
+        User user = loadUserByUsername(username);
+        return loadDailySummaries(user, from, to);
+    }
+
+    private List<DailyTimeSummaryDTO> loadDailySummaries(User user, LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            return Collections.emptyList();
+        }
+        Map<LocalDate, DailyTimeSummary> rows = new HashMap<>();
+        dailySummaryRepository.findByUserAndSummaryDateBetweenOrderBySummaryDateDesc(user, from, to)
+                .forEach(row -> rows.put(row.getSummaryDate(), row));
+        Map<LocalDate, List<TimeTrackingEntry>> entriesByDate = groupEntriesByDate(user, from, to, Comparator.reverseOrder());
+        Map<LocalDate, String> notes = new HashMap<>();
+        dailyNoteRepository.findByUserAndNoteDateBetween(user, from, to)
+                .forEach(note -> notes.put(note.getNoteDate(), note.getContent()));
+
+        // Die Stempelungen werden ohnehin für die Antwort gebraucht; die gespeicherte Prüfsumme wird
+        // gegen genau diese Zeilen verglichen. Geschrieben wird hier nie, das übernimmt refreshDailySummaries.
+        List<DailyTimeSummaryDTO> result = new ArrayList<>(entriesByDate.size());
+        int stale = 0;
+        for (Map.Entry<LocalDate, List<TimeTrackingEntry>> day : entriesByDate.entrySet()) {
+            LocalDate date = day.getKey();
+            List<TimeTrackingEntry> dayEntries = day.getValue();
+            DailyTimeSummary row = rows.get(date);
+            if (row == null || row.getEntryCount() != dayEntries.size()
+                    || !Objects.equals(row.getEntriesChecksum(), entriesChecksum(dayEntries))) {
+                // Fehlende oder veraltete Zusammenfassung (z.B. Altbestand): nur für die Antwort berechnen
+                row = applyDayTotals(new DailyTimeSummary(user, date), dayEntries, user, date);
+                stale++;
+            }
+            result.add(toDailySummaryDTO(row, dayEntries, user, notes.get(date)));
+        }
+        if (stale > 0) {
+            logger.debug("{} veraltete Tageszusammenfassungen für User '{}' zwischen {} und {} beim Lesen berechnet.",
+                    stale, user.getUsername(), from, to);
+        }
+        return result;
+    }
+
+    /**
+     * Schreibt die Tageszusammenfassungen für den Bereich neu. Muss nach jeder Änderung
+     * der Stempelungen eines Tages aufgerufen werden.
+     */
+    @Transactional
+    public void refreshDailySummaries(User user, LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            return;
+        }
+        // Parallele Aktualisierungen desselben Users nacheinander ausführen, sonst legen beide
+        // dieselbe Tageszeile an und eine scheitert an uq_daily_time_summary_user_date
+        userRepository.findByIdForUpdate(user.getId());
+        Map<LocalDate, DailyTimeSummary> existing = new HashMap<>();
+        dailySummaryRepository.findForUpdate(user, from, to)
+                .forEach(row -> existing.put(row.getSummaryDate(), row));
+
+        List<DailyTimeSummary> rowsToSave = new ArrayList<>();
+        groupEntriesByDate(user, from, to, Comparator.naturalOrder()).forEach((date, dayEntries) -> {
+            DailyTimeSummary row = existing.remove(date);
+            rowsToSave.add(applyDayTotals(row != null ? row : new DailyTimeSummary(user, date), dayEntries, user, date));
+        });
+        // Übrig gebliebene Zeilen gehören zu Tagen ohne Stempelungen
+        if (!existing.isEmpty()) {
+            dailySummaryRepository.deleteAll(existing.values());
+        }
+        if (!rowsToSave.isEmpty()) {
+            dailySummaryRepository.saveAll(rowsToSave);
+        }
+    }
 
-        // Gruppiere Einträge nach Tag, wobei die Map nach Datum absteigend sortiert ist
-        Map<LocalDate, List<TimeTrackingEntry>> entriesByDate = allEntries.stream()
-                .filter(e -> e.getEntryDate() != null) // Null-Safety
+    private Map<LocalDate, List<TimeTrackingEntry>> groupEntriesByDate(User user, LocalDate from, LocalDate to, Comparator<LocalDate> dateOrder) {
+        return timeTrackingEntryRepository
+                .findByUserAndEntryTimestampBetweenOrderByEntryTimestampAsc(user, from.atStartOfDay(), to.plusDays(1).atStartOfDay())
+                .stream()
+                .filter(e -> e.getEntryDate() != null)
                 .collect(Collectors.groupingBy(TimeTrackingEntry::getEntryDate,
-                        () -> new TreeMap<>(Comparator.reverseOrder()), // Sortiert Map-Keys (Daten) absteigend
-                        Collectors.toList()));
-
-        return entriesByDate.entrySet().stream()
-                .map(entry -> {
-                    // Einträge innerhalb eines Tages aufsteigend sortieren für die Berechnung
-                    List<TimeTrackingEntry> dailyEntriesSortedAsc = entry.getValue().stream()
-                            .sorted(Comparator.comparing(TimeTrackingEntry::getEntryTimestamp))
-                            .collect(Collectors.toList());
-                    return calculateDailySummaryFromEntries(dailyEntriesSortedAsc, user, entry.getKey());
-                })
-                .collect(Collectors.toList()); // Die resultierende Liste ist nach Datum absteigend sortiert wegen TreeMap
+                        () -> new TreeMap<>(dateOrder),
+                        Collectors.toList())); // Einträge bleiben innerhalb des Tages aufsteigend sortiert
     }
 
     private DailyTimeSummaryDTO.PrimaryTimes getPrimaryPunchTimes(List<TimeTrackingEntry> entries) {
@@ -247,14 +333,15 @@ public class TimeTrackingService {
     }
 
     private DailyTimeSummaryDTO calculateDailySummaryFromEntries(List<TimeTrackingEntry> entries, User user, LocalDate date) {
+        DailyTimeSummary totals = applyDayTotals(new DailyTimeSummary(user, date), entries, user, date);
+        return toDailySummaryDTO(totals, entries, user, getDailyNoteContent(user, date));
+    }
+
+    private DailyTimeSummary applyDayTotals(DailyTimeSummary target, List<TimeTrackingEntry> entries, User user, LocalDate date) {
         Duration totalWorkTime = Duration.ZERO;
         Duration totalBreakTime = Duration.ZERO;
         LocalDateTime lastStartTime = null;
         LocalDateTime lastWorkEndTime = null;
-        List<TimeTrackingEntryDTO> entryDTOs = entries.stream()
-                .map(TimeTrackingEntryDTO::fromEntity)
-                .collect(Collectors.toList());
-        String dailyNoteContent = getDailyNoteContent(user, date);
 
         for (TimeTrackingEntry entry : entries) {
             if (entry.getPunchType() == TimeTrackingEntry.PunchType.START) {
@@ -279,25 +366,93 @@ public class TimeTrackingService {
 
         boolean needsCorrection = entries.stream()
                 .anyMatch(e -> e.getSource() == TimeTrackingEntry.PunchSource.SYSTEM_AUTO_END && !e.isCorrectedByUser());
+        DailyTimeSummaryDTO.PrimaryTimes primaryTimes = getPrimaryPunchTimes(entries);
+
+        target.setWorkedMinutes((int) totalWorkTime.toMinutes());
+        target.setBreakMinutes((int) totalBreakTime.toMinutes());
+        target.setEntryCount(entries.size());
+        target.setEntriesChecksum(entriesChecksum(entries));
+        target.setNeedsCorrection(needsCorrection);
+        target.setFirstStartTime(primaryTimes.getFirstStartTime());
+        target.setLastEndTime(primaryTimes.getLastEndTime());
+        target.setOpen(primaryTimes.isOpen());
+        return target;
+    }
 
+    /**
+     * Prüfsumme über die Stempelungen eines Tages. Ändert sich bei jeder Korrektur von
+     * Zeitpunkt, Typ oder Quelle, auch wenn die Anzahl der Einträge gleich bleibt.
+     */
+    static long entriesChecksum(List<TimeTrackingEntry> entries) {
+        long checksum = 1;
+        for (TimeTrackingEntry entry : entries) {
+            checksum = 31 * checksum + Objects.hash(entry.getId(), entry.getEntryTimestamp(), entry.getPunchType(),
+                    entry.getSource(), entry.isCorrectedByUser());
+        }
+        return checksum;
+    }
+
+    private DailyTimeSummaryDTO toDailySummaryDTO(DailyTimeSummary summary, List<TimeTrackingEntry> entries, User user, String dailyNote) {
+        List<TimeTrackingEntryDTO> entryDTOs = entries.stream()
+                .map(TimeTrackingEntryDTO::fromEntity)
+                .collect(Collectors.toList());
         return new DailyTimeSummaryDTO(
                 user.getUsername(),
-                date,
-                (int) totalWorkTime.toMinutes(),
-                (int) totalBreakTime.toMinutes(),
+                summary.getSummaryDate(),
+                summary.getWorkedMinutes(),
+                summary.getBreakMinutes(),
                 entryDTOs,
-                dailyNoteContent,
-                needsCorrection,
-                getPrimaryPunchTimes(entries)
+                dailyNote,
+                summary.isNeedsCorrection(),
+                new DailyTimeSummaryDTO.PrimaryTimes(summary.getFirstStartTime(), summary.getLastEndTime(), summary.isOpen())
         );
     }
 
     @Transactional
     public void rebuildUserBalance(User user) {
-        // Holt den frischesten Benutzerstatus aus der DB
-        User freshUser = userRepository.findById(user.getId())
+        // Holt den frischesten Benutzerstatus aus der DB und sperrt die Zeile bis zum Commit
+        User freshUser = userRepository.findByIdForUpdate(user.getId())
                 .orElseThrow(() -> new UserNotFoundException("User not found with id: " + user.getId()));
 
+        FullBalance full = computeFullBalance(freshUser);
+
+        // Gespeicherte Tages-/Wochendifferenzen durch die neu berechneten ersetzen
+        balanceDeltaRepository.deleteByUser(freshUser);
+        if (!full.deltas().isEmpty()) {
+            UserBalanceDelta.PeriodType periodType = Boolean.TRUE.equals(freshUser.getIsPercentage())
+                    ? UserBalanceDelta.PeriodType.WEEK : UserBalanceDelta.PeriodType.DAY;
+            List<UserBalanceDelta> rows = new ArrayList<>(full.deltas().size());
+            full.deltas().forEach((periodStart, delta) -> rows.add(new UserBalanceDelta(freshUser, periodStart, periodType, delta)));
+            balanceDeltaRepository.saveAll(rows);
+        }
+
+        if (full.balance() == null) {
+            logger.info("Kein relevanter Zeitraum für Saldo-Neuberechnung für {}. Saldo bleibt bei {}.", freshUser.getUsername(), freshUser.getTrackingBalanceInMinutes());
+        } else if (freshUser.getTrackingBalanceInMinutes() != full.balance().intValue()) {
+            logger.info("Saldo für {} aktualisiert von {} auf {} Minuten.", freshUser.getUsername(), freshUser.getTrackingBalanceInMinutes(), full.balance());
+            freshUser.setTrackingBalanceInMinutes(full.balance());
+        } else {
+            logger.info("Saldo für {} ({} Minuten) hat sich nicht geändert und bleibt bestehen.", freshUser.getUsername(), full.balance());
+        }
+        userRepository.save(freshUser);
+    }
+
+    /**
+     * Ergebnis einer vollständigen Saldo-Berechnung. {@code balance} ist {@code null},
+     * wenn es keinen relevanten Zeitraum gibt und der bestehende Saldo unverändert bleibt.
+     * {@code deltas} enthält die Differenz pro Tag (bzw. pro Woche bei prozentualen Usern).
+     */
+    private record FullBalance(Integer balance, SortedMap<LocalDate, Integer> deltas) {
+    }
+
+    /**
+     * Berechnet den Saldo eines Users komplett aus seiner Historie, ohne etwas zu speichern.
+     * Dient als Grundlage für {@link #rebuildUserBalance(User)} und als Konsistenzprüfung
+     * für die inkrementelle Fortschreibung.
+     */
+    private FullBalance computeFullBalance(User freshUser) {
+        SortedMap<LocalDate, Integer> deltas = new TreeMap<>();
+
         // ====================== FINALE KORREKTUR FÜR STUNDENLÖHNER ======================
         if (Boolean.TRUE.equals(freshUser.getIsHourly())) {
             logger.info("Führe dedizierte Saldo-Neuberechnung für stundenbasierten Mitarbeiter {} durch.", freshUser.getUsername());
@@ -305,10 +460,8 @@ public class TimeTrackingService {
             List<TimeTrackingEntry> allEntries = timeTrackingEntryRepository.findByUserOrderByEntryTimestampAsc(freshUser);
 
             if (allEntries.isEmpty()) {
-                freshUser.setTrackingBalanceInMinutes(0);
-                userRepository.save(freshUser);
                 logger.info("Keine Einträge für Stundenlöhner {}, Saldo auf 0 gesetzt.", freshUser.getUsername());
-                return;
+                return new FullBalance(0, deltas);
             }
 
             long totalWorkedMinutes = 0;
@@ -324,48 +477,30 @@ public class TimeTrackingService {
                 }
             }
 
-            int paidOvertimeMinutes = payslipRepository.findByUser(freshUser).stream()
-                    .filter(Payslip::isPayoutOvertime)
-                    .map(Payslip::getOvertimeHours)
-                    .filter(Objects::nonNull)
-                    .mapToInt(h -> (int) Math.round(h * 60))
-                    .sum();
-            totalWorkedMinutes -= paidOvertimeMinutes;
-
-            freshUser.setTrackingBalanceInMinutes((int) totalWorkedMinutes);
-            userRepository.save(freshUser);
-            logger.info("Saldo für Stundenlöhner {} auf die Summe der gearbeiteten Zeit aktualisiert: {} Minuten.", freshUser.getUsername(), totalWorkedMinutes);
-            return;
+            totalWorkedMinutes -= getPaidOvertimeMinutes(freshUser);
+            logger.info("Saldo für Stundenlöhner {} entspricht der Summe der gearbeiteten Zeit: {} Minuten.", freshUser.getUsername(), totalWorkedMinutes);
+            return new FullBalance((int) totalWorkedMinutes, deltas);
         }
         // ====================== ENDE DER FINALEN KORREKTUR ======================
 
 
         // Bestehende Logik für prozentuale und festangestellte Mitarbeiter (unverändert)
-        logger.debug("TimeTrackingService.rebuildUserBalance: Entering rebuildUserBalance for user: '{}'. Config: isPercentage={}, isHourly={}", freshUser.getUsername(), freshUser.getIsPercentage(), freshUser.getIsHourly());
+        logger.debug("TimeTrackingService.computeFullBalance: user '{}'. Config: isPercentage={}, isHourly={}", freshUser.getUsername(), freshUser.getIsPercentage(), freshUser.getIsHourly());
 
         List<TimeTrackingEntry> allEntriesForUser = timeTrackingEntryRepository.findByUserOrderByEntryTimestampDesc(freshUser);
         List<VacationRequest> approvedVacations = vacationRequestRepository.findByUserAndApprovedTrue(freshUser);
+        List<com.chrono.chrono.entities.SickLeave> sickLeaves = sickLeaveRepository.findByUser(freshUser);
 
-        if (freshUser.getTrackingBalanceInMinutes() == null) {
-            freshUser.setTrackingBalanceInMinutes(0);
-        }
-
-        if (allEntriesForUser.isEmpty() && approvedVacations.isEmpty() && sickLeaveRepository.findByUser(freshUser).isEmpty()) {
-            if (freshUser.getTrackingBalanceInMinutes() != 0) {
-                logger.info("Saldo für {} auf 0 gesetzt (keine Zeiteinträge oder relevante Abwesenheiten). Alter Saldo war: {}", freshUser.getUsername(), freshUser.getTrackingBalanceInMinutes());
-                freshUser.setTrackingBalanceInMinutes(0);
-                userRepository.save(freshUser);
-            } else {
-                logger.info("Saldo für {} bereits 0 und keine Einträge/Abwesenheiten.", freshUser.getUsername());
-            }
-            return;
+        if (allEntriesForUser.isEmpty() && approvedVacations.isEmpty() && sickLeaves.isEmpty()) {
+            logger.info("Keine Zeiteinträge oder relevanten Abwesenheiten für {}. Saldo ist 0.", freshUser.getUsername());
+            return new FullBalance(0, deltas);
         }
 
         LocalDate firstDayToConsider = LocalDate.now(ZoneId.of("Europe/Berlin"));
 
         Optional<LocalDate> firstTrackingDayOpt = allEntriesForUser.stream().map(TimeTrackingEntry::getEntryDate).filter(Objects::nonNull).min(LocalDate::compareTo);
         Optional<LocalDate> firstVacationDayOpt = approvedVacations.stream().map(VacationRequest::getStartDate).min(LocalDate::compareTo);
-        Optional<LocalDate> firstSickLeaveDayOpt = sickLeaveRepository.findByUser(freshUser).stream().map(com.chrono.chrono.entities.SickLeave::getStartDate).min(LocalDate::compareTo);
+        Optional<LocalDate> firstSickLeaveDayOpt = sickLeaves.stream().map(com.chrono.chrono.entities.SickLeave::getStartDate).min(LocalDate::compareTo);
 
         firstDayToConsider = Stream.of(firstTrackingDayOpt, firstVacationDayOpt, firstSickLeaveDayOpt)
                 .filter(Optional::isPresent).map(Optional::get).min(LocalDate::compareTo).orElse(firstDayToConsider);
@@ -376,50 +511,224 @@ public class TimeTrackingService {
             lastDay = lastTrackingDayOpt.get();
         }
 
+        if (firstDayToConsider.isAfter(lastDay)) {
+            logger.info("Kein relevanter Zeitraum ({} bis {}) für Saldo-Neuberechnung für {}.", firstDayToConsider, lastDay, freshUser.getUsername());
+            return new FullBalance(null, deltas);
+        }
+
         int totalMinutesBalance = 0;
-        if (!firstDayToConsider.isAfter(lastDay)) {
-            logger.info("Saldo-Neuberechnung für {}: Zeitraum {} bis {}", freshUser.getUsername(), firstDayToConsider, lastDay);
-            Map<LocalDate, List<TimeTrackingEntry>> entriesGroupedByDate = allEntriesForUser.stream()
+        logger.info("Saldo-Neuberechnung für {}: Zeitraum {} bis {}", freshUser.getUsername(), firstDayToConsider, lastDay);
+        Map<LocalDate, List<TimeTrackingEntry>> entriesGroupedByDate = allEntriesForUser.stream()
+                .filter(e -> e.getEntryDate() != null)
+                .collect(Collectors.groupingBy(TimeTrackingEntry::getEntryDate));
+
+        if (Boolean.TRUE.equals(freshUser.getIsPercentage())) {
+            LocalDate currentWeekStart = firstDayToConsider.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            while (!currentWeekStart.isAfter(lastDay)) {
+                int weeklyDifference = computeWeeklyWorkDifferenceForPercentageUser(freshUser, currentWeekStart, lastDay, approvedVacations, entriesGroupedByDate);
+                deltas.put(currentWeekStart, weeklyDifference);
+                totalMinutesBalance += weeklyDifference;
+                currentWeekStart = currentWeekStart.plusWeeks(1);
+            }
+        } else { // Dieser Block ist für Standard-Mitarbeiter
+            for (LocalDate d = firstDayToConsider; !d.isAfter(lastDay); d = d.plusDays(1)) {
+                List<TimeTrackingEntry> entriesForDay = entriesGroupedByDate.getOrDefault(d, Collections.emptyList())
+                        .stream().sorted(Comparator.comparing(TimeTrackingEntry::getEntryTimestamp)).collect(Collectors.toList());
+                int dailyDifference = computeDailyWorkDifference(freshUser, d, approvedVacations, entriesForDay);
+                deltas.put(d, dailyDifference);
+                totalMinutesBalance += dailyDifference;
+            }
+        }
+        totalMinutesBalance -= getPaidOvertimeMinutes(freshUser);
+        return new FullBalance(totalMinutesBalance, deltas);
+    }
+
+    private int getPaidOvertimeMinutes(User user) {
+        return payslipRepository.findByUser(user).stream()
+                .filter(Payslip::isPayoutOvertime)
+                .map(Payslip::getOvertimeHours)
+                .filter(Objects::nonNull)
+                .mapToInt(h -> (int) Math.round(h * 60))
+                .sum();
+    }
+
+    /**
+     * Schreibt den Saldo eines Users inkrementell fort, nachdem sich Stempel, Korrekturen
+     * oder Abwesenheiten im Zeitraum {@code from} bis {@code to} geändert haben.
+     * Neu berechnet werden nur die betroffenen Tage (bzw. Wochen bei prozentualen Usern)
+     * sowie die Tage seit der letzten Berechnung; der Saldo wird um die Differenz zu den
+     * gespeicherten Werten angepasst. Fehlt eine Grundlage (noch nie berechnet, Modellwechsel,
+     * Stundenlöhner, Einträge in der Zukunft), wird auf {@link #rebuildUserBalance(User)} zurückgegriffen.
+     */
+    @Transactional
+    public void updateUserBalanceForRange(User user, LocalDate from, LocalDate to) {
+        // Zeilensperre serialisiert Saldo-Updates pro User (Stempel, Auszahlungen, Rebuild),
+        // sonst legen zwei erste Schreibzugriffe dieselbe Periode doppelt an
+        User freshUser = userRepository.findByIdForUpdate(user.getId())
+                .orElseThrow(() -> new UserNotFoundException("User not found with id: " + user.getId()));
+        if (from == null) {
+            rebuildUserBalance(freshUser);
+            return;
+        }
+        if (to == null || to.isBefore(from)) {
+            to = from;
+        }
+        if (Boolean.TRUE.equals(freshUser.getIsHourly())) {
+            rebuildUserBalance(freshUser);
+            return;
+        }
+
+        boolean weekly = Boolean.TRUE.equals(freshUser.getIsPercentage());
+        UserBalanceDelta.PeriodType periodType = weekly ? UserBalanceDelta.PeriodType.WEEK : UserBalanceDelta.PeriodType.DAY;
+        Optional<UserBalanceDelta> firstStored = balanceDeltaRepository.findFirstByUserOrderByPeriodStartAsc(freshUser);
+        Optional<UserBalanceDelta> lastStored = balanceDeltaRepository.findFirstByUserOrderByPeriodStartDesc(freshUser);
+        if (firstStored.isEmpty() || lastStored.isEmpty()
+                || firstStored.get().getPeriodType() != periodType
+                || lastStored.get().getPeriodType() != periodType) {
+            logger.info("Keine passenden gespeicherten Saldo-Differenzen für {}. Führe vollständige Neuberechnung durch.", freshUser.getUsername());
+            rebuildUserBalance(freshUser);
+            return;
+        }
+
+        LocalDate today = LocalDate.now(ZoneId.of("Europe/Berlin"));
+        LocalDate coveredFrom = firstStored.get().getPeriodStart();
+        LocalDate coveredTo = lastStored.get().getPeriodStart();
+        LocalDate rangeStart = weekly ? from.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : from;
+        LocalDate rangeEnd = weekly ? to.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : to;
+        LocalDate currentPeriod = weekly ? today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : today;
+        LocalDate upperBound = coveredTo.isAfter(currentPeriod) ? coveredTo : currentPeriod;
+
+        if (rangeEnd.isAfter(upperBound)) {
+            LocalDate rangeEndDay = weekly ? rangeEnd.plusDays(6) : rangeEnd;
+            boolean hasFutureEntries = !timeTrackingEntryRepository.findByUserAndEntryTimestampBetweenOrderByEntryTimestampAsc(
+                    freshUser, upperBound.plusDays(weekly ? 7 : 1).atStartOfDay(), rangeEndDay.plusDays(1).atStartOfDay()).isEmpty();
+            if (hasFutureEntries) {
+                rebuildUserBalance(freshUser);
+                return;
+            }
+            // Zukünftige Abwesenheiten fließen erst in den Saldo ein, wenn der Tag erreicht ist
+            rangeEnd = upperBound;
+        }
+
+        SortedSet<LocalDate> periods = new TreeSet<>();
+        addPeriods(periods, rangeStart, rangeEnd, weekly);
+        if (rangeStart.isBefore(coveredFrom)) {
+            // Zeitraum vor der bisher ersten Berechnung lückenlos ergänzen
+            addPeriods(periods, rangeStart, coveredFrom.minusDays(1), weekly);
+        }
+        // Tage (bzw. Wochen) seit der letzten Berechnung nachziehen; die laufende Woche
+        // prozentualer User ändert sich mit jedem Tag und wird immer neu berechnet.
+        addPeriods(periods, weekly ? coveredTo : coveredTo.plusDays(1), currentPeriod, weekly);
+        if (periods.isEmpty()) {
+            return;
+        }
+
+        Map<LocalDate, UserBalanceDelta> stored = balanceDeltaRepository
+                .findByUserAndPeriodStartBetween(freshUser, periods.first(), periods.last())
+                .stream()
+                .collect(Collectors.toMap(UserBalanceDelta::getPeriodStart, d -> d, (a, b) -> a));
+        List<VacationRequest> approvedVacations = vacationRequestRepository.findByUserAndApprovedTrue(freshUser);
+
+        int balanceChange = 0;
+        List<UserBalanceDelta> changedRows = new ArrayList<>();
+        for (List<LocalDate> run : splitIntoContiguousRuns(periods, weekly)) {
+            LocalDate runStart = run.get(0);
+            LocalDate runEndExclusive = run.get(run.size() - 1).plusDays(weekly ? 7 : 1);
+            Map<LocalDate, List<TimeTrackingEntry>> entriesGroupedByDate = timeTrackingEntryRepository
+                    .findByUserAndEntryTimestampBetweenOrderByEntryTimestampAsc(freshUser, runStart.atStartOfDay(), runEndExclusive.atStartOfDay())
+                    .stream()
                     .filter(e -> e.getEntryDate() != null)
                     .collect(Collectors.groupingBy(TimeTrackingEntry::getEntryDate));
 
-            if (Boolean.TRUE.equals(freshUser.getIsPercentage())) {
-                LocalDate currentWeekStart = firstDayToConsider.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-                while (!currentWeekStart.isAfter(lastDay)) {
-                    totalMinutesBalance += computeWeeklyWorkDifferenceForPercentageUser(freshUser, currentWeekStart, lastDay, approvedVacations, entriesGroupedByDate);
-                    currentWeekStart = currentWeekStart.plusWeeks(1);
+            for (LocalDate periodStart : run) {
+                int newDelta;
+                if (weekly) {
+                    newDelta = computeWeeklyWorkDifferenceForPercentageUser(freshUser, periodStart, today, approvedVacations, entriesGroupedByDate);
+                } else {
+                    List<TimeTrackingEntry> entriesForDay = entriesGroupedByDate.getOrDefault(periodStart, Collections.emptyList());
+                    newDelta = computeDailyWorkDifference(freshUser, periodStart, approvedVacations, entriesForDay);
                 }
-            } else { // Dieser Block ist für Standard-Mitarbeiter
-                for (LocalDate d = firstDayToConsider; !d.isAfter(lastDay); d = d.plusDays(1)) {
-                    List<TimeTrackingEntry> entriesForDay = entriesGroupedByDate.getOrDefault(d, Collections.emptyList())
-                            .stream().sorted(Comparator.comparing(TimeTrackingEntry::getEntryTimestamp)).collect(Collectors.toList());
-                    int dailyDifference = computeDailyWorkDifference(freshUser, d, approvedVacations, entriesForDay);
-                    totalMinutesBalance += dailyDifference;
-                    if ("Chantale".equals(freshUser.getUsername()) || logger.isTraceEnabled()) { // Debugging
-                        DailyTimeSummaryDTO summary = calculateDailySummaryFromEntries(entriesForDay, freshUser, d);
-                        int expected = workScheduleService.computeExpectedWorkMinutes(freshUser, d, approvedVacations);
-                        logger.info("[User: {}] Saldo Tag {}: Ist: {}min, Soll: {}min, Diff: {}min, Saldo bisher: {}min",
-                                freshUser.getUsername(), d, summary.getWorkedMinutes(), expected, dailyDifference, totalMinutesBalance - dailyDifference);
-                    }
+                UserBalanceDelta row = stored.get(periodStart);
+                if (row == null) {
+                    changedRows.add(new UserBalanceDelta(freshUser, periodStart, periodType, newDelta));
+                    balanceChange += newDelta;
+                } else if (row.getDeltaMinutes() != newDelta) {
+                    balanceChange += newDelta - row.getDeltaMinutes();
+                    row.setDeltaMinutes(newDelta);
+                    changedRows.add(row);
                 }
             }
-            int paidOvertimeMinutes = payslipRepository.findByUser(freshUser).stream()
-                    .filter(Payslip::isPayoutOvertime)
-                    .map(Payslip::getOvertimeHours)
-                    .filter(Objects::nonNull)
-                    .mapToInt(h -> (int) Math.round(h * 60))
-                    .sum();
-            totalMinutesBalance -= paidOvertimeMinutes;
-            if (freshUser.getTrackingBalanceInMinutes() != totalMinutesBalance) {
-                logger.info("Saldo für {} aktualisiert von {} auf {} Minuten.", freshUser.getUsername(), freshUser.getTrackingBalanceInMinutes(), totalMinutesBalance);
-                freshUser.setTrackingBalanceInMinutes(totalMinutesBalance);
-            } else {
-                logger.info("Saldo für {} ({} Minuten) hat sich nicht geändert und bleibt bestehen.", freshUser.getUsername(), totalMinutesBalance);
-            }
+        }
+
+        if (!changedRows.isEmpty()) {
+            balanceDeltaRepository.saveAll(changedRows);
+        }
+        if (balanceChange != 0) {
+            int oldBalance = freshUser.getTrackingBalanceInMinutes();
+            freshUser.setTrackingBalanceInMinutes(oldBalance + balanceChange);
+            userRepository.save(freshUser);
+            logger.info("Saldo für {} inkrementell aktualisiert ({} Perioden neu berechnet): {} -> {} Minuten.",
+                    freshUser.getUsername(), periods.size(), oldBalance, freshUser.getTrackingBalanceInMinutes());
         } else {
-            logger.info("Kein relevanter Zeitraum ({} bis {}) für Saldo-Neuberechnung für {}. Saldo bleibt bei {}.", firstDayToConsider, lastDay, freshUser.getUsername(), freshUser.getTrackingBalanceInMinutes());
+            logger.debug("Saldo für {} unverändert nach Neuberechnung von {} Perioden.", freshUser.getUsername(), periods.size());
         }
-        userRepository.save(freshUser);
+    }
+
+    @Transactional
+    public void updateUserBalanceForDay(User user, LocalDate date) {
+        updateUserBalanceForRange(user, date, date);
+    }
+
+    /**
+     * Vergleicht den gespeicherten Saldo mit einer vollständigen Neuberechnung.
+     * Mit {@code repair = true} wird bei Abweichung direkt neu aufgebaut.
+     */
+    @Transactional
+    public Map<String, Object> checkBalanceConsistency(String username, boolean repair) {
+        User user = loadUserByUsername(username);
+        FullBalance full = computeFullBalance(user);
+        int stored = user.getTrackingBalanceInMinutes();
+        int expected = full.balance() != null ? full.balance() : stored;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("username", user.getUsername());
+        result.put("storedBalance", stored);
+        result.put("recomputedBalance", expected);
+        result.put("drift", stored - expected);
+        result.put("consistent", stored == expected);
+        if (stored != expected) {
+            logger.warn("Saldo-Abweichung für {}: gespeichert {} Minuten, neu berechnet {} Minuten.", user.getUsername(), stored, expected);
+            if (repair) {
+                rebuildUserBalance(user);
+            }
+        }
+        result.put("repaired", repair && stored != expected);
+        return result;
+    }
+
+    private static void addPeriods(SortedSet<LocalDate> periods, LocalDate from, LocalDate to, boolean weekly) {
+        LocalDate start = weekly ? from.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : from;
+        for (LocalDate p = start; !p.isAfter(to); p = weekly ? p.plusWeeks(1) : p.plusDays(1)) {
+            periods.add(p);
+        }
+    }
+
+    private static List<List<LocalDate>> splitIntoContiguousRuns(SortedSet<LocalDate> periods, boolean weekly) {
+        List<List<LocalDate>> runs = new ArrayList<>();
+        List<LocalDate> current = new ArrayList<>();
+        LocalDate previous = null;
+        for (LocalDate p : periods) {
+            if (previous != null && !p.equals(weekly ? previous.plusWeeks(1) : previous.plusDays(1))) {
+                runs.add(current);
+                current = new ArrayList<>();
+            }
+            current.add(p);
+            previous = p;
+        }
+        if (!current.isEmpty()) {
+            runs.add(current);
+        }
+        return runs;
     }
 
     private int getWorkedMinutesForDate(User user, LocalDate date, Map<LocalDate, List<TimeTrackingEntry>> allUserEntriesGroupedByDate) {
@@ -440,8 +749,10 @@ public class TimeTrackingService {
         int expectedWeeklyMinutesAdjusted = workScheduleService.getExpectedWeeklyMinutesForPercentageUser(user, weekStart, approvedVacationsInThisWeek);
 
         int weeklyDifference = totalWorkedMinutesInWeek - expectedWeeklyMinutesAdjusted;
-        logger.debug("User: {}, Woche ab: {}, Gearbeitet: {}min, Erwartet (bereinigt): {}min, Differenz diese Woche: {}min",
-                user.getUsername(), weekStart, totalWorkedMinutesInWeek, expectedWeeklyMinutesAdjusted, weeklyDifference);
+        if (balanceTraceService.isTracing(user)) {
+            balanceTraceService.record(user, weekStart, BalanceTraceService.PeriodType.WEEK,
+                    totalWorkedMinutesInWeek, expectedWeeklyMinutesAdjusted, weeklyDifference);
+        }
         return weeklyDifference;
     }
 
@@ -459,14 +770,11 @@ public class TimeTrackingService {
         }
 
         int adjustedExpectedMinutes = workScheduleService.computeExpectedWorkMinutes(user, date, vacationsForExpectedMinutes);
-        return workedMinutes - adjustedExpectedMinutes;
-    }
-
-    @Transactional
-    public void rebuildAllUserBalancesOnce() {
-        logger.info("Starte Saldo-Neuberechnung für alle User...");
-        userRepository.findAll().forEach(this::rebuildUserBalance);
-        logger.info("✅ Saldo-Neuberechnung für alle User abgeschlossen.");
+        int difference = workedMinutes - adjustedExpectedMinutes;
+        if (balanceTraceService.isTracing(user)) {
+            balanceTraceService.record(user, date, BalanceTraceService.PeriodType.DAY, workedMinutes, adjustedExpectedMinutes, difference);
+        }
+        return difference;
     }
 
     public List<TimeTrackingEntry> getEntriesForUser(User user, LocalDateTime start, LocalDateTime end) {
@@ -540,7 +848,8 @@ public class TimeTrackingService {
             previousPunchType = dto.getPunchType();
         }
 
-        rebuildUserBalance(targetUser);
+        refreshDailySummaries(targetUser, date, date);
+        updateUserBalanceForDay(targetUser, date);
         logger.info("Zeiteinträge für User {} am {} durch Admin {} aktualisiert (Sequenz überschrieben).", targetUsername, date, adminUsername);
         return "Zeiteinträge erfolgreich aktualisiert.";
     }
@@ -597,6 +906,8 @@ public class TimeTrackingService {
     public void deleteTimeTrackingEntriesByUser(User user) {
         logger.info("Lösche alle TimeTrackingEntry für Benutzer '{}'.", user.getUsername());
         timeTrackingEntryRepository.deleteByUser(user);
+        balanceDeltaRepository.deleteByUser(user);
+        dailySummaryRepository.deleteByUser(user);
     }
 
     private LocalDateTime parseTimestampSafe(String timestampStr, int rowNum, String username, List<String> errors) {
@@ -651,7 +962,7 @@ public class TimeTrackingService {
         List<String> successes = new ArrayList<>();
         List<Map<String, String>> invalidRows = new ArrayList<>();
         int importedCount = 0;
-        Set<User> affectedUsers = new HashSet<>();
+        Map<User, SortedSet<LocalDate>> affectedDaysByUser = new HashMap<>();
 
         try (Workbook workbook = WorkbookFactory.create(inputStream)) {
             Sheet sheet = workbook.getSheetAt(0);
@@ -759,7 +1070,7 @@ public class TimeTrackingService {
                     newEntry.setCorrectedByUser(true);
 
                     timeTrackingEntryRepository.save(newEntry);
-                    affectedUsers.add(user);
+                    affectedDaysByUser.computeIfAbsent(user, u -> new TreeSet<>()).add(entryTimestamp.toLocalDate());
                     successes.add("Zeile " + rowNum + ": Eintrag für User '" + username + "' am " + entryTimestamp.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + " ("+punchType+") importiert.");
                     importedCount++;
 
@@ -772,9 +1083,10 @@ public class TimeTrackingService {
                 }
             }
 
-            for (User user : affectedUsers) {
-                rebuildUserBalance(user);
-            }
+            affectedDaysByUser.forEach((user, days) -> {
+                refreshDailySummaries(user, days.first(), days.last());
+                updateUserBalanceForRange(user, days.first(), days.last());
+            });
 
         } catch (Exception e) {
             logger.error("Fehler beim Import der Excel-Datei: {}", e.getMessage(), e);
@@ -795,7 +1107,7 @@ public class TimeTrackingService {
         List<String> successes = new ArrayList<>();
         List<Map<String, String>> invalidRows = new ArrayList<>();
         int importedCount = 0;
-        Set<User> affectedUsers = new HashSet<>();
+        Map<User, SortedSet<LocalDate>> affectedDaysByUser = new HashMap<>();
 
         int rowNum = 1;
         for (TimeTrackingImportRowDTO row : rows) {
@@ -898,7 +1210,7 @@ public class TimeTrackingService {
                 }
                 newEntry.setCorrectedByUser(true);
                 timeTrackingEntryRepository.save(newEntry);
-                affectedUsers.add(user);
+                affectedDaysByUser.computeIfAbsent(user, u -> new TreeSet<>()).add(entryTimestamp.toLocalDate());
                 successes.add("Zeile " + rowNum + ": Eintrag für User '" + username + "' am " + entryTimestamp.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + " (" + punchType + ") importiert.");
                 importedCount++;
             } catch (Exception e) {
@@ -911,9 +1223,10 @@ public class TimeTrackingService {
             rowNum++;
         }
 
-        for (User user : affectedUsers) {
-            rebuildUserBalance(user);
-        }
+        affectedDaysByUser.forEach((user, days) -> {
+            refreshDailySummaries(user, days.first(), days.last());
+            updateUserBalanceForRange(user, days.first(), days.last());
+        });
 
         result.put("importedCount", importedCount);
         result.put("successMessages", successes);
@@ -34,6 +34,9 @@ public class UserHolidayOptionService {
     @Autowired
     private TimeTrackingService timeTrackingService;
 
+    @Autowired
+    private WorkScheduleService workScheduleService;
+
 
     @Transactional
     public UserHolidayOptionDTO getOrCreateHolidayOption(String username, LocalDate date) {
@@ -126,7 +129,8 @@ public class UserHolidayOptionService {
         logger.info("Admin {} set holiday option for user {} on {} to {}", adminUsername, username, date, optionValue);
 
         // Saldo neu berechnen, nachdem die Option geändert wurde
-        timeTrackingService.rebuildUserBalance(user);
+        workScheduleService.invalidateUserCalendar(user);
+        timeTrackingService.updateUserBalanceForDay(user, date);
 
         return UserHolidayOptionDTO.fromEntity(savedOption);
     }
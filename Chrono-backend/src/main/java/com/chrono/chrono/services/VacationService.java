@@ -43,6 +43,9 @@ public class VacationService {
     @Autowired
     private ExternalNotificationService externalNotificationService;
 
+    @Autowired
+    private TimeTrackingService timeTrackingService; // Für die Saldo-Fortschreibung im Urlaubszeitraum
+
     private boolean isConflicting(User user, LocalDate start, LocalDate end) {
         if (user == null || user.getCompany() == null) return false;
         List<VacationRequest> approved = vacationRepo
@@ -162,6 +165,7 @@ public class VacationService {
         if (usesOvertime && !Boolean.TRUE.equals(targetUser.getIsHourly())) { //
             applyOvertimeDeduction(savedVr); //
         }
+        timeTrackingService.updateUserBalanceForRange(targetUser, start, end);
 
         externalNotificationService.sendVacationNotification(savedVr, "Urlaub für " + targetUsername + " erstellt und genehmigt");
 
@@ -199,6 +203,7 @@ public class VacationService {
             vr.setUsesOvertime(false);
             vr.setCompanyVacation(true);
             created.add(vacationRepo.save(vr));
+            timeTrackingService.updateUserBalanceForRange(user, start, end);
         }
         return created;
     }
@@ -235,6 +240,7 @@ public class VacationService {
 
 
         VacationRequest updated = vacationRepo.save(vr); //
+        timeTrackingService.updateUserBalanceForRange(user, updated.getStartDate(), updated.getEndDate());
         logger.info("VacationService: VacationRequest ID {} genehmigt von Admin '{}'.", vacationId, adminName); //
         externalNotificationService.sendVacationNotification(updated, "Urlaub von " + user.getUsername() + " genehmigt");
         return updated; //
@@ -255,12 +261,7 @@ public class VacationService {
         LocalDate start = vr.getStartDate(); //
         LocalDate end = vr.getEndDate(); //
         boolean isHalfDay = vr.isHalfDay(); //
-        long actualWorkDaysInVacationPeriod = 0; //
-        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) { //
-            if (isChargeableVacationDay(user, date)) {
-                actualWorkDaysInVacationPeriod++; //
-            }
-        }
+        long actualWorkDaysInVacationPeriod = countChargeableVacationDays(user, start, end); //
 
         if (actualWorkDaysInVacationPeriod <= 0) { //
             logger.info("Keine abzuziehenden Arbeitstage im Urlaubszeitraum für Antrag ID {} (User: {}). Saldo bleibt unverändert.", vr.getId(), user.getUsername()); //
@@ -313,12 +314,7 @@ public class VacationService {
             logger.info("{}: Stelle {} Minuten aus gespeicherten overtimeDeductionMinutes für User '{}' wieder her (VacationRequest ID {}).",
                     logContext, minutesToRestore, user.getUsername(), vr.getId());
         } else {
-            long actualWorkDaysInVacationPeriod = 0;
-            for (LocalDate date = vr.getStartDate(); !date.isAfter(vr.getEndDate()); date = date.plusDays(1)) {
-                if (isChargeableVacationDay(user, date)) {
-                    actualWorkDaysInVacationPeriod++;
-                }
-            }
+            long actualWorkDaysInVacationPeriod = countChargeableVacationDays(user, vr.getStartDate(), vr.getEndDate());
             if (actualWorkDaysInVacationPeriod > 0) {
                 int dailyMinutesValue = getDailyVacationMinutes(user);
                 minutesToRestore = (int) Math.round(actualWorkDaysInVacationPeriod * (vr.isHalfDay() && actualWorkDaysInVacationPeriod == 1 ? 0.5 : 1.0) * dailyMinutesValue);
@@ -418,6 +414,9 @@ public class VacationService {
         }
 
         vacationRepo.delete(vr); //
+        if (vr.isApproved()) {
+            timeTrackingService.updateUserBalanceForRange(user, vr.getStartDate(), vr.getEndDate());
+        }
         logger.info("VacationService: VacationRequest ID {} wurde gelöscht (admin='{}').", vacationId, adminUsername); //
         VacationRequest deletedRequest = new VacationRequest(); //
         deletedRequest.setId(vacationId); //
@@ -487,6 +486,8 @@ public class VacationService {
         if (previousApproved && previousUsesOvertime) {
             restoreOvertimeForVacation(vr, "Aktualisiere Urlaub ID " + vacationId);
         }
+        LocalDate affectedStart = vr.getStartDate() != null && vr.getStartDate().isBefore(effectiveStart) ? vr.getStartDate() : effectiveStart;
+        LocalDate affectedEnd = vr.getEndDate() != null && vr.getEndDate().isAfter(effectiveEnd) ? vr.getEndDate() : effectiveEnd;
 
         vr.setStartDate(effectiveStart);
         vr.setEndDate(effectiveEnd);
@@ -512,6 +513,9 @@ public class VacationService {
             applyOvertimeDeduction(saved);
             saved = vacationRepo.save(saved);
         }
+        if (previousApproved || saved.isApproved()) {
+            timeTrackingService.updateUserBalanceForRange(targetUser, affectedStart, affectedEnd);
+        }
 
         logger.info("VacationService: Urlaub ID {} wurde von Admin '{}' aktualisiert (approved={}, denied={}, usesOvertime={}).",
                 vacationId, adminUsername, saved.isApproved(), saved.isDenied(), saved.isUsesOvertime());
@@ -533,16 +537,13 @@ public class VacationService {
         double usedDays = 0.0; //
         for (VacationRequest vr : vacations) { //
             if (!vr.isUsesOvertime() && !vr.isCompanyVacation()) { //
-                LocalDate startDate = vr.getStartDate(); //
-                LocalDate endDate = vr.getEndDate(); //
-
-                for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) { //
-                    if (date.getYear() == year) { //
-                        if (isChargeableVacationDay(user, date)) {
-                            usedDays += vr.isHalfDay() ? 0.5 : 1.0; //
-                        }
-                    }
+                // Nur den Teil des Urlaubs im angefragten Jahr betrachten
+                LocalDate startDate = vr.getStartDate().getYear() < year ? LocalDate.of(year, 1, 1) : vr.getStartDate(); //
+                LocalDate endDate = vr.getEndDate().getYear() > year ? LocalDate.of(year, 12, 31) : vr.getEndDate(); //
+                if (startDate.isAfter(endDate)) { //
+                    continue;
                 }
+                usedDays += countChargeableVacationDays(user, startDate, endDate) * (vr.isHalfDay() ? 0.5 : 1.0); //
             }
         }
         logger.info("VacationService: Benutzer '{}' hat {} reguläre Urlaubstage von {} im Jahr {} genutzt.",
@@ -562,12 +563,7 @@ public class VacationService {
                 if (vr.getOvertimeDeductionMinutes() != null && vr.getOvertimeDeductionMinutes() > 0) { //
                     minutesToRestore = vr.getOvertimeDeductionMinutes(); //
                 } else {
-                    long actualWorkDaysInVacationPeriod = 0; //
-                    for (LocalDate date = vr.getStartDate(); !date.isAfter(vr.getEndDate()); date = date.plusDays(1)) { //
-                        if (isChargeableVacationDay(user, date)) {
-                            actualWorkDaysInVacationPeriod++; //
-                        }
-                    }
+                    long actualWorkDaysInVacationPeriod = countChargeableVacationDays(user, vr.getStartDate(), vr.getEndDate()); //
                     if (actualWorkDaysInVacationPeriod > 0) { //
                         int dailyMinutesValue = getDailyVacationMinutes(user); //
                         minutesToRestore = (int) Math.round(actualWorkDaysInVacationPeriod * (vr.isHalfDay() && actualWorkDaysInVacationPeriod == 1 ? 0.5 : 1.0) * dailyMinutesValue); //
@@ -600,24 +596,27 @@ public class VacationService {
     }
 
     private double calculateRequestedVacationDays(User user, LocalDate start, LocalDate end, boolean halfDay) {
-        double days = 0.0;
-        for (LocalDate d = start; !d.isAfter(end); d = d.plusDays(1)) {
-            if (isChargeableVacationDay(user, d)) {
-                days += 1.0;
-            }
-        }
+        double days = countChargeableVacationDays(user, start, end);
         if (halfDay && start.equals(end)) {
             days -= 0.5;
         }
         return days;
     }
 
-    private boolean isChargeableVacationDay(User user, LocalDate date) {
+    private long countChargeableVacationDays(User user, LocalDate start, LocalDate end) {
+        if (start == null || end == null || end.isBefore(start)) {
+            return 0;
+        }
         String cantonAbbreviation = user.getCompany() != null ? user.getCompany().getCantonAbbreviation() : null;
-        if (holidayService.isHoliday(date, cantonAbbreviation)) {
-            return false;
+        // Feiertage des ganzen Zeitraums einmalig laden statt pro Tag nachzuschlagen
+        HolidayService.HolidayRange holidays = holidayService.holidaysBetween(start, end, cantonAbbreviation);
+        long days = 0;
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            if (!holidays.contains(date) && !workScheduleService.isDayOff(user, date)) {
+                days++;
+            }
         }
-        return !workScheduleService.isDayOff(user, date);
+        return days;
     }
 
 
@@ -11,15 +11,21 @@ import com.chrono.chrono.repositories.UserScheduleRuleRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAdjusters;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional; // NEU
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class WorkScheduleService {
@@ -40,6 +46,77 @@ public class WorkScheduleService {
 
     private static final double BASE_FULL_TIME_WEEKLY_HOURS = 42.5;
 
+    @Value("${app.work-schedule.calendar-cache-ttl:PT15M}")
+    private Duration calendarCacheTtl = Duration.ofMinutes(15);
+
+    /**
+     * Kalenderdaten eines Users, die sonst pro Tag aus der DB geladen würden: Krankheiten,
+     * Feiertagsoptionen und Halbtagsregeln. Wird einmal pro User geladen und bei Änderungen
+     * über {@link #invalidateUserCalendar(User)} verworfen.
+     */
+    private record UserCalendarData(List<SickLeave> sickLeaves,
+                                    Map<LocalDate, UserHolidayOption> holidayOptions,
+                                    List<UserScheduleRule> halfDayRules,
+                                    long loadedAtMillis) {
+        Optional<SickLeave> sickLeaveOn(LocalDate date) {
+            return sickLeaves.stream()
+                    .filter(sl -> !date.isBefore(sl.getStartDate()) && !date.isAfter(sl.getEndDate()))
+                    .findFirst();
+        }
+    }
+
+    private final Map<Long, UserCalendarData> calendarCache = new ConcurrentHashMap<>();
+
+    private UserCalendarData calendarData(User user) {
+        Long userId = user.getId();
+        if (userId == null) {
+            return loadCalendarData(user);
+        }
+        UserCalendarData cached = calendarCache.get(userId);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAtMillis() < calendarCacheTtl.toMillis()) {
+            return cached;
+        }
+        UserCalendarData loaded = loadCalendarData(user);
+        calendarCache.put(userId, loaded);
+        return loaded;
+    }
+
+    private UserCalendarData loadCalendarData(User user) {
+        List<SickLeave> sickLeaves = List.copyOf(sickLeaveRepository.findByUser(user));
+        Map<LocalDate, UserHolidayOption> holidayOptions = new HashMap<>();
+        for (UserHolidayOption option : userHolidayOptionRepository.findByUser(user)) {
+            if (option.getHolidayDate() != null) {
+                holidayOptions.putIfAbsent(option.getHolidayDate(), option);
+            }
+        }
+        List<UserScheduleRule> halfDayRules = ruleRepo.findByUser(user).stream()
+                .filter(rule -> rule.getDayMode() != null && "HALF_DAY".equalsIgnoreCase(rule.getDayMode()))
+                .toList();
+        return new UserCalendarData(sickLeaves, holidayOptions, halfDayRules, System.currentTimeMillis());
+    }
+
+    /**
+     * Verwirft die gecachten Kalenderdaten eines Users. Muss nach Änderungen an Regeln,
+     * Krankheiten, Feiertagsoptionen oder am Arbeitszeitmodell aufgerufen werden. Innerhalb
+     * einer Transaktion wird zusätzlich nach deren Abschluss verworfen, damit keine
+     * zwischenzeitlich geladenen, nicht festgeschriebenen Daten im Cache bleiben.
+     */
+    public void invalidateUserCalendar(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        Long userId = user.getId();
+        calendarCache.remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    calendarCache.remove(userId);
+                }
+            });
+        }
+    }
+
 
     private double applyPercentage(User user, double hours) {
         if (Boolean.TRUE.equals(user.getIsPercentage())
@@ -52,15 +129,8 @@ public class WorkScheduleService {
     // Bitte DIESE komplette Methode kopieren und die bestehende Methode ersetzen
 
     public double getExpectedWorkHours(User user, LocalDate date) {
-        // ====================== START DEBUG-CODE ======================
-        // Dieser Block schreibt bei jedem Aufruf eine Log-Nachricht.
-        logger.info("[CHRONO-DEBUG] getExpectedWorkHours wird aufgerufen für Benutzer: '{}', isHourly: {}, für Datum: {}",
-                user.getUsername(), user.getIsHourly(), date.toString());
-        // ======================= ENDE DEBUG-CODE =======================
-
-        // Der eigentliche Fix: Prüft, ob der Benutzer auf Stundenbasis arbeitet.
+        // Stundenlöhner haben kein Soll
         if (Boolean.TRUE.equals(user.getIsHourly())) {
-            logger.info("[CHRONO-DEBUG] Benutzer '{}' ist 'isHourly'. Erwartete Stunden werden auf 0.0 gesetzt.", user.getUsername());
             return 0.0;
         }
 
@@ -101,10 +171,6 @@ public class WorkScheduleService {
             }
         }
 
-        // ====================== START DEBUG-CODE ======================
-        logger.info("[CHRONO-DEBUG] Für Benutzer: '{}', Datum: {}, berechnete Soll-Stunden: {}", user.getUsername(), date.toString(), baseHours);
-        // ======================= ENDE DEBUG-CODE =======================
-
         if (isHalfDay(user, date)) {
             baseHours = baseHours / 2.0;
         }
@@ -125,9 +191,7 @@ public class WorkScheduleService {
         LocalDate startOfWeek = dateInWeek.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
         LocalDate endOfWeek = startOfWeek.plusDays(6);
 
-        List<SickLeave> sickLeavesForUser = sickLeaveRepository.findByUser(user);
-        // NEU: Lade die Feiertagsoptionen für die Woche
-        List<UserHolidayOption> holidayOptionsInWeek = userHolidayOptionRepository.findByUserAndHolidayDateBetween(user, startOfWeek, endOfWeek);
+        UserCalendarData calendar = calendarData(user);
 
         Integer expectedWorkDays = user.getExpectedWorkDays();
         double dailyValueHours;
@@ -141,6 +205,9 @@ public class WorkScheduleService {
         }
         int dailyValueMinutes = (int) Math.round(dailyValueHours * 60);
 
+        String cantonAbbreviation = user.getCompany() != null ? user.getCompany().getCantonAbbreviation() : null;
+        HolidayService.HolidayRange weekHolidays = holidayService.holidaysBetween(startOfWeek, endOfWeek, cantonAbbreviation);
+
         for (LocalDate d = startOfWeek; !d.isAfter(endOfWeek); d = d.plusDays(1)) {
             final LocalDate currentDate = d;
             DayOfWeek day = d.getDayOfWeek();
@@ -160,28 +227,20 @@ public class WorkScheduleService {
 
             if (!isPotentialWorkDayBasedOnModel) continue;
 
-
-            String cantonAbbreviation = user.getCompany() != null ? user.getCompany().getCantonAbbreviation() : null;
-            boolean isActualHoliday = holidayService.isHoliday(d, cantonAbbreviation);
+            boolean isActualHoliday = weekHolidays.contains(d);
 
             // Abwesenheiten (Urlaub, Krankheit)
             boolean vacationToday = approvedVacationsInWeek.stream()
                     .anyMatch(vr -> vr.isApproved() && !currentDate.isBefore(vr.getStartDate()) && !currentDate.isAfter(vr.getEndDate()));
-            boolean sickToday = sickLeavesForUser.stream()
-                    .anyMatch(sl -> !currentDate.isBefore(sl.getStartDate()) && !currentDate.isAfter(sl.getEndDate()));
 
             VacationRequest relevantVacation = approvedVacationsInWeek.stream()
                     .filter(vr -> vr.isApproved() && !currentDate.isBefore(vr.getStartDate()) && !currentDate.isAfter(vr.getEndDate()))
                     .findFirst().orElse(null);
-            SickLeave relevantSickLeave = sickLeavesForUser.stream()
-                    .filter(sl -> !currentDate.isBefore(sl.getStartDate()) && !currentDate.isAfter(sl.getEndDate()))
-                    .findFirst().orElse(null);
+            SickLeave relevantSickLeave = calendar.sickLeaveOn(currentDate).orElse(null);
 
 
             if (isActualHoliday) {
-                Optional<UserHolidayOption> holidayOptionOpt = holidayOptionsInWeek.stream()
-                        .filter(ho -> ho.getHolidayDate().equals(currentDate))
-                        .findFirst();
+                Optional<UserHolidayOption> holidayOptionOpt = Optional.ofNullable(calendar.holidayOptions().get(currentDate));
 
                 UserHolidayOption.HolidayHandlingOption handling = holidayOptionOpt
                         .map(UserHolidayOption::getHolidayHandlingOption)
@@ -246,7 +305,7 @@ public class WorkScheduleService {
                 }
             }
             // Prüfe auf ganztägige Krankheit
-            List<SickLeave> sickLeaves = sickLeaveRepository.findByUser(user);
+            List<SickLeave> sickLeaves = calendarData(user).sickLeaves();
             for (SickLeave sick : sickLeaves) {
                 if (!date.isBefore(sick.getStartDate()) && !date.isAfter(sick.getEndDate())) {
                     if (!sick.isHalfDay()) return 0; // Ganzer Tag krank -> 0 Soll
@@ -278,9 +337,6 @@ public class WorkScheduleService {
         // Logik für Standard-User (nicht prozentual)
         // 1. Ist der Tag komplett frei (Feiertag, Wochenende ohne geplante Arbeit)?
         if (isDayOff(user, date)) {
-            if ("Chantale".equals(user.getUsername())) {
-                logger.info("[User: {}] WorkScheduleService.computeExpectedWorkMinutes (Standard): Datum {}, isDayOff() ist true -> Soll: 0 Min.", user.getUsername(), date);
-            }
             return 0;
         }
 
@@ -288,22 +344,16 @@ public class WorkScheduleService {
         for (VacationRequest vr : approvedVacationsForUser) {
             if (!date.isBefore(vr.getStartDate()) && !date.isAfter(vr.getEndDate())) {
                 if (!vr.isHalfDay()) { // Ganzer Tag Urlaub
-                    if ("Chantale".equals(user.getUsername())) {
-                        logger.info("[User: {}] WorkScheduleService.computeExpectedWorkMinutes (Standard): Datum {}, ganztägiger Urlaub -> Soll: 0 Min.", user.getUsername(), date);
-                    }
                     return 0;
                 }
             }
         }
 
         // 3. Ganztägige Krankheit?
-        List<SickLeave> sickLeaves = sickLeaveRepository.findByUser(user);
+        List<SickLeave> sickLeaves = calendarData(user).sickLeaves();
         for (SickLeave sick : sickLeaves) {
             if (!date.isBefore(sick.getStartDate()) && !date.isAfter(sick.getEndDate())) {
                 if (!sick.isHalfDay()) { // Ganzer Tag krank
-                    if ("Chantale".equals(user.getUsername())) {
-                        logger.info("[User: {}] WorkScheduleService.computeExpectedWorkMinutes (Standard): Datum {}, ganztägige Krankheit -> Soll: 0 Min.", user.getUsername(), date);
-                    }
                     return 0;
                 }
             }
@@ -311,9 +361,6 @@ public class WorkScheduleService {
 
         // 4. Basissoll für den Tag holen (berücksichtigt Wochenplan)
         double expectedHoursFullDay = getExpectedWorkHours(user, date);
-        if ("Chantale".equals(user.getUsername())) {
-            logger.info("[User: {}] WorkScheduleService.computeExpectedWorkMinutes (Standard): Datum {}, Basissoll (getExpectedWorkHours): {}h", user.getUsername(), date, expectedHoursFullDay);
-        }
 
 
         // 5. Halbtägige Abwesenheiten prüfen (Urlaub oder Krankheit)
@@ -321,9 +368,6 @@ public class WorkScheduleService {
             if (!date.isBefore(vr.getStartDate()) && !date.isAfter(vr.getEndDate())) {
                 if (vr.isHalfDay()) {
                     int halfDaySoll = (int) Math.round((expectedHoursFullDay / 2.0) * 60);
-                    if ("Chantale".equals(user.getUsername())) {
-                        logger.info("[User: {}] WorkScheduleService.computeExpectedWorkMinutes (Standard): Datum {}, halber Tag Urlaub -> Soll: {} Min.", user.getUsername(), date, halfDaySoll);
-                    }
                     return halfDaySoll;
                 }
             }
@@ -332,9 +376,6 @@ public class WorkScheduleService {
             if (!date.isBefore(sick.getStartDate()) && !date.isAfter(sick.getEndDate())) {
                 if (sick.isHalfDay()) {
                     int halfDaySoll = (int) Math.round((expectedHoursFullDay / 2.0) * 60);
-                    if ("Chantale".equals(user.getUsername())) {
-                        logger.info("[User: {}] WorkScheduleService.computeExpectedWorkMinutes (Standard): Datum {}, halber Tag Krankheit -> Soll: {} Min.", user.getUsername(), date, halfDaySoll);
-                    }
                     return halfDaySoll;
                 }
             }
@@ -342,9 +383,6 @@ public class WorkScheduleService {
 
         // 6. Wenn keine der obigen Bedingungen zutrifft, volles Tagessoll
         int finalSoll = (int) Math.round(expectedHoursFullDay * 60);
-        if ("Chantale".equals(user.getUsername())) {
-            logger.info("[User: {}] WorkScheduleService.computeExpectedWorkMinutes (Standard): Datum {}, reguläres volles Soll -> {} Min.", user.getUsername(), date, finalSoll);
-        }
         return finalSoll;
     }
 
@@ -353,7 +391,7 @@ public class WorkScheduleService {
 
         if (holidayService.isHoliday(date, cantonAbbreviation)) {
             if (Boolean.TRUE.equals(user.getIsPercentage())) {
-                Optional<UserHolidayOption> holidayOptionOpt = userHolidayOptionRepository.findByUserAndHolidayDate(user, date);
+                Optional<UserHolidayOption> holidayOptionOpt = Optional.ofNullable(calendarData(user).holidayOptions().get(date));
                 UserHolidayOption.HolidayHandlingOption handling = holidayOptionOpt
                         .map(UserHolidayOption::getHolidayHandlingOption)
                         .orElse(UserHolidayOption.HolidayHandlingOption.PENDING_DECISION);
@@ -389,12 +427,7 @@ public class WorkScheduleService {
 
 
     public boolean isHalfDay(User user, LocalDate date) {
-        List<UserScheduleRule> rules = ruleRepo.findByUser(user);
-        for (UserScheduleRule rule : rules) {
-            if (rule.getDayMode() == null || !"HALF_DAY".equalsIgnoreCase(rule.getDayMode())) {
-                continue;
-            }
-
+        for (UserScheduleRule rule : calendarData(user).halfDayRules()) {
             LocalDate start = rule.getStartDate();
             if (start != null && date.isBefore(start)) {
                 continue;
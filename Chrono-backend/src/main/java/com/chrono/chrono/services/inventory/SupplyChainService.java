@@ -26,6 +26,8 @@ import com.chrono.chrono.warehouse.dto.SmartSourcingResponse;
 import com.chrono.chrono.warehouse.model.InventoryItem;
 import com.chrono.chrono.warehouse.model.WarehouseLocation;
 import com.chrono.chrono.warehouse.service.WarehouseIntelligenceService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -36,6 +38,7 @@ import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
@@ -44,14 +47,20 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.stream.Collectors;
 
 @Service
 public class SupplyChainService {
 
+    static final String WAVE_STRATEGY_ZONE = "ZONE";
+    static final String WAVE_STRATEGY_CLUSTERED = "CLUSTERED";
+
     private final ProductRepository productRepository;
     private final WarehouseRepository warehouseRepository;
     private final StockLevelRepository stockLevelRepository;
@@ -62,6 +71,8 @@ public class SupplyChainService {
     private final ServiceRequestRepository serviceRequestRepository;
     private final AccountsPayableService accountsPayableService;
     private final WarehouseIntelligenceService warehouseIntelligenceService;
+    private final ForkJoinPool wavePlanningPool;
+    private final int waveCandidateWindow;
 
     public SupplyChainService(ProductRepository productRepository,
                               WarehouseRepository warehouseRepository,
@@ -72,7 +83,9 @@ public class SupplyChainService {
                               ProductionOrderRepository productionOrderRepository,
                               ServiceRequestRepository serviceRequestRepository,
                               AccountsPayableService accountsPayableService,
-                              WarehouseIntelligenceService warehouseIntelligenceService) {
+                              WarehouseIntelligenceService warehouseIntelligenceService,
+                              @Value("${app.warehouse.waves.parallelism:0}") int wavePlanningParallelism,
+                              @Value("${app.warehouse.waves.candidate-window:500}") int waveCandidateWindow) {
         this.productRepository = productRepository;
         this.warehouseRepository = warehouseRepository;
         this.stockLevelRepository = stockLevelRepository;
@@ -83,6 +96,15 @@ public class SupplyChainService {
         this.serviceRequestRepository = serviceRequestRepository;
         this.accountsPayableService = accountsPayableService;
         this.warehouseIntelligenceService = warehouseIntelligenceService;
+        int parallelism = wavePlanningParallelism > 0
+                ? wavePlanningParallelism
+                : Runtime.getRuntime().availableProcessors();
+        this.wavePlanningPool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("wave-planner-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        this.waveCandidateWindow = Math.max(1, waveCandidateWindow);
     }
 
     @Transactional
@@ -209,9 +231,13 @@ public class SupplyChainService {
                         order.getOrderNumber(), null, null, null);
             }
         }
+        LocalDate today = LocalDate.now();
+        boolean onTime = order.getDueDate() == null || !today.isAfter(order.getDueDate());
         order.setStatus(SalesOrderStatus.FULFILLED);
-        order.setDueDate(LocalDate.now());
-        return salesOrderRepository.save(order);
+        order.setDueDate(today);
+        SalesOrder saved = salesOrderRepository.save(order);
+        warehouseIntelligenceService.recordOrderFulfilment(onTime);
+        return saved;
     }
 
     @Transactional
@@ -351,10 +377,17 @@ public class SupplyChainService {
         return new ReplenishmentPreviewResponse(items, computation.candidates().size(), computation.replenishedSkus());
     }
 
+    /**
+     * Plant Pickwellen für offene Kundenaufträge. Aufträge werden nach Überschneidung bzw. Nähe
+     * ihrer Lagerplätze geclustert ({@link WaveClusterer}); zum Vergleich wird die bisherige
+     * Aufteilung nach Hauptzone mitgeroutet. Geliefert wird der kürzere der beiden Pläne samt
+     * Einsparung gegenüber der Zonenaufteilung.
+     */
     @Transactional(readOnly = true)
     public WavePickResponse planWavePicking(PlanWavePickRequest request) {
         int maxPerWave = Optional.ofNullable(request.getMaxOrdersPerWave()).orElse(6);
         maxPerWave = Math.min(Math.max(maxPerWave, 2), 25);
+        int maxUnitsPerWave = Math.max(0, Optional.ofNullable(request.getMaxUnitsPerWave()).orElse(0));
         boolean includeDrafts = Optional.ofNullable(request.getIncludeDrafts()).orElse(Boolean.FALSE);
 
         List<SalesOrder> candidateOrders;
@@ -372,55 +405,70 @@ public class SupplyChainService {
                 .filter(order -> includeDrafts || order.getStatus() != SalesOrderStatus.DRAFT)
                 .toList();
 
-        if (eligibleOrders.isEmpty()) {
-            return new WavePickResponse(List.of(), 0, 0, 0, 0, 0, 0);
-        }
-
         Map<String, WarehouseLocation> locationIndex = warehouseIntelligenceService.listLocations().stream()
                 .collect(HashMap::new, (map, location) -> map.put(location.getId(), location), Map::putAll);
         Map<String, String> productZones = buildPrimaryZoneIndex(locationIndex);
 
-        Map<String, List<SalesOrder>> zoneBuckets = new HashMap<>();
-        for (SalesOrder order : eligibleOrders) {
-            String zone = determinePrimaryZone(order, productZones);
-            zoneBuckets.computeIfAbsent(zone, key -> new ArrayList<>()).add(order);
+        // Auftragsdaten vorab im Request-Thread lesen; die Planung läuft danach parallel ohne Lazy Loading
+        List<WaveOrder> waveOrders = eligibleOrders.stream()
+                .map(order -> toWaveOrder(order, productZones))
+                .filter(Objects::nonNull)
+                .sorted(Comparator
+                        .comparing((WaveOrder order) -> Optional.ofNullable(order.dueDate()).orElse(LocalDate.MAX))
+                        .thenComparing(WaveOrder::orderNumber, Comparator.nullsLast(String::compareTo)))
+                .toList();
+
+        if (waveOrders.isEmpty()) {
+            return new WavePickResponse(List.of(), 0, 0, 0, 0, 0, 0, WAVE_STRATEGY_ZONE, 0, 0, 0);
         }
 
-        zoneBuckets.values().forEach(list -> list.sort(Comparator
-                .comparing((SalesOrder so) -> Optional.ofNullable(so.getDueDate()).orElse(LocalDate.MAX))
-                .thenComparing(SalesOrder::getOrderNumber, Comparator.nullsLast(String::compareTo))));
+        List<List<WaveOrder>> zonePlan = planZoneWaves(waveOrders, maxPerWave, maxUnitsPerWave);
+        List<List<WaveOrder>> clusteredPlan = planClusteredWaves(waveOrders, locationIndex, maxPerWave,
+                maxUnitsPerWave);
+
+        List<List<WaveOrder>> allWaves = new ArrayList<>(zonePlan);
+        allWaves.addAll(clusteredPlan);
+        List<PickRouteResponse> routes = routeWaves(allWaves);
+        List<PickRouteResponse> zoneRoutes = routes.subList(0, zonePlan.size());
+        List<PickRouteResponse> clusteredRoutes = routes.subList(zonePlan.size(), routes.size());
+        double baselineDistance = zoneRoutes.stream().mapToDouble(PickRouteResponse::getTotalDistance).sum();
+        double clusteredDistance = clusteredRoutes.stream().mapToDouble(PickRouteResponse::getTotalDistance).sum();
+
+        boolean useClusters = clusteredDistance <= baselineDistance;
+        List<List<WaveOrder>> plan = useClusters ? clusteredPlan : zonePlan;
+        List<PickRouteResponse> planRoutes = useClusters ? clusteredRoutes : zoneRoutes;
 
         List<WavePickWaveDTO> waves = new ArrayList<>();
         Set<String> globalSkus = new HashSet<>();
-        AtomicInteger waveSequence = new AtomicInteger(1);
         int totalUnits = 0;
         double totalDistance = 0;
         double totalDuration = 0;
-
-        for (Map.Entry<String, List<SalesOrder>> entry : zoneBuckets.entrySet()) {
-            List<SalesOrder> ordersInZone = entry.getValue();
-            for (int index = 0; index < ordersInZone.size(); index += maxPerWave) {
-                List<SalesOrder> waveOrders = ordersInZone.subList(index,
-                        Math.min(index + maxPerWave, ordersInZone.size()));
-                WaveAssemblyResult waveResult = assembleWave(entry.getKey(), waveOrders,
-                        waveSequence.getAndIncrement());
-                if (waveResult == null) {
-                    continue;
-                }
-                waves.add(waveResult.wave());
-                globalSkus.addAll(waveResult.skus());
-                totalUnits += waveResult.units();
-                totalDistance += waveResult.wave().getTotalDistance();
-                totalDuration += waveResult.wave().getEstimatedDurationSeconds();
-            }
+        for (int index = 0; index < plan.size(); index++) {
+            WaveAssemblyResult waveResult = assembleWave(plan.get(index), planRoutes.get(index), index + 1);
+            waves.add(waveResult.wave());
+            globalSkus.addAll(waveResult.skus());
+            totalUnits += waveResult.units();
+            totalDistance += waveResult.wave().getTotalDistance();
+            totalDuration += waveResult.wave().getEstimatedDurationSeconds();
         }
 
         int totalOrders = waves.stream().mapToInt(wave -> wave.getOrders().size()).sum();
         double averageUnitsPerWave = waves.isEmpty() ? 0 : (double) totalUnits / waves.size();
+        double savings = baselineDistance - totalDistance;
+        double savingsPercent = baselineDistance <= 0 ? 0 : savings / baselineDistance * 100.0;
         return new WavePickResponse(waves, totalOrders, totalUnits, globalSkus.size(),
                 Math.round(totalDistance * 10.0) / 10.0,
                 Math.round(totalDuration * 10.0) / 10.0,
-                Math.round(averageUnitsPerWave * 100.0) / 100.0);
+                Math.round(averageUnitsPerWave * 100.0) / 100.0,
+                useClusters ? WAVE_STRATEGY_CLUSTERED : WAVE_STRATEGY_ZONE,
+                Math.round(baselineDistance * 10.0) / 10.0,
+                Math.round(savings * 10.0) / 10.0,
+                Math.round(savingsPercent * 10.0) / 10.0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wavePlanningPool.shutdownNow();
     }
 
     private List<Product> resolveProductsForReplenishment(AutoReplenishRequest request) {
@@ -436,29 +484,31 @@ public class SupplyChainService {
                 .collect(Collectors.toList());
     }
 
-    private ReplenishmentNeed evaluateReplenishmentNeed(Product product,
+    /**
+     * Summiert den Bestand aller Kandidaten mit einer Abfrage statt einer pro Produkt.
+     */
+    private Map<Long, Integer> loadOnHandQuantities(List<Product> products) {
+        Map<Long, BigDecimal> totals = new HashMap<>();
+        if (!products.isEmpty()) {
+            for (StockLevel level : stockLevelRepository.findByProductIn(products)) {
+                if (level.getProduct() != null && level.getQuantity() != null) {
+                    totals.merge(level.getProduct().getId(), level.getQuantity(), BigDecimal::add);
+                }
+            }
+        }
+        Map<Long, Integer> onHand = new HashMap<>();
+        totals.forEach((productId, quantity) ->
+                onHand.put(productId, quantity.setScale(0, RoundingMode.HALF_UP).intValue()));
+        return onHand;
+    }
+
+    private ReplenishmentNeed evaluateReplenishmentNeed(int currentOnHand,
+                                                        WarehouseIntelligenceService.ReplenishmentInsight insight,
                                                         int planningHorizonDays,
                                                         int safetyDays,
                                                         double serviceLevel) {
-        BigDecimal totalQuantity = stockLevelRepository.findByProduct(product).stream()
-                .map(StockLevel::getQuantity)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        int currentOnHand = totalQuantity == null ? 0
-                : totalQuantity.setScale(0, RoundingMode.HALF_UP).intValue();
-
-        PredictiveInventoryResponse forecast;
-        try {
-            forecast = warehouseIntelligenceService.forecastInventory(product.getSku());
-        } catch (RuntimeException ex) {
-            forecast = null;
-        }
-
-        PredictiveReplenishmentResponse replenishmentAnalytics;
-        try {
-            replenishmentAnalytics = warehouseIntelligenceService.analyseReplenishment(product.getSku(), serviceLevel);
-        } catch (RuntimeException ex) {
-            replenishmentAnalytics = null;
-        }
+        PredictiveInventoryResponse forecast = insight != null ? insight.forecast() : null;
+        PredictiveReplenishmentResponse replenishmentAnalytics = insight != null ? insight.analytics() : null;
 
         Map<LocalDate, Integer> forecastMap = forecast != null && forecast.getForecast() != null
                 ? forecast.getForecast()
@@ -702,11 +752,19 @@ public class SupplyChainService {
         Map<String, PurchasePlan> plansBySupplier = new LinkedHashMap<>();
         int replenishedSkus = 0;
 
-        for (Product product : candidates) {
-            if (!product.isActive()) {
-                continue;
-            }
-            ReplenishmentNeed need = evaluateReplenishmentNeed(product, planningHorizon, safetyDays, serviceLevel);
+        // Bestände und Nachfrageanalysen für das ganze Sortiment vorab in einem Durchlauf
+        List<Product> activeProducts = candidates.stream().filter(Product::isActive).toList();
+        Map<Long, Integer> onHandByProduct = loadOnHandQuantities(activeProducts);
+        Map<String, WarehouseIntelligenceService.ReplenishmentInsight> insights =
+                warehouseIntelligenceService.analyseReplenishmentBatch(activeProducts.stream()
+                        .map(Product::getSku)
+                        .filter(Objects::nonNull)
+                        .toList(), serviceLevel);
+
+        for (Product product : activeProducts) {
+            ReplenishmentNeed need = evaluateReplenishmentNeed(onHandByProduct.getOrDefault(product.getId(), 0),
+                    product.getSku() != null ? insights.get(product.getSku()) : null,
+                    planningHorizon, safetyDays, serviceLevel);
             if (!need.requiresReplenishment()) {
                 continue;
             }
@@ -828,52 +886,148 @@ public class SupplyChainService {
                 .orElse("UNASSIGNED");
     }
 
-    private WaveAssemblyResult assembleWave(String zone, List<SalesOrder> orders, int sequence) {
-        Map<String, Integer> skuDemand = new HashMap<>();
-        Map<String, Set<String>> skuOrders = new HashMap<>();
-        List<WavePickOrderSummaryDTO> orderSummaries = new ArrayList<>();
-        int totalUnits = 0;
+    private WaveOrder toWaveOrder(SalesOrder order, Map<String, String> productZones) {
+        Map<String, Integer> skuUnits = new HashMap<>();
+        int lineCount = 0;
+        int orderUnits = 0;
+        for (SalesOrderLine line : order.getLines()) {
+            if (line.getProduct() == null || line.getProduct().getSku() == null) {
+                continue;
+            }
+            int units = toUnits(line.getQuantity());
+            if (units <= 0) {
+                continue;
+            }
+            lineCount++;
+            orderUnits += units;
+            skuUnits.merge(line.getProduct().getSku(), units, Integer::sum);
+        }
+        if (lineCount == 0) {
+            return null;
+        }
+        WavePickOrderSummaryDTO summary = new WavePickOrderSummaryDTO(order.getId(), order.getOrderNumber(),
+                order.getCustomerName(), lineCount, orderUnits, order.getStatus().name());
+        return new WaveOrder(summary, order.getOrderNumber(), order.getDueDate(),
+                determinePrimaryZone(order, productZones), orderUnits, skuUnits);
+    }
 
-        for (SalesOrder order : orders) {
-            int lineCount = 0;
-            int orderUnits = 0;
-            for (SalesOrderLine line : order.getLines()) {
-                if (line.getProduct() == null || line.getProduct().getSku() == null) {
-                    continue;
-                }
-                int units = toUnits(line.getQuantity());
-                if (units <= 0) {
-                    continue;
+    /**
+     * Bisherige Strategie: Aufträge nach Hauptzone gruppieren und nach Fälligkeit in Wellen schneiden.
+     */
+    private List<List<WaveOrder>> planZoneWaves(List<WaveOrder> orders, int maxPerWave, int maxUnitsPerWave) {
+        Map<String, List<WaveOrder>> zoneBuckets = new LinkedHashMap<>();
+        for (WaveOrder order : orders) {
+            zoneBuckets.computeIfAbsent(order.zone(), key -> new ArrayList<>()).add(order);
+        }
+        List<List<WaveOrder>> waves = new ArrayList<>();
+        for (List<WaveOrder> ordersInZone : zoneBuckets.values()) {
+            List<WaveOrder> current = new ArrayList<>();
+            int units = 0;
+            for (WaveOrder order : ordersInZone) {
+                boolean full = current.size() >= maxPerWave
+                        || (maxUnitsPerWave > 0 && units + order.units() > maxUnitsPerWave);
+                if (full && !current.isEmpty()) {
+                    waves.add(current);
+                    current = new ArrayList<>();
+                    units = 0;
                 }
-                lineCount++;
-                orderUnits += units;
-                String sku = line.getProduct().getSku();
-                skuDemand.merge(sku, units, Integer::sum);
-                skuOrders.computeIfAbsent(sku, key -> new HashSet<>()).add(order.getOrderNumber());
+                current.add(order);
+                units += order.units();
             }
-            if (lineCount > 0) {
-                totalUnits += orderUnits;
-                orderSummaries.add(new WavePickOrderSummaryDTO(order.getId(), order.getOrderNumber(),
-                        order.getCustomerName(), lineCount, orderUnits, order.getStatus().name()));
+            if (!current.isEmpty()) {
+                waves.add(current);
             }
         }
+        return waves;
+    }
 
-        if (orderSummaries.isEmpty() || skuDemand.isEmpty()) {
-            return null;
+    private List<List<WaveOrder>> planClusteredWaves(List<WaveOrder> orders,
+                                                     Map<String, WarehouseLocation> locationIndex,
+                                                     int maxPerWave,
+                                                     int maxUnitsPerWave) {
+        // Pickplätze je SKU wie in der Routenplanung: grösste Bestände zuerst, bis die Menge gedeckt ist
+        Map<String, List<InventoryItem>> stockBySku = new HashMap<>();
+        for (InventoryItem item : warehouseIntelligenceService.listInventory()) {
+            if (item.getProductId() != null && item.getQuantity() > 0 && locationIndex.containsKey(item.getLocationId())) {
+                stockBySku.computeIfAbsent(item.getProductId(), key -> new ArrayList<>()).add(item);
+            }
         }
+        stockBySku.values().forEach(items -> items.sort(
+                Comparator.comparingInt(InventoryItem::getQuantity).reversed()));
+
+        Map<String, Integer> locationPositions = new LinkedHashMap<>();
+        List<WaveClusterer.Order> clusterOrders = new ArrayList<>(orders.size());
+        for (WaveOrder order : orders) {
+            Set<Integer> positions = new TreeSet<>();
+            order.skuUnits().forEach((sku, units) -> {
+                int remaining = units;
+                for (InventoryItem item : stockBySku.getOrDefault(sku, List.of())) {
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Integer position = locationPositions.get(item.getLocationId());
+                    if (position == null) {
+                        position = locationPositions.size();
+                        locationPositions.put(item.getLocationId(), position);
+                    }
+                    positions.add(position);
+                    remaining -= item.getQuantity();
+                }
+            });
+            clusterOrders.add(new WaveClusterer.Order(order.units(),
+                    positions.stream().mapToInt(Integer::intValue).toArray()));
+        }
+
+        double[][] distances = warehouseIntelligenceService.walkingDistances(
+                new ArrayList<>(locationPositions.keySet()));
+        List<int[]> clusters = new WaveClusterer(wavePlanningPool, distances, waveCandidateWindow)
+                .cluster(clusterOrders, maxPerWave, maxUnitsPerWave);
+        return clusters.stream()
+                .map(members -> Arrays.stream(members).mapToObj(orders::get).toList())
+                .toList();
+    }
 
+    private List<PickRouteResponse> routeWaves(List<List<WaveOrder>> waves) {
+        return wavePlanningPool.submit(() -> waves.parallelStream()
+                .map(wave -> warehouseIntelligenceService.planPickRoute(toPickRequest(wave)))
+                .toList()).join();
+    }
+
+    private PickRouteRequest toPickRequest(List<WaveOrder> orders) {
+        Map<String, Integer> skuDemand = new HashMap<>();
+        orders.forEach(order -> order.skuUnits().forEach((sku, units) -> skuDemand.merge(sku, units, Integer::sum)));
         PickRouteRequest pickRequest = new PickRouteRequest();
-        List<PickRouteRequest.PickItem> items = skuDemand.entrySet().stream()
+        pickRequest.setItems(skuDemand.entrySet().stream()
                 .map(entry -> {
                     PickRouteRequest.PickItem item = new PickRouteRequest.PickItem();
                     item.setProductId(entry.getKey());
                     item.setQuantity(entry.getValue());
                     return item;
                 })
-                .toList();
-        pickRequest.setItems(items);
+                .toList());
+        return pickRequest;
+    }
+
+    private WaveAssemblyResult assembleWave(List<WaveOrder> orders, PickRouteResponse route, int sequence) {
+        Map<String, Set<String>> skuOrders = new HashMap<>();
+        Map<String, Integer> zoneUnits = new HashMap<>();
+        List<WavePickOrderSummaryDTO> orderSummaries = new ArrayList<>();
+        int totalUnits = 0;
+
+        for (WaveOrder order : orders) {
+            for (String sku : order.skuUnits().keySet()) {
+                skuOrders.computeIfAbsent(sku, key -> new HashSet<>()).add(order.orderNumber());
+            }
+            zoneUnits.merge(order.zone(), order.units(), Integer::sum);
+            totalUnits += order.units();
+            orderSummaries.add(order.summary());
+        }
+
+        String zone = zoneUnits.entrySet().stream()
+                .max(Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .orElse("UNASSIGNED");
 
-        PickRouteResponse route = warehouseIntelligenceService.planPickRoute(pickRequest);
         List<WavePickStopDTO> stops = route.getWaypoints().stream()
                 .map(waypoint -> new WavePickStopDTO(waypoint.getLocationId(), waypoint.getProductId(),
                         waypoint.getQuantity(), waypoint.getEtaSeconds(),
@@ -893,10 +1047,10 @@ public class SupplyChainService {
                 route.getTotalDistance(),
                 route.getEstimatedDurationSeconds(),
                 totalUnits,
-                skuDemand.size(),
+                skuOrders.size(),
                 Math.round(unitsPerHour * 100.0) / 100.0);
 
-        return new WaveAssemblyResult(wave, totalUnits, skuDemand.keySet());
+        return new WaveAssemblyResult(wave, totalUnits, skuOrders.keySet());
     }
 
     private int toUnits(BigDecimal quantity) {
@@ -912,4 +1066,8 @@ public class SupplyChainService {
 
     private record WaveAssemblyResult(WavePickWaveDTO wave, int units, Set<String> skus) {
     }
+
+    private record WaveOrder(WavePickOrderSummaryDTO summary, String orderNumber, LocalDate dueDate, String zone,
+                             int units, Map<String, Integer> skuUnits) {
+    }
 }
@@ -0,0 +1,207 @@
+package com.chrono.chrono.services.inventory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Bildet Pickwellen aus Aufträgen, deren Lagerplätze sich überschneiden oder nahe beieinander
+ * liegen. Start ist jeweils der dringendste offene Auftrag (Seed); danach wird so lange der
+ * Auftrag mit der höchsten Affinität zur Welle ergänzt, bis die Kapazität erreicht ist.
+ * <p>
+ * Affinität = Jaccard-Ähnlichkeit der Platzmengen, der Rest gewichtet mit der Nähe der
+ * nicht geteilten Plätze: {@code J + (1 - J) / (1 + mittlererUmweg)}. Bewertet werden nur die
+ * nächsten {@code candidateWindow} offenen Aufträge in Prioritätsreihenfolge, damit weit
+ * später fällige Aufträge nicht vorgezogen werden und der Aufwand linear bleibt. Die Bewertung
+ * eines Fensters läuft als Fork/Join-Aufgabe.
+ */
+final class WaveClusterer {
+
+    private static final int SPLIT_THRESHOLD = 64;
+
+    private final ForkJoinPool pool;
+    private final double[][] distances;
+    private final int candidateWindow;
+
+    /**
+     * @param distances Laufdistanzen zwischen den Plätzen, indiziert wie {@link Order#locations()}
+     */
+    WaveClusterer(ForkJoinPool pool, double[][] distances, int candidateWindow) {
+        this.pool = pool;
+        this.distances = distances;
+        this.candidateWindow = Math.max(1, candidateWindow);
+    }
+
+    /**
+     * @param orders    Aufträge in Prioritätsreihenfolge
+     * @param maxUnits  maximale Einheiten pro Welle; {@code <= 0} bedeutet unbegrenzt
+     * @return Wellen als Positionen in {@code orders}
+     */
+    List<int[]> cluster(List<Order> orders, int maxOrders, int maxUnits) {
+        List<int[]> waves = new ArrayList<>();
+        List<Integer> open = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            open.add(i);
+        }
+        int locationCount = distances.length;
+        boolean[] inWave = new boolean[locationCount];
+        double[] nearest = new double[locationCount];
+
+        while (!open.isEmpty()) {
+            Arrays.fill(inWave, false);
+            Arrays.fill(nearest, Double.MAX_VALUE);
+            int[] window = new int[Math.min(candidateWindow, open.size())];
+            for (int i = 0; i < window.length; i++) {
+                window[i] = open.get(i);
+            }
+            boolean[] taken = new boolean[window.length];
+
+            List<Integer> members = new ArrayList<>();
+            int seed = window[0];
+            taken[0] = true;
+            members.add(seed);
+            int units = orders.get(seed).units();
+            int waveLocations = addLocations(orders.get(seed), inWave, nearest);
+
+            while (members.size() < maxOrders) {
+                int remainingUnits = maxUnits > 0 ? maxUnits - units : Integer.MAX_VALUE;
+                Best best = pool.invoke(new BestCandidate(orders, window, taken, 0, window.length,
+                        inWave, nearest, waveLocations, remainingUnits));
+                if (best.position() < 0) {
+                    break;
+                }
+                taken[best.position()] = true;
+                Order chosen = orders.get(window[best.position()]);
+                members.add(window[best.position()]);
+                units += chosen.units();
+                waveLocations += addLocations(chosen, inWave, nearest);
+            }
+
+            waves.add(members.stream().mapToInt(Integer::intValue).toArray());
+            List<Integer> stillOpen = new ArrayList<>(open.size() - members.size());
+            for (int i = 0; i < open.size(); i++) {
+                if (i >= window.length || !taken[i]) {
+                    stillOpen.add(open.get(i));
+                }
+            }
+            open = stillOpen;
+        }
+        return waves;
+    }
+
+    private int addLocations(Order order, boolean[] inWave, double[] nearest) {
+        int added = 0;
+        for (int location : order.locations()) {
+            if (inWave[location]) {
+                continue;
+            }
+            inWave[location] = true;
+            added++;
+            double[] row = distances[location];
+            for (int other = 0; other < nearest.length; other++) {
+                if (row[other] < nearest[other]) {
+                    nearest[other] = row[other];
+                }
+            }
+        }
+        return added;
+    }
+
+    static double affinity(Order order, boolean[] inWave, double[] nearest, int waveLocations) {
+        int[] locations = order.locations();
+        if (locations.length == 0) {
+            return 0;
+        }
+        int shared = 0;
+        double detour = 0;
+        for (int location : locations) {
+            if (inWave[location]) {
+                shared++;
+            } else {
+                detour += nearest[location];
+            }
+        }
+        int union = waveLocations + locations.length - shared;
+        double jaccard = union == 0 ? 0 : (double) shared / union;
+        int unshared = locations.length - shared;
+        double proximity = unshared == 0 ? 1 : 1.0 / (1.0 + detour / unshared);
+        return jaccard + (1 - jaccard) * proximity;
+    }
+
+    /**
+     * Auftrag mit Einheiten und den (sortierten, eindeutigen) Indizes seiner Pickplätze.
+     */
+    record Order(int units, int[] locations) {
+    }
+
+    private record Best(int position, double score) {
+
+        static final Best NONE = new Best(-1, Double.NEGATIVE_INFINITY);
+
+        Best better(Best other) {
+            if (other.position < 0) {
+                return this;
+            }
+            if (position < 0 || other.score > score || (other.score == score && other.position < position)) {
+                return other;
+            }
+            return this;
+        }
+    }
+
+    private static final class BestCandidate extends RecursiveTask<Best> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Order> orders;
+        private final int[] window;
+        private final boolean[] taken;
+        private final int from;
+        private final int to;
+        private final boolean[] inWave;
+        private final double[] nearest;
+        private final int waveLocations;
+        private final int remainingUnits;
+
+        private BestCandidate(List<Order> orders, int[] window, boolean[] taken, int from, int to,
+                              boolean[] inWave, double[] nearest, int waveLocations, int remainingUnits) {
+            this.orders = orders;
+            this.window = window;
+            this.taken = taken;
+            this.from = from;
+            this.to = to;
+            this.inWave = inWave;
+            this.nearest = nearest;
+            this.waveLocations = waveLocations;
+            this.remainingUnits = remainingUnits;
+        }
+
+        @Override
+        protected Best compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                Best best = Best.NONE;
+                for (int position = from; position < to; position++) {
+                    if (taken[position]) {
+                        continue;
+                    }
+                    Order order = orders.get(window[position]);
+                    if (order.units() > remainingUnits) {
+                        continue;
+                    }
+                    best = best.better(new Best(position, affinity(order, inWave, nearest, waveLocations)));
+                }
+                return best;
+            }
+            int middle = (from + to) >>> 1;
+            BestCandidate left = new BestCandidate(orders, window, taken, from, middle, inWave, nearest,
+                    waveLocations, remainingUnits);
+            BestCandidate right = new BestCandidate(orders, window, taken, middle, to, inWave, nearest,
+                    waveLocations, remainingUnits);
+            left.fork();
+            Best rightBest = right.compute();
+            return left.join().better(rightBest);
+        }
+    }
+}
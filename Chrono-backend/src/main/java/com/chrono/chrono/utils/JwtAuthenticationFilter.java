@@ -1,6 +1,9 @@
 package com.chrono.chrono.utils;
 
 import com.chrono.chrono.services.CustomUserDetailsService;
+import com.chrono.chrono.services.PrincipalCacheService;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -15,16 +18,24 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService customUserDetailsService;
+    private final PrincipalCacheService principalCacheService;
+    private final boolean claimsAuthEnabled;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService customUserDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil,
+                                   CustomUserDetailsService customUserDetailsService,
+                                   PrincipalCacheService principalCacheService,
+                                   @Value("${app.security.jwt.claims-auth:true}") boolean claimsAuthEnabled) {
         this.jwtUtil = jwtUtil;
         this.customUserDetailsService = customUserDetailsService;
+        this.principalCacheService = principalCacheService;
+        this.claimsAuthEnabled = claimsAuthEnabled;
     }
 
     @Override
@@ -35,20 +46,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String header = request.getHeader(HttpHeaders.AUTHORIZATION);
         String token = null;
-        String username = null;
+        Claims claims = null;
 
         if (StringUtils.hasText(header) && header.startsWith("Bearer ")) {
             token = header.substring(7);
             try {
-                username = jwtUtil.extractUsername(token);
+                claims = jwtUtil.parseClaims(token);
             } catch (Exception e) {
                 logger.warn("Invalid or expired JWT token: " + e.getMessage());
             }
         }
 
-        if (token != null && username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
-            if (jwtUtil.validateToken(token, userDetails)) {
+        if (claims != null && claims.getSubject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = claimsAuthEnabled
+                    ? authenticateFromClaims(claims)
+                    : authenticateFromDatabase(token, claims.getSubject());
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -60,4 +73,39 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Rollen und Firma kommen aus den signierten Claims. Die Datenbank wird nur über den
+     * Principal-Cache für den Abgleich der Token-Version (Sperrung) befragt.
+     */
+    private UserDetails authenticateFromClaims(Claims claims) {
+        String username = claims.getSubject();
+        PrincipalCacheService.CachedPrincipal cached = principalCacheService.get(username).orElse(null);
+        if (cached == null || cached.deleted()) {
+            return null;
+        }
+        Number tokenVersion = claims.get(JwtUtil.CLAIM_TOKEN_VERSION, Number.class);
+        if (tokenVersion == null) {
+            // Token aus der Zeit vor den Claims: ohne Version nicht sperrbar, daher neu anmelden
+            logger.debug("Rejected JWT without token version for user " + username);
+            return null;
+        }
+        if (tokenVersion.longValue() != cached.tokenVersion()) {
+            logger.debug("Rejected revoked JWT for user " + username);
+            return null;
+        }
+        Number companyId = claims.get(JwtUtil.CLAIM_COMPANY_ID, Number.class);
+        Boolean demo = claims.get(JwtUtil.CLAIM_DEMO, Boolean.class);
+        @SuppressWarnings("unchecked")
+        List<String> roles = claims.get(JwtUtil.CLAIM_ROLES, List.class);
+        return new JwtPrincipal(username,
+                companyId != null ? companyId.longValue() : null,
+                Boolean.TRUE.equals(demo),
+                roles);
+    }
+
+    private UserDetails authenticateFromDatabase(String token, String username) {
+        UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
+        return jwtUtil.validateToken(token, userDetails) ? userDetails : null;
+    }
 }
@@ -0,0 +1,45 @@
+package com.chrono.chrono.utils;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Principal, der vollständig aus den signierten Token-Claims aufgebaut wird.
+ */
+public class JwtPrincipal implements UserDetails {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String username;
+    private final Long companyId;
+    private final boolean demo;
+    private final List<GrantedAuthority> authorities;
+
+    public JwtPrincipal(String username, Long companyId, boolean demo, List<String> roles) {
+        this.username = username;
+        this.companyId = companyId;
+        this.demo = demo;
+        this.authorities = (roles == null || roles.isEmpty())
+                ? List.of(new SimpleGrantedAuthority("ROLE_USER"))
+                : roles.stream().map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role)).toList();
+    }
+
+    public Long getCompanyId() { return companyId; }
+    public boolean isDemo() { return demo; }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() { return authorities; }
+
+    @Override
+    public String getPassword() { return null; }
+
+    @Override
+    public String getUsername() { return username; }
+
+    @Override
+    public String toString() { return username; }
+}
@@ -15,6 +15,11 @@ import java.util.stream.Collectors;
 @Component
 public class JwtUtil {
 
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_COMPANY_ID = "companyId";
+    public static final String CLAIM_DEMO = "demo";
+    public static final String CLAIM_TOKEN_VERSION = "tv";
+
     @Value("${jwt.secret}")
     private String SECRET_KEY;
 
@@ -38,6 +43,13 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
+    /**
+     * Prüft Signatur und Ablauf und liefert alle Claims in einem Durchgang.
+     */
+    public Claims parseClaims(String token) {
+        return extractAllClaims(token);
+    }
+
     private Claims extractAllClaims(String token) {
         return Jwts.parserBuilder()
                 .setSigningKey(getSigningKey())
@@ -70,8 +82,14 @@ public class JwtUtil {
         List<String> roles = user.getRoles().stream()
                 .map(role -> role.getRoleName())
                 .collect(Collectors.toList());
-        claims.put("roles", roles);
+        claims.put(CLAIM_ROLES, roles);
         claims.put("isPercentage", user.getIsPercentage());
+        // Für die Authentifizierung ohne Datenbankzugriff
+        if (user.getCompany() != null) {
+            claims.put(CLAIM_COMPANY_ID, user.getCompany().getId());
+        }
+        claims.put(CLAIM_DEMO, user.isDemo());
+        claims.put(CLAIM_TOKEN_VERSION, user.getTokenVersion());
         return createToken(claims, user.getUsername());
     }
 
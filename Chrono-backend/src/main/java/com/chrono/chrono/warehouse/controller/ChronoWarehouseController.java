@@ -3,6 +3,7 @@ package com.chrono.chrono.warehouse.controller;
 import com.chrono.chrono.warehouse.dto.*;
 import com.chrono.chrono.warehouse.model.InventoryItem;
 import com.chrono.chrono.warehouse.model.MovementLogEntry;
+import com.chrono.chrono.warehouse.model.SensorAlert;
 import com.chrono.chrono.warehouse.model.SensorReading;
 import com.chrono.chrono.warehouse.model.WarehouseLocation;
 import com.chrono.chrono.warehouse.service.WarehouseIntelligenceService;
@@ -58,11 +59,28 @@ public class ChronoWarehouseController {
         return intelligenceService.recordSensorReading(request);
     }
 
+    @PostMapping("/iot/batch")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public SensorBatchResponse addSensorReadings(@RequestBody List<SensorReadingRequest> requests) {
+        return intelligenceService.recordSensorReadings(requests);
+    }
+
+    @GetMapping("/iot/alerts")
+    public List<SensorAlert> listSensorAlerts() {
+        return intelligenceService.getSensorAlerts();
+    }
+
     @GetMapping("/iot/{locationId}")
     public List<SensorReading> listSensorReadings(@PathVariable String locationId) {
         return intelligenceService.getSensorReadings(locationId);
     }
 
+    @GetMapping("/iot/{locationId}/rollups")
+    public List<SensorRollupResponse> listSensorRollups(@PathVariable String locationId,
+                                                        @RequestParam(defaultValue = "1h") String resolution) {
+        return intelligenceService.getSensorRollups(locationId, resolution);
+    }
+
     @PostMapping("/blockchain/movement")
     public MovementLogEntry logMovement(@RequestParam String productId,
                                         @RequestParam(required = false) String from,
@@ -76,6 +94,11 @@ public class ChronoWarehouseController {
         return intelligenceService.getMovementLedger();
     }
 
+    @GetMapping("/blockchain/verify")
+    public LedgerVerificationResponse verifyMovementLedger() {
+        return intelligenceService.verifyMovementLedger();
+    }
+
     @PostMapping("/procurement/sourcing")
     public SmartSourcingResponse recommendSupplier(@RequestBody SmartSourcingRequest request) {
         return intelligenceService.selectSupplier(request);
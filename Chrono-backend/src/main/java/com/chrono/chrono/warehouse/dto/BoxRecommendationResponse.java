@@ -47,6 +47,110 @@ public class BoxRecommendationResponse {
         }
     }
 
+    public static class Placement {
+        private final String productId;
+        private final double x;
+        private final double y;
+        private final double z;
+        private final double lengthCm;
+        private final double widthCm;
+        private final double heightCm;
+        private final double weightKg;
+
+        public Placement(String productId, double x, double y, double z,
+                         double lengthCm, double widthCm, double heightCm, double weightKg) {
+            this.productId = productId;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.lengthCm = lengthCm;
+            this.widthCm = widthCm;
+            this.heightCm = heightCm;
+            this.weightKg = weightKg;
+        }
+
+        public String getProductId() {
+            return productId;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public double getY() {
+            return y;
+        }
+
+        public double getZ() {
+            return z;
+        }
+
+        public double getLengthCm() {
+            return lengthCm;
+        }
+
+        public double getWidthCm() {
+            return widthCm;
+        }
+
+        public double getHeightCm() {
+            return heightCm;
+        }
+
+        public double getWeightKg() {
+            return weightKg;
+        }
+    }
+
+    public static class PackedBox {
+        private final String boxId;
+        private final String boxName;
+        private final double utilisation;
+        private final double weightKg;
+        private final double maxWeightKg;
+        private final List<Double> centreOfGravityCm;
+        private final List<Placement> placements;
+
+        public PackedBox(String boxId, String boxName, double utilisation, double weightKg, double maxWeightKg,
+                         List<Double> centreOfGravityCm, List<Placement> placements) {
+            this.boxId = boxId;
+            this.boxName = boxName;
+            this.utilisation = utilisation;
+            this.weightKg = weightKg;
+            this.maxWeightKg = maxWeightKg;
+            this.centreOfGravityCm = centreOfGravityCm;
+            this.placements = placements;
+        }
+
+        public String getBoxId() {
+            return boxId;
+        }
+
+        public String getBoxName() {
+            return boxName;
+        }
+
+        public double getUtilisation() {
+            return utilisation;
+        }
+
+        public double getWeightKg() {
+            return weightKg;
+        }
+
+        public double getMaxWeightKg() {
+            return maxWeightKg;
+        }
+
+        public List<Double> getCentreOfGravityCm() {
+            return centreOfGravityCm;
+        }
+
+        public List<Placement> getPlacements() {
+            return placements;
+        }
+    }
+
     private final String recommendedBoxId;
     private final String recommendedBoxName;
     private final int boxesRequired;
@@ -54,6 +158,7 @@ public class BoxRecommendationResponse {
     private final double totalVolumeCubicM;
     private final double totalWeightKg;
     private final List<Alternative> alternatives;
+    private final List<PackedBox> boxes;
 
     public BoxRecommendationResponse(String recommendedBoxId,
                                      String recommendedBoxName,
@@ -61,7 +166,8 @@ public class BoxRecommendationResponse {
                                      double utilisation,
                                      double totalVolumeCubicM,
                                      double totalWeightKg,
-                                     List<Alternative> alternatives) {
+                                     List<Alternative> alternatives,
+                                     List<PackedBox> boxes) {
         this.recommendedBoxId = recommendedBoxId;
         this.recommendedBoxName = recommendedBoxName;
         this.boxesRequired = boxesRequired;
@@ -69,6 +175,7 @@ public class BoxRecommendationResponse {
         this.totalVolumeCubicM = totalVolumeCubicM;
         this.totalWeightKg = totalWeightKg;
         this.alternatives = alternatives;
+        this.boxes = boxes;
     }
 
     public String getRecommendedBoxId() {
@@ -98,4 +205,8 @@ public class BoxRecommendationResponse {
     public List<Alternative> getAlternatives() {
         return alternatives;
     }
+
+    public List<PackedBox> getBoxes() {
+        return boxes;
+    }
 }
@@ -0,0 +1,58 @@
+package com.chrono.chrono.warehouse.dto;
+
+public class LedgerVerificationResponse {
+
+    private boolean valid;
+    private long verifiedEntries;
+    private long legacyEntries;
+    private int segments;
+    private int checkpointsVerified;
+    private Long firstInvalidSequence;
+    private String message;
+    private long durationMillis;
+
+    public LedgerVerificationResponse(boolean valid, long verifiedEntries, long legacyEntries, int segments,
+                                      int checkpointsVerified, Long firstInvalidSequence, String message,
+                                      long durationMillis) {
+        this.valid = valid;
+        this.verifiedEntries = verifiedEntries;
+        this.legacyEntries = legacyEntries;
+        this.segments = segments;
+        this.checkpointsVerified = checkpointsVerified;
+        this.firstInvalidSequence = firstInvalidSequence;
+        this.message = message;
+        this.durationMillis = durationMillis;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public long getVerifiedEntries() {
+        return verifiedEntries;
+    }
+
+    public long getLegacyEntries() {
+        return legacyEntries;
+    }
+
+    public int getSegments() {
+        return segments;
+    }
+
+    public int getCheckpointsVerified() {
+        return checkpointsVerified;
+    }
+
+    public Long getFirstInvalidSequence() {
+        return firstInvalidSequence;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+}
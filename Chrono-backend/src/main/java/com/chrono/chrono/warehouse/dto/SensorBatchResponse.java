@@ -0,0 +1,30 @@
+package com.chrono.chrono.warehouse.dto;
+
+import com.chrono.chrono.warehouse.model.SensorAlert;
+
+import java.util.List;
+
+public class SensorBatchResponse {
+
+    private int accepted;
+    private int rejected;
+    private List<SensorAlert> alerts;
+
+    public SensorBatchResponse(int accepted, int rejected, List<SensorAlert> alerts) {
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.alerts = alerts;
+    }
+
+    public int getAccepted() {
+        return accepted;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public List<SensorAlert> getAlerts() {
+        return alerts;
+    }
+}
@@ -1,11 +1,14 @@
 package com.chrono.chrono.warehouse.dto;
 
+import java.time.Instant;
+
 public class SensorReadingRequest {
 
     private String locationId;
     private double temperature;
     private double humidity;
     private double weight;
+    private Instant timestamp;
 
     public String getLocationId() {
         return locationId;
@@ -38,4 +41,12 @@ public class SensorReadingRequest {
     public void setWeight(double weight) {
         this.weight = weight;
     }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
 }
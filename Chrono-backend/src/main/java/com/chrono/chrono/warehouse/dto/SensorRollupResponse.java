@@ -0,0 +1,91 @@
+package com.chrono.chrono.warehouse.dto;
+
+import java.time.Instant;
+
+public class SensorRollupResponse {
+
+    private String locationId;
+    private String resolution;
+    private Instant bucketStart;
+    private int count;
+    private double temperatureMin;
+    private double temperatureMax;
+    private double temperatureAvg;
+    private double humidityMin;
+    private double humidityMax;
+    private double humidityAvg;
+    private double weightMin;
+    private double weightMax;
+    private double weightAvg;
+
+    public SensorRollupResponse(String locationId, String resolution, Instant bucketStart, int count,
+                                double temperatureMin, double temperatureMax, double temperatureAvg,
+                                double humidityMin, double humidityMax, double humidityAvg,
+                                double weightMin, double weightMax, double weightAvg) {
+        this.locationId = locationId;
+        this.resolution = resolution;
+        this.bucketStart = bucketStart;
+        this.count = count;
+        this.temperatureMin = temperatureMin;
+        this.temperatureMax = temperatureMax;
+        this.temperatureAvg = temperatureAvg;
+        this.humidityMin = humidityMin;
+        this.humidityMax = humidityMax;
+        this.humidityAvg = humidityAvg;
+        this.weightMin = weightMin;
+        this.weightMax = weightMax;
+        this.weightAvg = weightAvg;
+    }
+
+    public String getLocationId() {
+        return locationId;
+    }
+
+    public String getResolution() {
+        return resolution;
+    }
+
+    public Instant getBucketStart() {
+        return bucketStart;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getTemperatureMin() {
+        return temperatureMin;
+    }
+
+    public double getTemperatureMax() {
+        return temperatureMax;
+    }
+
+    public double getTemperatureAvg() {
+        return temperatureAvg;
+    }
+
+    public double getHumidityMin() {
+        return humidityMin;
+    }
+
+    public double getHumidityMax() {
+        return humidityMax;
+    }
+
+    public double getHumidityAvg() {
+        return humidityAvg;
+    }
+
+    public double getWeightMin() {
+        return weightMin;
+    }
+
+    public double getWeightMax() {
+        return weightMax;
+    }
+
+    public double getWeightAvg() {
+        return weightAvg;
+    }
+}
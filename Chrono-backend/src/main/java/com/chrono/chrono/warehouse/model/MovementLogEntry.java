@@ -11,6 +11,8 @@ public class MovementLogEntry {
     private int quantity;
     private Instant timestamp;
     private String hash;
+    private String previousHash;
+    private long sequence;
 
     public MovementLogEntry() {
     }
@@ -81,4 +83,20 @@ public class MovementLogEntry {
     public void setHash(String hash) {
         this.hash = hash;
     }
+
+    public String getPreviousHash() {
+        return previousHash;
+    }
+
+    public void setPreviousHash(String previousHash) {
+        this.previousHash = previousHash;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
 }
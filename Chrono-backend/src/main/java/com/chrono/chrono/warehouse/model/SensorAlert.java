@@ -0,0 +1,50 @@
+package com.chrono.chrono.warehouse.model;
+
+import java.time.Instant;
+
+public class SensorAlert {
+
+    private String locationId;
+    private String metric;
+    private String direction;
+    private double value;
+    private double threshold;
+    private Instant timestamp;
+
+    public SensorAlert() {
+    }
+
+    public SensorAlert(String locationId, String metric, String direction, double value, double threshold,
+                       Instant timestamp) {
+        this.locationId = locationId;
+        this.metric = metric;
+        this.direction = direction;
+        this.value = value;
+        this.threshold = threshold;
+        this.timestamp = timestamp;
+    }
+
+    public String getLocationId() {
+        return locationId;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public String getDirection() {
+        return direction;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,385 @@
+package com.chrono.chrono.warehouse.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 3D-Packheuristik nach dem Extreme-Point-Verfahren. Einheiten werden nach Volumen absteigend
+ * in Kartons eines Typs gelegt; jede Einheit kommt an den ersten Extrempunkt (unten, hinten,
+ * links zuerst), an dem sie in einer ihrer sechs Drehungen innerhalb des Kartons liegt, nichts
+ * überlappt, ausreichend aufliegt und das Kartongewicht nicht überschreitet. Nach jeder
+ * Platzierung entstehen neue Extrempunkte an den drei Aussenecken, zusätzlich auf die nächste
+ * Fläche darunter bzw. dahinter projiziert.
+ */
+final class BoxPacker {
+
+    /** Mindestanteil der Grundfläche, der auf dem Kartonboden oder anderen Einheiten aufliegen muss. */
+    static final double MIN_SUPPORT = 0.6;
+
+    private static final double EPSILON = 1e-6;
+
+    private BoxPacker() {
+    }
+
+    /**
+     * Packt die Einheiten für jeden Katalogtyp und wählt die Packung mit dem geringsten
+     * Versandvolumen. Bei der besten Packung wird zusätzlich der letzte Karton in den kleinsten
+     * Typ umgepackt, der seinen Inhalt noch aufnimmt; Packungen, die selbst mit dieser Ersparnis
+     * nicht besser werden können, werden dabei übersprungen.
+     *
+     * @return {@code null}, wenn kein Katalogtyp alle Einheiten aufnehmen kann
+     */
+    static Result packAll(List<Unit> units, List<BoxType> catalog) {
+        List<Packing> candidates = new ArrayList<>();
+        for (BoxType type : catalog) {
+            Packing packing = pack(units, type);
+            if (packing != null) {
+                candidates.add(packing);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        List<Packing> byVolume = new ArrayList<>(candidates);
+        byVolume.sort(Comparator.comparingDouble(Packing::shippedVolume)
+                .thenComparingInt(packing -> packing.boxes().size()));
+        Packing best = byVolume.get(0);
+        for (Packing packing : byVolume) {
+            if (packing.boxes().size() == 1) {
+                // Alles in einem kleineren Karton ist bereits die Packung dieses kleineren Typs
+                continue;
+            }
+            PackedBox last = packing.boxes().get(packing.boxes().size() - 1);
+            List<BoxType> smaller = smallerTypesFor(last, catalog);
+            if (smaller.isEmpty()) {
+                continue;
+            }
+            double bound = packing.shippedVolume() - last.type().volume() + smaller.get(0).volume();
+            if (bound > best.shippedVolume() + EPSILON) {
+                continue;
+            }
+            Packing downsized = downsizeLast(packing, smaller);
+            if (isBetter(downsized, best)) {
+                best = downsized;
+            }
+        }
+        return new Result(best, candidates);
+    }
+
+    /** Weniger Versandvolumen, bei Gleichstand weniger Kartons. */
+    private static boolean isBetter(Packing candidate, Packing current) {
+        double difference = candidate.shippedVolume() - current.shippedVolume();
+        if (Math.abs(difference) > EPSILON) {
+            return difference < 0;
+        }
+        return candidate.boxes().size() < current.boxes().size();
+    }
+
+    /**
+     * Packt alle Einheiten in Kartons vom Typ {@code type}.
+     *
+     * @return {@code null}, wenn eine Einheit nicht einmal in einen leeren Karton passt
+     */
+    static Packing pack(List<Unit> units, BoxType type) {
+        List<Unit> sorted = new ArrayList<>(units);
+        sorted.sort(Comparator.comparingDouble(Unit::volume).reversed()
+                .thenComparing(Comparator.comparingDouble(Unit::longestEdge).reversed())
+                .thenComparing(Unit::productId, Comparator.nullsLast(String::compareTo)));
+
+        List<OpenBox> boxes = new ArrayList<>();
+        for (Unit unit : sorted) {
+            boolean placed = false;
+            for (OpenBox box : boxes) {
+                if (box.place(unit)) {
+                    placed = true;
+                    break;
+                }
+            }
+            if (!placed) {
+                OpenBox box = new OpenBox(type);
+                if (!box.place(unit)) {
+                    return null;
+                }
+                boxes.add(box);
+            }
+        }
+
+        List<PackedBox> packed = new ArrayList<>(boxes.size());
+        for (OpenBox box : boxes) {
+            packed.add(box.toPackedBox());
+        }
+        return new Packing(type, packed);
+    }
+
+    /** Kleinere Typen, die Volumen und Gewicht des Kartons überhaupt aufnehmen könnten, aufsteigend. */
+    private static List<BoxType> smallerTypesFor(PackedBox box, List<BoxType> catalog) {
+        return catalog.stream()
+                .filter(candidate -> candidate.volume() < box.type().volume() - EPSILON)
+                .filter(candidate -> candidate.volume() >= box.usedVolume() - EPSILON)
+                .filter(candidate -> candidate.maxWeightKg() >= box.weightKg() - EPSILON)
+                .sorted(Comparator.comparingDouble(BoxType::volume))
+                .toList();
+    }
+
+    private static Packing downsizeLast(Packing packing, List<BoxType> smaller) {
+        PackedBox last = packing.boxes().get(packing.boxes().size() - 1);
+        List<Unit> contents = last.placements().stream().map(Placement::unit).toList();
+        for (BoxType candidate : smaller) {
+            Packing single = pack(contents, candidate);
+            if (single != null && single.boxes().size() == 1) {
+                List<PackedBox> boxes = new ArrayList<>(packing.boxes());
+                boxes.set(boxes.size() - 1, single.boxes().get(0));
+                return new Packing(packing.primaryType(), List.copyOf(boxes));
+            }
+        }
+        return packing;
+    }
+
+    record BoxType(String id, String name, double length, double width, double height, double maxWeightKg) {
+
+        double volume() {
+            return length * width * height;
+        }
+    }
+
+    record Unit(String productId, double length, double width, double height, double weightKg) {
+
+        double volume() {
+            return length * width * height;
+        }
+
+        double longestEdge() {
+            return Math.max(length, Math.max(width, height));
+        }
+    }
+
+    record Placement(Unit unit, double x, double y, double z, double length, double width, double height) {
+    }
+
+    record PackedBox(BoxType type, List<Placement> placements, double weightKg, double usedVolume,
+                     double[] centreOfGravity) {
+
+        double utilisation() {
+            return usedVolume / type.volume();
+        }
+    }
+
+    /**
+     * @param best       gewählte Packung, ggf. mit kleinerem letztem Karton
+     * @param candidates Packung je packbarem Katalogtyp (ohne Umpacken)
+     */
+    record Result(Packing best, List<Packing> candidates) {
+    }
+
+    record Packing(BoxType primaryType, List<PackedBox> boxes) {
+
+        double shippedVolume() {
+            return boxes.stream().mapToDouble(box -> box.type().volume()).sum();
+        }
+
+        double usedVolume() {
+            return boxes.stream().mapToDouble(PackedBox::usedVolume).sum();
+        }
+    }
+
+    private static final class OpenBox {
+
+        private final BoxType type;
+        private final List<Placement> placements = new ArrayList<>();
+        private final List<double[]> extremePoints = new ArrayList<>();
+        private double weight;
+        private double usedVolume;
+
+        private OpenBox(BoxType type) {
+            this.type = type;
+            extremePoints.add(new double[]{0, 0, 0});
+        }
+
+        private boolean place(Unit unit) {
+            if (weight + unit.weightKg() > type.maxWeightKg() + EPSILON
+                    || usedVolume + unit.volume() > type.volume() + EPSILON) {
+                return false;
+            }
+            double[][] rotations = rotations(unit, type);
+            for (double[] point : extremePoints) {
+                for (double[] dims : rotations) {
+                    if (fits(point, dims)) {
+                        Placement placement = new Placement(unit, point[0], point[1], point[2],
+                                dims[0], dims[1], dims[2]);
+                        placements.add(placement);
+                        weight += unit.weightKg();
+                        usedVolume += unit.volume();
+                        updateExtremePoints(placement);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean fits(double[] point, double[] dims) {
+            double x = point[0];
+            double y = point[1];
+            double z = point[2];
+            if (x + dims[0] > type.length() + EPSILON
+                    || y + dims[1] > type.width() + EPSILON
+                    || z + dims[2] > type.height() + EPSILON) {
+                return false;
+            }
+            double supported = z < EPSILON ? dims[0] * dims[1] : 0;
+            for (Placement other : placements) {
+                if (overlaps(x, dims[0], other.x(), other.length())
+                        && overlaps(y, dims[1], other.y(), other.width())
+                        && overlaps(z, dims[2], other.z(), other.height())) {
+                    return false;
+                }
+                if (z >= EPSILON && Math.abs(other.z() + other.height() - z) < EPSILON) {
+                    supported += overlap(x, dims[0], other.x(), other.length())
+                            * overlap(y, dims[1], other.y(), other.width());
+                }
+            }
+            return supported >= MIN_SUPPORT * dims[0] * dims[1] - EPSILON;
+        }
+
+        private void updateExtremePoints(Placement placed) {
+            double right = placed.x() + placed.length();
+            double front = placed.y() + placed.width();
+            double top = placed.z() + placed.height();
+            addPoint(right, placed.y(), placed.z());
+            addPoint(right, projectY(right, placed.y(), placed.z()), placed.z());
+            addPoint(right, placed.y(), projectZ(right, placed.y(), placed.z()));
+            addPoint(placed.x(), front, placed.z());
+            addPoint(projectX(placed.x(), front, placed.z()), front, placed.z());
+            addPoint(placed.x(), front, projectZ(placed.x(), front, placed.z()));
+            addPoint(placed.x(), placed.y(), top);
+            addPoint(projectX(placed.x(), placed.y(), top), placed.y(), top);
+            addPoint(placed.x(), projectY(placed.x(), placed.y(), top), top);
+
+            extremePoints.removeIf(point -> insideAny(point));
+            // Unten-hinten-links zuerst: stabile Stapelung und kompakte Belegung
+            extremePoints.sort(Comparator.<double[]>comparingDouble(point -> point[2])
+                    .thenComparingDouble(point -> point[1])
+                    .thenComparingDouble(point -> point[0]));
+        }
+
+        private void addPoint(double x, double y, double z) {
+            if (x > type.length() - EPSILON || y > type.width() - EPSILON || z > type.height() - EPSILON) {
+                return;
+            }
+            for (double[] existing : extremePoints) {
+                if (Math.abs(existing[0] - x) < EPSILON && Math.abs(existing[1] - y) < EPSILON
+                        && Math.abs(existing[2] - z) < EPSILON) {
+                    return;
+                }
+            }
+            extremePoints.add(new double[]{x, y, z});
+        }
+
+        private boolean insideAny(double[] point) {
+            for (Placement placement : placements) {
+                if (point[0] >= placement.x() - EPSILON && point[0] < placement.x() + placement.length() - EPSILON
+                        && point[1] >= placement.y() - EPSILON && point[1] < placement.y() + placement.width() - EPSILON
+                        && point[2] >= placement.z() - EPSILON && point[2] < placement.z() + placement.height() - EPSILON) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Schiebt einen Punkt entlang -x bis an die nächste Einheit bzw. die Kartonwand. */
+        private double projectX(double x, double y, double z) {
+            double limit = 0;
+            for (Placement other : placements) {
+                double edge = other.x() + other.length();
+                if (edge <= x + EPSILON && edge > limit && contains(y, other.y(), other.width())
+                        && contains(z, other.z(), other.height())) {
+                    limit = edge;
+                }
+            }
+            return limit;
+        }
+
+        private double projectY(double x, double y, double z) {
+            double limit = 0;
+            for (Placement other : placements) {
+                double edge = other.y() + other.width();
+                if (edge <= y + EPSILON && edge > limit && contains(x, other.x(), other.length())
+                        && contains(z, other.z(), other.height())) {
+                    limit = edge;
+                }
+            }
+            return limit;
+        }
+
+        private double projectZ(double x, double y, double z) {
+            double limit = 0;
+            for (Placement other : placements) {
+                double edge = other.z() + other.height();
+                if (edge <= z + EPSILON && edge > limit && contains(x, other.x(), other.length())
+                        && contains(y, other.y(), other.width())) {
+                    limit = edge;
+                }
+            }
+            return limit;
+        }
+
+        private PackedBox toPackedBox() {
+            double usedVolume = 0;
+            double[] centre = new double[3];
+            for (Placement placement : placements) {
+                double unitWeight = placement.unit().weightKg();
+                usedVolume += placement.length() * placement.width() * placement.height();
+                centre[0] += (placement.x() + placement.length() / 2) * unitWeight;
+                centre[1] += (placement.y() + placement.width() / 2) * unitWeight;
+                centre[2] += (placement.z() + placement.height() / 2) * unitWeight;
+            }
+            if (weight > 0) {
+                centre[0] /= weight;
+                centre[1] /= weight;
+                centre[2] /= weight;
+            }
+            return new PackedBox(type, List.copyOf(placements), weight, usedVolume, centre);
+        }
+    }
+
+    /** Unterschiedliche Drehungen, die überhaupt in den Kartontyp passen. */
+    private static double[][] rotations(Unit unit, BoxType type) {
+        double l = unit.length();
+        double w = unit.width();
+        double h = unit.height();
+        double[][] all = {{l, w, h}, {w, l, h}, {l, h, w}, {h, l, w}, {w, h, l}, {h, w, l}};
+        List<double[]> distinct = new ArrayList<>(6);
+        for (double[] candidate : all) {
+            if (candidate[0] > type.length() + EPSILON || candidate[1] > type.width() + EPSILON
+                    || candidate[2] > type.height() + EPSILON) {
+                continue;
+            }
+            boolean duplicate = false;
+            for (double[] existing : distinct) {
+                if (existing[0] == candidate[0] && existing[1] == candidate[1] && existing[2] == candidate[2]) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                distinct.add(candidate);
+            }
+        }
+        // Flache Lage zuerst, damit der Schwerpunkt tief bleibt
+        distinct.sort(Comparator.comparingDouble(dims -> dims[2]));
+        return distinct.toArray(new double[0][]);
+    }
+
+    private static boolean overlaps(double start, double length, double otherStart, double otherLength) {
+        return start < otherStart + otherLength - EPSILON && otherStart < start + length - EPSILON;
+    }
+
+    private static double overlap(double start, double length, double otherStart, double otherLength) {
+        return Math.max(0, Math.min(start + length, otherStart + otherLength) - Math.max(start, otherStart));
+    }
+
+    private static boolean contains(double value, double start, double length) {
+        return value >= start - EPSILON && value < start + length - EPSILON;
+    }
+}
@@ -0,0 +1,54 @@
+package com.chrono.chrono.warehouse.service;
+
+import java.time.LocalDate;
+
+/**
+ * Nachfragekennzahlen eines Produkts, berechnet in einem Durchlauf über eine Tagesreihe als
+ * primitives Array: Mittelwert und Streuung (Welford), Niveau und Trend (Holt, α = 0.4, β = 0.2)
+ * sowie Abgangssummen der gesamten Historie für den Sicherheitsbestand.
+ *
+ * @param asOf Stichtag der Reihe; das Profil gilt nur an diesem Tag
+ */
+record DemandProfile(LocalDate asOf,
+                     int days,
+                     double averageDailyDemand,
+                     double volatility,
+                     double level,
+                     double trend,
+                     int historyOutbound,
+                     int historyMovements) {
+
+    private static final double ALPHA = 0.4;
+    private static final double BETA = 0.2;
+
+    /**
+     * @param netOutbound Nettoabgang pro Tag, ältester Tag zuerst; negative Werte zählen als 0
+     */
+    static DemandProfile of(LocalDate asOf, int[] netOutbound, int historyOutbound, int historyMovements) {
+        double mean = 0;
+        double squaredDeviation = 0;
+        double level = 0;
+        double trend = 0;
+        for (int i = 0; i < netOutbound.length; i++) {
+            double demand = Math.max(0, netOutbound[i]);
+            double delta = demand - mean;
+            mean += delta / (i + 1);
+            squaredDeviation += delta * (demand - mean);
+            if (i == 0) {
+                level = demand;
+            } else {
+                double previousLevel = level;
+                level = ALPHA * demand + (1 - ALPHA) * (level + trend);
+                trend = BETA * (level - previousLevel) + (1 - BETA) * trend;
+            }
+        }
+        double variance = netOutbound.length > 1 ? squaredDeviation / (netOutbound.length - 1) : 0;
+        return new DemandProfile(asOf, netOutbound.length, mean, Math.sqrt(variance), level, trend,
+                historyOutbound, historyMovements);
+    }
+
+    /** Durchschnittlicher Abgang pro Bewegung über die gesamte Historie, ohne Bewegungen 5. */
+    double outboundPerMovement() {
+        return historyMovements == 0 ? 5 : (double) historyOutbound / historyMovements;
+    }
+}
@@ -0,0 +1,163 @@
+package com.chrono.chrono.warehouse.service;
+
+import com.chrono.chrono.warehouse.model.InventoryItem;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Thread-sicherer Bestandsindex nach (Produkt, Standort) mit Sekundärindizes pro Produkt
+ * und pro Standort. Alle Änderungen an einem Eintrag laufen über {@link ConcurrentHashMap#compute},
+ * damit Mengenänderungen atomar sind und die Sekundärindizes konsistent mitgeführt werden.
+ */
+class InventoryIndex {
+
+    private record Key(String productId, String locationId) {
+    }
+
+    private final Map<Key, InventoryItem> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<Key>> byProduct = new ConcurrentHashMap<>();
+    private final Map<String, Set<Key>> byLocation = new ConcurrentHashMap<>();
+
+    void put(InventoryItem item) {
+        Key key = new Key(item.getProductId(), item.getLocationId());
+        entries.compute(key, (k, existing) -> {
+            link(k);
+            return item;
+        });
+    }
+
+    Optional<InventoryItem> find(String productId, String locationId) {
+        if (productId == null || locationId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(entries.get(new Key(productId, locationId)));
+    }
+
+    List<InventoryItem> findByProduct(String productId) {
+        return resolve(productId == null ? null : byProduct.get(productId));
+    }
+
+    List<InventoryItem> findByLocation(String locationId) {
+        return resolve(locationId == null ? null : byLocation.get(locationId));
+    }
+
+    int quantityOfProduct(String productId) {
+        return findByProduct(productId).stream().mapToInt(InventoryItem::getQuantity).sum();
+    }
+
+    int quantityAtLocation(String locationId) {
+        return findByLocation(locationId).stream().mapToInt(InventoryItem::getQuantity).sum();
+    }
+
+    List<InventoryItem> snapshot() {
+        return List.copyOf(entries.values());
+    }
+
+    Collection<InventoryItem> values() {
+        return entries.values();
+    }
+
+    /**
+     * Setzt die Menge eines Eintrags atomar neu; fehlende Einträge werden angelegt.
+     *
+     * @return Differenz zwischen neuer und alter Menge
+     */
+    int update(String productId, String locationId, IntUnaryOperator quantityUpdate, Instant timestamp) {
+        int[] delta = new int[1];
+        entries.compute(new Key(productId, locationId), (key, entry) -> {
+            if (entry == null) {
+                entry = new InventoryItem();
+                entry.setProductId(productId);
+                entry.setLocationId(locationId);
+                entry.setLifecycleStatus("available");
+                link(key);
+            }
+            int previous = entry.getQuantity();
+            int updated = Math.max(0, quantityUpdate.applyAsInt(previous));
+            entry.setQuantity(updated);
+            entry.setLastMovement(timestamp);
+            delta[0] = updated - previous;
+            return entry;
+        });
+        return delta[0];
+    }
+
+    /**
+     * Entnimmt atomar eine Menge. Ein Eintrag, der dabei auf null fällt, wird entfernt.
+     */
+    void withdraw(String productId, String locationId, int quantity, Instant timestamp) {
+        entries.compute(new Key(productId, locationId), (key, entry) -> {
+            if (entry == null) {
+                throw new IllegalStateException(
+                        "Keine Bestände an Standort " + locationId + " für Produkt " + productId);
+            }
+            if (entry.getQuantity() < quantity) {
+                throw new IllegalStateException("Unzureichender Bestand an Standort " + locationId);
+            }
+            entry.setQuantity(entry.getQuantity() - quantity);
+            entry.setLastMovement(timestamp);
+            if (entry.getQuantity() == 0) {
+                unlink(key);
+                return null;
+            }
+            return entry;
+        });
+    }
+
+    /**
+     * Entfernt einen Eintrag vollständig.
+     *
+     * @return entfernte Menge, 0 wenn kein Eintrag bestand
+     */
+    int remove(String productId, String locationId) {
+        int[] removed = new int[1];
+        entries.computeIfPresent(new Key(productId, locationId), (key, entry) -> {
+            removed[0] = entry.getQuantity();
+            unlink(key);
+            return null;
+        });
+        return removed[0];
+    }
+
+    void removeLocation(String locationId) {
+        Set<Key> keys = byLocation.get(locationId);
+        if (keys == null) {
+            return;
+        }
+        for (Key key : List.copyOf(keys)) {
+            entries.computeIfPresent(key, (k, entry) -> {
+                unlink(k);
+                return null;
+            });
+        }
+    }
+
+    private List<InventoryItem> resolve(Set<Key> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return List.of();
+        }
+        return keys.stream()
+                .map(entries::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // Nur innerhalb von compute aufrufen, damit Haupt- und Sekundärindizes pro Schlüssel synchron bleiben
+    private void link(Key key) {
+        byProduct.computeIfAbsent(key.productId(), k -> ConcurrentHashMap.newKeySet()).add(key);
+        byLocation.computeIfAbsent(key.locationId(), k -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+
+    private void unlink(Key key) {
+        Optional.ofNullable(byProduct.get(key.productId())).ifPresent(keys -> keys.remove(key));
+        Optional.ofNullable(byLocation.get(key.locationId())).ifPresent(keys -> keys.remove(key));
+    }
+}
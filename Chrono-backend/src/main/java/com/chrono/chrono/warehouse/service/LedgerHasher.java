@@ -0,0 +1,116 @@
+package com.chrono.chrono.warehouse.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+/**
+ * Verkettete SHA-256-Hashes für das Lager-Ledger. Jeder Eintrag hasht den Hash seines
+ * Vorgängers zusammen mit einer binären, längenpräfixierten Darstellung seiner Felder.
+ * Digest und Puffer werden pro Thread wiederverwendet, die Hex-Kodierung läuft über
+ * eine Lookup-Tabelle.
+ */
+final class LedgerHasher {
+
+    static final String GENESIS_HASH = "0".repeat(64);
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private LedgerHasher() {
+    }
+
+    static String chain(String previousHash, String productId, String fromLocation, String toLocation,
+                        int quantity, Instant timestamp) {
+        Scratch scratch = SCRATCH.get();
+        scratch.length = 0;
+        scratch.putString(previousHash == null ? GENESIS_HASH : previousHash);
+        scratch.putString(productId);
+        scratch.putString(fromLocation);
+        scratch.putString(toLocation);
+        scratch.putInt(quantity);
+        // recorded_at ist TIMESTAMP(6): nur Mikrosekunden hashen, sonst passt der Hash nach dem Laden nicht mehr
+        Instant recordedAt = timestamp == null ? null : timestamp.truncatedTo(ChronoUnit.MICROS);
+        scratch.putLong(recordedAt == null ? 0L : recordedAt.getEpochSecond());
+        scratch.putInt(recordedAt == null ? 0 : recordedAt.getNano());
+        MessageDigest digest = scratch.digest;
+        digest.update(scratch.buffer, 0, scratch.length);
+        return toHex(digest.digest());
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0, j = 0; i < bytes.length; i++) {
+            int value = bytes[i] & 0xFF;
+            chars[j++] = HEX[value >>> 4];
+            chars[j++] = HEX[value & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    private static final class Scratch {
+
+        private final MessageDigest digest;
+        private byte[] buffer = new byte[256];
+        private int length;
+
+        private Scratch() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Hash algorithm missing", e);
+            }
+        }
+
+        private void putString(String value) {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            int lengthPosition = length;
+            putInt(0);
+            int start = length;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    ensure(1);
+                    buffer[length++] = (byte) c;
+                } else {
+                    // Nicht-ASCII selten (Standort-/Produktcodes): regulär kodieren
+                    byte[] encoded = value.substring(i).getBytes(StandardCharsets.UTF_8);
+                    ensure(encoded.length);
+                    System.arraycopy(encoded, 0, buffer, length, encoded.length);
+                    length += encoded.length;
+                    break;
+                }
+            }
+            int written = length - start;
+            buffer[lengthPosition] = (byte) (written >>> 24);
+            buffer[lengthPosition + 1] = (byte) (written >>> 16);
+            buffer[lengthPosition + 2] = (byte) (written >>> 8);
+            buffer[lengthPosition + 3] = (byte) written;
+        }
+
+        private void putInt(int value) {
+            ensure(4);
+            buffer[length++] = (byte) (value >>> 24);
+            buffer[length++] = (byte) (value >>> 16);
+            buffer[length++] = (byte) (value >>> 8);
+            buffer[length++] = (byte) value;
+        }
+
+        private void putLong(long value) {
+            putInt((int) (value >>> 32));
+            putInt((int) value);
+        }
+
+        private void ensure(int additional) {
+            if (length + additional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + additional));
+            }
+        }
+    }
+}
@@ -0,0 +1,603 @@
+package com.chrono.chrono.warehouse.service;
+
+import com.chrono.chrono.entities.inventory.WarehouseLedgerCheckpoint;
+import com.chrono.chrono.entities.inventory.WarehouseLedgerDailyAggregate;
+import com.chrono.chrono.entities.inventory.WarehouseLedgerEntry;
+import com.chrono.chrono.repositories.inventory.WarehouseLedgerCheckpointRepository;
+import com.chrono.chrono.repositories.inventory.WarehouseLedgerDailyAggregateRepository;
+import com.chrono.chrono.repositories.inventory.WarehouseLedgerEntryRepository;
+import com.chrono.chrono.warehouse.dto.LedgerVerificationResponse;
+import com.chrono.chrono.warehouse.model.MovementLogEntry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Append-only Ledger der Lagerbewegungen. Jeder Eintrag wird mit fortlaufender
+ * Sequenznummer in {@code wh_movement_ledger} geschrieben; für Auswertungen wird pro
+ * Produkt und Tag ein Aggregat im Speicher gehalten, sodass Nachfragereihen in
+ * O(Tage) statt O(Bewegungen) gelesen werden. Snapshots der Tagesaggregate samt
+ * Checkpoint sorgen dafür, dass beim Start nur die Einträge nach dem letzten
+ * Checkpoint nachgespielt werden müssen.
+ * <p>
+ * Die Einträge bilden eine Hash-Kette: jeder Hash umfasst den Hash des Vorgängers
+ * (siehe {@link LedgerHasher}). {@link #verifyChain()} prüft die Kette parallel in
+ * Segmenten und gleicht die Checkpoint-Hashes als Ankerpunkte ab.
+ * <p>
+ * Bewegungen aus einer laufenden Transaktion werden erst nach deren Commit von einem
+ * eigenen Schreib-Thread angehängt. Zurückgerollte Buchungen landen so nie im Ledger,
+ * und der Aufrufer belegt keine zweite Datenbankverbindung, während er auf die Sperre wartet.
+ * <p>
+ * Ohne Repositories (z.B. in Unit-Tests) arbeitet das Ledger rein im Speicher.
+ */
+@Service
+public class MovementLedgerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovementLedgerService.class);
+
+    /**
+     * Bewegungssumme eines Produkts an einem Tag.
+     */
+    public record DailyMovement(int inbound, int outbound, int movements) {
+
+        static DailyMovement of(MovementLogEntry entry) {
+            int inbound = isPresent(entry.getToLocation()) ? entry.getQuantity() : 0;
+            int outbound = isPresent(entry.getFromLocation()) ? entry.getQuantity() : 0;
+            return new DailyMovement(inbound, outbound, 1);
+        }
+
+        DailyMovement plus(DailyMovement other) {
+            return new DailyMovement(inbound + other.inbound, outbound + other.outbound, movements + other.movements);
+        }
+
+        /** Nettoabgang (Abgänge minus Zugänge), entspricht der Nachfrage des Tages. */
+        public int netOutbound() {
+            return outbound - inbound;
+        }
+
+        /** Nettobestandsänderung (Zugänge minus Abgänge). */
+        public int netChange() {
+            return inbound - outbound;
+        }
+    }
+
+    private record AggregateKey(String productId, LocalDate date) {
+    }
+
+    private record SegmentResult(long firstSequence,
+                                 String firstPreviousHash,
+                                 String lastHash,
+                                 long verified,
+                                 long legacy,
+                                 int anchorsVerified,
+                                 Long invalidSequence,
+                                 String reason) {
+
+        boolean isEmpty() {
+            return lastHash == null && invalidSequence == null;
+        }
+    }
+
+    private final WarehouseLedgerEntryRepository entryRepository;
+    private final WarehouseLedgerDailyAggregateRepository aggregateRepository;
+    private final WarehouseLedgerCheckpointRepository checkpointRepository;
+    private final ZoneId zone;
+    private final int recentCapacity;
+    private final int replayPageSize;
+    private final int checkpointRetention;
+    private final int verifySegmentSize;
+    private final ExecutorService verifyWorkers;
+    private final ExecutorService appendWorker;
+    private final List<Consumer<MovementLogEntry>> appendListeners = new CopyOnWriteArrayList<>();
+
+    private final Map<String, ConcurrentSkipListMap<LocalDate, DailyMovement>> dailyByProduct = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Integer> movementsPerMinute = new ConcurrentSkipListMap<>();
+    private final Set<AggregateKey> dirtyAggregates = ConcurrentHashMap.newKeySet();
+    private final Object appendLock = new Object();
+    private final Deque<MovementLogEntry> recent = new ArrayDeque<>();
+    private long lastSequence;
+    private String lastHash = LedgerHasher.GENESIS_HASH;
+    private long snapshotSequence;
+
+    public MovementLedgerService() {
+        this(null, null, null, 1000, 1000, 288, 5000, 1);
+    }
+
+    @Autowired
+    public MovementLedgerService(WarehouseLedgerEntryRepository entryRepository,
+                                 WarehouseLedgerDailyAggregateRepository aggregateRepository,
+                                 WarehouseLedgerCheckpointRepository checkpointRepository,
+                                 @Value("${app.warehouse.ledger.recent-size:1000}") int recentCapacity,
+                                 @Value("${app.warehouse.ledger.replay-page-size:1000}") int replayPageSize,
+                                 @Value("${app.warehouse.ledger.checkpoint-retention:288}") int checkpointRetention,
+                                 @Value("${app.warehouse.ledger.verify-segment-size:5000}") int verifySegmentSize,
+                                 @Value("${app.warehouse.ledger.verify-threads:4}") int verifyThreads) {
+        this.entryRepository = entryRepository;
+        this.aggregateRepository = aggregateRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.zone = ZoneId.systemDefault();
+        this.recentCapacity = Math.max(1, recentCapacity);
+        this.replayPageSize = Math.max(1, replayPageSize);
+        this.checkpointRetention = Math.max(1, checkpointRetention);
+        this.verifySegmentSize = Math.max(1, verifySegmentSize);
+        AtomicInteger counter = new AtomicInteger();
+        this.verifyWorkers = Executors.newFixedThreadPool(Math.max(1, verifyThreads), runnable -> {
+            Thread thread = new Thread(runnable, "ledger-verify-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.appendWorker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-append");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private boolean isPersistent() {
+        return entryRepository != null && aggregateRepository != null && checkpointRepository != null;
+    }
+
+    /**
+     * Wird nach jedem angehängten Eintrag aufgerufen, z.B. um abgeleitete Caches zu verwerfen.
+     */
+    public void addAppendListener(Consumer<MovementLogEntry> listener) {
+        appendListeners.add(listener);
+    }
+
+    /**
+     * Hängt eine Bewegung an das Ledger an und verkettet ihren Hash mit dem Vorgänger.
+     * Läuft eine Transaktion, wird die Bewegung erst nach deren Commit auf dem Schreib-Thread
+     * angehängt; Hash und Sequenz sind beim Rückgabewert dann noch nicht gesetzt. Ohne
+     * Transaktion wird sofort angehängt.
+     */
+    public MovementLogEntry append(MovementLogEntry entry) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    appendWorker.execute(() -> appendCommitted(entry));
+                }
+            });
+            return entry;
+        }
+        return appendNow(entry);
+    }
+
+    private void appendCommitted(MovementLogEntry entry) {
+        try {
+            appendNow(entry);
+        } catch (RuntimeException e) {
+            logger.error("Bewegung {} ({}) konnte nicht ins Lager-Ledger geschrieben werden: {}",
+                    entry.getId(), entry.getProductId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Insert und Kettenende unter der Sperre. Der Insert committet über das Repository sofort,
+     * erst danach werden Kettenende, Aggregate und letzte Einträge fortgeschrieben.
+     */
+    private MovementLogEntry appendNow(MovementLogEntry entry) {
+        synchronized (appendLock) {
+            if (entry.getTimestamp() != null) {
+                // recorded_at ist TIMESTAMP(6): so speichern, wie es später wieder geladen wird
+                entry.setTimestamp(entry.getTimestamp().truncatedTo(ChronoUnit.MICROS));
+            }
+            entry.setPreviousHash(lastHash);
+            entry.setHash(LedgerHasher.chain(lastHash, entry.getProductId(), entry.getFromLocation(),
+                    entry.getToLocation(), entry.getQuantity(), entry.getTimestamp()));
+            if (isPersistent()) {
+                entry.setSequence(entryRepository.save(toEntity(entry)).getId());
+            } else {
+                entry.setSequence(lastSequence + 1);
+            }
+            lastSequence = entry.getSequence();
+            lastHash = entry.getHash();
+            index(entry);
+            countMovement(entry.getTimestamp());
+            recent.addLast(entry);
+            while (recent.size() > recentCapacity) {
+                recent.removeFirst();
+            }
+        }
+        appendListeners.forEach(listener -> listener.accept(entry));
+        return entry;
+    }
+
+    /**
+     * Die zuletzt gebuchten Bewegungen (begrenzt über {@code app.warehouse.ledger.recent-size}).
+     */
+    public List<MovementLogEntry> recentEntries() {
+        synchronized (appendLock) {
+            return List.copyOf(recent);
+        }
+    }
+
+    /**
+     * Tagesaggregate eines Produkts im Bereich [from, to].
+     */
+    public NavigableMap<LocalDate, DailyMovement> dailySeries(String productId, LocalDate from, LocalDate to) {
+        ConcurrentSkipListMap<LocalDate, DailyMovement> series = productId == null ? null : dailyByProduct.get(productId);
+        if (series == null) {
+            return Collections.emptyNavigableMap();
+        }
+        return Collections.unmodifiableNavigableMap(series.subMap(from, true, to, true));
+    }
+
+    /**
+     * Vollständige Tageshistorie eines Produkts.
+     */
+    public NavigableMap<LocalDate, DailyMovement> history(String productId) {
+        ConcurrentSkipListMap<LocalDate, DailyMovement> series = productId == null ? null : dailyByProduct.get(productId);
+        return series == null ? Collections.emptyNavigableMap() : Collections.unmodifiableNavigableMap(series);
+    }
+
+    /**
+     * Anzahl Bewegungen seit dem angegebenen Zeitpunkt (minutengenau, maximal zwei Tage zurück).
+     */
+    public long countSince(Instant since) {
+        long fromMinute = since.getEpochSecond() / 60;
+        return movementsPerMinute.tailMap(fromMinute, true).values().stream()
+                .mapToLong(Integer::longValue)
+                .sum();
+    }
+
+    public long getLastSequence() {
+        synchronized (appendLock) {
+            return lastSequence;
+        }
+    }
+
+    /**
+     * Lädt den letzten Snapshot und spielt nur die danach geschriebenen Einträge nach.
+     */
+    @PostConstruct
+    public void load() {
+        if (!isPersistent()) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        long checkpoint = checkpointRepository.findTopByOrderByIdDesc()
+                .map(WarehouseLedgerCheckpoint::getLastSequence)
+                .orElse(0L);
+        int aggregates = 0;
+        if (checkpoint > 0) {
+            for (WarehouseLedgerDailyAggregate aggregate : aggregateRepository.findAll()) {
+                dailyByProduct.computeIfAbsent(aggregate.getProductId(), key -> new ConcurrentSkipListMap<>())
+                        .put(aggregate.getMovementDate(), new DailyMovement(aggregate.getInboundQuantity(),
+                                aggregate.getOutboundQuantity(), aggregate.getMovementCount()));
+                aggregates++;
+            }
+        }
+
+        long cursor = checkpoint;
+        int replayed = 0;
+        List<WarehouseLedgerEntry> page;
+        do {
+            page = entryRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, replayPageSize));
+            for (WarehouseLedgerEntry entity : page) {
+                index(toModel(entity));
+                cursor = entity.getId();
+                replayed++;
+            }
+        } while (page.size() == replayPageSize);
+
+        Instant oneDayAgo = Instant.now().minus(1, ChronoUnit.DAYS);
+        entryRepository.findByRecordedAtGreaterThanEqualOrderByIdAsc(oneDayAgo)
+                .forEach(entity -> countMovement(entity.getRecordedAt()));
+
+        List<WarehouseLedgerEntry> latest = new ArrayList<>(
+                entryRepository.findAllByOrderByIdDesc(PageRequest.of(0, recentCapacity)));
+        Collections.reverse(latest);
+
+        synchronized (appendLock) {
+            latest.forEach(entity -> recent.addLast(toModel(entity)));
+            lastSequence = cursor;
+            if (!latest.isEmpty() && latest.get(latest.size() - 1).getHash() != null) {
+                lastHash = latest.get(latest.size() - 1).getHash();
+            }
+            snapshotSequence = checkpoint;
+        }
+        logger.info("Lager-Ledger geladen: {} Tagesaggregate aus Snapshot {}, {} Einträge nachgespielt ({} ms).",
+                aggregates, checkpoint, replayed, System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * Schreibt die seit dem letzten Snapshot geänderten Tagesaggregate und einen neuen
+     * Checkpoint mit dem Hash des letzten enthaltenen Eintrags. Es werden nur die letzten
+     * {@code app.warehouse.ledger.checkpoint-retention} Checkpoints behalten.
+     *
+     * @return Anzahl geschriebener Tagesaggregate
+     */
+    @Scheduled(fixedDelayString = "${app.warehouse.ledger.snapshot-interval:PT5M}")
+    @Transactional
+    public int snapshot() {
+        if (!isPersistent()) {
+            return 0;
+        }
+        long sequence;
+        String hash;
+        Map<AggregateKey, DailyMovement> changed = new HashMap<>();
+        synchronized (appendLock) {
+            if (lastSequence == snapshotSequence) {
+                return 0;
+            }
+            sequence = lastSequence;
+            hash = lastHash;
+            for (AggregateKey key : dirtyAggregates) {
+                DailyMovement value = dailyByProduct.get(key.productId()).get(key.date());
+                changed.put(key, value);
+            }
+            dirtyAggregates.removeAll(changed.keySet());
+        }
+
+        try {
+            for (Map.Entry<AggregateKey, DailyMovement> entry : changed.entrySet()) {
+                AggregateKey key = entry.getKey();
+                WarehouseLedgerDailyAggregate aggregate = aggregateRepository
+                        .findByProductIdAndMovementDate(key.productId(), key.date())
+                        .orElseGet(() -> {
+                            WarehouseLedgerDailyAggregate created = new WarehouseLedgerDailyAggregate();
+                            created.setProductId(key.productId());
+                            created.setMovementDate(key.date());
+                            return created;
+                        });
+                aggregate.setInboundQuantity(entry.getValue().inbound());
+                aggregate.setOutboundQuantity(entry.getValue().outbound());
+                aggregate.setMovementCount(entry.getValue().movements());
+                aggregateRepository.save(aggregate);
+            }
+            aggregateRepository.flush();
+            WarehouseLedgerCheckpoint checkpoint = checkpointRepository.save(
+                    new WarehouseLedgerCheckpoint(sequence, hash, Instant.now()));
+            long oldestRetained = checkpoint.getId() - checkpointRetention + 1;
+            if (oldestRetained > 1) {
+                checkpointRepository.deleteByIdLessThan(oldestRetained);
+            }
+        } catch (RuntimeException e) {
+            dirtyAggregates.addAll(changed.keySet());
+            logger.error("Snapshot des Lager-Ledgers fehlgeschlagen: {}", e.getMessage());
+            throw e;
+        }
+
+        synchronized (appendLock) {
+            snapshotSequence = sequence;
+        }
+        logger.debug("Lager-Ledger-Snapshot bis Sequenz {} geschrieben ({} Tagesaggregate).", sequence, changed.size());
+        return changed.size();
+    }
+
+    /**
+     * Prüft die Hash-Kette des gesamten Ledgers. Die Einträge werden in Segmenten fester
+     * Grösse parallel nachgerechnet; anschliessend werden die Segmentgrenzen und die
+     * Checkpoint-Hashes abgeglichen. Ohne Datenbank werden nur die im Speicher gehaltenen
+     * letzten Einträge geprüft.
+     */
+    public LedgerVerificationResponse verifyChain() {
+        long startedAt = System.currentTimeMillis();
+        if (!isPersistent()) {
+            SegmentResult result = verifySegment(recentEntries(), Map.of(), 0, -1);
+            return toResponse(List.of(result), false, startedAt);
+        }
+
+        long maxSequence = entryRepository.findTopByOrderByIdDesc().map(WarehouseLedgerEntry::getId).orElse(0L);
+        Map<Long, String> anchors = new HashMap<>();
+        checkpointRepository.findAllByOrderByLastSequenceAsc().stream()
+                .filter(checkpoint -> checkpoint.getLastHash() != null && checkpoint.getLastSequence() <= maxSequence)
+                .forEach(checkpoint -> anchors.put(checkpoint.getLastSequence(), checkpoint.getLastHash()));
+
+        List<Callable<SegmentResult>> tasks = new ArrayList<>();
+        for (long start = 1; start <= maxSequence; start += verifySegmentSize) {
+            long from = start;
+            long to = Math.min(maxSequence, start + verifySegmentSize - 1);
+            tasks.add(() -> verifySegment(entryRepository.findByIdBetweenOrderByIdAsc(from, to).stream()
+                    .map(MovementLedgerService::toModel)
+                    .toList(), anchors, from, to));
+        }
+
+        List<SegmentResult> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<SegmentResult> future : verifyWorkers.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Prüfung des Lager-Ledgers abgebrochen", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Prüfung des Lager-Ledgers fehlgeschlagen", e.getCause());
+        }
+        return toResponse(results, true, startedAt);
+    }
+
+    private SegmentResult verifySegment(List<MovementLogEntry> entries, Map<Long, String> anchors,
+                                        long rangeStart, long rangeEnd) {
+        String previous = null;
+        long verified = 0;
+        long legacy = 0;
+        int anchorsVerified = 0;
+        for (MovementLogEntry entry : entries) {
+            if (entry.getPreviousHash() == null) {
+                // Einträge aus der Zeit vor der Verkettung; danach darf keiner mehr folgen
+                if (verified > 0) {
+                    return invalidSegment(entries, entry.getSequence(), "Unverketteter Eintrag nach Beginn der Kette");
+                }
+                legacy++;
+            } else {
+                if (previous != null && !previous.equals(entry.getPreviousHash())) {
+                    return invalidSegment(entries, entry.getSequence(), "Verkettung unterbrochen");
+                }
+                String expected = LedgerHasher.chain(entry.getPreviousHash(), entry.getProductId(),
+                        entry.getFromLocation(), entry.getToLocation(), entry.getQuantity(), entry.getTimestamp());
+                if (!expected.equals(entry.getHash())) {
+                    return invalidSegment(entries, entry.getSequence(), "Hash stimmt nicht mit dem Inhalt überein");
+                }
+                verified++;
+            }
+            String anchor = anchors.get(entry.getSequence());
+            if (anchor != null) {
+                if (!anchor.equals(entry.getHash())) {
+                    return invalidSegment(entries, entry.getSequence(), "Hash weicht vom Checkpoint ab");
+                }
+                anchorsVerified++;
+            }
+            previous = entry.getHash();
+        }
+        for (Long anchorSequence : anchors.keySet()) {
+            if (anchorSequence >= rangeStart && anchorSequence <= rangeEnd
+                    && entries.stream().noneMatch(entry -> entry.getSequence() == anchorSequence)) {
+                return invalidSegment(entries, anchorSequence, "Eintrag zum Checkpoint fehlt");
+            }
+        }
+        if (entries.isEmpty()) {
+            return new SegmentResult(rangeStart, null, null, 0, 0, 0, null, null);
+        }
+        MovementLogEntry first = entries.get(0);
+        return new SegmentResult(first.getSequence(), first.getPreviousHash(), previous, verified, legacy,
+                anchorsVerified, null, null);
+    }
+
+    private SegmentResult invalidSegment(List<MovementLogEntry> entries, long sequence, String reason) {
+        long firstSequence = entries.isEmpty() ? sequence : entries.get(0).getSequence();
+        return new SegmentResult(firstSequence, null, null, 0, 0, 0, sequence, reason);
+    }
+
+    private LedgerVerificationResponse toResponse(List<SegmentResult> results, boolean fromGenesis, long startedAt) {
+        long verified = 0;
+        long legacy = 0;
+        int anchors = 0;
+        Long invalidSequence = null;
+        String reason = null;
+        String previousHash = fromGenesis ? LedgerHasher.GENESIS_HASH : null;
+        for (SegmentResult result : results) {
+            if (result.invalidSequence() != null) {
+                invalidSequence = result.invalidSequence();
+                reason = result.reason();
+                break;
+            }
+            if (result.isEmpty()) {
+                continue;
+            }
+            // Segmentgrenze: der erste verkettete Eintrag muss auf das Ende des Vorgängersegments zeigen
+            if (result.firstPreviousHash() != null && previousHash != null
+                    && !previousHash.equals(result.firstPreviousHash())) {
+                invalidSequence = result.firstSequence();
+                reason = "Verkettung an der Segmentgrenze unterbrochen";
+                break;
+            }
+            if (verified > 0 && result.legacy() > 0) {
+                invalidSequence = result.firstSequence();
+                reason = "Unverketteter Eintrag nach Beginn der Kette";
+                break;
+            }
+            verified += result.verified();
+            legacy += result.legacy();
+            anchors += result.anchorsVerified();
+            previousHash = result.lastHash();
+        }
+        boolean valid = invalidSequence == null;
+        String message = valid
+                ? "Ledger-Kette ist intakt"
+                : "Ledger-Kette ab Sequenz " + invalidSequence + " ungültig: " + reason;
+        if (!valid) {
+            logger.warn(message);
+        }
+        return new LedgerVerificationResponse(valid, verified, legacy, results.size(), anchors, invalidSequence,
+                message, System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * Schreibt noch ausstehende Bewegungen fest, bevor der Dienst beendet wird.
+     */
+    @PreDestroy
+    public void shutdown() {
+        verifyWorkers.shutdownNow();
+        appendWorker.shutdown();
+        try {
+            if (!appendWorker.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Lager-Ledger: ausstehende Bewegungen beim Beenden verworfen.");
+                appendWorker.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            appendWorker.shutdownNow();
+        }
+    }
+
+    private void index(MovementLogEntry entry) {
+        if (entry.getProductId() == null || entry.getTimestamp() == null) {
+            return;
+        }
+        LocalDate date = entry.getTimestamp().atZone(zone).toLocalDate();
+        dailyByProduct.computeIfAbsent(entry.getProductId(), key -> new ConcurrentSkipListMap<>())
+                .merge(date, DailyMovement.of(entry), DailyMovement::plus);
+        dirtyAggregates.add(new AggregateKey(entry.getProductId(), date));
+    }
+
+    private void countMovement(Instant timestamp) {
+        if (timestamp == null) {
+            return;
+        }
+        movementsPerMinute.merge(timestamp.getEpochSecond() / 60, 1, Integer::sum);
+        long cutoff = Instant.now().minus(2, ChronoUnit.DAYS).getEpochSecond() / 60;
+        movementsPerMinute.headMap(cutoff).clear();
+    }
+
+    private static boolean isPresent(String location) {
+        return location != null && !location.isBlank();
+    }
+
+    private static WarehouseLedgerEntry toEntity(MovementLogEntry entry) {
+        WarehouseLedgerEntry entity = new WarehouseLedgerEntry();
+        entity.setMovementId(entry.getId());
+        entity.setProductId(entry.getProductId());
+        entity.setFromLocation(entry.getFromLocation());
+        entity.setToLocation(entry.getToLocation());
+        entity.setQuantity(entry.getQuantity());
+        entity.setRecordedAt(entry.getTimestamp());
+        entity.setHash(entry.getHash());
+        entity.setPreviousHash(entry.getPreviousHash());
+        return entity;
+    }
+
+    private static MovementLogEntry toModel(WarehouseLedgerEntry entity) {
+        MovementLogEntry entry = new MovementLogEntry(entity.getMovementId(), entity.getProductId(),
+                entity.getFromLocation(), entity.getToLocation(), entity.getQuantity(), entity.getRecordedAt(),
+                entity.getHash());
+        entry.setPreviousHash(entity.getPreviousHash());
+        entry.setSequence(entity.getId());
+        return entry;
+    }
+}
@@ -0,0 +1,164 @@
+package com.chrono.chrono.warehouse.service;
+
+/**
+ * Reihenfolgeplanung für Pickrouten als offener Pfad ab dem Startpunkt (Knoten 0).
+ * Startlösung per Nearest-Neighbour, anschliessend 2-opt und Or-opt (Verschieben von
+ * Teilstücken mit 1–3 Stopps), solange sich die Route verbessert und das Zeitbudget
+ * nicht aufgebraucht ist.
+ */
+final class PickRouteOptimizer {
+
+    private static final double EPSILON = 1e-9;
+
+    private PickRouteOptimizer() {
+    }
+
+    /**
+     * @param distances  Distanzmatrix; Index 0 ist der Startpunkt, 1..n die Stopps
+     * @param budgetNanos maximale Laufzeit der Verbesserungsphase
+     * @return Besuchsreihenfolge der Stopps (Indizes 1..n)
+     */
+    static int[] optimise(double[][] distances, long budgetNanos) {
+        int stops = distances.length - 1;
+        if (stops <= 0) {
+            return new int[0];
+        }
+        int[] tour = nearestNeighbour(distances);
+        if (stops > 2) {
+            long deadline = System.nanoTime() + Math.max(0, budgetNanos);
+            boolean improved = true;
+            while (improved && System.nanoTime() < deadline) {
+                improved = twoOpt(tour, distances, deadline);
+                improved |= orOpt(tour, distances, deadline);
+            }
+        }
+        int[] order = new int[stops];
+        System.arraycopy(tour, 1, order, 0, stops);
+        return order;
+    }
+
+    static double length(int[] tour, double[][] distances) {
+        double total = 0;
+        for (int i = 1; i < tour.length; i++) {
+            total += distances[tour[i - 1]][tour[i]];
+        }
+        return total;
+    }
+
+    static int[] nearestNeighbour(double[][] distances) {
+        int size = distances.length;
+        int[] tour = new int[size];
+        boolean[] visited = new boolean[size];
+        visited[0] = true;
+        int current = 0;
+        for (int position = 1; position < size; position++) {
+            int best = -1;
+            double bestDistance = Double.MAX_VALUE;
+            for (int candidate = 1; candidate < size; candidate++) {
+                if (!visited[candidate] && distances[current][candidate] < bestDistance) {
+                    bestDistance = distances[current][candidate];
+                    best = candidate;
+                }
+            }
+            tour[position] = best;
+            visited[best] = true;
+            current = best;
+        }
+        return tour;
+    }
+
+    /**
+     * Kehrt Teilstücke tour[i..j] um, wenn das den Pfad verkürzt. Da der Pfad offen ist,
+     * entfällt beim letzten Stopp die ausgehende Kante.
+     */
+    private static boolean twoOpt(int[] tour, double[][] d, long deadline) {
+        boolean improved = false;
+        int last = tour.length - 1;
+        for (int i = 1; i < last; i++) {
+            if (System.nanoTime() >= deadline) {
+                return improved;
+            }
+            for (int j = i + 1; j <= last; j++) {
+                double before = d[tour[i - 1]][tour[i]];
+                double after = d[tour[i - 1]][tour[j]];
+                if (j < last) {
+                    before += d[tour[j]][tour[j + 1]];
+                    after += d[tour[i]][tour[j + 1]];
+                }
+                if (after < before - EPSILON) {
+                    reverse(tour, i, j);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Verschiebt Teilstücke von 1–3 Stopps an die günstigste andere Position.
+     */
+    private static boolean orOpt(int[] tour, double[][] d, long deadline) {
+        boolean improved = false;
+        int last = tour.length - 1;
+        for (int segmentLength = 1; segmentLength <= 3; segmentLength++) {
+            for (int start = 1; start + segmentLength - 1 <= last; start++) {
+                if (System.nanoTime() >= deadline) {
+                    return improved;
+                }
+                int end = start + segmentLength - 1;
+                int prev = tour[start - 1];
+                int first = tour[start];
+                int tail = tour[end];
+                boolean hasNext = end < last;
+                double removeGain = d[prev][first] + (hasNext ? d[tail][tour[end + 1]] - d[prev][tour[end + 1]] : 0);
+
+                int bestPosition = -1;
+                double bestDelta = -EPSILON;
+                // Einfügen zwischen tour[p] und tour[p + 1] (bzw. ans Ende, wenn p == last)
+                for (int p = 0; p <= last; p++) {
+                    if (p >= start - 1 && p <= end) {
+                        continue;
+                    }
+                    int a = tour[p];
+                    double insertCost = d[a][first];
+                    if (p < last) {
+                        int b = tour[p + 1];
+                        insertCost += d[tail][b] - d[a][b];
+                    }
+                    double delta = insertCost - removeGain;
+                    if (delta < bestDelta) {
+                        bestDelta = delta;
+                        bestPosition = p;
+                    }
+                }
+                if (bestPosition >= 0) {
+                    moveSegment(tour, start, end, bestPosition);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    private static void reverse(int[] tour, int from, int to) {
+        while (from < to) {
+            int swap = tour[from];
+            tour[from++] = tour[to];
+            tour[to--] = swap;
+        }
+    }
+
+    private static void moveSegment(int[] tour, int start, int end, int insertAfter) {
+        int length = end - start + 1;
+        int[] segment = new int[length];
+        System.arraycopy(tour, start, segment, 0, length);
+        if (insertAfter < start) {
+            // Elemente zwischen Einfügeposition und Segment nach hinten schieben
+            System.arraycopy(tour, insertAfter + 1, tour, insertAfter + 1 + length, start - insertAfter - 1);
+            System.arraycopy(segment, 0, tour, insertAfter + 1, length);
+        } else {
+            System.arraycopy(tour, end + 1, tour, start, insertAfter - end);
+            System.arraycopy(segment, 0, tour, insertAfter - length + 1, length);
+        }
+    }
+}
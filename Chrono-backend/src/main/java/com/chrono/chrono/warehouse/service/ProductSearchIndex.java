@@ -0,0 +1,261 @@
+package com.chrono.chrono.warehouse.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Invertierter Index über Produktnamen und SKUs. Tokens werden einmal normalisiert und
+ * interniert; pro Produkt liegt die Tokenmenge vorberechnet vor. Damit laufen
+ * Produkterkennung in Freitext und Ähnlichkeitssuche über Postings statt über alle Produkte.
+ * <p>
+ * Schreibzugriffe (Anlegen/Ändern von Produkten) sind selten und werden serialisiert;
+ * Lesezugriffe arbeiten ohne Sperre auf unveränderlichen Einträgen.
+ */
+final class ProductSearchIndex {
+
+    /**
+     * Vorberechnete Sicht auf ein Produkt. {@code phrase} sind die Namens-Tokens mit einem
+     * Leerzeichen verbunden, {@code tokens} deren Menge.
+     */
+    record Entry(String productId, String sku, String phrase, int phraseLength, Set<String> tokens, String category) {
+    }
+
+    private final Map<String, String> tokenPool = new ConcurrentHashMap<>();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> postings = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> phrases = new ConcurrentHashMap<>();
+    private final Map<String, String> skus = new ConcurrentHashMap<>();
+    /** Vorkommende Phrasenlängen (Anzahl Tokens) mit Häufigkeit, für die Phrasensuche im Freitext. */
+    private final Map<Integer, Integer> phraseLengths = new ConcurrentHashMap<>();
+
+    synchronized void put(String productId, String name, String category) {
+        String[] tokens = tokenize(name, true);
+        String phrase = String.join(" ", tokens);
+        Entry previous = entries.get(productId);
+        if (previous != null && previous.phrase().equals(phrase) && Objects.equals(previous.category(), category)) {
+            return;
+        }
+        remove(productId);
+        Entry entry = new Entry(productId, productId.toLowerCase(Locale.ROOT), phrase, tokens.length,
+                Set.of(distinct(tokens)), category);
+        entries.put(productId, entry);
+        skus.put(entry.sku(), productId);
+        if (tokens.length > 0) {
+            phrases.computeIfAbsent(phrase, key -> new ConcurrentSkipListSet<>()).add(productId);
+            phraseLengths.merge(tokens.length, 1, Integer::sum);
+        }
+        for (String token : entry.tokens()) {
+            postings.computeIfAbsent(token, key -> new ConcurrentSkipListSet<>()).add(productId);
+        }
+    }
+
+    synchronized void remove(String productId) {
+        Entry entry = entries.remove(productId);
+        if (entry == null) {
+            return;
+        }
+        skus.remove(entry.sku(), productId);
+        if (entry.phraseLength() > 0) {
+            removePosting(phrases, entry.phrase(), productId);
+            phraseLengths.computeIfPresent(entry.phraseLength(), (length, count) -> count > 1 ? count - 1 : null);
+        }
+        for (String token : entry.tokens()) {
+            removePosting(postings, token, productId);
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Sucht ein Produkt, dessen SKU oder vollständiger Name im Freitext vorkommt. Eine SKU hat
+     * Vorrang, sonst gewinnt der längste Name.
+     */
+    Optional<String> findMentioned(String text) {
+        if (text == null || text.isBlank()) {
+            return Optional.empty();
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (String word : lower.split("\\s+")) {
+            String candidate = stripPunctuation(word);
+            String productId = skus.get(candidate);
+            if (productId != null) {
+                return Optional.of(productId);
+            }
+        }
+        String[] tokens = tokenize(lower);
+        Integer[] lengths = phraseLengths.keySet().toArray(new Integer[0]);
+        Arrays.sort(lengths, Comparator.reverseOrder());
+        StringBuilder phrase = new StringBuilder();
+        for (int length : lengths) {
+            for (int start = 0; start + length <= tokens.length; start++) {
+                phrase.setLength(0);
+                for (int i = start; i < start + length; i++) {
+                    if (i > start) {
+                        phrase.append(' ');
+                    }
+                    phrase.append(tokens[i]);
+                }
+                Set<String> matches = phrases.get(phrase.toString());
+                if (matches != null && !matches.isEmpty()) {
+                    return Optional.of(matches.iterator().next());
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Ähnlichstes Produkt nach Jaccard-Ähnlichkeit der Namens-Tokens, sofern mindestens
+     * {@code threshold}. Kandidaten kommen per Präfixfilter nur aus den Postings der seltensten
+     * Tokens: Ein Treffer muss mindestens eines der ersten {@code |Q| - ceil(t * |Q|) + 1}
+     * Tokens teilen.
+     */
+    Optional<Entry> mostSimilar(String name, double threshold) {
+        String[] query = distinct(tokenize(name));
+        if (query.length == 0) {
+            return Optional.empty();
+        }
+        Set<String> querySet = Set.of(query);
+        Arrays.sort(query, Comparator.comparingInt(this::postingSize));
+        int prefix = query.length - (int) Math.ceil(threshold * query.length) + 1;
+        int minLength = (int) Math.ceil(threshold * query.length);
+        int maxLength = (int) Math.floor(query.length / threshold);
+
+        Entry best = null;
+        double bestScore = threshold;
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < Math.min(prefix, query.length); i++) {
+            Set<String> posting = postings.get(query[i]);
+            if (posting == null) {
+                continue;
+            }
+            for (String productId : posting) {
+                if (!seen.add(productId)) {
+                    continue;
+                }
+                Entry entry = entries.get(productId);
+                if (entry == null || entry.tokens().size() < minLength || entry.tokens().size() > maxLength) {
+                    continue;
+                }
+                double score = jaccard(querySet, entry.tokens());
+                if (score > bestScore || (score == bestScore && (best == null
+                        || entry.productId().compareTo(best.productId()) < 0))) {
+                    best = entry;
+                    bestScore = score;
+                }
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    /**
+     * Punktzahl je Kategorie: zwei Punkte pro Schlüsselwort, das in einem Token vorkommt.
+     */
+    static Map<String, Integer> keywordScores(String[] tokens, Map<String, List<String>> keywordsByCategory) {
+        Map<String, Integer> scores = new HashMap<>();
+        keywordsByCategory.forEach((category, keywords) -> {
+            int score = 0;
+            for (String keyword : keywords) {
+                for (String token : tokens) {
+                    if (token.contains(keyword)) {
+                        score += 2;
+                        break;
+                    }
+                }
+            }
+            if (score > 0) {
+                scores.put(category, score);
+            }
+        });
+        return scores;
+    }
+
+    /**
+     * Zerlegt Suchtext in Kleinbuchstaben-Tokens. Bekannte Tokens kommen aus dem Pool,
+     * unbekannte werden nicht aufgenommen, damit freie Anfragen den Pool nicht wachsen lassen.
+     */
+    String[] tokenize(String text) {
+        return tokenize(text, false);
+    }
+
+    int pooledTokens() {
+        return tokenPool.size();
+    }
+
+    /**
+     * Zerlegt in Kleinbuchstaben-Tokens aus [a-z0-9] ohne Regex; beim Indexieren werden
+     * die Tokens im Pool interniert.
+     */
+    private String[] tokenize(String text, boolean intern) {
+        if (text == null || text.isEmpty()) {
+            return new String[0];
+        }
+        List<String> tokens = new ArrayList<>();
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? Character.toLowerCase(text.charAt(i)) : ' ';
+            boolean tokenChar = (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                String token = text.substring(start, i).toLowerCase(Locale.ROOT);
+                tokens.add(intern ? tokenPool.computeIfAbsent(token, key -> key) : tokenPool.getOrDefault(token, token));
+                start = -1;
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    private int postingSize(String token) {
+        Set<String> posting = postings.get(token);
+        return posting == null ? 0 : posting.size();
+    }
+
+    private static double jaccard(Set<String> left, Set<String> right) {
+        int shared = 0;
+        for (String token : left) {
+            if (right.contains(token)) {
+                shared++;
+            }
+        }
+        int union = left.size() + right.size() - shared;
+        return union == 0 ? 0 : (double) shared / union;
+    }
+
+    private static String[] distinct(String[] tokens) {
+        return Arrays.stream(tokens).distinct().toArray(String[]::new);
+    }
+
+    private static String stripPunctuation(String word) {
+        int start = 0;
+        int end = word.length();
+        while (start < end && !Character.isLetterOrDigit(word.charAt(start))) {
+            start++;
+        }
+        while (end > start && !Character.isLetterOrDigit(word.charAt(end - 1))) {
+            end--;
+        }
+        return word.substring(start, end);
+    }
+
+    private static void removePosting(Map<String, Set<String>> index, String key, String productId) {
+        index.computeIfPresent(key, (ignored, ids) -> {
+            ids.remove(productId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+}
@@ -0,0 +1,220 @@
+package com.chrono.chrono.warehouse.service;
+
+import com.chrono.chrono.warehouse.model.SensorReading;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Messreihe eines Standorts mit fester Speichergrösse: die letzten Rohwerte liegen in einem
+ * Ringpuffer aus primitiven Arrays, ältere Daten nur noch als Minuten-, Stunden- und
+ * Tagesaggregate (min/max/Summe) in ebenfalls festen Ringen. Der Speicherbedarf hängt damit
+ * nur von den Kapazitäten ab, nicht von der Laufzeit der Sensoren.
+ * <p>
+ * Nicht threadsicher; Aufrufer synchronisieren auf der Instanz.
+ */
+final class SensorSeries {
+
+    static final int TEMPERATURE = 0;
+    static final int HUMIDITY = 1;
+    static final int WEIGHT = 2;
+    static final int METRICS = 3;
+
+    enum Resolution {
+        MINUTE("1m", 60_000L, 360),
+        HOUR("1h", 3_600_000L, 168),
+        DAY("1d", 86_400_000L, 90);
+
+        private final String code;
+        private final long widthMillis;
+        private final int buckets;
+
+        Resolution(String code, long widthMillis, int buckets) {
+            this.code = code;
+            this.widthMillis = widthMillis;
+            this.buckets = buckets;
+        }
+
+        String code() {
+            return code;
+        }
+
+        static Resolution fromCode(String code) {
+            for (Resolution resolution : values()) {
+                if (resolution.code.equalsIgnoreCase(code)) {
+                    return resolution;
+                }
+            }
+            throw new IllegalArgumentException("Unbekannte Auflösung " + code + " (erlaubt: 1m, 1h, 1d)");
+        }
+    }
+
+    private final long[] timestamps;
+    private final double[] values;
+    private int head;
+    private int size;
+
+    private final Rollup[] rollups;
+    /** Ob eine Schwellwertregel gerade verletzt ist; Alarme nur beim Übergang. */
+    private final boolean[] breached;
+
+    SensorSeries(int capacity, int thresholdRules) {
+        this.timestamps = new long[capacity];
+        this.values = new double[capacity * METRICS];
+        Resolution[] resolutions = Resolution.values();
+        this.rollups = new Rollup[resolutions.length];
+        for (int i = 0; i < resolutions.length; i++) {
+            rollups[i] = new Rollup(resolutions[i]);
+        }
+        this.breached = new boolean[thresholdRules];
+    }
+
+    void add(long timestamp, double temperature, double humidity, double weight) {
+        timestamps[head] = timestamp;
+        int offset = head * METRICS;
+        values[offset + TEMPERATURE] = temperature;
+        values[offset + HUMIDITY] = humidity;
+        values[offset + WEIGHT] = weight;
+        head = (head + 1) % timestamps.length;
+        if (size < timestamps.length) {
+            size++;
+        }
+        for (Rollup rollup : rollups) {
+            rollup.add(timestamp, temperature, humidity, weight);
+        }
+    }
+
+    /**
+     * Setzt den Verletzungszustand einer Regel und meldet, ob sie gerade neu verletzt wurde.
+     */
+    boolean updateBreach(int rule, boolean violated) {
+        boolean wasBreached = breached[rule];
+        breached[rule] = violated;
+        return violated && !wasBreached;
+    }
+
+    /**
+     * Rohwerte in Ankunftsreihenfolge, älteste zuerst.
+     */
+    List<SensorReading> readings(String locationId) {
+        List<SensorReading> result = new ArrayList<>(size);
+        int start = (head - size + timestamps.length) % timestamps.length;
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % timestamps.length;
+            int offset = index * METRICS;
+            result.add(new SensorReading(locationId, values[offset + TEMPERATURE], values[offset + HUMIDITY],
+                    values[offset + WEIGHT], Instant.ofEpochMilli(timestamps[index])));
+        }
+        return result;
+    }
+
+    List<Bucket> rollup(Resolution resolution) {
+        return rollups[resolution.ordinal()].buckets();
+    }
+
+    /**
+     * Höchste Temperatur im Aufbewahrungszeitraum der Tagesaggregate, {@code NaN} ohne Messwerte.
+     */
+    double maxTemperature() {
+        double max = Double.NaN;
+        for (Bucket bucket : rollup(Resolution.DAY)) {
+            max = Double.isNaN(max) ? bucket.max(TEMPERATURE) : Math.max(max, bucket.max(TEMPERATURE));
+        }
+        return max;
+    }
+
+    record Bucket(long startMillis, int count, double[] min, double[] max, double[] sum) {
+
+        double min(int metric) {
+            return min[metric];
+        }
+
+        double max(int metric) {
+            return max[metric];
+        }
+
+        double average(int metric) {
+            return count == 0 ? 0 : sum[metric] / count;
+        }
+    }
+
+    /**
+     * Direkt adressierter Ring: Bucket-Nummer modulo Kapazität. Ein Slot wird beim ersten
+     * Wert eines neueren Buckets zurückgesetzt; Werte, die älter als der Ring sind, fallen weg.
+     */
+    private static final class Rollup {
+
+        private final Resolution resolution;
+        private final long[] bucketNumbers;
+        private final int[] counts;
+        private final double[] min;
+        private final double[] max;
+        private final double[] sum;
+        private long newestBucket = Long.MIN_VALUE;
+
+        private Rollup(Resolution resolution) {
+            this.resolution = resolution;
+            int capacity = resolution.buckets;
+            this.bucketNumbers = new long[capacity];
+            this.counts = new int[capacity];
+            this.min = new double[capacity * METRICS];
+            this.max = new double[capacity * METRICS];
+            this.sum = new double[capacity * METRICS];
+        }
+
+        private void add(long timestamp, double temperature, double humidity, double weight) {
+            long bucket = Math.floorDiv(timestamp, resolution.widthMillis);
+            int capacity = bucketNumbers.length;
+            if (newestBucket != Long.MIN_VALUE && bucket <= newestBucket - capacity) {
+                return;
+            }
+            newestBucket = Math.max(newestBucket, bucket);
+            int slot = (int) Math.floorMod(bucket, (long) capacity);
+            int offset = slot * METRICS;
+            if (counts[slot] == 0 || bucketNumbers[slot] != bucket) {
+                bucketNumbers[slot] = bucket;
+                counts[slot] = 0;
+                for (int metric = 0; metric < METRICS; metric++) {
+                    min[offset + metric] = Double.POSITIVE_INFINITY;
+                    max[offset + metric] = Double.NEGATIVE_INFINITY;
+                    sum[offset + metric] = 0;
+                }
+            }
+            counts[slot]++;
+            accumulate(offset + TEMPERATURE, temperature);
+            accumulate(offset + HUMIDITY, humidity);
+            accumulate(offset + WEIGHT, weight);
+        }
+
+        private void accumulate(int index, double value) {
+            min[index] = Math.min(min[index], value);
+            max[index] = Math.max(max[index], value);
+            sum[index] += value;
+        }
+
+        private List<Bucket> buckets() {
+            List<Bucket> result = new ArrayList<>();
+            if (newestBucket == Long.MIN_VALUE) {
+                return result;
+            }
+            int capacity = bucketNumbers.length;
+            for (long bucket = newestBucket - capacity + 1; bucket <= newestBucket; bucket++) {
+                int slot = (int) Math.floorMod(bucket, (long) capacity);
+                if (counts[slot] == 0 || bucketNumbers[slot] != bucket) {
+                    continue;
+                }
+                int offset = slot * METRICS;
+                double[] bucketMin = new double[METRICS];
+                double[] bucketMax = new double[METRICS];
+                double[] bucketSum = new double[METRICS];
+                System.arraycopy(min, offset, bucketMin, 0, METRICS);
+                System.arraycopy(max, offset, bucketMax, 0, METRICS);
+                System.arraycopy(sum, offset, bucketSum, 0, METRICS);
+                result.add(new Bucket(bucket * resolution.widthMillis, counts[slot], bucketMin, bucketMax,
+                        bucketSum));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.chrono.chrono.warehouse.service;
+
+import com.chrono.chrono.warehouse.dto.SensorBatchResponse;
+import com.chrono.chrono.warehouse.dto.SensorReadingRequest;
+import com.chrono.chrono.warehouse.dto.SensorRollupResponse;
+import com.chrono.chrono.warehouse.model.SensorAlert;
+import com.chrono.chrono.warehouse.model.SensorReading;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Zeitreihenspeicher für IoT-Sensorwerte. Pro Standort hält eine {@link SensorSeries} die
+ * letzten Rohwerte in einem Ringpuffer fester Grösse sowie Minuten-, Stunden- und
+ * Tagesaggregate; der Speicherbedarf bleibt damit unabhängig von der Laufzeit der Sensoren
+ * konstant. Die Anzahl Standorte ist ebenfalls begrenzt.
+ * <p>
+ * Schwellwerte werden beim Einlesen geprüft. Ein Alarm entsteht nur beim Übergang in den
+ * verletzten Zustand, nicht bei jedem weiteren Messwert ausserhalb der Grenze.
+ */
+@Service
+public class SensorTelemetryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SensorTelemetryService.class);
+    private static final String[] METRIC_NAMES = {"temperature", "humidity", "weight"};
+
+    private record Threshold(int metric, boolean upper, double limit) {
+
+        boolean violatedBy(double value) {
+            return upper ? value > limit : value < limit;
+        }
+    }
+
+    private final Map<String, SensorSeries> series = new ConcurrentHashMap<>();
+    private final Deque<SensorAlert> recentAlerts = new ArrayDeque<>();
+    private final List<Threshold> thresholds = new ArrayList<>();
+    private final int bufferCapacity;
+    private final int maxSeries;
+    private final int maxBatchSize;
+    private final int alertHistorySize;
+
+    public SensorTelemetryService() {
+        this(1024, 1000, 5000, 500, 2.0, 30.0, 80.0, null);
+    }
+
+    @Autowired
+    public SensorTelemetryService(@Value("${app.warehouse.iot.buffer-capacity:1024}") int bufferCapacity,
+                                  @Value("${app.warehouse.iot.max-series:1000}") int maxSeries,
+                                  @Value("${app.warehouse.iot.max-batch-size:5000}") int maxBatchSize,
+                                  @Value("${app.warehouse.iot.alert-history:500}") int alertHistorySize,
+                                  @Value("${app.warehouse.iot.temperature-min:2}") Double temperatureMin,
+                                  @Value("${app.warehouse.iot.temperature-max:30}") Double temperatureMax,
+                                  @Value("${app.warehouse.iot.humidity-max:80}") Double humidityMax,
+                                  @Value("${app.warehouse.iot.weight-max:#{null}}") Double weightMax) {
+        this.bufferCapacity = Math.max(1, bufferCapacity);
+        this.maxSeries = Math.max(1, maxSeries);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.alertHistorySize = Math.max(1, alertHistorySize);
+        if (temperatureMin != null) {
+            thresholds.add(new Threshold(SensorSeries.TEMPERATURE, false, temperatureMin));
+        }
+        if (temperatureMax != null) {
+            thresholds.add(new Threshold(SensorSeries.TEMPERATURE, true, temperatureMax));
+        }
+        if (humidityMax != null) {
+            thresholds.add(new Threshold(SensorSeries.HUMIDITY, true, humidityMax));
+        }
+        if (weightMax != null) {
+            thresholds.add(new Threshold(SensorSeries.WEIGHT, true, weightMax));
+        }
+    }
+
+    public SensorReading record(SensorReadingRequest request) {
+        validate(request);
+        SensorSeries target = seriesFor(request.getLocationId());
+        List<SensorAlert> alerts = new ArrayList<>();
+        SensorReading reading;
+        synchronized (target) {
+            reading = ingest(target, request, alerts);
+        }
+        publish(alerts);
+        return reading;
+    }
+
+    /**
+     * Nimmt die Messwerte eines Gateways gesammelt entgegen. Die Werte werden nach Standort
+     * gruppiert, sodass jede Messreihe pro Batch nur einmal gesperrt wird. Ungültige Werte
+     * und Werte für Standorte jenseits der Standortgrenze werden gezählt und verworfen.
+     */
+    public SensorBatchResponse recordBatch(List<SensorReadingRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            return new SensorBatchResponse(0, 0, List.of());
+        }
+        if (requests.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch zu gross: " + requests.size() + " Messwerte (maximal "
+                    + maxBatchSize + ")");
+        }
+        Map<String, List<SensorReadingRequest>> byLocation = new LinkedHashMap<>();
+        int rejected = 0;
+        for (SensorReadingRequest request : requests) {
+            if (!isValid(request)) {
+                rejected++;
+                continue;
+            }
+            byLocation.computeIfAbsent(request.getLocationId(), key -> new ArrayList<>()).add(request);
+        }
+
+        int accepted = 0;
+        List<SensorAlert> alerts = new ArrayList<>();
+        for (Map.Entry<String, List<SensorReadingRequest>> group : byLocation.entrySet()) {
+            SensorSeries target;
+            try {
+                target = seriesFor(group.getKey());
+            } catch (IllegalStateException e) {
+                rejected += group.getValue().size();
+                continue;
+            }
+            synchronized (target) {
+                for (SensorReadingRequest request : group.getValue()) {
+                    ingest(target, request, alerts);
+                }
+            }
+            accepted += group.getValue().size();
+        }
+        if (rejected > 0) {
+            logger.warn("IoT-Batch: {} von {} Messwerten verworfen", rejected, requests.size());
+        }
+        publish(alerts);
+        return new SensorBatchResponse(accepted, rejected, alerts);
+    }
+
+    public List<SensorReading> readings(String locationId) {
+        SensorSeries target = locationId == null ? null : series.get(locationId);
+        if (target == null) {
+            return List.of();
+        }
+        synchronized (target) {
+            return target.readings(locationId);
+        }
+    }
+
+    /**
+     * @param resolution {@code 1m}, {@code 1h} oder {@code 1d}; ohne Angabe {@code 1h}
+     */
+    public List<SensorRollupResponse> rollups(String locationId, String resolution) {
+        SensorSeries.Resolution selected = SensorSeries.Resolution.fromCode(resolution == null ? "1h" : resolution);
+        SensorSeries target = locationId == null ? null : series.get(locationId);
+        if (target == null) {
+            return List.of();
+        }
+        List<SensorSeries.Bucket> buckets;
+        synchronized (target) {
+            buckets = target.rollup(selected);
+        }
+        List<SensorRollupResponse> result = new ArrayList<>(buckets.size());
+        for (SensorSeries.Bucket bucket : buckets) {
+            result.add(new SensorRollupResponse(locationId, selected.code(), Instant.ofEpochMilli(bucket.startMillis()),
+                    bucket.count(),
+                    bucket.min(SensorSeries.TEMPERATURE), bucket.max(SensorSeries.TEMPERATURE),
+                    round(bucket.average(SensorSeries.TEMPERATURE)),
+                    bucket.min(SensorSeries.HUMIDITY), bucket.max(SensorSeries.HUMIDITY),
+                    round(bucket.average(SensorSeries.HUMIDITY)),
+                    bucket.min(SensorSeries.WEIGHT), bucket.max(SensorSeries.WEIGHT),
+                    round(bucket.average(SensorSeries.WEIGHT))));
+        }
+        return result;
+    }
+
+    /**
+     * Zuletzt ausgelöste Alarme, neueste zuerst.
+     */
+    public List<SensorAlert> recentAlerts() {
+        synchronized (recentAlerts) {
+            return new ArrayList<>(recentAlerts);
+        }
+    }
+
+    /**
+     * Höchste Temperatur über alle Standorte, gelesen aus den Tagesaggregaten statt aus den
+     * Rohwerten.
+     */
+    public OptionalDouble maxTemperature() {
+        double max = Double.NaN;
+        for (SensorSeries candidate : series.values()) {
+            double value;
+            synchronized (candidate) {
+                value = candidate.maxTemperature();
+            }
+            if (!Double.isNaN(value) && (Double.isNaN(max) || value > max)) {
+                max = value;
+            }
+        }
+        return Double.isNaN(max) ? OptionalDouble.empty() : OptionalDouble.of(max);
+    }
+
+    private SensorSeries seriesFor(String locationId) {
+        SensorSeries existing = series.get(locationId);
+        if (existing != null) {
+            return existing;
+        }
+        return series.computeIfAbsent(locationId, key -> {
+            if (series.size() >= maxSeries) {
+                throw new IllegalStateException("Maximale Anzahl Sensorstandorte erreicht (" + maxSeries + ")");
+            }
+            return new SensorSeries(bufferCapacity, thresholds.size());
+        });
+    }
+
+    private SensorReading ingest(SensorSeries target, SensorReadingRequest request, List<SensorAlert> alerts) {
+        Instant timestamp = request.getTimestamp() != null ? request.getTimestamp() : Instant.now();
+        double[] values = {request.getTemperature(), request.getHumidity(), request.getWeight()};
+        target.add(timestamp.toEpochMilli(), values[SensorSeries.TEMPERATURE], values[SensorSeries.HUMIDITY],
+                values[SensorSeries.WEIGHT]);
+        for (int rule = 0; rule < thresholds.size(); rule++) {
+            Threshold threshold = thresholds.get(rule);
+            double value = values[threshold.metric()];
+            if (target.updateBreach(rule, threshold.violatedBy(value))) {
+                alerts.add(new SensorAlert(request.getLocationId(), METRIC_NAMES[threshold.metric()],
+                        threshold.upper() ? "above" : "below", value, threshold.limit(), timestamp));
+            }
+        }
+        return new SensorReading(request.getLocationId(), request.getTemperature(), request.getHumidity(),
+                request.getWeight(), timestamp);
+    }
+
+    private void publish(List<SensorAlert> alerts) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+        synchronized (recentAlerts) {
+            for (SensorAlert alert : alerts) {
+                recentAlerts.addFirst(alert);
+                if (recentAlerts.size() > alertHistorySize) {
+                    recentAlerts.removeLast();
+                }
+            }
+        }
+        for (SensorAlert alert : alerts) {
+            logger.warn("Sensoralarm {}: {} = {} {} Grenzwert {}", alert.getLocationId(), alert.getMetric(),
+                    alert.getValue(), "above".equals(alert.getDirection()) ? "über" : "unter", alert.getThreshold());
+        }
+    }
+
+    private void validate(SensorReadingRequest request) {
+        if (request == null || request.getLocationId() == null || request.getLocationId().isBlank()) {
+            throw new IllegalArgumentException("Sensorwert ohne Standort");
+        }
+        if (!isValid(request)) {
+            throw new IllegalArgumentException("Ungültiger Sensorwert für " + request.getLocationId());
+        }
+    }
+
+    private static boolean isValid(SensorReadingRequest request) {
+        return request != null
+                && request.getLocationId() != null && !request.getLocationId().isBlank()
+                && Double.isFinite(request.getTemperature())
+                && Double.isFinite(request.getHumidity())
+                && Double.isFinite(request.getWeight());
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,77 @@
+package com.chrono.chrono.warehouse.service;
+
+import java.util.Arrays;
+
+/**
+ * Gleitende Summe über ein Zeitfenster aus festen Buckets. Der Ring fasst zwei Fenster, damit
+ * neben dem aktuellen auch das vorherige Fenster für Trends verfügbar ist. Beide Summen werden
+ * beim Weiterschieben fortgeschrieben; Lesen und Schreiben kosten damit O(1) amortisiert,
+ * unabhängig von der Zahl der Ereignisse.
+ */
+final class SlidingWindowCounter {
+
+    private final long bucketMillis;
+    private final int bucketsPerWindow;
+    private final double[] ring;
+    private long newestBucket = Long.MIN_VALUE;
+    private double current;
+    private double previous;
+
+    SlidingWindowCounter(long windowMillis, int bucketsPerWindow) {
+        if (bucketsPerWindow <= 0 || windowMillis < bucketsPerWindow) {
+            throw new IllegalArgumentException("Ungültige Fensterdefinition");
+        }
+        this.bucketMillis = windowMillis / bucketsPerWindow;
+        this.bucketsPerWindow = bucketsPerWindow;
+        this.ring = new double[bucketsPerWindow * 2];
+    }
+
+    synchronized void add(long nowMillis, double amount) {
+        advance(nowMillis);
+        ring[slot(newestBucket)] += amount;
+        current += amount;
+    }
+
+    /** Summe der letzten Fensterlänge bis {@code nowMillis}. */
+    synchronized double current(long nowMillis) {
+        advance(nowMillis);
+        return current;
+    }
+
+    /** Summe des Fensters unmittelbar davor. */
+    synchronized double previous(long nowMillis) {
+        advance(nowMillis);
+        return previous;
+    }
+
+    private void advance(long nowMillis) {
+        long bucket = Math.floorDiv(nowMillis, bucketMillis);
+        if (newestBucket == Long.MIN_VALUE || bucket - newestBucket >= ring.length) {
+            Arrays.fill(ring, 0);
+            current = 0;
+            previous = 0;
+            newestBucket = bucket;
+            return;
+        }
+        // Uhren laufen nicht rückwärts in ein bereits geschlossenes Bucket; späte Werte zählen zum neuesten
+        while (newestBucket < bucket) {
+            newestBucket++;
+            int expired = slot(newestBucket);
+            previous -= ring[expired];
+            ring[expired] = 0;
+            double leaving = ring[slot(newestBucket - bucketsPerWindow)];
+            current -= leaving;
+            previous += leaving;
+        }
+        if (current < 0 && current > -1e-9) {
+            current = 0;
+        }
+        if (previous < 0 && previous > -1e-9) {
+            previous = 0;
+        }
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) ring.length);
+    }
+}
@@ -1,25 +1,33 @@
 package com.chrono.chrono.warehouse.service;
 
+import com.chrono.chrono.entities.inventory.InventoryTombstone;
 import com.chrono.chrono.entities.inventory.Product;
 import com.chrono.chrono.entities.inventory.StockLevel;
 import com.chrono.chrono.entities.inventory.Warehouse;
+import com.chrono.chrono.repositories.inventory.InventoryTombstoneRepository;
 import com.chrono.chrono.repositories.inventory.ProductRepository;
 import com.chrono.chrono.repositories.inventory.StockLevelRepository;
 import com.chrono.chrono.repositories.inventory.WarehouseRepository;
 import com.chrono.chrono.warehouse.dto.*;
 import com.chrono.chrono.warehouse.model.*;
 import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
-import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -29,18 +37,22 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.PriorityQueue;
-import java.util.NavigableMap;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class WarehouseIntelligenceService {
 
+    private static final Logger logger = LoggerFactory.getLogger(WarehouseIntelligenceService.class);
+
     private static final double WALKING_SPEED_MS = 1.5;
     private static final Map<String, List<String>> CATEGORY_KEYWORDS = Map.of(
             "Wearables", List.of("glove", "wear", "hand", "sleeve", "vest"),
@@ -49,37 +61,91 @@ public class WarehouseIntelligenceService {
             "Packaging", List.of("label", "box", "pack", "carton"),
             "Consumables", List.of("battery", "pad", "clean"),
             "Software", List.of("license", "suite", "subscription"));
-    private static final List<BoxOption> BOX_CATALOG = List.of(
-            new BoxOption("BOX-S", "Parcel Small 30x20x15", 30, 20, 15, 5),
-            new BoxOption("BOX-M", "Parcel Medium 40x30x25", 40, 30, 25, 12),
-            new BoxOption("BOX-L", "Parcel Large 60x40x40", 60, 40, 40, 25),
-            new BoxOption("CRATE-XL", "Crate XL 80x60x60", 80, 60, 60, 50));
+    private static final List<BoxPacker.BoxType> BOX_CATALOG = List.of(
+            new BoxPacker.BoxType("BOX-S", "Parcel Small 30x20x15", 30, 20, 15, 5),
+            new BoxPacker.BoxType("BOX-M", "Parcel Medium 40x30x25", 40, 30, 25, 12),
+            new BoxPacker.BoxType("BOX-L", "Parcel Large 60x40x40", 60, 40, 40, 25),
+            new BoxPacker.BoxType("CRATE-XL", "Crate XL 80x60x60", 80, 60, 60, 50));
+    private static final int MAX_PACKED_UNITS = 500;
+    private static final int DEMAND_LOOKBACK_DAYS = 90;
+    private static final int PARALLEL_ANALYTICS_THRESHOLD = 256;
+
+    /** Prognose und Nachschubanalyse eines Produkts aus {@link #analyseReplenishmentBatch}. */
+    public record ReplenishmentInsight(PredictiveInventoryResponse forecast,
+                                       PredictiveReplenishmentResponse analytics) {
+    }
 
     private final ProductRepository productRepository;
     private final WarehouseRepository warehouseRepository;
     private final StockLevelRepository stockLevelRepository;
+    private final InventoryTombstoneRepository tombstoneRepository;
+    private final MovementLedgerService movementLedger;
+    private final SensorTelemetryService sensorTelemetry;
+    private final WarehouseKpiService kpis;
+    private final long routingBudgetNanos;
+    private final Map<String, BoxRecommendationResponse> packingCache;
+    private final Pageable syncPage;
+    private final Duration syncOverlap;
+    private final Duration tombstoneRetention;
+    private final Object syncLock = new Object();
+    /** Startzeit des letzten erfolgreichen Abgleichs; {@code null} vor dem ersten Laden. */
+    private volatile Instant syncWatermark;
 
     private final Map<String, WarehouseProduct> products = new ConcurrentHashMap<>();
     private final Map<String, WarehouseLocation> locations = new ConcurrentHashMap<>();
-    private final List<InventoryItem> inventory = new ArrayList<>();
-    private final Map<String, List<SensorReading>> sensorReadings = new ConcurrentHashMap<>();
+    private final Map<Long, String> productIdsByEntity = new ConcurrentHashMap<>();
+    private final Map<Long, String> locationIdsByEntity = new ConcurrentHashMap<>();
+    private final WarehouseTopology topology = new WarehouseTopology(locations);
+    private final InventoryIndex inventory = new InventoryIndex();
+    private final ProductSearchIndex productIndex = new ProductSearchIndex();
+    /** Nachfrageprofile je Produkt; verworfen bei der nächsten Bewegung des Produkts oder am Folgetag. */
+    private final Map<String, DemandProfile> demandProfiles = new ConcurrentHashMap<>();
     private final Map<String, SupplierProfile> suppliers = new HashMap<>();
-    private final List<MovementLogEntry> movementLedger = new ArrayList<>();
     private final List<ReturnCase> returnCases = new ArrayList<>();
 
     private final Map<String, CategoryStatistics> categoryStatistics = new ConcurrentHashMap<>();
 
     public WarehouseIntelligenceService() {
-        this(null, null, null);
+        this(null, null, null, null, new MovementLedgerService(), new SensorTelemetryService(),
+                new WarehouseKpiService(), Duration.ofMillis(50), 1000, 500, Duration.ofMinutes(1), Duration.ofDays(7));
     }
 
+    @Autowired
     public WarehouseIntelligenceService(ProductRepository productRepository,
                                         WarehouseRepository warehouseRepository,
-                                        StockLevelRepository stockLevelRepository) {
+                                        StockLevelRepository stockLevelRepository,
+                                        InventoryTombstoneRepository tombstoneRepository,
+                                        MovementLedgerService movementLedger,
+                                        SensorTelemetryService sensorTelemetry,
+                                        WarehouseKpiService kpis,
+                                        @Value("${app.warehouse.routing.time-budget:PT0.05S}") Duration routingBudget,
+                                        @Value("${app.warehouse.packing.cache-size:1000}") int packingCacheSize,
+                                        @Value("${app.warehouse.sync.page-size:500}") int syncPageSize,
+                                        @Value("${app.warehouse.sync.overlap:PT1M}") Duration syncOverlap,
+                                        @Value("${app.warehouse.sync.tombstone-retention:P7D}") Duration tombstoneRetention) {
         this.productRepository = productRepository;
         this.warehouseRepository = warehouseRepository;
         this.stockLevelRepository = stockLevelRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.movementLedger = movementLedger;
+        // Bewegungen aus Transaktionen landen erst nach dem Commit im Ledger; erst dann ist das Profil veraltet
+        movementLedger.addAppendListener(entry -> demandProfiles.remove(entry.getProductId()));
+        this.sensorTelemetry = sensorTelemetry;
+        this.kpis = kpis;
+        this.routingBudgetNanos = routingBudget.toNanos();
+        this.syncPage = PageRequest.of(0, Math.max(1, syncPageSize));
+        this.syncOverlap = syncOverlap;
+        this.tombstoneRetention = tombstoneRetention;
+        int packingCacheLimit = Math.max(1, packingCacheSize);
+        // LRU je Artikelmix: wiederkehrende Bestellungen werden nicht erneut gepackt
+        this.packingCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BoxRecommendationResponse> eldest) {
+                return size() > packingCacheLimit;
+            }
+        };
         seedDemoData();
+        rebuildKpiInventory();
     }
 
     @PostConstruct
@@ -98,6 +164,7 @@ public class WarehouseIntelligenceService {
         chronoBot.addAttribute("AR-ready");
         chronoBot.addAttribute("AI-optimised");
         products.put(chronoBot.getId(), chronoBot);
+        productIndex.put(chronoBot.getId(), chronoBot.getName(), chronoBot.getCategory());
         updateCategoryStatistics(chronoBot.getCategory(), chronoBot.getWeightKg(), chronoBot.getVolumeCubicM());
 
         WarehouseProduct smartGlove = new WarehouseProduct("SKU-AR-GLV", "Smart Picking Glove");
@@ -108,6 +175,7 @@ public class WarehouseIntelligenceService {
         smartGlove.setSalesPrice(new BigDecimal("259.00"));
         smartGlove.setDemandSegment("B");
         products.put(smartGlove.getId(), smartGlove);
+        productIndex.put(smartGlove.getId(), smartGlove.getName(), smartGlove.getCategory());
         updateCategoryStatistics(smartGlove.getCategory(), smartGlove.getWeightKg(), smartGlove.getVolumeCubicM());
 
         locations.put("A-01-01", new WarehouseLocation("A-01-01", "A", 2, 4, 1, 80));
@@ -122,8 +190,8 @@ public class WarehouseIntelligenceService {
         item1.setBatchNumber("LOT-2025-01");
         item1.setLifecycleStatus("available");
         item1.setLastMovement(Instant.now().minusSeconds(3600));
-        inventory.add(item1);
-        adjustLocationOccupancy(item1.getLocationId(), item1.getQuantity());
+        inventory.put(item1);
+        recomputeLocationOccupancy(item1.getLocationId());
 
         InventoryItem item2 = new InventoryItem();
         item2.setProductId(smartGlove.getId());
@@ -131,8 +199,8 @@ public class WarehouseIntelligenceService {
         item2.setQuantity(140);
         item2.setLifecycleStatus("available");
         item2.setLastMovement(Instant.now().minusSeconds(7200));
-        inventory.add(item2);
-        adjustLocationOccupancy(item2.getLocationId(), item2.getQuantity());
+        inventory.put(item2);
+        recomputeLocationOccupancy(item2.getLocationId());
 
         suppliers.put("SUP-001", new SupplierProfile("SUP-001", "Quantum Logistics", 0.95, 0.88, 0.72, 3));
         suppliers.put("SUP-002", new SupplierProfile("SUP-002", "EcoFreight", 0.89, 0.92, 0.94, 5));
@@ -142,45 +210,236 @@ public class WarehouseIntelligenceService {
                 "Customer return - faulty sensor", "inspection", Instant.now().minusSeconds(86400)));
     }
 
+    /**
+     * Vollständiges Laden beim Start. Produkte, Lager und Bestände werden seitenweise per
+     * Keyset (ID) gelesen, Bestände samt Produkt und Lager in einer Abfrage. Standorte mit
+     * Beständen in der Datenbank werden beim ersten Treffer geleert, danach gilt die Datenbank.
+     */
     public void refreshFromDatabase() {
         if (productRepository == null || warehouseRepository == null || stockLevelRepository == null) {
             return;
         }
-        productRepository.findAll().forEach(this::mapProductEntity);
-        warehouseRepository.findAll().forEach(this::mapWarehouseEntity);
-
-        List<StockLevel> levels = stockLevelRepository.findAll();
-        Set<String> touchedLocations = levels.stream()
-                .map(StockLevel::getWarehouse)
-                .filter(Objects::nonNull)
-                .map(this::mapWarehouseEntity)
-                .map(WarehouseLocation::getId)
-                .collect(Collectors.toSet());
-
-        if (!touchedLocations.isEmpty()) {
-            inventory.removeIf(item -> touchedLocations.contains(item.getLocationId()));
-            touchedLocations.forEach(locationId -> {
-                WarehouseLocation location = locations.get(locationId);
-                if (location != null) {
-                    location.setOccupied(0);
-                }
-            });
+        synchronized (syncLock) {
+            Instant syncStart = Instant.now();
+            int productCount = forEachPage(
+                    afterId -> productRepository.findByIdGreaterThanOrderByIdAsc(afterId, syncPage),
+                    Product::getId, this::mapProductEntity);
+            int warehouseCount = forEachPage(
+                    afterId -> warehouseRepository.findByIdGreaterThanOrderByIdAsc(afterId, syncPage),
+                    Warehouse::getId, this::mapWarehouseEntity);
+
+            Set<String> clearedLocations = new HashSet<>();
+            int levelCount = forEachPage(afterId -> stockLevelRepository.findPageAfter(afterId, syncPage),
+                    StockLevel::getId, level -> {
+                        WarehouseLocation location = resolveLocation(level.getWarehouse());
+                        if (location != null && clearedLocations.add(location.getId())) {
+                            inventory.removeLocation(location.getId());
+                            recomputeLocationOccupancy(location.getId());
+                        }
+                        applyStockLevel(level);
+                    });
+
+            rebuildCategoryStatistics();
+            products.values().forEach(product -> product.setDemandSegment(classifyDemandSegment(product)));
+            rebuildKpiInventory();
+            syncWatermark = syncStart;
+            logger.info("Lagerdaten geladen: {} Produkte, {} Lager, {} Bestände", productCount, warehouseCount,
+                    levelCount);
+        }
+    }
+
+    /**
+     * Periodischer Abgleich: liest nur Zeilen, deren {@code updated_at} nach dem letzten
+     * Abgleich liegt. Die Überlappung fängt Transaktionen ab, die vor dem Wasserzeichen
+     * gestartet, aber erst danach committet wurden; erneut gelesene Zeilen ändern nichts, da
+     * Bestände absolut übernommen werden. Gelöschte Zeilen kommen über die Vermerke in
+     * {@code inv_tombstones} und werden aus allen abgeleiteten Indizes entfernt.
+     */
+    @Scheduled(fixedDelayString = "${app.warehouse.sync.interval:PT1M}",
+            initialDelayString = "${app.warehouse.sync.interval:PT1M}")
+    public void syncChanges() {
+        if (productRepository == null || warehouseRepository == null || stockLevelRepository == null) {
+            return;
         }
+        synchronized (syncLock) {
+            if (syncWatermark == null) {
+                return;
+            }
+            Instant syncStart = Instant.now();
+            Instant since = syncWatermark.minus(syncOverlap);
+            // Löschungen zuerst: eine danach neu angelegte Zeile kommt unten wieder hinzu
+            int[] removedProducts = {0};
+            int deletedCount = tombstoneRepository == null ? 0 : forEachPage(
+                    afterId -> tombstoneRepository.findByDeletedAtAfterAndIdGreaterThanOrderByIdAsc(since, afterId,
+                            syncPage),
+                    InventoryTombstone::getId, tombstone -> {
+                        if (applyTombstone(tombstone) && tombstone.getEntityType() == InventoryTombstone.EntityType.PRODUCT) {
+                            removedProducts[0]++;
+                        }
+                    });
+            int productCount = forEachPage(
+                    afterId -> productRepository.findByUpdatedAtAfterAndIdGreaterThanOrderByIdAsc(since, afterId,
+                            syncPage),
+                    Product::getId, entity -> {
+                        WarehouseProduct product = mapProductEntity(entity);
+                        kpis.recordStockChange(product.getId(), 0, product.getCostPrice());
+                    });
+            int warehouseCount = forEachPage(
+                    afterId -> warehouseRepository.findByUpdatedAtAfterAndIdGreaterThanOrderByIdAsc(since, afterId,
+                            syncPage),
+                    Warehouse::getId, entity -> recomputeLocationOccupancy(mapWarehouseEntity(entity).getId()));
+            int levelCount = forEachPage(
+                    afterId -> stockLevelRepository.findChangedPageAfter(since, afterId, syncPage),
+                    StockLevel::getId, level -> {
+                        int applied = applyStockLevel(level);
+                        if (applied != 0) {
+                            WarehouseProduct product = resolveProduct(level.getProduct());
+                            kpis.recordStockChange(product.getId(), applied, product.getCostPrice());
+                            product.setDemandSegment(classifyDemandSegment(product));
+                        }
+                    });
+            if (productCount + removedProducts[0] > 0) {
+                rebuildCategoryStatistics();
+            }
+            if (tombstoneRepository != null) {
+                tombstoneRepository.deleteOlderThan(syncStart.minus(tombstoneRetention));
+            }
+            syncWatermark = syncStart;
+            if (productCount + warehouseCount + levelCount + deletedCount > 0) {
+                logger.debug("Lagerabgleich: {} Produkte, {} Lager, {} Bestände geändert, {} Löschungen",
+                        productCount, warehouseCount, levelCount, deletedCount);
+            }
+        }
+    }
 
-        for (StockLevel level : levels) {
-            Product product = level.getProduct();
-            Warehouse warehouse = level.getWarehouse();
-            if (product == null || warehouse == null) {
-                continue;
+    /**
+     * Entfernt eine gelöschte Zeile aus den abgeleiteten Indizes. Wiederholt gelesene Vermerke
+     * (Überlappung) finden keine Zuordnung mehr und ändern nichts.
+     *
+     * @return {@code true}, wenn etwas entfernt wurde
+     */
+    private boolean applyTombstone(InventoryTombstone tombstone) {
+        return switch (tombstone.getEntityType()) {
+            case PRODUCT -> removeProduct(tombstone.getEntityId());
+            case WAREHOUSE -> removeWarehouse(tombstone.getEntityId());
+            case STOCK_LEVEL -> removeStockLevel(tombstone.getProductId(), tombstone.getWarehouseId());
+        };
+    }
+
+    private boolean removeProduct(Long entityId) {
+        String productId = productIdsByEntity.remove(entityId);
+        // Eine neu angelegte Zeile mit derselben SKU bleibt erhalten
+        if (productId == null || productIdsByEntity.containsValue(productId)) {
+            return false;
+        }
+        for (InventoryItem item : inventory.findByProduct(productId)) {
+            inventory.remove(productId, item.getLocationId());
+            recomputeLocationOccupancy(item.getLocationId());
+        }
+        products.remove(productId);
+        productIndex.remove(productId);
+        demandProfiles.remove(productId);
+        kpis.removeProduct(productId);
+        return true;
+    }
+
+    private boolean removeWarehouse(Long entityId) {
+        String locationId = locationIdsByEntity.remove(entityId);
+        if (locationId == null || locationIdsByEntity.containsValue(locationId)) {
+            return false;
+        }
+        for (InventoryItem item : inventory.findByLocation(locationId)) {
+            removeInventoryEntry(item.getProductId(), locationId);
+        }
+        locations.remove(locationId);
+        return true;
+    }
+
+    private boolean removeStockLevel(Long productEntityId, Long warehouseEntityId) {
+        String productId = productEntityId == null ? null : productIdsByEntity.get(productEntityId);
+        String locationId = warehouseEntityId == null ? null : locationIdsByEntity.get(warehouseEntityId);
+        if (productId == null || locationId == null) {
+            return false;
+        }
+        return removeInventoryEntry(productId, locationId);
+    }
+
+    private boolean removeInventoryEntry(String productId, String locationId) {
+        int removed = inventory.remove(productId, locationId);
+        if (removed == 0) {
+            return false;
+        }
+        recomputeLocationOccupancy(locationId);
+        WarehouseProduct product = products.get(productId);
+        kpis.recordStockChange(productId, -removed, product != null ? product.getCostPrice() : null);
+        if (product != null) {
+            product.setDemandSegment(classifyDemandSegment(product));
+        }
+        return true;
+    }
+
+    private <T> int forEachPage(Function<Long, List<T>> pageAfter, ToLongFunction<T> idOf, Consumer<T> action) {
+        long afterId = 0;
+        int total = 0;
+        while (true) {
+            List<T> page = pageAfter.apply(afterId);
+            page.forEach(action);
+            total += page.size();
+            if (page.size() < syncPage.getPageSize()) {
+                return total;
             }
-            WarehouseProduct mappedProduct = mapProductEntity(product);
-            WarehouseLocation location = mapWarehouseEntity(warehouse);
-            int absolute = toInt(level.getQuantity());
-            updateInventoryEntry(mappedProduct, location, absolute, absolute);
+            afterId = idOf.applyAsLong(page.get(page.size() - 1));
         }
+    }
 
-        rebuildCategoryStatistics();
-        products.values().forEach(product -> product.setDemandSegment(classifyDemandSegment(product)));
+    /**
+     * Übernimmt die absolute Menge eines Bestands; Produkt und Lager werden nur beim ersten
+     * Auftreten gemappt, nicht pro Bestandszeile.
+     *
+     * @return tatsächliche Mengenänderung
+     */
+    private int applyStockLevel(StockLevel level) {
+        WarehouseProduct product = resolveProduct(level.getProduct());
+        WarehouseLocation location = resolveLocation(level.getWarehouse());
+        if (product == null || location == null) {
+            return 0;
+        }
+        int absolute = toInt(level.getQuantity());
+        return updateInventoryEntry(product, location, absolute, absolute);
+    }
+
+    private WarehouseProduct resolveProduct(Product entity) {
+        if (entity == null) {
+            return null;
+        }
+        String productId = entity.getId() == null ? null : productIdsByEntity.get(entity.getId());
+        WarehouseProduct product = productId == null ? null : products.get(productId);
+        return product != null ? product : mapProductEntity(entity);
+    }
+
+    private WarehouseLocation resolveLocation(Warehouse entity) {
+        if (entity == null) {
+            return null;
+        }
+        String locationId = entity.getId() == null ? null : locationIdsByEntity.get(entity.getId());
+        WarehouseLocation location = locationId == null ? null : locations.get(locationId);
+        return location != null ? location : mapWarehouseEntity(entity);
+    }
+
+    /**
+     * Bestandswerte der KPI-Zähler vollständig neu aufsetzen; nur beim Laden nötig, danach
+     * werden sie pro Bewegung fortgeschrieben.
+     */
+    private void rebuildKpiInventory() {
+        Map<String, Integer> quantities = new HashMap<>();
+        inventory.values().forEach(item -> quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+        Map<String, BigDecimal> unitCosts = new HashMap<>();
+        products.values().forEach(product -> {
+            if (product.getCostPrice() != null) {
+                unitCosts.put(product.getId(), product.getCostPrice());
+            }
+        });
+        kpis.resetInventory(quantities, unitCosts);
     }
 
     public void registerProduct(Product product) {
@@ -190,6 +449,7 @@ public class WarehouseIntelligenceService {
         WarehouseProduct mapped = mapProductEntity(product);
         rebuildCategoryStatistics();
         mapped.setDemandSegment(classifyDemandSegment(mapped));
+        kpis.recordStockChange(mapped.getId(), 0, mapped.getCostPrice());
     }
 
     public void registerWarehouse(Warehouse warehouse) {
@@ -197,9 +457,7 @@ public class WarehouseIntelligenceService {
             return;
         }
         WarehouseLocation location = mapWarehouseEntity(warehouse);
-        if (inventory.stream().noneMatch(item -> location.getId().equals(item.getLocationId()))) {
-            location.setOccupied(0);
-        }
+        recomputeLocationOccupancy(location.getId());
     }
 
     public void applyStockMovement(Product product,
@@ -213,7 +471,11 @@ public class WarehouseIntelligenceService {
         WarehouseLocation location = mapWarehouseEntity(warehouse);
         int change = toInt(delta);
         int absolute = resultingQuantity == null ? -1 : toInt(resultingQuantity);
-        updateInventoryEntry(mappedProduct, location, change, absolute);
+        int applied = updateInventoryEntry(mappedProduct, location, change, absolute);
+        kpis.recordStockChange(mappedProduct.getId(), applied, mappedProduct.getCostPrice());
+        if (change < 0) {
+            kpis.recordPick(mappedProduct.getId(), -change, mappedProduct.getCostPrice());
+        }
         if (change != 0) {
             recordLedgerSnapshot(mappedProduct, location.getId(), change);
         }
@@ -227,6 +489,9 @@ public class WarehouseIntelligenceService {
         String productId = resolveProductId(entity);
         WarehouseProduct product = products.computeIfAbsent(productId,
                 key -> new WarehouseProduct(key, entity.getName()));
+        if (entity.getId() != null) {
+            productIdsByEntity.put(entity.getId(), productId);
+        }
         product.setName(entity.getName());
         if (entity.getUnitCost() != null) {
             product.setCostPrice(entity.getUnitCost());
@@ -241,6 +506,7 @@ public class WarehouseIntelligenceService {
         product.setVolumeCubicM(resolveVolume(entity, product, weight));
         product.setLastUpdated(Instant.now());
         applyAttributes(product, entity);
+        productIndex.put(productId, product.getName(), category);
         return product;
     }
 
@@ -249,6 +515,9 @@ public class WarehouseIntelligenceService {
             return null;
         }
         String locationId = resolveWarehouseId(entity);
+        if (entity.getId() != null) {
+            locationIdsByEntity.put(entity.getId(), locationId);
+        }
         WarehouseLocation location = locations.computeIfAbsent(locationId, key -> {
             double[] coords = deriveCoordinates(key);
             return new WarehouseLocation(key, determineZone(key), coords[0], coords[1], coords[2],
@@ -263,28 +532,16 @@ public class WarehouseIntelligenceService {
         return location;
     }
 
-    private void updateInventoryEntry(WarehouseProduct product,
-                                      WarehouseLocation location,
-                                      int delta,
-                                      int absoluteQuantity) {
-        InventoryItem entry = inventory.stream()
-                .filter(item -> item.getProductId().equals(product.getId())
-                        && item.getLocationId().equals(location.getId()))
-                .findFirst()
-                .orElse(null);
-        if (entry == null) {
-            entry = new InventoryItem();
-            entry.setProductId(product.getId());
-            entry.setLocationId(location.getId());
-            entry.setLifecycleStatus("available");
-            inventory.add(entry);
-        }
-        int previous = entry.getQuantity();
-        int updated = absoluteQuantity >= 0 ? Math.max(0, absoluteQuantity)
-                : Math.max(0, previous + delta);
-        entry.setQuantity(updated);
-        entry.setLastMovement(Instant.now());
-        adjustLocationOccupancy(location.getId(), updated - previous);
+    private int updateInventoryEntry(WarehouseProduct product,
+                                     WarehouseLocation location,
+                                     int delta,
+                                     int absoluteQuantity) {
+        int change = inventory.update(product.getId(), location.getId(),
+                previous -> absoluteQuantity >= 0 ? absoluteQuantity : previous + delta, Instant.now());
+        if (change != 0) {
+            recomputeLocationOccupancy(location.getId());
+        }
+        return change;
     }
 
     private void recordLedgerSnapshot(WarehouseProduct product, String locationId, int change) {
@@ -301,9 +558,7 @@ public class WarehouseIntelligenceService {
             entry.setQuantity(Math.abs(change));
         }
         entry.setTimestamp(Instant.now());
-        entry.setHash(hashPayload(product.getId() + entry.getFromLocation()
-                + entry.getToLocation() + entry.getQuantity() + entry.getTimestamp()));
-        movementLedger.add(entry);
+        movementLedger.append(entry);
     }
 
     private String resolveProductId(Product entity) {
@@ -366,6 +621,12 @@ public class WarehouseIntelligenceService {
     }
 
     private void applyAttributes(WarehouseProduct product, Product entity) {
+        synchronized (product) {
+            applyAttributesLocked(product, entity);
+        }
+    }
+
+    private void applyAttributesLocked(WarehouseProduct product, Product entity) {
         if (entity.getUnitOfMeasure() != null && !entity.getUnitOfMeasure().isBlank()) {
             String attribute = "UoM: " + entity.getUnitOfMeasure();
             if (product.getAttributes().stream().noneMatch(attribute::equals)) {
@@ -444,6 +705,7 @@ public class WarehouseIntelligenceService {
         String category = Optional.ofNullable(request.getCategory()).orElseGet(() ->
                 inferCategoryFromName(Optional.ofNullable(request.getName()).orElse(product.getName())));
         product.setCategory(category);
+        productIndex.put(id, product.getName(), category);
 
         double weight = Optional.ofNullable(request.getWeightKg()).orElseGet(() ->
                 product.getWeightKg() == 0 ? estimateWeightFromCategory(category) : product.getWeightKg());
@@ -468,6 +730,7 @@ public class WarehouseIntelligenceService {
         }
 
         updateCategoryStatistics(category, weight, volume);
+        kpis.recordStockChange(product.getId(), 0, product.getCostPrice());
 
         return new ProductResponse(product.getId(), product.getName(), product.getCategory(), product.getWeightKg(),
                 product.getVolumeCubicM(), product.getCostPrice(), product.getSalesPrice(),
@@ -478,30 +741,15 @@ public class WarehouseIntelligenceService {
         if (name == null || name.isBlank()) {
             return "General";
         }
-        String lower = name.toLowerCase(Locale.ROOT);
-        Map<String, Integer> scores = new HashMap<>();
-        CATEGORY_KEYWORDS.forEach((category, keywords) -> {
-            int score = 0;
-            for (String keyword : keywords) {
-                if (lower.contains(keyword)) {
-                    score += 2;
-                }
-            }
-            if (score > 0) {
-                scores.put(category, score);
-            }
-        });
+        Map<String, Integer> scores = ProductSearchIndex.keywordScores(productIndex.tokenize(name), CATEGORY_KEYWORDS);
         if (!scores.isEmpty()) {
             return scores.entrySet().stream()
                     .max(Map.Entry.comparingByValue())
                     .map(Map.Entry::getKey)
                     .orElse("General");
         }
-        return products.values().stream()
-                .filter(product -> product.getName() != null)
-                .filter(product -> similarity(product.getName(), name) >= 0.6)
-                .map(WarehouseProduct::getCategory)
-                .findFirst()
+        return productIndex.mostSimilar(name, 0.6)
+                .map(ProductSearchIndex.Entry::category)
                 .orElse("General");
     }
 
@@ -546,31 +794,6 @@ public class WarehouseIntelligenceService {
         });
     }
 
-    private double similarity(String left, String right) {
-        String[] leftTokens = left.toLowerCase(Locale.ROOT).split("[^a-z0-9]+");
-        String[] rightTokens = right.toLowerCase(Locale.ROOT).split("[^a-z0-9]+");
-        Set<String> leftSet = new HashSet<>();
-        Set<String> rightSet = new HashSet<>();
-        for (String token : leftTokens) {
-            if (!token.isBlank()) {
-                leftSet.add(token);
-            }
-        }
-        for (String token : rightTokens) {
-            if (!token.isBlank()) {
-                rightSet.add(token);
-            }
-        }
-        if (leftSet.isEmpty() || rightSet.isEmpty()) {
-            return 0;
-        }
-        Set<String> intersection = new HashSet<>(leftSet);
-        intersection.retainAll(rightSet);
-        Set<String> union = new HashSet<>(leftSet);
-        union.addAll(rightSet);
-        return union.isEmpty() ? 0 : (double) intersection.size() / union.size();
-    }
-
     private BigDecimal detectSupplierTolerance(String purchaseOrderId) {
         if (purchaseOrderId == null) {
             return BigDecimal.valueOf(0.01);
@@ -589,8 +812,7 @@ public class WarehouseIntelligenceService {
     }
 
     private String classifyDemandSegment(WarehouseProduct product) {
-        double velocity = inventory.stream()
-                .filter(item -> item.getProductId().equals(product.getId()))
+        double velocity = inventory.findByProduct(product.getId()).stream()
                 .mapToDouble(item -> item.getQuantity() / Math.max(1, item.getLastMovement() == null ? 1 : 7))
                 .average()
                 .orElse(5);
@@ -610,13 +832,27 @@ public class WarehouseIntelligenceService {
     }
 
     public List<InventoryItem> listInventory() {
-        return List.copyOf(inventory);
+        return inventory.snapshot();
+    }
+
+    /**
+     * Laufdistanzen zwischen den angegebenen Standorten; Zeile und Spalte entsprechen der
+     * Position in {@code locationIds}.
+     */
+    public double[][] walkingDistances(List<String> locationIds) {
+        WarehouseTopology.DistanceMatrix distances = topology.current();
+        int[] matrixNodes = new int[locationIds.size()];
+        for (int i = 0; i < matrixNodes.length; i++) {
+            matrixNodes[i] = distances.node(locationIds.get(i));
+        }
+        return subMatrix(distances, matrixNodes);
     }
 
     public SmartSlottingResponse recommendSlot(SmartSlottingRequest request) {
         WarehouseLocation bestLocation = null;
         double bestScore = Double.NEGATIVE_INFINITY;
         StringBuilder reason = new StringBuilder();
+        WarehouseTopology.DistanceMatrix distances = topology.current();
         for (WarehouseLocation location : locations.values()) {
             if (location.isBlocked() || location.getCapacity() <= location.getOccupied()) {
                 continue;
@@ -627,7 +863,7 @@ public class WarehouseIntelligenceService {
             double weightScore = request.getWeightKg() > 10 && location.getZone().equalsIgnoreCase("C") ? 1.1 : 1.0;
             double velocityScore = request.getExpectedTurnoverDays() <= 7 &&
                     location.getZone().equalsIgnoreCase("A") ? 1.3 : 1.0;
-            double travelTime = Math.max(estimateTravelTime(location), 1);
+            double travelTime = Math.max(estimateTravelTime(distances, location), 1);
             double timeScore = 1 / travelTime;
             double score = freeRatio * 0.45 + zoneScore * 0.15 + weightScore * 0.1 + velocityScore * 0.1 + timeScore * 0.2;
             if (score > bestScore) {
@@ -642,34 +878,73 @@ public class WarehouseIntelligenceService {
                 .append(String.format(Locale.ROOT, "%.0f%%", (1 - bestLocation.occupancyRate()) * 100))
                 .append(", Zone: ").append(bestLocation.getZone());
         return new SmartSlottingResponse(bestLocation.getId(), Math.min(0.99, bestScore),
-                estimateTravelTime(bestLocation), reason.toString());
+                estimateTravelTime(distances, bestLocation), reason.toString());
     }
 
-    private double estimateTravelTime(WarehouseLocation location) {
-        double pathLength = aStarDistance(location);
+    private double estimateTravelTime(WarehouseTopology.DistanceMatrix distances, WarehouseLocation location) {
+        double pathLength = distances.fromDepot(location.getId());
         return Math.round((pathLength / WALKING_SPEED_MS) * 10.0) / 10.0;
     }
 
     public PredictiveInventoryResponse forecastInventory(String productId) {
-        int current = inventory.stream()
-                .filter(item -> item.getProductId().equals(productId))
-                .mapToInt(InventoryItem::getQuantity)
-                .sum();
-        Map<LocalDate, Integer> forecast = generateForecast(productId, current);
-        boolean stockOutRisk = forecast.values().stream().anyMatch(value -> value < calculateSafetyStock(productId));
+        PredictiveReplenishmentResponse analytics;
+        try {
+            analytics = analyseReplenishment(productId, 0.95d);
+        } catch (RuntimeException ex) {
+            analytics = null;
+        }
+        return forecastInventory(productId, analytics);
+    }
+
+    private PredictiveInventoryResponse forecastInventory(String productId, PredictiveReplenishmentResponse analytics) {
+        int current = inventory.quantityOfProduct(productId);
+        Map<LocalDate, Integer> forecast = generateForecast(productId, current, analytics);
+        int safetyStock = calculateSafetyStock(isBlank(productId) ? null : demandProfile(productId, LocalDate.now()));
+        boolean stockOutRisk = forecast.values().stream().anyMatch(value -> value < safetyStock);
         boolean overstockRisk = forecast.values().stream().anyMatch(value -> value > current * 1.6);
         return new PredictiveInventoryResponse(productId, forecast, stockOutRisk, overstockRisk);
     }
 
+    /**
+     * Prognose und Nachschubkennzahlen für viele Produkte in einem Durchlauf. Die Nachfragereihen
+     * werden je Produkt einmal aus den Tagesaggregaten des Ledgers gebildet und als Profil bis zur
+     * nächsten Bewegung gecacht; große Sortimente werden parallel ausgewertet.
+     */
+    public Map<String, ReplenishmentInsight> analyseReplenishmentBatch(Collection<String> productIds,
+                                                                      double serviceLevelTarget) {
+        LocalDate today = LocalDate.now();
+        double leadTime = averageLeadTime();
+        List<String> ids = productIds.stream()
+                .filter(id -> !isBlank(id))
+                .distinct()
+                .toList();
+        Stream<String> stream = ids.size() >= PARALLEL_ANALYTICS_THRESHOLD ? ids.parallelStream() : ids.stream();
+        return stream.collect(Collectors.toMap(Function.identity(), productId -> {
+            DemandProfile profile = demandProfile(productId, today);
+            PredictiveReplenishmentResponse analytics = buildReplenishment(productId, profile,
+                    serviceLevelTarget, leadTime, today);
+            return new ReplenishmentInsight(forecastInventory(productId, analytics), analytics);
+        }));
+    }
+
     public SensorReading recordSensorReading(SensorReadingRequest request) {
-        SensorReading reading = new SensorReading(request.getLocationId(), request.getTemperature(),
-                request.getHumidity(), request.getWeight(), Instant.now());
-        sensorReadings.computeIfAbsent(request.getLocationId(), key -> new ArrayList<>()).add(reading);
-        return reading;
+        return sensorTelemetry.record(request);
+    }
+
+    public SensorBatchResponse recordSensorReadings(List<SensorReadingRequest> requests) {
+        return sensorTelemetry.recordBatch(requests);
     }
 
     public List<SensorReading> getSensorReadings(String locationId) {
-        return sensorReadings.getOrDefault(locationId, List.of());
+        return sensorTelemetry.readings(locationId);
+    }
+
+    public List<SensorRollupResponse> getSensorRollups(String locationId, String resolution) {
+        return sensorTelemetry.rollups(locationId, resolution);
+    }
+
+    public List<SensorAlert> getSensorAlerts() {
+        return sensorTelemetry.recentAlerts();
     }
 
     public MovementLogEntry recordMovement(String productId, String fromLocation, String toLocation, int quantity) {
@@ -682,30 +957,26 @@ public class WarehouseIntelligenceService {
         String source = normalizeLocationId(fromLocation);
         String destination = normalizeLocationId(toLocation);
         adjustInventoryOnMovement(product, source, destination, quantity, now);
+        boolean inbound = destination != null && !destination.isBlank();
+        boolean outbound = source != null && !source.isBlank();
+        int netChange = (inbound ? quantity : 0) - (outbound ? quantity : 0);
+        if (netChange != 0) {
+            kpis.recordStockChange(productId, netChange, product.getCostPrice());
+        }
+        if (outbound && !inbound) {
+            kpis.recordPick(productId, quantity, product.getCostPrice());
+        }
         MovementLogEntry entry = new MovementLogEntry(UUID.randomUUID().toString(), productId,
-                source, destination, quantity, now, "");
-        String payload = productId + source + destination + quantity + entry.getTimestamp();
-        entry.setHash(hashPayload(payload));
-        movementLedger.add(entry);
-        return entry;
+                source, destination, quantity, now, null);
+        return movementLedger.append(entry);
     }
 
-    private String hashPayload(String payload) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashed = digest.digest(payload.getBytes());
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hashed) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new IllegalStateException("Hash algorithm missing", e);
-        }
+    public List<MovementLogEntry> getMovementLedger() {
+        return movementLedger.recentEntries();
     }
 
-    public List<MovementLogEntry> getMovementLedger() {
-        return List.copyOf(movementLedger);
+    public LedgerVerificationResponse verifyMovementLedger() {
+        return movementLedger.verifyChain();
     }
 
     public SmartSourcingResponse selectSupplier(SmartSourcingRequest request) {
@@ -824,13 +1095,6 @@ public class WarehouseIntelligenceService {
         };
     }
 
-    private double euclideanDistance(double[] from, double[] to) {
-        double dx = from[0] - to[0];
-        double dy = from[1] - to[1];
-        double dz = from[2] - to[2];
-        return Math.sqrt(dx * dx + dy * dy + dz * dz);
-    }
-
     public PickRouteResponse planPickRoute(PickRouteRequest request) {
         if (request.getItems() == null || request.getItems().isEmpty()) {
             return new PickRouteResponse(List.of(), 0, 0);
@@ -847,8 +1111,7 @@ public class WarehouseIntelligenceService {
         List<RouteNode> nodes = new ArrayList<>();
         requiredQuantities.forEach((productId, quantity) -> {
             int remaining = quantity;
-            List<InventoryItem> candidates = inventory.stream()
-                    .filter(inv -> inv.getProductId().equals(productId))
+            List<InventoryItem> candidates = inventory.findByProduct(productId).stream()
                     .sorted(Comparator.comparingInt(InventoryItem::getQuantity).reversed())
                     .toList();
             for (InventoryItem candidate : candidates) {
@@ -868,26 +1131,33 @@ public class WarehouseIntelligenceService {
             }
         });
 
-        List<RouteNode> ordered = optimiseRoute(nodes);
+        WarehouseTopology.DistanceMatrix distances = topology.current();
+        List<RouteNode> ordered = optimiseRoute(nodes, distances);
         List<PickRouteResponse.RouteWaypoint> waypoints = new ArrayList<>();
-        double[] current = {0, 0, 0};
+        int currentNode = WarehouseTopology.DistanceMatrix.DEPOT;
         double totalDistance = 0;
         double cumulativeSeconds = 0;
         for (RouteNode node : ordered) {
             double[] destination = {node.location().getX(), node.location().getY(), node.location().getZ()};
-            double legDistance = euclideanDistance(current, destination);
+            int destinationNode = distances.node(node.location().getId());
+            double legDistance = distances.between(currentNode, destinationNode);
             totalDistance += legDistance;
             cumulativeSeconds += legDistance / WALKING_SPEED_MS;
             cumulativeSeconds += node.quantity() * 4.0;
             waypoints.add(new PickRouteResponse.RouteWaypoint(node.location().getId(), node.productId(),
                     destination[0], destination[1], destination[2], Math.round(cumulativeSeconds * 10.0) / 10.0,
                     node.quantity()));
-            current = destination;
+            currentNode = destinationNode;
         }
         return new PickRouteResponse(waypoints, Math.round(totalDistance * 10.0) / 10.0,
                 Math.round(cumulativeSeconds * 10.0) / 10.0);
     }
 
+    /**
+     * Empfiehlt Versandkartons anhand einer echten 3D-Packung der Einheiten ({@link BoxPacker}).
+     * Positionen ohne Abmessungen werden als Würfel ihres Volumens angenommen, aufgeweitet um
+     * die Zielauslastung. Ergebnisse werden pro kanonischer Artikelmix-Signatur gecacht.
+     */
     public BoxRecommendationResponse recommend3dBox(BoxRecommendationRequest request) {
         if (request.getItems() == null || request.getItems().isEmpty()) {
             throw new IllegalArgumentException("Es werden mindestens eine Position für die Kartonempfehlung benötigt");
@@ -897,68 +1167,98 @@ public class WarehouseIntelligenceService {
 
         double totalVolume = 0;
         double totalWeight = 0;
-        double longestEdge = 0;
+        List<BoxPacker.Unit> units = new ArrayList<>();
+        Map<String, Integer> signatureParts = new TreeMap<>();
 
         for (BoxRecommendationRequest.Item item : request.getItems()) {
             if (item.getQuantity() == null || item.getQuantity() <= 0) {
                 continue;
             }
+            if (units.size() + item.getQuantity() > MAX_PACKED_UNITS) {
+                throw new IllegalArgumentException("Kartonempfehlung ist auf " + MAX_PACKED_UNITS + " Einheiten begrenzt");
+            }
             WarehouseProduct product = products.get(item.getProductId());
             double unitVolume = resolveVolume(item, product);
             double unitWeight = resolveWeight(item, product);
-            double itemLongestEdge = resolveLongestEdge(item, unitVolume);
-
+            double[] dimensions = resolveDimensions(item, unitVolume, targetUtilisation);
+            BoxPacker.Unit unit = new BoxPacker.Unit(item.getProductId(), dimensions[0], dimensions[1],
+                    dimensions[2], unitWeight);
+            for (int i = 0; i < item.getQuantity(); i++) {
+                units.add(unit);
+            }
             totalVolume += unitVolume * item.getQuantity();
             totalWeight += unitWeight * item.getQuantity();
-            longestEdge = Math.max(longestEdge, itemLongestEdge);
+            signatureParts.merge(String.format(Locale.ROOT, "%s|%.2f|%.2f|%.2f|%.3f|%.6f", item.getProductId(),
+                    dimensions[0], dimensions[1], dimensions[2], unitWeight, unitVolume), item.getQuantity(), Integer::sum);
         }
 
-        if (totalVolume <= 0) {
-            totalVolume = 0.01;
+        if (units.isEmpty()) {
+            throw new IllegalArgumentException("Es werden mindestens eine Position für die Kartonempfehlung benötigt");
         }
 
-        List<BoxRecommendationResponse.Alternative> alternatives = new ArrayList<>();
-        BoxOption bestOption = null;
-        int bestBoxes = 0;
-        double bestUtilisation = 0;
-        double bestScore = Double.MAX_VALUE;
-
-        for (BoxOption option : BOX_CATALOG) {
-            if (longestEdge > option.largestEdgeCm()) {
-                continue;
-            }
-            double boxVolume = option.volumeCubicM();
-            int boxesNeeded = Math.max(1, (int) Math.ceil(totalVolume / (boxVolume * targetUtilisation)));
-            while (boxesNeeded < 1000 && (totalWeight / boxesNeeded) > option.maxWeightKg()) {
-                boxesNeeded++;
-            }
-            double utilisation = totalVolume / (boxesNeeded * boxVolume);
-            alternatives.add(new BoxRecommendationResponse.Alternative(option.id(), option.name(), boxesNeeded,
-                    Math.min(utilisation, 1.0), boxVolume, option.maxWeightKg()));
-            double score = boxesNeeded * boxVolume;
-            if (score < bestScore) {
-                bestScore = score;
-                bestOption = option;
-                bestBoxes = boxesNeeded;
-                bestUtilisation = utilisation;
+        String signature = signatureParts.entrySet().stream()
+                .map(entry -> entry.getKey() + "*" + entry.getValue())
+                .collect(Collectors.joining(";"));
+        synchronized (packingCache) {
+            BoxRecommendationResponse cached = packingCache.get(signature);
+            if (cached != null) {
+                return cached;
             }
         }
+        BoxRecommendationResponse response = packRecommendation(units, totalVolume, totalWeight);
+        synchronized (packingCache) {
+            packingCache.put(signature, response);
+        }
+        return response;
+    }
 
-        if (bestOption == null) {
+    private BoxRecommendationResponse packRecommendation(List<BoxPacker.Unit> units, double totalVolume,
+                                                         double totalWeight) {
+        BoxPacker.Result result = BoxPacker.packAll(units, BOX_CATALOG);
+        if (result == null) {
             throw new IllegalStateException("Kein Versandkarton aus dem Katalog erfüllt die Anforderungen");
         }
+        BoxPacker.Packing best = result.best();
 
+        List<BoxRecommendationResponse.Alternative> alternatives = new ArrayList<>();
+        for (BoxPacker.Packing packing : result.candidates()) {
+            BoxPacker.BoxType type = packing.primaryType();
+            alternatives.add(new BoxRecommendationResponse.Alternative(type.id(), type.name(), packing.boxes().size(),
+                    Math.min(packing.usedVolume() / packing.shippedVolume(), 1.0), type.volume() / 1_000_000.0,
+                    type.maxWeightKg()));
+        }
         alternatives.sort(Comparator.comparingInt(BoxRecommendationResponse.Alternative::getBoxesRequired)
                 .thenComparing(BoxRecommendationResponse.Alternative::getUtilisation).reversed());
 
-        return new BoxRecommendationResponse(bestOption.id(), bestOption.name(), bestBoxes,
-                Math.min(bestUtilisation, 1.0), totalVolume, totalWeight, alternatives);
+        List<BoxRecommendationResponse.PackedBox> boxes = best.boxes().stream()
+                .map(box -> new BoxRecommendationResponse.PackedBox(box.type().id(), box.type().name(),
+                        Math.round(box.utilisation() * 1000.0) / 1000.0,
+                        Math.round(box.weightKg() * 100.0) / 100.0,
+                        box.type().maxWeightKg(),
+                        List.of(roundCm(box.centreOfGravity()[0]), roundCm(box.centreOfGravity()[1]),
+                                roundCm(box.centreOfGravity()[2])),
+                        box.placements().stream()
+                                .map(placement -> new BoxRecommendationResponse.Placement(placement.unit().productId(),
+                                        roundCm(placement.x()), roundCm(placement.y()), roundCm(placement.z()),
+                                        roundCm(placement.length()), roundCm(placement.width()),
+                                        roundCm(placement.height()), placement.unit().weightKg()))
+                                .toList()))
+                .toList();
+
+        return new BoxRecommendationResponse(best.primaryType().id(), best.primaryType().name(), best.boxes().size(),
+                Math.min(best.usedVolume() / best.shippedVolume(), 1.0), totalVolume, totalWeight,
+                List.copyOf(alternatives), boxes);
+    }
+
+    private static double roundCm(double value) {
+        return Math.round(value * 10.0) / 10.0;
     }
 
     public ReturnWorkflowResponse registerReturn(ReturnWorkflowRequest request) {
         ReturnCase newCase = new ReturnCase(UUID.randomUUID().toString(), request.getProductId(),
                 request.getReason(), "inspection", Instant.now());
         returnCases.add(newCase);
+        kpis.recordReturn();
         return mapReturnCase(newCase);
     }
 
@@ -987,7 +1287,7 @@ public class WarehouseIntelligenceService {
 
         if (containsAny(lower, List.of("überbestand", "overstock", "überhang"))) {
             metric = "overstock_value";
-            double value = inventory.stream()
+            double value = inventory.values().stream()
                     .mapToDouble(item -> {
                         WarehouseProduct product = products.get(item.getProductId());
                         if (product == null || product.getCostPrice() == null) {
@@ -1003,29 +1303,23 @@ public class WarehouseIntelligenceService {
             data.put("currency", "CHF");
         } else if (containsAny(lower, List.of("pick-rate", "kommission", "picks"))) {
             metric = "pick_rate";
-            double movementPerHour = movementLedger.stream()
-                    .filter(entry -> entry.getTimestamp().isAfter(Instant.now().minus(1, ChronoUnit.DAYS)))
-                    .count() * 2.5;
+            double movementPerHour = movementLedger.countSince(Instant.now().minus(1, ChronoUnit.DAYS)) * 2.5;
             data.put("value", Math.round(movementPerHour));
             data.put("unit", "picks/hour");
         } else if (containsAny(lower, List.of("forecast", "prognose", "bedarf"))) {
             metric = "inventory_forecast";
             String productId = identifyProductFromQuery(lower)
-                    .orElseGet(() -> inventory.stream().findFirst().map(InventoryItem::getProductId).orElse(""));
+                    .orElseGet(() -> inventory.values().stream().findFirst().map(InventoryItem::getProductId).orElse(""));
             PredictiveInventoryResponse forecast = forecastInventory(productId);
             data.put("productId", productId);
             data.put("weeks", forecast.getForecast());
         } else if (containsAny(lower, List.of("temperatur", "temperature"))) {
             metric = "temperature_alert";
-            double maxTemp = sensorReadings.values().stream()
-                    .flatMap(List::stream)
-                    .mapToDouble(SensorReading::getTemperature)
-                    .max()
-                    .orElse(0);
+            double maxTemp = sensorTelemetry.maxTemperature().orElse(0);
             data.put("value", maxTemp);
             data.put("unit", "°C");
         } else {
-            double value = inventory.stream()
+            double value = inventory.values().stream()
                     .mapToDouble(item -> Optional.ofNullable(products.get(item.getProductId()))
                             .map(WarehouseProduct::getCostPrice)
                             .map(BigDecimal::doubleValue)
@@ -1062,41 +1356,23 @@ public class WarehouseIntelligenceService {
         return 0.5;
     }
 
-    private double resolveLongestEdge(BoxRecommendationRequest.Item item, double volumeCubicM) {
+    private double[] resolveDimensions(BoxRecommendationRequest.Item item, double volumeCubicM,
+                                       double targetUtilisation) {
         if (item.getLengthCm() != null && item.getWidthCm() != null && item.getHeightCm() != null) {
-            return Math.max(item.getLengthCm(), Math.max(item.getWidthCm(), item.getHeightCm()));
+            return new double[]{Math.max(0.1, item.getLengthCm()), Math.max(0.1, item.getWidthCm()),
+                    Math.max(0.1, item.getHeightCm())};
         }
-        return Math.cbrt(Math.max(volumeCubicM, 0.0005)) * 100;
+        // Ohne Abmessungen: Würfel des Volumens, um die Zielauslastung als Formreserve vergrössert
+        double edge = Math.cbrt(Math.max(volumeCubicM, 0.0005) / targetUtilisation) * 100;
+        return new double[]{edge, edge, edge};
     }
 
     public KpiDashboardResponse buildKpiDashboard() {
-        Map<String, Double> kpis = Map.of(
-                "pick_rate", 318.0,
-                "inventory_turnover", 8.6,
-                "on_time_delivery", 97.2,
-                "scrap_rate", 1.3
-        );
-        Map<String, Double> trends = Map.of(
-                "pick_rate", 4.2,
-                "inventory_turnover", 1.1,
-                "on_time_delivery", 0.4,
-                "scrap_rate", -0.2
-        );
-        return new KpiDashboardResponse(kpis, trends);
+        return kpis.snapshot();
     }
 
-    private record BoxOption(String id, String name, double lengthCm, double widthCm, double heightCm, double maxWeightKg) {
-        private double volumeCubicM() {
-            return (lengthCm * widthCm * heightCm) / 1_000_000.0;
-        }
-
-        private double smallestEdgeCm() {
-            return Math.min(lengthCm, Math.min(widthCm, heightCm));
-        }
-
-        private double largestEdgeCm() {
-            return Math.max(lengthCm, Math.max(widthCm, heightCm));
-        }
+    public void recordOrderFulfilment(boolean onTime) {
+        kpis.recordOrderFulfilled(onTime);
     }
 
     private boolean containsAny(String query, List<String> tokens) {
@@ -1109,55 +1385,35 @@ public class WarehouseIntelligenceService {
     }
 
     private Optional<String> identifyProductFromQuery(String query) {
-        return products.values().stream()
-                .filter(product -> product.getName() != null)
-                .filter(product -> query.contains(product.getName().toLowerCase(Locale.ROOT))
-                        || query.contains(product.getId().toLowerCase(Locale.ROOT)))
-                .map(WarehouseProduct::getId)
-                .findFirst();
+        return productIndex.findMentioned(query);
     }
 
-    private Map<LocalDate, Integer> generateForecast(String productId, int current) {
+    private Map<LocalDate, Integer> generateForecast(String productId, int current,
+                                                     PredictiveReplenishmentResponse analytics) {
         Map<LocalDate, Integer> forecast = new LinkedHashMap<>();
-        try {
-            PredictiveReplenishmentResponse analytics = analyseReplenishment(productId, 0.95d);
-            Map<LocalDate, Integer> dailyForecast = analytics.getDailyDemandForecast();
-            if (!dailyForecast.isEmpty()) {
-                int projection = current;
-                LocalDate today = LocalDate.now();
-                int dayOffset = 0;
-                for (int week = 1; week <= 6; week++) {
-                    double weeklyDemand = 0;
-                    for (int day = 0; day < 7; day++) {
-                        dayOffset++;
-                        LocalDate target = today.plusDays(dayOffset);
-                        int demand = dailyForecast.getOrDefault(target,
-                                (int) Math.round(analytics.getAverageDailyDemand()));
-                        weeklyDemand += Math.max(0, demand);
-                    }
-                    projection = Math.max(0, projection - (int) Math.round(weeklyDemand));
-                    forecast.put(today.plusWeeks(week), projection);
+        Map<LocalDate, Integer> dailyForecast = analytics != null ? analytics.getDailyDemandForecast() : Map.of();
+        if (!dailyForecast.isEmpty()) {
+            int projection = current;
+            LocalDate today = LocalDate.now();
+            int dayOffset = 0;
+            for (int week = 1; week <= 6; week++) {
+                double weeklyDemand = 0;
+                for (int day = 0; day < 7; day++) {
+                    dayOffset++;
+                    LocalDate target = today.plusDays(dayOffset);
+                    int demand = dailyForecast.getOrDefault(target,
+                            (int) Math.round(analytics.getAverageDailyDemand()));
+                    weeklyDemand += Math.max(0, demand);
                 }
-                return forecast;
+                projection = Math.max(0, projection - (int) Math.round(weeklyDemand));
+                forecast.put(today.plusWeeks(week), projection);
             }
-        } catch (RuntimeException ignored) {
+            return forecast;
         }
 
         Map<LocalDate, Integer> history = new HashMap<>();
-        for (MovementLogEntry entry : movementLedger) {
-            if (!Objects.equals(entry.getProductId(), productId)) {
-                continue;
-            }
-            LocalDate date = entry.getTimestamp().atZone(ZoneId.systemDefault()).toLocalDate();
-            int delta = 0;
-            if (entry.getFromLocation() != null && !entry.getFromLocation().isBlank()) {
-                delta -= entry.getQuantity();
-            }
-            if (entry.getToLocation() != null && !entry.getToLocation().isBlank()) {
-                delta += entry.getQuantity();
-            }
-            history.merge(date, delta, Integer::sum);
-        }
+        movementLedger.history(productId)
+                .forEach((date, movement) -> history.put(date, movement.netChange()));
 
         double averageDailyChange = history.entrySet().stream()
                 .filter(entry -> entry.getKey().isAfter(LocalDate.now().minusDays(30)))
@@ -1180,74 +1436,42 @@ public class WarehouseIntelligenceService {
         return forecast;
     }
 
-    private int calculateSafetyStock(String productId) {
-        double avgDailyConsumption = movementLedger.stream()
-                .filter(entry -> Objects.equals(entry.getProductId(), productId))
-                .mapToInt(entry -> entry.getFromLocation() != null && !entry.getFromLocation().isBlank()
-                        ? entry.getQuantity() : 0)
-                .average()
-                .orElse(5);
-        double leadTime = suppliers.values().stream()
+    private int calculateSafetyStock(DemandProfile profile) {
+        double avgDailyConsumption = profile == null ? 5 : profile.outboundPerMovement();
+        return (int) Math.round(avgDailyConsumption * averageLeadTime() * 0.5);
+    }
+
+    private double averageLeadTime() {
+        return suppliers.values().stream()
                 .mapToDouble(SupplierProfile::getLeadTimeDays)
                 .average()
                 .orElse(5);
-        return (int) Math.round(avgDailyConsumption * leadTime * 0.5);
     }
 
     public PredictiveReplenishmentResponse analyseReplenishment(String productId, double serviceLevelTarget) {
-        if (productId == null || productId.isBlank()) {
+        if (isBlank(productId)) {
             throw new IllegalArgumentException("Product id required for replenishment analysis");
         }
+        LocalDate today = LocalDate.now();
+        return buildReplenishment(productId, demandProfile(productId, today), serviceLevelTarget,
+                averageLeadTime(), today);
+    }
 
-        int onHand = inventory.stream()
-                .filter(item -> productId.equals(item.getProductId()))
-                .mapToInt(InventoryItem::getQuantity)
-                .sum();
-
-        NavigableMap<LocalDate, Integer> dailySeries = buildDemandSeries(productId, 90);
-        if (dailySeries.isEmpty()) {
-            dailySeries = buildEmptySeries(30);
-        }
-
-        List<Double> demandValues = new ArrayList<>();
-        double alpha = 0.4;
-        double beta = 0.2;
-        double level = 0;
-        double trend = 0;
-        boolean initialised = false;
-
-        for (Map.Entry<LocalDate, Integer> entry : dailySeries.entrySet()) {
-            double demand = Math.max(0, entry.getValue());
-            demandValues.add(demand);
-            if (!initialised) {
-                level = demand;
-                trend = 0;
-                initialised = true;
-            } else {
-                double previousLevel = level;
-                level = alpha * demand + (1 - alpha) * (level + trend);
-                trend = beta * (level - previousLevel) + (1 - beta) * trend;
-            }
-        }
-
-        double averageDailyDemand = demandValues.stream().mapToDouble(Double::doubleValue).average().orElse(0);
-        double variance = demandValues.size() > 1
-                ? demandValues.stream()
-                .mapToDouble(value -> Math.pow(value - averageDailyDemand, 2))
-                .sum() / (demandValues.size() - 1)
-                : 0;
-        double volatility = Math.sqrt(variance);
+    private PredictiveReplenishmentResponse buildReplenishment(String productId, DemandProfile profile,
+                                                               double serviceLevelTarget, double leadTime,
+                                                               LocalDate today) {
+        int onHand = inventory.quantityOfProduct(productId);
+        double averageDailyDemand = profile.averageDailyDemand();
+        double volatility = profile.volatility();
+        double level = profile.level();
+        double trend = profile.trend();
 
         Map<LocalDate, Integer> dailyForecast = new LinkedHashMap<>();
-        LocalDate today = LocalDate.now();
         for (int offset = 1; offset <= 28; offset++) {
             double projected = Math.max(0, level + (offset * trend));
             dailyForecast.put(today.plusDays(offset), (int) Math.round(projected));
         }
 
-        double leadTime = suppliers.isEmpty()
-                ? 5
-                : suppliers.values().stream().mapToDouble(SupplierProfile::getLeadTimeDays).average().orElse(5);
         double zScore = zScoreForServiceLevel(serviceLevelTarget);
         double leadTimeBuffer = Math.sqrt(Math.max(leadTime, 1));
 
@@ -1271,7 +1495,7 @@ public class WarehouseIntelligenceService {
         }
         int daysUntilStockout = onHand <= 0 ? 0 : (int) Math.floor(onHand / expectedConsumption);
 
-        double confidence = demandValues.isEmpty()
+        double confidence = profile.days() == 0
                 ? 0.4
                 : Math.max(0.1, Math.min(0.99, 1 - (volatility / (averageDailyDemand + 1.0))));
         if (averageDailyDemand < 0.01) {
@@ -1304,36 +1528,40 @@ public class WarehouseIntelligenceService {
                 reorderPoint, recommendedOrder, daysUntilStockout, confidence, rationale, dailyForecast);
     }
 
-    private NavigableMap<LocalDate, Integer> buildDemandSeries(String productId, int lookbackDays) {
-        NavigableMap<LocalDate, Integer> series = new TreeMap<>();
-        LocalDate today = LocalDate.now();
-        for (int i = lookbackDays; i >= 0; i--) {
-            series.put(today.minusDays(i), 0);
-        }
-        for (MovementLogEntry entry : movementLedger) {
-            if (!Objects.equals(entry.getProductId(), productId)) {
-                continue;
+    /**
+     * Liefert das gecachte Nachfrageprofil oder bildet es in einem Durchlauf über die
+     * Tageshistorie des Produkts. {@code compute} hält den Eintrag während der Berechnung
+     * gesperrt, sodass eine gleichzeitige Invalidierung nach einer Bewegung nicht verloren geht.
+     */
+    private DemandProfile demandProfile(String productId, LocalDate today) {
+        DemandProfile cached = demandProfiles.get(productId);
+        if (cached != null && cached.asOf().equals(today)) {
+            return cached;
+        }
+        return demandProfiles.compute(productId, (key, current) ->
+                current != null && current.asOf().equals(today) ? current : buildDemandProfile(key, today));
+    }
+
+    private DemandProfile buildDemandProfile(String productId, LocalDate today) {
+        LocalDate from = today.minusDays(DEMAND_LOOKBACK_DAYS);
+        int[] netOutbound = new int[DEMAND_LOOKBACK_DAYS + 1];
+        int outbound = 0;
+        int movements = 0;
+        for (Map.Entry<LocalDate, MovementLedgerService.DailyMovement> day
+                : movementLedger.history(productId).entrySet()) {
+            MovementLedgerService.DailyMovement movement = day.getValue();
+            outbound += movement.outbound();
+            movements += movement.movements();
+            LocalDate date = day.getKey();
+            if (!date.isBefore(from) && !date.isAfter(today)) {
+                netOutbound[(int) ChronoUnit.DAYS.between(from, date)] += movement.netOutbound();
             }
-            LocalDate date = entry.getTimestamp().atZone(ZoneId.systemDefault()).toLocalDate();
-            if (date.isBefore(today.minusDays(lookbackDays))) {
-                continue;
-            }
-            int outbound = entry.getFromLocation() != null && !entry.getFromLocation().isBlank()
-                    ? entry.getQuantity() : 0;
-            int inbound = entry.getToLocation() != null && !entry.getToLocation().isBlank()
-                    ? entry.getQuantity() : 0;
-            series.merge(date, outbound - inbound, Integer::sum);
         }
-        return series;
+        return DemandProfile.of(today, netOutbound, outbound, movements);
     }
 
-    private NavigableMap<LocalDate, Integer> buildEmptySeries(int days) {
-        NavigableMap<LocalDate, Integer> fallback = new TreeMap<>();
-        LocalDate today = LocalDate.now();
-        for (int i = days; i >= 0; i--) {
-            fallback.put(today.minusDays(i), 0);
-        }
-        return fallback;
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
     }
 
     private double zScoreForServiceLevel(double serviceLevelTarget) {
@@ -1368,49 +1596,51 @@ public class WarehouseIntelligenceService {
 
     private void adjustInventoryOnMovement(WarehouseProduct product, String fromLocation, String toLocation,
                                             int quantity, Instant timestamp) {
-        if (fromLocation != null && !fromLocation.isBlank()) {
-            InventoryItem sourceItem = inventory.stream()
-                    .filter(item -> item.getProductId().equals(product.getId())
-                            && fromLocation.equals(item.getLocationId()))
-                    .findFirst()
-                    .orElseThrow(() -> new IllegalStateException(
-                            "Keine Bestände an Standort " + fromLocation + " für Produkt " + product.getId()));
-            if (sourceItem.getQuantity() < quantity) {
-                throw new IllegalStateException("Unzureichender Bestand an Standort " + fromLocation);
-            }
-            sourceItem.setQuantity(sourceItem.getQuantity() - quantity);
-            sourceItem.setLastMovement(timestamp);
-            adjustLocationOccupancy(fromLocation, -quantity);
-            if (sourceItem.getQuantity() == 0) {
-                inventory.remove(sourceItem);
-            }
-        }
-
+        WarehouseLocation destination = null;
         if (toLocation != null && !toLocation.isBlank()) {
-            WarehouseLocation destination = Optional.ofNullable(locations.get(toLocation))
+            destination = Optional.ofNullable(locations.get(toLocation))
                     .orElseThrow(() -> new IllegalArgumentException("Unbekannter Zielstandort " + toLocation));
-            if (destination.getOccupied() + quantity > destination.getCapacity()) {
-                throw new IllegalStateException("Zielstandort " + toLocation + " ist überbucht");
+        }
+        if (destination == null) {
+            withdrawFromSource(product, fromLocation, quantity, timestamp);
+            return;
+        }
+        // Kapazitätsprüfung, Ausbuchung und Einbuchung unter den Sperren von Quelle und Ziel, damit
+        // parallele Bewegungen denselben Platz nicht doppelt vergeben. Gesperrt wird immer in der
+        // Reihenfolge der Standort-Id, sonst blockieren sich gegenläufige Bewegungen X→Y und Y→X.
+        WarehouseLocation source = fromLocation == null ? null : locations.get(fromLocation);
+        WarehouseLocation first = destination;
+        WarehouseLocation second = destination;
+        if (source != null && source != destination) {
+            boolean sourceFirst = source.getId().compareTo(destination.getId()) < 0;
+            first = sourceFirst ? source : destination;
+            second = sourceFirst ? destination : source;
+        }
+        synchronized (first) {
+            synchronized (second) {
+                if (destination.getOccupied() + quantity > destination.getCapacity()) {
+                    throw new IllegalStateException("Zielstandort " + toLocation + " ist überbucht");
+                }
+                withdrawFromSource(product, fromLocation, quantity, timestamp);
+                inventory.update(product.getId(), toLocation, previous -> previous + quantity, timestamp);
+                recomputeLocationOccupancy(toLocation);
             }
-            InventoryItem target = inventory.stream()
-                    .filter(item -> item.getProductId().equals(product.getId())
-                            && toLocation.equals(item.getLocationId()))
-                    .findFirst()
-                    .orElseGet(() -> {
-                        InventoryItem created = new InventoryItem();
-                        created.setProductId(product.getId());
-                        created.setLocationId(toLocation);
-                        created.setLifecycleStatus("available");
-                        inventory.add(created);
-                        return created;
-                    });
-            target.setQuantity(target.getQuantity() + quantity);
-            target.setLastMovement(timestamp);
-            adjustLocationOccupancy(toLocation, quantity);
         }
     }
 
-    private void adjustLocationOccupancy(String locationId, int delta) {
+    private void withdrawFromSource(WarehouseProduct product, String fromLocation, int quantity, Instant timestamp) {
+        if (fromLocation == null || fromLocation.isBlank()) {
+            return;
+        }
+        inventory.withdraw(product.getId(), fromLocation, quantity, timestamp);
+        recomputeLocationOccupancy(fromLocation);
+    }
+
+    /**
+     * Leitet die Belegung eines Standorts aus dem Standortindex ab, statt sie inkrementell
+     * fortzuschreiben. Damit bleibt sie auch bei parallelen Buchungen konsistent.
+     */
+    private void recomputeLocationOccupancy(String locationId) {
         String normalized = normalizeLocationId(locationId);
         if (normalized == null || normalized.isBlank()) {
             return;
@@ -1419,119 +1649,44 @@ public class WarehouseIntelligenceService {
         if (location == null) {
             return;
         }
-        int updated = Math.max(0, location.getOccupied() + delta);
-        location.setOccupied(Math.min(updated, location.getCapacity()));
+        synchronized (location) {
+            int occupied = inventory.quantityAtLocation(normalized);
+            location.setOccupied(Math.min(Math.max(0, occupied), location.getCapacity()));
+        }
     }
 
     private String normalizeLocationId(String locationId) {
         return locationId == null ? null : locationId.trim();
     }
 
-    private double aStarDistance(WarehouseLocation target) {
-        GridPoint start = new GridPoint(0, 0, 0);
-        GridPoint goal = new GridPoint((int) Math.round(target.getX()), (int) Math.round(target.getY()),
-                (int) Math.round(target.getZ()));
-        int maxX = (int) Math.ceil(locations.values().stream().mapToDouble(WarehouseLocation::getX).max().orElse(10));
-        int maxY = (int) Math.ceil(locations.values().stream().mapToDouble(WarehouseLocation::getY).max().orElse(10));
-        int maxZ = (int) Math.ceil(locations.values().stream().mapToDouble(WarehouseLocation::getZ).max().orElse(3));
-        Set<GridPoint> blocked = new HashSet<>();
-        locations.values().stream()
-                .filter(WarehouseLocation::isBlocked)
-                .map(loc -> new GridPoint((int) Math.round(loc.getX()), (int) Math.round(loc.getY()),
-                        (int) Math.round(loc.getZ())))
-                .forEach(blocked::add);
-
-        PriorityQueue<PathNode> open = new PriorityQueue<>();
-        Map<GridPoint, Double> gScore = new HashMap<>();
-        open.add(new PathNode(start, 0, heuristic(start, goal)));
-        gScore.put(start, 0.0);
-        Set<GridPoint> closed = new HashSet<>();
-
-        while (!open.isEmpty()) {
-            PathNode current = open.poll();
-            if (current.point().equals(goal)) {
-                return current.g();
-            }
-            if (!closed.add(current.point())) {
-                continue;
-            }
-
-            for (GridPoint neighbour : current.point().neighbours()) {
-                if (neighbour.x() < -2 || neighbour.y() < -2 || neighbour.z() < 0
-                        || neighbour.x() > maxX + 2 || neighbour.y() > maxY + 2 || neighbour.z() > maxZ + 5) {
-                    continue;
-                }
-                if (blocked.contains(neighbour)) {
-                    continue;
-                }
-                double tentative = current.g() + current.point().distanceTo(neighbour);
-                if (tentative < gScore.getOrDefault(neighbour, Double.POSITIVE_INFINITY)) {
-                    gScore.put(neighbour, tentative);
-                    open.add(new PathNode(neighbour, tentative, tentative + heuristic(neighbour, goal)));
-                }
-            }
-        }
-        return euclideanDistance(new double[]{start.x(), start.y(), start.z()},
-                new double[]{goal.x(), goal.y(), goal.z()});
-    }
-
-    private double heuristic(GridPoint from, GridPoint to) {
-        return Math.sqrt(Math.pow(from.x() - to.x(), 2) + Math.pow(from.y() - to.y(), 2)
-                + Math.pow(from.z() - to.z(), 2));
-    }
-
-    private List<RouteNode> optimiseRoute(List<RouteNode> nodes) {
+    private List<RouteNode> optimiseRoute(List<RouteNode> nodes, WarehouseTopology.DistanceMatrix distances) {
         if (nodes.size() <= 1) {
             return nodes;
         }
-        List<RouteNode> remaining = new ArrayList<>(nodes);
-        List<RouteNode> ordered = new ArrayList<>();
-        double[] current = {0, 0, 0};
-        while (!remaining.isEmpty()) {
-            RouteNode best = null;
-            double bestDistance = Double.MAX_VALUE;
-            for (RouteNode candidate : remaining) {
-                double[] target = {candidate.location().getX(), candidate.location().getY(), candidate.location().getZ()};
-                double distance = euclideanDistance(current, target);
-                if (distance < bestDistance) {
-                    bestDistance = distance;
-                    best = candidate;
-                }
-            }
-            ordered.add(best);
-            current = new double[]{best.location().getX(), best.location().getY(), best.location().getZ()};
-            remaining.remove(best);
+        int[] matrixNodes = new int[nodes.size() + 1];
+        matrixNodes[0] = WarehouseTopology.DistanceMatrix.DEPOT;
+        for (int i = 0; i < nodes.size(); i++) {
+            matrixNodes[i + 1] = distances.node(nodes.get(i).location().getId());
+        }
+        int[] order = PickRouteOptimizer.optimise(subMatrix(distances, matrixNodes), routingBudgetNanos);
+        List<RouteNode> ordered = new ArrayList<>(order.length);
+        for (int stop : order) {
+            ordered.add(nodes.get(stop - 1));
         }
         return ordered;
     }
 
-    private record RouteNode(String productId, WarehouseLocation location, int quantity) {
-    }
-
-    private record GridPoint(int x, int y, int z) {
-
-        List<GridPoint> neighbours() {
-            return List.of(
-                    new GridPoint(x + 1, y, z),
-                    new GridPoint(x - 1, y, z),
-                    new GridPoint(x, y + 1, z),
-                    new GridPoint(x, y - 1, z),
-                    new GridPoint(x, y, z + 1),
-                    new GridPoint(x, y, z - 1)
-            );
-        }
-
-        double distanceTo(GridPoint other) {
-            return Math.sqrt(Math.pow(x - other.x(), 2) + Math.pow(y - other.y(), 2)
-                    + Math.pow(z - other.z(), 2));
+    private static double[][] subMatrix(WarehouseTopology.DistanceMatrix distances, int[] matrixNodes) {
+        double[][] result = new double[matrixNodes.length][matrixNodes.length];
+        for (int from = 0; from < matrixNodes.length; from++) {
+            for (int to = 0; to < matrixNodes.length; to++) {
+                result[from][to] = distances.between(matrixNodes[from], matrixNodes[to]);
+            }
         }
+        return result;
     }
 
-    private record PathNode(GridPoint point, double g, double f) implements Comparable<PathNode> {
-        @Override
-        public int compareTo(PathNode other) {
-            return Double.compare(this.f, other.f);
-        }
+    private record RouteNode(String productId, WarehouseLocation location, int quantity) {
     }
 
     private static class CategoryStatistics {
@@ -0,0 +1,271 @@
+package com.chrono.chrono.warehouse.service;
+
+import com.chrono.chrono.warehouse.dto.KpiDashboardResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Lager-KPIs aus laufend fortgeschriebenen Zählern. Bestandsbewegungen, Picks, Auslieferungen
+ * und Retouren werden beim Eintreffen in gleitende Fenster (1h, 24h, 7d) gebucht; Bestands- und
+ * Überbestandswert werden pro Produkt inkrementell nachgeführt. Das Dashboard und die
+ * Prometheus-Gauges lesen nur diese vorberechneten Werte, ohne Bestand oder Ledger zu scannen.
+ * <p>
+ * Als Überbestand gilt die Menge über {@code coverDays} Tagen Reichweite, gemessen an der
+ * Abgangsmenge der letzten sieben Tage. Produkte ohne Abgang im Fenster zählen vollständig.
+ */
+@Service
+public class WarehouseKpiService {
+
+    static final String INVENTORY_VALUE = "inventory_value";
+    static final String OVERSTOCK_VALUE = "overstock_value";
+    static final String PICK_RATE = "pick_rate";
+    static final String PICKED_UNITS_24H = "picked_units_24h";
+    static final String INVENTORY_TURNOVER = "inventory_turnover";
+    static final String ON_TIME_DELIVERY = "on_time_delivery";
+    static final String RETURN_RATE = "return_rate";
+
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    private static final long DAY = Duration.ofDays(1).toMillis();
+    private static final long WEEK = Duration.ofDays(7).toMillis();
+    /** Buckets der Produkt-Abgänge pro Woche; für die Tagesnachfrage reichen 6 Stunden. */
+    private static final int OUTBOUND_BUCKETS = 28;
+    private static final List<String> KPI_NAMES = List.of(INVENTORY_VALUE, OVERSTOCK_VALUE, PICK_RATE,
+            PICKED_UNITS_24H, INVENTORY_TURNOVER, ON_TIME_DELIVERY, RETURN_RATE);
+
+    /**
+     * Bestand und Kostenpreis eines Produkts samt seinem Beitrag zu den Summen, damit Änderungen
+     * als Differenz gebucht werden können.
+     */
+    private static final class Position {
+        private int quantity;
+        private double unitCost;
+        private double overstockValue;
+        /** Abgänge der letzten Woche in 6-Stunden-Buckets; erst beim ersten Pick angelegt. */
+        private SlidingWindowCounter outbound;
+
+        SlidingWindowCounter outbound() {
+            if (outbound == null) {
+                outbound = new SlidingWindowCounter(WEEK, OUTBOUND_BUCKETS);
+            }
+            return outbound;
+        }
+    }
+
+    private final Clock clock;
+    private final double coverDays;
+    private final Map<String, Position> positions = new ConcurrentHashMap<>();
+    private final DoubleAdder inventoryValue = new DoubleAdder();
+    private final DoubleAdder overstockValue = new DoubleAdder();
+
+    private final SlidingWindowCounter pickLinesHour = new SlidingWindowCounter(HOUR, 60);
+    private final SlidingWindowCounter pickedUnitsDay = new SlidingWindowCounter(DAY, 96);
+    private final SlidingWindowCounter issuedCostWeek = new SlidingWindowCounter(WEEK, 168);
+    private final SlidingWindowCounter ordersWeek = new SlidingWindowCounter(WEEK, 168);
+    private final SlidingWindowCounter onTimeOrdersWeek = new SlidingWindowCounter(WEEK, 168);
+    private final SlidingWindowCounter returnsWeek = new SlidingWindowCounter(WEEK, 168);
+
+    public WarehouseKpiService() {
+        this(Clock.systemUTC(), 60);
+    }
+
+    WarehouseKpiService(Clock clock, double coverDays) {
+        this.clock = clock;
+        this.coverDays = Math.max(1, coverDays);
+    }
+
+    @Autowired
+    public WarehouseKpiService(ObjectProvider<MeterRegistry> meterRegistry,
+                               @Value("${app.warehouse.kpi.overstock-cover-days:60}") double coverDays) {
+        this(Clock.systemUTC(), coverDays);
+        meterRegistry.ifAvailable(this::registerGauges);
+    }
+
+    void registerGauges(MeterRegistry registry) {
+        for (String name : KPI_NAMES) {
+            Gauge.builder("chrono.warehouse.kpi", this, service -> service.value(name))
+                    .description("Live-KPI des Lagers")
+                    .tag("kpi", name)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Bucht eine Bestandsänderung eines Produkts zum aktuellen Kostenpreis. Ein geänderter
+     * Kostenpreis bewertet den gesamten Bestand des Produkts neu.
+     */
+    public void recordStockChange(String productId, int quantityChange, BigDecimal unitCost) {
+        if (productId == null) {
+            return;
+        }
+        updatePosition(productId, quantity -> quantity + quantityChange, unitCost, clock.millis());
+    }
+
+    /**
+     * Bucht einen Pick (Warenausgang einer Position). Die Bestandsänderung selbst läuft über
+     * {@link #recordStockChange}.
+     */
+    public void recordPick(String productId, int units, BigDecimal unitCost) {
+        if (productId == null || units <= 0) {
+            return;
+        }
+        long now = clock.millis();
+        pickLinesHour.add(now, 1);
+        pickedUnitsDay.add(now, units);
+        issuedCostWeek.add(now, units * (unitCost != null ? unitCost.doubleValue() : 0));
+        positions.compute(productId, (key, position) -> {
+            Position target = position != null ? position : new Position();
+            target.outbound().add(now, units);
+            revalueOverstock(target, now);
+            return target;
+        });
+    }
+
+    /**
+     * Nimmt ein gelöschtes Produkt samt seinem Beitrag zu Bestands- und Überbestandswert heraus.
+     */
+    public void removeProduct(String productId) {
+        if (productId == null) {
+            return;
+        }
+        positions.computeIfPresent(productId, (key, position) -> {
+            inventoryValue.add(-position.quantity * position.unitCost);
+            overstockValue.add(-position.overstockValue);
+            return null;
+        });
+    }
+
+    public void recordOrderFulfilled(boolean onTime) {
+        long now = clock.millis();
+        ordersWeek.add(now, 1);
+        if (onTime) {
+            onTimeOrdersWeek.add(now, 1);
+        }
+    }
+
+    public void recordReturn() {
+        returnsWeek.add(clock.millis(), 1);
+    }
+
+    /**
+     * Setzt die Bestandspositionen neu auf, etwa nach dem Laden aus der Datenbank. Die
+     * Ereignisfenster bleiben erhalten.
+     */
+    public void resetInventory(Map<String, Integer> quantities, Map<String, BigDecimal> unitCosts) {
+        long now = clock.millis();
+        for (String productId : positions.keySet()) {
+            if (!quantities.containsKey(productId)) {
+                updatePosition(productId, quantity -> 0, null, now);
+            }
+        }
+        quantities.forEach((productId, quantity) ->
+                updatePosition(productId, previous -> quantity, unitCosts.get(productId), now));
+    }
+
+    /**
+     * Die Abgangsfenster gleiten auch ohne Ereignisse weiter; der Überbestand wird deshalb
+     * periodisch für alle Produkte neu bewertet (O(Produkte), nicht O(Bewegungen)).
+     */
+    @Scheduled(fixedDelayString = "${app.warehouse.kpi.overstock-refresh:PT5M}")
+    public void refreshOverstock() {
+        long now = clock.millis();
+        for (String productId : positions.keySet()) {
+            positions.computeIfPresent(productId, (key, position) -> {
+                revalueOverstock(position, now);
+                return position;
+            });
+        }
+    }
+
+    public KpiDashboardResponse snapshot() {
+        long now = clock.millis();
+        Map<String, Double> kpis = new LinkedHashMap<>();
+        for (String name : KPI_NAMES) {
+            kpis.put(name, round(value(name, now)));
+        }
+
+        Map<String, Double> trends = new LinkedHashMap<>();
+        trends.put(PICK_RATE, percentChange(pickLinesHour.current(now), pickLinesHour.previous(now)));
+        trends.put(PICKED_UNITS_24H, percentChange(pickedUnitsDay.current(now), pickedUnitsDay.previous(now)));
+        trends.put(INVENTORY_TURNOVER, round(turnover(issuedCostWeek.current(now))
+                - turnover(issuedCostWeek.previous(now))));
+        trends.put(ON_TIME_DELIVERY, round(ratio(onTimeOrdersWeek.current(now), ordersWeek.current(now))
+                - ratio(onTimeOrdersWeek.previous(now), ordersWeek.previous(now))));
+        trends.put(RETURN_RATE, round(ratio(returnsWeek.current(now), ordersWeek.current(now))
+                - ratio(returnsWeek.previous(now), ordersWeek.previous(now))));
+        return new KpiDashboardResponse(kpis, trends);
+    }
+
+    double value(String name) {
+        return value(name, clock.millis());
+    }
+
+    private double value(String name, long now) {
+        return switch (name) {
+            case INVENTORY_VALUE -> Math.max(0, inventoryValue.sum());
+            case OVERSTOCK_VALUE -> Math.max(0, overstockValue.sum());
+            case PICK_RATE -> pickLinesHour.current(now);
+            case PICKED_UNITS_24H -> pickedUnitsDay.current(now);
+            case INVENTORY_TURNOVER -> turnover(issuedCostWeek.current(now));
+            case ON_TIME_DELIVERY -> ratio(onTimeOrdersWeek.current(now), ordersWeek.current(now));
+            case RETURN_RATE -> ratio(returnsWeek.current(now), ordersWeek.current(now));
+            default -> throw new IllegalArgumentException("Unbekannte KPI " + name);
+        };
+    }
+
+    /** Hochgerechneter Jahresumschlag: Wareneinsatz der Woche × 52 / Bestandswert. */
+    private double turnover(double weeklyIssuedCost) {
+        double stock = inventoryValue.sum();
+        return stock <= 0 ? 0 : weeklyIssuedCost * 52 / stock;
+    }
+
+    private void updatePosition(String productId, IntUnaryOperator quantityUpdate, BigDecimal unitCost, long now) {
+        positions.compute(productId, (key, position) -> {
+            Position target = position != null ? position : new Position();
+            double cost = unitCost != null ? unitCost.doubleValue() : target.unitCost;
+            int quantity = Math.max(0, quantityUpdate.applyAsInt(target.quantity));
+            inventoryValue.add(quantity * cost - target.quantity * target.unitCost);
+            target.quantity = quantity;
+            target.unitCost = cost;
+            revalueOverstock(target, now);
+            return target;
+        });
+    }
+
+    private void revalueOverstock(Position position, long now) {
+        double dailyDemand = position.outbound != null ? position.outbound.current(now) / 7.0 : 0;
+        double excess = Math.max(0, position.quantity - coverDays * dailyDemand);
+        double value = excess * position.unitCost;
+        overstockValue.add(value - position.overstockValue);
+        position.overstockValue = value;
+    }
+
+    private static double ratio(double part, double total) {
+        return total <= 0 ? 0 : Math.min(100, part * 100 / total);
+    }
+
+    private static double percentChange(double current, double previous) {
+        if (previous <= 0) {
+            return 0;
+        }
+        return round((current - previous) * 100 / previous);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,222 @@
+package com.chrono.chrono.warehouse.service;
+
+import com.chrono.chrono.warehouse.model.WarehouseLocation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Lagertopologie mit vorberechneter Laufdistanz zwischen allen Standorten und dem
+ * Startpunkt (Ursprung). Gelaufen wird auf einem Raster mit Einheitsschritten um
+ * gesperrte Standorte herum; da alle Schritte gleich lang sind, liefert eine
+ * Breitensuche pro Quellzelle dieselben kürzesten Wege wie A*, aber zu allen Zielen
+ * in einem Durchlauf. Die Matrix wird nur neu aufgebaut, wenn sich ein Standort
+ * (Position oder Sperre) geändert hat.
+ */
+class WarehouseTopology {
+
+    private final Map<String, WarehouseLocation> locations;
+    private volatile DistanceMatrix matrix;
+
+    WarehouseTopology(Map<String, WarehouseLocation> locations) {
+        this.locations = locations;
+    }
+
+    DistanceMatrix current() {
+        Collection<WarehouseLocation> snapshot = List.copyOf(locations.values());
+        long fingerprint = fingerprint(snapshot);
+        DistanceMatrix existing = matrix;
+        if (existing != null && existing.fingerprint == fingerprint) {
+            return existing;
+        }
+        synchronized (this) {
+            existing = matrix;
+            if (existing == null || existing.fingerprint != fingerprint) {
+                existing = build(snapshot, fingerprint);
+                matrix = existing;
+            }
+            return existing;
+        }
+    }
+
+    private static long fingerprint(Collection<WarehouseLocation> snapshot) {
+        long fingerprint = snapshot.size();
+        for (WarehouseLocation location : snapshot) {
+            // Reihenfolgeunabhängig, damit die Iterationsreihenfolge der Map keine Rolle spielt
+            long hash = Objects.hash(location.getId(), cell(location.getX()), cell(location.getY()),
+                    cell(location.getZ()), location.isBlocked());
+            fingerprint += hash * 0x9E3779B97F4A7C15L;
+        }
+        return fingerprint;
+    }
+
+    private static int cell(double coordinate) {
+        return (int) Math.round(coordinate);
+    }
+
+    private static DistanceMatrix build(Collection<WarehouseLocation> snapshot, long fingerprint) {
+        int maxX = (int) Math.ceil(snapshot.stream().mapToDouble(WarehouseLocation::getX).max().orElse(10));
+        int maxY = (int) Math.ceil(snapshot.stream().mapToDouble(WarehouseLocation::getY).max().orElse(10));
+        int maxZ = (int) Math.ceil(snapshot.stream().mapToDouble(WarehouseLocation::getZ).max().orElse(3));
+        Grid grid = new Grid(-2, maxX + 2, -2, maxY + 2, 0, maxZ + 5);
+
+        boolean[] blocked = new boolean[grid.size()];
+        for (WarehouseLocation location : snapshot) {
+            if (location.isBlocked()) {
+                int index = grid.index(cell(location.getX()), cell(location.getY()), cell(location.getZ()));
+                if (index >= 0) {
+                    blocked[index] = true;
+                }
+            }
+        }
+
+        // Knoten = unterschiedliche Rasterzellen; Knoten 0 ist der Startpunkt
+        List<int[]> nodeCells = new ArrayList<>();
+        Map<String, Integer> nodeByCell = new HashMap<>();
+        Map<String, Integer> nodeByLocation = new HashMap<>();
+        nodeCells.add(new int[]{0, 0, 0});
+        nodeByCell.put("0:0:0", 0);
+        for (WarehouseLocation location : snapshot) {
+            int[] coords = {cell(location.getX()), cell(location.getY()), cell(location.getZ())};
+            String key = coords[0] + ":" + coords[1] + ":" + coords[2];
+            Integer node = nodeByCell.get(key);
+            if (node == null) {
+                node = nodeCells.size();
+                nodeCells.add(coords);
+                nodeByCell.put(key, node);
+            }
+            nodeByLocation.put(location.getId(), node);
+        }
+
+        int nodes = nodeCells.size();
+        int[] gridIndexByNode = new int[nodes];
+        for (int i = 0; i < nodes; i++) {
+            int[] coords = nodeCells.get(i);
+            gridIndexByNode[i] = grid.index(coords[0], coords[1], coords[2]);
+        }
+
+        double[][] distances = new double[nodes][nodes];
+        int[] stepCounts = new int[grid.size()];
+        int[] queue = new int[grid.size()];
+        for (int source = 0; source < nodes; source++) {
+            breadthFirst(grid, blocked, gridIndexByNode[source], stepCounts, queue);
+            for (int target = 0; target < nodes; target++) {
+                int gridIndex = gridIndexByNode[target];
+                int steps = gridIndex >= 0 ? stepCounts[gridIndex] : -1;
+                distances[source][target] = steps >= 0
+                        ? steps
+                        : euclidean(nodeCells.get(source), nodeCells.get(target));
+            }
+        }
+        return new DistanceMatrix(fingerprint, nodeByLocation, distances);
+    }
+
+    private static void breadthFirst(Grid grid, boolean[] blocked, int start, int[] stepCounts, int[] queue) {
+        Arrays.fill(stepCounts, -1);
+        if (start < 0) {
+            return;
+        }
+        int head = 0;
+        int tail = 0;
+        stepCounts[start] = 0;
+        queue[tail++] = start;
+        int[] offsets = grid.neighbourOffsets();
+        while (head < tail) {
+            int current = queue[head++];
+            int[] coords = grid.coordinates(current);
+            for (int direction = 0; direction < 6; direction++) {
+                int nx = coords[0] + offsets[direction * 3];
+                int ny = coords[1] + offsets[direction * 3 + 1];
+                int nz = coords[2] + offsets[direction * 3 + 2];
+                int next = grid.index(nx, ny, nz);
+                if (next < 0 || blocked[next] || stepCounts[next] >= 0) {
+                    continue;
+                }
+                stepCounts[next] = stepCounts[current] + 1;
+                queue[tail++] = next;
+            }
+        }
+    }
+
+    private static double euclidean(int[] from, int[] to) {
+        double dx = from[0] - to[0];
+        double dy = from[1] - to[1];
+        double dz = from[2] - to[2];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * Unveränderliche Distanzmatrix eines Topologie-Stands.
+     */
+    static final class DistanceMatrix {
+
+        static final int DEPOT = 0;
+
+        private final long fingerprint;
+        private final Map<String, Integer> nodeByLocation;
+        private final double[][] distances;
+
+        private DistanceMatrix(long fingerprint, Map<String, Integer> nodeByLocation, double[][] distances) {
+            this.fingerprint = fingerprint;
+            this.nodeByLocation = nodeByLocation;
+            this.distances = distances;
+        }
+
+        int node(String locationId) {
+            Integer node = nodeByLocation.get(locationId);
+            if (node == null) {
+                throw new IllegalArgumentException("Unbekannter Standort " + locationId);
+            }
+            return node;
+        }
+
+        double between(int fromNode, int toNode) {
+            return distances[fromNode][toNode];
+        }
+
+        double fromDepot(String locationId) {
+            return distances[DEPOT][node(locationId)];
+        }
+    }
+
+    private record Grid(int minX, int maxX, int minY, int maxY, int minZ, int maxZ) {
+
+        private static final int[] OFFSETS = {1, 0, 0, -1, 0, 0, 0, 1, 0, 0, -1, 0, 0, 0, 1, 0, 0, -1};
+
+        int width() {
+            return maxX - minX + 1;
+        }
+
+        int depth() {
+            return maxY - minY + 1;
+        }
+
+        int size() {
+            return width() * depth() * (maxZ - minZ + 1);
+        }
+
+        int index(int x, int y, int z) {
+            if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) {
+                return -1;
+            }
+            return ((z - minZ) * depth() + (y - minY)) * width() + (x - minX);
+        }
+
+        int[] coordinates(int index) {
+            int x = index % width();
+            int rest = index / width();
+            int y = rest % depth();
+            int z = rest / depth();
+            return new int[]{x + minX, y + minY, z + minZ};
+        }
+
+        int[] neighbourOffsets() {
+            return OFFSETS;
+        }
+    }
+}
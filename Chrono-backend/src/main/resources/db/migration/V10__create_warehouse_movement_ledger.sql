@@ -0,0 +1,32 @@
+CREATE TABLE IF NOT EXISTS wh_movement_ledger (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    movement_id VARCHAR(36) NOT NULL,
+    product_id VARCHAR(128) NOT NULL,
+    from_location VARCHAR(128) NULL,
+    to_location VARCHAR(128) NULL,
+    quantity INT NOT NULL,
+    recorded_at TIMESTAMP(6) NOT NULL,
+    hash VARCHAR(64) NULL,
+    CONSTRAINT uq_wh_movement_ledger_movement UNIQUE (movement_id)
+);
+
+CREATE INDEX idx_wh_movement_ledger_recorded_at
+    ON wh_movement_ledger (recorded_at);
+
+CREATE TABLE IF NOT EXISTS wh_movement_daily (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id VARCHAR(128) NOT NULL,
+    movement_date DATE NOT NULL,
+    inbound_quantity INT NOT NULL,
+    outbound_quantity INT NOT NULL,
+    movement_count INT NOT NULL
+);
+
+CREATE UNIQUE INDEX uq_wh_movement_daily_product_date
+    ON wh_movement_daily (product_id, movement_date);
+
+CREATE TABLE IF NOT EXISTS wh_ledger_checkpoint (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    last_sequence BIGINT NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
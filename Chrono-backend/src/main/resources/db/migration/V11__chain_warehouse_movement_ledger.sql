@@ -0,0 +1,5 @@
+ALTER TABLE wh_movement_ledger
+    ADD COLUMN IF NOT EXISTS previous_hash VARCHAR(64);
+
+ALTER TABLE wh_ledger_checkpoint
+    ADD COLUMN IF NOT EXISTS last_hash VARCHAR(64);
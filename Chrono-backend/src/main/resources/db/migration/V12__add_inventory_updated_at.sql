@@ -0,0 +1,21 @@
+ALTER TABLE inv_products
+    ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP(6) NULL;
+
+ALTER TABLE inv_warehouses
+    ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP(6) NULL;
+
+ALTER TABLE inv_stock_levels
+    ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP(6) NULL;
+
+UPDATE inv_products SET updated_at = CURRENT_TIMESTAMP WHERE updated_at IS NULL;
+UPDATE inv_warehouses SET updated_at = CURRENT_TIMESTAMP WHERE updated_at IS NULL;
+UPDATE inv_stock_levels SET updated_at = CURRENT_TIMESTAMP WHERE updated_at IS NULL;
+
+CREATE INDEX idx_inv_products_updated_at
+    ON inv_products (updated_at);
+
+CREATE INDEX idx_inv_warehouses_updated_at
+    ON inv_warehouses (updated_at);
+
+CREATE INDEX idx_inv_stock_levels_updated_at
+    ON inv_stock_levels (updated_at);
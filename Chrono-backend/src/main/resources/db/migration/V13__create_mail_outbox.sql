@@ -0,0 +1,17 @@
+CREATE TABLE IF NOT EXISTS mail_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    context VARCHAR(64) NOT NULL,
+    sender VARCHAR(255) NULL,
+    recipients VARCHAR(1024) NOT NULL,
+    subject VARCHAR(512) NULL,
+    body TEXT NULL,
+    status VARCHAR(16) NOT NULL,
+    attempts INT NOT NULL,
+    next_attempt_at TIMESTAMP(6) NOT NULL,
+    last_error VARCHAR(1024) NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    sent_at TIMESTAMP(6) NULL
+);
+
+CREATE INDEX idx_mail_outbox_status_next_attempt
+    ON mail_outbox (status, next_attempt_at);
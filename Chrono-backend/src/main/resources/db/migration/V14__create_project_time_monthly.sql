@@ -0,0 +1,22 @@
+CREATE TABLE IF NOT EXISTS project_time_monthly (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    company_id BIGINT NOT NULL,
+    month_start DATE NOT NULL,
+    user_id BIGINT NOT NULL,
+    end_project_id BIGINT NULL,
+    end_task_id BIGINT NULL,
+    start_project_id BIGINT NULL,
+    start_task_id BIGINT NULL,
+    minutes BIGINT NOT NULL
+);
+
+CREATE INDEX idx_project_time_monthly_company_month
+    ON project_time_monthly (company_id, month_start);
+
+CREATE TABLE IF NOT EXISTS project_time_monthly_state (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    company_id BIGINT NOT NULL,
+    month_start DATE NOT NULL,
+    computed_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uq_project_time_monthly_state UNIQUE (company_id, month_start)
+);
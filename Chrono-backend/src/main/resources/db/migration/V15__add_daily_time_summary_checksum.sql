@@ -0,0 +1,2 @@
+ALTER TABLE daily_time_summary
+    ADD COLUMN IF NOT EXISTS entries_checksum BIGINT NULL;
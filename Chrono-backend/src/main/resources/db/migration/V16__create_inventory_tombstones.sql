@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS inv_tombstones (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    entity_type VARCHAR(16) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    product_id BIGINT NULL,
+    warehouse_id BIGINT NULL,
+    deleted_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX idx_inv_tombstones_deleted_at
+    ON inv_tombstones (deleted_at);
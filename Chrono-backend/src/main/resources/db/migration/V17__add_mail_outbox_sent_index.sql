@@ -0,0 +1,2 @@
+CREATE INDEX idx_mail_outbox_status_sent_at
+    ON mail_outbox (status, sent_at);
@@ -0,0 +1,12 @@
+CREATE TABLE IF NOT EXISTS user_balance_deltas (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    period_start DATE NOT NULL,
+    period_type VARCHAR(10) NOT NULL,
+    delta_minutes INT NOT NULL,
+    CONSTRAINT fk_user_balance_deltas_user
+        FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+CREATE UNIQUE INDEX uq_user_balance_deltas_user_period
+    ON user_balance_deltas (user_id, period_start);
@@ -0,0 +1,17 @@
+CREATE TABLE IF NOT EXISTS daily_time_summary (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    summary_date DATE NOT NULL,
+    worked_minutes INT NOT NULL,
+    break_minutes INT NOT NULL,
+    entry_count INT NOT NULL,
+    first_start_time TIME NULL,
+    last_end_time TIME NULL,
+    is_open BIT NOT NULL DEFAULT 0,
+    needs_correction BIT NOT NULL DEFAULT 0,
+    CONSTRAINT fk_daily_time_summary_user
+        FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+CREATE UNIQUE INDEX uq_daily_time_summary_user_date
+    ON daily_time_summary (user_id, summary_date);
@@ -0,0 +1,2 @@
+CREATE INDEX idx_time_tracking_entries_timestamp
+    ON time_tracking_entries (entry_timestamp);
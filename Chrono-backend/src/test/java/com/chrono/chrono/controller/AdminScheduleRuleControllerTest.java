@@ -0,0 +1,112 @@
+package com.chrono.chrono.controller;
+
+import com.chrono.chrono.dto.UserScheduleRuleDTO;
+import com.chrono.chrono.entities.User;
+import com.chrono.chrono.entities.UserScheduleRule;
+import com.chrono.chrono.repositories.UserRepository;
+import com.chrono.chrono.repositories.UserScheduleRuleRepository;
+import com.chrono.chrono.services.TimeTrackingService;
+import com.chrono.chrono.services.WorkScheduleService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AdminScheduleRuleControllerTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private UserScheduleRuleRepository ruleRepository;
+    @Mock
+    private WorkScheduleService workScheduleService;
+    @Mock
+    private TimeTrackingService timeTrackingService;
+
+    private AdminScheduleRuleController controller;
+    private User user;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        controller = new AdminScheduleRuleController();
+        ReflectionTestUtils.setField(controller, "userRepository", userRepository);
+        ReflectionTestUtils.setField(controller, "ruleRepository", ruleRepository);
+        ReflectionTestUtils.setField(controller, "workScheduleService", workScheduleService);
+        ReflectionTestUtils.setField(controller, "timeTrackingService", timeTrackingService);
+        user = new User();
+        user.setId(7L);
+        user.setUsername("anna");
+        today = LocalDate.now(ZoneId.of("Europe/Berlin"));
+    }
+
+    @Test
+    void createRule_recomputesBalanceFromRuleStartUntilToday() {
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+        UserScheduleRuleDTO dto = new UserScheduleRuleDTO();
+        dto.setUserId(7L);
+        dto.setRuleType("EVERY_2_WEEKS_FRIDAY_OFF");
+        dto.setStartDate(today.minusDays(30));
+
+        controller.createRule(dto);
+
+        verify(workScheduleService).invalidateUserCalendar(user);
+        verify(timeTrackingService).updateUserBalanceForRange(user, today.minusDays(30), today);
+    }
+
+    @Test
+    void updateRule_recomputesFromEarlierOfOldAndNewStart() {
+        UserScheduleRule rule = rule(today.minusDays(10));
+        when(ruleRepository.findById(3L)).thenReturn(Optional.of(rule));
+        UserScheduleRuleDTO dto = new UserScheduleRuleDTO();
+        dto.setStartDate(today.minusDays(5));
+
+        controller.updateRule(3L, dto);
+
+        verify(timeTrackingService).updateUserBalanceForRange(user, today.minusDays(10), today);
+    }
+
+    @Test
+    void deleteRule_recomputesFromRuleStart() {
+        UserScheduleRule rule = rule(today.minusDays(20));
+        when(ruleRepository.findById(3L)).thenReturn(Optional.of(rule));
+
+        controller.deleteRule(3L);
+
+        verify(ruleRepository).delete(rule);
+        verify(timeTrackingService).updateUserBalanceForRange(user, today.minusDays(20), today);
+    }
+
+    @Test
+    void createRule_startingInTheFutureLeavesBalanceUntouched() {
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+        UserScheduleRuleDTO dto = new UserScheduleRuleDTO();
+        dto.setUserId(7L);
+        dto.setStartDate(today.plusDays(14));
+
+        controller.createRule(dto);
+
+        verify(timeTrackingService, never()).updateUserBalanceForRange(any(), any(), any());
+    }
+
+    private UserScheduleRule rule(LocalDate startDate) {
+        UserScheduleRule rule = new UserScheduleRule();
+        rule.setId(3L);
+        rule.setUser(user);
+        rule.setRuleType("EVERY_2_WEEKS_FRIDAY_OFF");
+        rule.setStartDate(startDate);
+        return rule;
+    }
+}
@@ -9,7 +9,9 @@ import com.chrono.chrono.repositories.CompanyRepository;
 import com.chrono.chrono.repositories.RoleRepository;
 import com.chrono.chrono.repositories.UserRepository;
 import com.chrono.chrono.services.EmploymentModelHistoryService;
+import com.chrono.chrono.services.PrincipalCacheService;
 import com.chrono.chrono.services.TimeTrackingService;
+import com.chrono.chrono.services.WorkScheduleService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -47,6 +49,10 @@ class AdminUserControllerSnapshotHistoryTest {
     @Mock
     private EmploymentModelHistoryService employmentModelHistoryService;
     @Mock
+    private WorkScheduleService workScheduleService;
+    @Mock
+    private PrincipalCacheService principalCacheService;
+    @Mock
     private Principal principal;
 
     private AdminUserController controller;
@@ -60,6 +66,8 @@ class AdminUserControllerSnapshotHistoryTest {
         ReflectionTestUtils.setField(controller, "passwordEncoder", passwordEncoder);
         ReflectionTestUtils.setField(controller, "timeTrackingService", timeTrackingService);
         ReflectionTestUtils.setField(controller, "employmentModelHistoryService", employmentModelHistoryService);
+        ReflectionTestUtils.setField(controller, "workScheduleService", workScheduleService);
+        ReflectionTestUtils.setField(controller, "principalCacheService", principalCacheService);
     }
 
     @Test
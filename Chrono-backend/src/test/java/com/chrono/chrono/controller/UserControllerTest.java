@@ -4,6 +4,7 @@ import com.chrono.chrono.dto.ChangePasswordRequest;
 import com.chrono.chrono.entities.User;
 import com.chrono.chrono.exceptions.UserNotFoundException;
 import com.chrono.chrono.repositories.UserRepository;
+import com.chrono.chrono.services.PrincipalCacheService;
 import com.chrono.chrono.services.UserService;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.ResponseEntity;
@@ -25,6 +26,7 @@ public class UserControllerTest {
         UserController controller = new UserController(userService);
         ReflectionTestUtils.setField(controller, "userRepository", userRepository);
         ReflectionTestUtils.setField(controller, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(controller, "principalCacheService", mock(PrincipalCacheService.class));
 
         ChangePasswordRequest request = new ChangePasswordRequest("john", "old", "new");
         User user = new User();
@@ -50,6 +52,7 @@ public class UserControllerTest {
         UserController controller = new UserController(userService);
         ReflectionTestUtils.setField(controller, "userRepository", userRepository);
         ReflectionTestUtils.setField(controller, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(controller, "principalCacheService", mock(PrincipalCacheService.class));
 
         ChangePasswordRequest request = new ChangePasswordRequest("missing", "old", "new");
         when(userRepository.findByUsername("missing")).thenReturn(Optional.empty());
@@ -65,6 +68,7 @@ public class UserControllerTest {
         UserController controller = new UserController(userService);
         ReflectionTestUtils.setField(controller, "userRepository", userRepository);
         ReflectionTestUtils.setField(controller, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(controller, "principalCacheService", mock(PrincipalCacheService.class));
 
         ChangePasswordRequest request = new ChangePasswordRequest("john", "old", "new");
         User user = new User();
@@ -88,6 +92,7 @@ public class UserControllerTest {
         UserController controller = new UserController(userService);
         ReflectionTestUtils.setField(controller, "userRepository", userRepository);
         ReflectionTestUtils.setField(controller, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(controller, "principalCacheService", mock(PrincipalCacheService.class));
 
         ChangePasswordRequest request = new ChangePasswordRequest("admin", "old", "new");
         User user = new User();
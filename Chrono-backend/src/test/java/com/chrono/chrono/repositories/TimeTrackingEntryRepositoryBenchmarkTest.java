@@ -0,0 +1,141 @@
+package com.chrono.chrono.repositories;
+
+import com.chrono.chrono.entities.TimeTrackingEntry;
+import com.chrono.chrono.entities.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Last-Benchmark für den Stempel-Pfad: misst die Tagesabfragen, die bei jedem Stempel
+ * laufen, während die Tabelle schrittweise wächst. Läuft nur mit -Dchrono.benchmark=true.
+ * Die Stufen lassen sich über -Dchrono.benchmark.sizes=1000000,10000000,30000000 anpassen;
+ * für realistische Zahlen SPRING_DATASOURCE_URL auf eine MySQL-Instanz zeigen lassen.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "chrono.benchmark", matches = "true")
+@TestPropertySource(properties = {
+        "SPRING_DATASOURCE_URL=jdbc:h2:mem:chrono_punch_benchmark;DB_CLOSE_DELAY=-1;MODE=MYSQL",
+        "SPRING_DATASOURCE_USERNAME=sa",
+        "SPRING_DATASOURCE_PASSWORD=",
+        "SPRING_MAIL_HOST=localhost",
+        "SPRING_MAIL_PORT=2525",
+        "SPRING_MAIL_USERNAME=test",
+        "SPRING_MAIL_PASSWORD=test",
+        "spring.datasource.url=jdbc:h2:mem:chrono_punch_benchmark;DB_CLOSE_DELAY=-1;MODE=MYSQL",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class TimeTrackingEntryRepositoryBenchmarkTest {
+
+    private static final int FILLER_USERS = 200;
+    private static final int BATCH_SIZE = 10_000;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURED_ROUNDS = 1_000;
+
+    @Autowired
+    private TimeTrackingEntryRepository timeTrackingEntryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void punchLookupLatencyStaysFlatWhileTableGrows() {
+        long[] sizes = Arrays.stream(System.getProperty("chrono.benchmark.sizes", "100000,1000000,5000000").split(","))
+                .mapToLong(size -> Long.parseLong(size.trim()))
+                .sorted()
+                .toArray();
+
+        User target = saveUser("bench-target");
+        List<Long> fillerUserIds = new ArrayList<>();
+        for (int i = 0; i < FILLER_USERS; i++) {
+            fillerUserIds.add(saveUser("bench-filler-" + i).getId());
+        }
+        LocalDate today = LocalDate.of(2025, 6, 2);
+        timeTrackingEntryRepository.save(new TimeTrackingEntry(target, today.atTime(8, 0),
+                TimeTrackingEntry.PunchType.START, TimeTrackingEntry.PunchSource.MANUAL_PUNCH));
+
+        long inserted = 1;
+        List<Double> medians = new ArrayList<>();
+        for (long size : sizes) {
+            inserted += seedHistory(target.getId(), fillerUserIds, today, inserted, size);
+            long[] nanos = measure(target, today);
+            double p50 = nanos[nanos.length / 2] / 1_000_000.0;
+            double p95 = nanos[(int) (nanos.length * 0.95)] / 1_000_000.0;
+            medians.add(p50);
+            System.out.printf("[punch-benchmark] rows=%,d p50=%.3f ms p95=%.3f ms%n", inserted, p50, p95);
+        }
+
+        // Mit Index-Zugriff darf die Latenz nicht linear mit der Tabellengrösse wachsen
+        double smallest = medians.get(0);
+        double largest = medians.get(medians.size() - 1);
+        assertThat(largest).isLessThan(smallest * 5 + 1.0);
+    }
+
+    private long seedHistory(Long targetUserId, List<Long> fillerUserIds, LocalDate today, long alreadyInserted, long targetSize) {
+        long toInsert = Math.max(0, targetSize - alreadyInserted);
+        long done = 0;
+        LocalDateTime base = today.minusDays(1).atTime(7, 0);
+        while (done < toInsert) {
+            int batch = (int) Math.min(BATCH_SIZE, toInsert - done);
+            List<Object[]> rows = new ArrayList<>(batch);
+            for (int i = 0; i < batch; i++) {
+                long seq = alreadyInserted + done + i;
+                // Jeder zehnte Stempel gehört dem Ziel-User, der Rest verteilt sich auf die übrigen User
+                Long userId = seq % 10 == 0 ? targetUserId : fillerUserIds.get((int) (seq % fillerUserIds.size()));
+                LocalDateTime timestamp = base.minusMinutes(seq);
+                String punchType = seq % 2 == 0 ? "START" : "ENDE";
+                rows.add(new Object[]{userId, Timestamp.valueOf(timestamp), punchType, "MANUAL_PUNCH"});
+            }
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO time_tracking_entries (user_id, entry_timestamp, punch_type, source, corrected_by_user, approved) " +
+                            "VALUES (?, ?, ?, ?, FALSE, FALSE)", rows);
+            done += batch;
+        }
+        return toInsert;
+    }
+
+    private long[] measure(User target, LocalDate today) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            timeTrackingEntryRepository.findLastEntryByUserAndDate(target, today);
+        }
+        long[] nanos = new long[MEASURED_ROUNDS];
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            timeTrackingEntryRepository.findLastEntryByUserAndDate(target, today);
+            timeTrackingEntryRepository.findByUserAndEntryDateOrderByEntryTimestampAsc(target, today);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private User saveUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setCountry("DE");
+        user.setPersonnelNumber(username);
+        return userRepository.save(user);
+    }
+}
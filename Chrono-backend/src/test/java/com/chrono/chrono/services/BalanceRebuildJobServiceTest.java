@@ -0,0 +1,106 @@
+package com.chrono.chrono.services;
+
+import com.chrono.chrono.entities.User;
+import com.chrono.chrono.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceRebuildJobServiceTest {
+
+    @Mock
+    private TimeTrackingService timeTrackingService;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BalanceRebuildJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jobService = new BalanceRebuildJobService(timeTrackingService, userRepository, transactionManager, meterRegistry, 2, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdown();
+    }
+
+    @Test
+    void startRebuild_processesAllUsersInChunksAndIsolatesFailures() throws Exception {
+        User alice = user(1L, "alice");
+        User bob = user(2L, "bob");
+        User carol = user(3L, "carol");
+        when(userRepository.findAllIds()).thenReturn(List.of(1L, 2L, 3L));
+        lenient().when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
+        lenient().when(userRepository.findById(2L)).thenReturn(Optional.of(bob));
+        lenient().when(userRepository.findById(3L)).thenReturn(Optional.of(carol));
+        doThrow(new IllegalStateException("kaputt")).when(timeTrackingService).rebuildUserBalance(bob);
+
+        String jobId = jobService.startRebuild("test");
+        Map<String, Object> status = awaitFinished(jobId);
+
+        assertEquals(BalanceRebuildJobService.JobState.COMPLETED, status.get("state"));
+        assertEquals(3, status.get("totalUsers"));
+        assertEquals(3, status.get("processedUsers"));
+        assertEquals(1, status.get("failedUsers"));
+        assertEquals(2.0, meterRegistry.get("chrono.balance.rebuild.users").tag("outcome", "success").counter().count());
+        assertEquals(1.0, meterRegistry.get("chrono.balance.rebuild.users").tag("outcome", "failure").counter().count());
+        assertEquals(1.0, meterRegistry.get("chrono.balance.rebuild.progress").gauge().value());
+    }
+
+    @Test
+    void startRebuild_returnsRunningJobInsteadOfStartingSecondOne() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(userRepository.findAllIds()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        String first = jobService.startRebuild("startup");
+        String second = jobService.startRebuild("admin");
+        release.countDown();
+
+        assertEquals(first, second);
+        awaitFinished(first);
+    }
+
+    private Map<String, Object> awaitFinished(String jobId) throws Exception {
+        BalanceRebuildJobService.RebuildJob job = jobService.getJob(jobId).orElseThrow();
+        try {
+            job.completion().get(5, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            fail("Rebuild-Job wurde nicht rechtzeitig beendet");
+        }
+        return job.toStatus();
+    }
+
+    private User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+}
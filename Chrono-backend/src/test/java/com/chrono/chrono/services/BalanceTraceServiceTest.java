@@ -0,0 +1,42 @@
+package com.chrono.chrono.services;
+
+import com.chrono.chrono.entities.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BalanceTraceServiceTest {
+
+    @Test
+    void recordsOnlyForEnabledUsersAndKeepsBufferBounded() {
+        BalanceTraceService service = new BalanceTraceService(2);
+        User user = new User();
+        user.setUsername("alice");
+        LocalDate date = LocalDate.of(2024, 1, 1);
+
+        assertFalse(service.isTracing(user));
+        service.record(user, date, BalanceTraceService.PeriodType.DAY, 480, 504, -24);
+        assertTrue(service.getTrace("alice").isEmpty());
+
+        service.enable("alice");
+        assertTrue(service.isTracing(user));
+        service.record(user, date, BalanceTraceService.PeriodType.DAY, 480, 504, -24);
+        service.record(user, date.plusDays(1), BalanceTraceService.PeriodType.DAY, 500, 504, -4);
+        service.record(user, date.plusDays(2), BalanceTraceService.PeriodType.DAY, 510, 504, 6);
+
+        List<BalanceTraceService.TraceRecord> trace = service.getTrace("alice");
+        assertEquals(2, trace.size());
+        assertEquals(date.plusDays(1), trace.get(0).periodStart());
+        assertEquals(6, trace.get(1).differenceMinutes());
+        assertEquals(3, service.exportCsv("alice").split("\n").length);
+
+        service.disable("alice");
+        assertFalse(service.isTracing(user));
+        assertTrue(service.getTrace("alice").isEmpty());
+    }
+}
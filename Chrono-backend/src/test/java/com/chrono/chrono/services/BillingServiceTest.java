@@ -6,7 +6,6 @@ import com.chrono.chrono.entities.Company;
 import com.chrono.chrono.entities.Customer;
 import com.chrono.chrono.entities.Project;
 import com.chrono.chrono.entities.Task;
-import com.chrono.chrono.entities.TimeTrackingEntry;
 import com.chrono.chrono.entities.User;
 import com.chrono.chrono.repositories.TimeTrackingEntryRepository;
 import com.chrono.chrono.services.accounting.AccountsReceivableService;
@@ -25,7 +24,7 @@ import java.util.Set;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.contains;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.verify;
@@ -75,32 +74,12 @@ class BillingServiceTest {
         billableTask.setName("Implementation");
         billableTask.setBillable(true);
 
-        Task nonBillableTask = new Task();
-        nonBillableTask.setId(101L);
-        nonBillableTask.setName("Internal");
-        nonBillableTask.setBillable(false);
-
-        TimeTrackingEntry billableEntry = new TimeTrackingEntry();
-        billableEntry.setProject(project);
-        billableEntry.setTask(billableTask);
-        billableEntry.setDurationMinutes(120);
-        billableEntry.setEntryTimestamp(LocalDateTime.of(2024, 1, 5, 10, 0));
-
-        TimeTrackingEntry childEntry = new TimeTrackingEntry();
-        childEntry.setProject(childProject);
-        childEntry.setTask(null);
-        childEntry.setDurationMinutes(30);
-        childEntry.setEntryTimestamp(LocalDateTime.of(2024, 1, 6, 9, 0));
-
-        TimeTrackingEntry nonBillableEntry = new TimeTrackingEntry();
-        nonBillableEntry.setProject(project);
-        nonBillableEntry.setTask(nonBillableTask);
-        nonBillableEntry.setDurationMinutes(45);
-        nonBillableEntry.setEntryTimestamp(LocalDateTime.of(2024, 1, 7, 9, 0));
-
+        // nicht abrechenbare Aufgaben filtert die Abfrage bereits in der Datenbank
         when(projectService.collectProjectAndDescendantIds(project)).thenReturn(Set.of(10L, 11L));
-        when(timeTrackingEntryRepository.findByProjectIdInAndEntryTimestampBetween(anyList(), any(), any()))
-                .thenReturn(List.of(billableEntry, childEntry, nonBillableEntry));
+        when(timeTrackingEntryRepository.sumBillableMinutesByProjectAndTask(anyCollection(), any(), any()))
+                .thenReturn(List.of(
+                        new Object[]{10L, "Root Project", 100L, "Implementation", 120L},
+                        new Object[]{11L, "Child Project", null, null, 30L}));
         when(accountsReceivableService.recordProjectInvoice(any(Project.class), any(InvoiceSummaryDTO.class)))
                 .thenReturn(null);
 
@@ -146,7 +125,8 @@ class BillingServiceTest {
         assertNotNull(summary.getOverrideRate());
 
         verify(projectService).collectProjectAndDescendantIds(project);
-        verify(timeTrackingEntryRepository).findByProjectIdInAndEntryTimestampBetween(anyList(), any(), any());
+        verify(timeTrackingEntryRepository).sumBillableMinutesByProjectAndTask(eq(Set.of(10L, 11L)),
+                eq(LocalDateTime.of(2024, 1, 1, 0, 0)), eq(LocalDateTime.of(2024, 2, 1, 0, 0)));
         verify(complianceAuditService).recordAction(eq(actor), eq("GENERATE"), eq("BILLING"), eq(project.getId()),
                 contains("Root Project"));
         verify(accountsReceivableService).recordProjectInvoice(eq(project), any(InvoiceSummaryDTO.class));
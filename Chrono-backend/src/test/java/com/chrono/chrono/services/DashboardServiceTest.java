@@ -59,7 +59,7 @@ class DashboardServiceTest {
         DailyTimeSummaryDTO nextWeek = summary("demo-admin", LocalDate.of(2024, 1, 8), 300, 30);
 
         when(userRepository.findByUsername("demo-admin")).thenReturn(Optional.of(user));
-        when(timeTrackingService.getUserHistory("demo-admin"))
+        when(timeTrackingService.getUserHistory("demo-admin", start, end))
                 .thenReturn(List.of(monday, friday, nextWeek));
 
         DashboardResponse response = dashboardService.getUserDashboardForWeek("demo-admin", start, end);
@@ -69,7 +69,7 @@ class DashboardServiceTest {
         assertEquals(2, response.getDailySummaries().size());
         assertTrue(response.getDailySummaries().containsAll(List.of(monday, friday)));
         assertTrue(response.getDailySummaries().stream().noneMatch(dto -> dto.getDate().isAfter(end)));
-        verify(timeTrackingService).getUserHistory("demo-admin");
+        verify(timeTrackingService).getUserHistory("demo-admin", start, end);
     }
 
     @Test
@@ -79,7 +79,7 @@ class DashboardServiceTest {
         DailyTimeSummaryDTO endDay = summary("demo-admin", end, 420, 60);
 
         when(userRepository.findByUsername("demo-admin")).thenReturn(Optional.of(user));
-        when(timeTrackingService.getUserHistory("demo-admin"))
+        when(timeTrackingService.getUserHistory("demo-admin", start, end))
                 .thenReturn(List.of(startDay, endDay));
 
         DashboardResponse response = dashboardService.getUserDashboardForWeek("demo-admin", start, end);
@@ -98,7 +98,7 @@ class DashboardServiceTest {
         DailyTimeSummaryDTO midWeek = summary("demo-admin", LocalDate.of(2024, 1, 3), 360, 45);
 
         when(userRepository.findByUsername("demo-admin")).thenReturn(Optional.of(user));
-        when(timeTrackingService.getUserHistory("demo-admin"))
+        when(timeTrackingService.getUserHistory("demo-admin", start, end))
                 .thenReturn(List.of(midWeek));
 
         DashboardResponse response = dashboardService.getUserDashboardForWeek("demo-admin", start, end);
@@ -115,7 +115,7 @@ class DashboardServiceTest {
         DailyTimeSummaryDTO demoDay = summary("demo-admin", LocalDate.of(2024, 1, 4), 540, 30);
 
         when(userRepository.findByUsername("demo-admin")).thenReturn(Optional.of(user));
-        when(timeTrackingService.getUserHistory("demo-admin"))
+        when(timeTrackingService.getUserHistory("demo-admin", start, end))
                 .thenReturn(List.of(demoDay));
 
         DashboardResponse response = dashboardService.getUserDashboardForWeek("demo-admin", start, end);
@@ -130,7 +130,7 @@ class DashboardServiceTest {
         DailyTimeSummaryDTO outsideRange = summary("demo-admin", LocalDate.of(2024, 2, 1), 300, 30);
 
         when(userRepository.findByUsername("demo-admin")).thenReturn(Optional.of(user));
-        when(timeTrackingService.getUserHistory("demo-admin"))
+        when(timeTrackingService.getUserHistory("demo-admin", start, end))
                 .thenReturn(List.of(outsideRange));
 
         DashboardResponse response = dashboardService.getUserDashboardForWeek("demo-admin", start, end);
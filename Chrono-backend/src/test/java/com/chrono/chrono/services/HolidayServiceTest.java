@@ -0,0 +1,49 @@
+package com.chrono.chrono.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HolidayServiceTest {
+
+    private final HolidayService holidayService = new HolidayService(1, 1);
+
+    @Test
+    void isHoliday_appliesCantonalRulesAndFallsBackToGeneralCalendar() {
+        LocalDate corpusChristi2024 = LocalDate.of(2024, 5, 30);
+
+        assertTrue(holidayService.isHoliday(corpusChristi2024, "LU"));
+        assertTrue(holidayService.isHoliday(corpusChristi2024, "ti"));
+        assertFalse(holidayService.isHoliday(corpusChristi2024, "ZH"));
+        assertFalse(holidayService.isHoliday(corpusChristi2024, "XX"));
+        assertTrue(holidayService.isHoliday(LocalDate.of(2024, 12, 31), "GE"));
+        assertTrue(holidayService.isHoliday(LocalDate.of(2026, 4, 9), "GL")); // Näfelser Fahrt, wegen Karwoche verschoben
+        assertTrue(holidayService.isHoliday(LocalDate.of(2024, 8, 1), null));
+    }
+
+    @Test
+    void isHoliday_computesYearsOutsideThePrecomputedWindow() {
+        assertTrue(holidayService.isHoliday(LocalDate.of(1990, 4, 13), "SG")); // Karfreitag 1990
+        assertTrue(holidayService.isHoliday(LocalDate.of(2090, 1, 2), "SG"));
+    }
+
+    @Test
+    void holidaysBetween_spansYearBoundary() {
+        HolidayService.HolidayRange range = holidayService.holidaysBetween(
+                LocalDate.of(2024, 12, 20), LocalDate.of(2025, 1, 5), "ZH");
+
+        assertEquals(List.of(
+                LocalDate.of(2024, 12, 25),
+                LocalDate.of(2024, 12, 26),
+                LocalDate.of(2025, 1, 1),
+                LocalDate.of(2025, 1, 2)), range.toList());
+        assertEquals(4, range.count());
+        assertTrue(range.contains(LocalDate.of(2025, 1, 2)));
+        assertFalse(range.contains(LocalDate.of(2025, 1, 6)));
+    }
+}
@@ -0,0 +1,183 @@
+package com.chrono.chrono.services;
+
+import com.chrono.chrono.entities.MailOutboxMessage;
+import com.chrono.chrono.repositories.MailOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MailOutboxSenderTest {
+
+    private static final class TestClock extends Clock {
+
+        private Instant now = Instant.parse("2024-03-01T08:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    @Mock
+    private MailOutboxRepository outboxRepository;
+    @Mock
+    private JavaMailSender mailSender;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final TestClock clock = new TestClock();
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private MailOutboxSender sender(int batchSize, double ratePerSecond) {
+        return new MailOutboxSender(outboxRepository, mailSender, transactionManager, meterRegistry, clock,
+                batchSize, ratePerSecond, 3, Duration.ofSeconds(30), Duration.ofMinutes(10), Duration.ofMinutes(5),
+                Duration.ofDays(30));
+    }
+
+    @Test
+    void deliverDue_sendsBatchOverOneCallAndMarksMessagesSent() {
+        List<MailOutboxMessage> due = List.of(message(1L, "a@example.com", 0), message(2L, "b@example.com", 0));
+        when(outboxRepository.findDue(eq(MailOutboxMessage.Status.PENDING), any(), any())).thenReturn(due, List.of());
+        when(outboxRepository.findAllById(List.of(1L, 2L))).thenReturn(due);
+
+        sender(10, 100).deliverDue();
+
+        ArgumentCaptor<SimpleMailMessage[]> mails = ArgumentCaptor.forClass(SimpleMailMessage[].class);
+        verify(mailSender, times(1)).send(mails.capture());
+        assertEquals(2, mails.getValue().length);
+        assertArrayEquals(new String[]{"b@example.com"}, mails.getValue()[1].getTo());
+        assertTrue(due.stream().allMatch(message -> message.getStatus() == MailOutboxMessage.Status.SENT));
+        assertEquals(1, due.get(0).getAttempts());
+        assertEquals(2, meterRegistry.get("chrono.mail.outbox.deliveries").tag("outcome", "sent").counter().count());
+    }
+
+    @Test
+    void deliverDue_retriesFailedMessagesWithBackoffAndGivesUpAfterMaxAttempts() {
+        MailOutboxMessage ok = message(1L, "a@example.com", 0);
+        MailOutboxMessage retry = message(2L, "b@example.com", 1);
+        MailOutboxMessage dead = message(3L, "c@example.com", 2);
+        List<MailOutboxMessage> due = List.of(ok, retry, dead);
+        when(outboxRepository.findDue(eq(MailOutboxMessage.Status.PENDING), any(), any())).thenReturn(due, List.of());
+        when(outboxRepository.findAllById(List.of(1L, 2L, 3L))).thenReturn(due);
+        Map<Object, Exception> failed = Map.of(
+                mail(retry), new IllegalStateException("452 Too many recipients"),
+                mail(dead), new IllegalStateException("550 Mailbox unavailable"));
+        doThrow(new MailSendException(failed)).when(mailSender).send(any(SimpleMailMessage[].class));
+
+        sender(10, 100).deliverDue();
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        assertEquals(MailOutboxMessage.Status.SENT, ok.getStatus());
+        assertEquals(MailOutboxMessage.Status.PENDING, retry.getStatus());
+        // zweiter Versuch: 30 s * 2
+        assertEquals(now.plusMinutes(1), retry.getNextAttemptAt());
+        assertEquals("452 Too many recipients", retry.getLastError());
+        assertEquals(MailOutboxMessage.Status.FAILED, dead.getStatus());
+        assertEquals(1, meterRegistry.get("chrono.mail.outbox.deliveries").tag("outcome", "retry").counter().count());
+        assertEquals(1, meterRegistry.get("chrono.mail.outbox.deliveries").tag("outcome", "failed").counter().count());
+    }
+
+    @Test
+    void deliverDue_limitsClaimedMessagesToTheRate() {
+        List<Integer> pageSizes = new ArrayList<>();
+        when(outboxRepository.findDue(eq(MailOutboxMessage.Status.PENDING), any(), any())).thenAnswer(invocation -> {
+            Pageable page = invocation.getArgument(2);
+            pageSizes.add(page.getPageSize());
+            List<MailOutboxMessage> claimed = new ArrayList<>();
+            for (int i = 0; i < page.getPageSize(); i++) {
+                claimed.add(message((long) pageSizes.size() * 100 + i, "user" + i + "@example.com", 0));
+            }
+            return claimed;
+        });
+        when(outboxRepository.findAllById(any())).thenReturn(List.of());
+        MailOutboxSender sender = sender(10, 2);
+
+        sender.deliverDue();
+        clock.advance(Duration.ofSeconds(2));
+        sender.deliverDue();
+        sender.deliverDue();
+
+        // Burst von 10, danach 2 pro Sekunde
+        assertEquals(List.of(10, 4), pageSizes);
+        verify(mailSender, times(2)).send(any(SimpleMailMessage[].class));
+    }
+
+    @Test
+    void purgeSent_deletesSentMessagesOlderThanRetention() {
+        when(outboxRepository.deleteSentBefore(any(), any())).thenReturn(3);
+
+        sender(10, 1).purgeSent();
+
+        verify(outboxRepository).deleteSentBefore(MailOutboxMessage.Status.SENT,
+                LocalDateTime.now(clock).minusDays(30));
+    }
+
+    @Test
+    void backoff_doublesUpToTheMaximum() {
+        MailOutboxSender sender = sender(10, 1);
+
+        assertEquals(Duration.ofSeconds(30), sender.backoff(1));
+        assertEquals(Duration.ofMinutes(2), sender.backoff(3));
+        assertEquals(Duration.ofMinutes(10), sender.backoff(40));
+    }
+
+    private MailOutboxMessage message(Long id, String recipient, int attempts) {
+        MailOutboxMessage message = new MailOutboxMessage("payslip-generated", "noreply@chrono-logisch.ch",
+                recipient, "Neue Gehaltsabrechnung bereit", "Ihre Abrechnung ist erstellt.");
+        message.setId(id);
+        message.setAttempts(attempts);
+        return message;
+    }
+
+    private SimpleMailMessage mail(MailOutboxMessage message) {
+        SimpleMailMessage mail = new SimpleMailMessage();
+        mail.setFrom(message.getSender());
+        mail.setTo(message.getRecipients());
+        mail.setSubject(message.getSubject());
+        mail.setText(message.getBody());
+        return mail;
+    }
+}
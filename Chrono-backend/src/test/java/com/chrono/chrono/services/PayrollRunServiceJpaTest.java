@@ -0,0 +1,133 @@
+package com.chrono.chrono.services;
+
+import com.chrono.chrono.entities.Company;
+import com.chrono.chrono.entities.Payslip;
+import com.chrono.chrono.entities.PayslipSchedule;
+import com.chrono.chrono.entities.TimeTrackingEntry;
+import com.chrono.chrono.entities.User;
+import com.chrono.chrono.repositories.CompanyRepository;
+import com.chrono.chrono.repositories.MailOutboxRepository;
+import com.chrono.chrono.repositories.PayslipRepository;
+import com.chrono.chrono.repositories.PayslipScheduleRepository;
+import com.chrono.chrono.repositories.TimeTrackingEntryRepository;
+import com.chrono.chrono.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lohnlauf gegen H2: die Partitionen laufen auf eigenen Threads außerhalb jeder Test-Transaktion,
+ * daher werden die Testdaten committet und nach jedem Test wieder entfernt.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PayrollRunServiceJpaTest {
+
+    private static final LocalDate RUN_DATE = LocalDate.of(2024, 2, 25);
+
+    @Autowired
+    private PayslipScheduleRepository scheduleRepository;
+    @Autowired
+    private TimeTrackingEntryRepository timeTrackingEntryRepository;
+    @Autowired
+    private PayslipRepository payslipRepository;
+    @Autowired
+    private MailOutboxRepository mailOutboxRepository;
+    @Autowired
+    private CompanyRepository companyRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private PayrollRunService runService;
+
+    @AfterEach
+    void tearDown() {
+        if (runService != null) {
+            runService.shutdown();
+        }
+        jdbcTemplate.update("DELETE FROM payslip_audit");
+        payslipRepository.deleteAll();
+        mailOutboxRepository.deleteAll();
+        scheduleRepository.deleteAll();
+        timeTrackingEntryRepository.deleteAll();
+        userRepository.deleteAll();
+        companyRepository.deleteAll();
+    }
+
+    @Test
+    void runScheduled_readsCompanyRatesOfDetachedUsersOnWorkerThreads() {
+        Company company = new Company();
+        company.setName("Muster AG");
+        company.setUvgNbuRate(0.02);
+        company = companyRepository.save(company);
+        User user = user("anna", "CH", company);
+        entry(user, TimeTrackingEntry.PunchType.START, LocalDate.of(2024, 1, 10).atTime(8, 0));
+        entry(user, TimeTrackingEntry.PunchType.ENDE, LocalDate.of(2024, 1, 10).atTime(16, 0));
+        PayslipSchedule schedule = new PayslipSchedule();
+        schedule.setUser(user);
+        schedule.setDayOfMonth(25);
+        schedule.setNextRun(RUN_DATE);
+        scheduleRepository.save(schedule);
+
+        PayrollService payrollService = new PayrollService();
+        ReflectionTestUtils.setField(payrollService, "taxCalculationService", new TaxCalculationService());
+        runService = new PayrollRunService(scheduleRepository, timeTrackingEntryRepository, payslipRepository,
+                payrollService, new EmailService(mailOutboxRepository), entityManager, jdbcTemplate,
+                transactionManager, new SimpleMeterRegistry(), 250, 2);
+
+        PayrollRunService.RunReport report = runService.runScheduled(RUN_DATE);
+
+        assertThat(report.failed()).isZero();
+        assertThat(report.generated()).isEqualTo(1);
+        List<Payslip> payslips = payslipRepository.findAll();
+        assertThat(payslips).hasSize(1);
+        assertThat(payslips.get(0).getPeriodStart()).isEqualTo(LocalDate.of(2024, 1, 1));
+        assertThat(payslips.get(0).getVersion()).isEqualTo(1);
+        assertThat(mailOutboxRepository.count()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payslip_audit", Long.class)).isEqualTo(1L);
+        assertThat(scheduleRepository.findAll()).extracting(PayslipSchedule::getNextRun)
+                .containsExactly(LocalDate.of(2024, 3, 25));
+    }
+
+    private User user(String username, String country, Company company) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setCountry(country);
+        user.setPersonnelNumber("PN-" + username);
+        user.setEmail(username + "@example.com");
+        user.setMonthlySalary(5000.0);
+        user.setCompany(company);
+        return userRepository.save(user);
+    }
+
+    private void entry(User user, TimeTrackingEntry.PunchType type, LocalDateTime timestamp) {
+        TimeTrackingEntry entry = new TimeTrackingEntry();
+        entry.setUser(user);
+        entry.setPunchType(type);
+        entry.setEntryTimestamp(timestamp);
+        timeTrackingEntryRepository.save(entry);
+    }
+}
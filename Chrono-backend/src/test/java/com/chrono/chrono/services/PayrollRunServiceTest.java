@@ -0,0 +1,217 @@
+package com.chrono.chrono.services;
+
+import com.chrono.chrono.entities.Payslip;
+import com.chrono.chrono.entities.PayslipSchedule;
+import com.chrono.chrono.entities.TimeTrackingEntry;
+import com.chrono.chrono.entities.User;
+import com.chrono.chrono.repositories.PayslipRepository;
+import com.chrono.chrono.repositories.PayslipScheduleRepository;
+import com.chrono.chrono.repositories.TimeTrackingEntryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PayrollRunServiceTest {
+
+    private static final LocalDate RUN_DATE = LocalDate.of(2024, 2, 25);
+    private static final LocalDate PERIOD_START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate PERIOD_END = LocalDate.of(2024, 1, 31);
+
+    @Mock
+    private PayslipScheduleRepository scheduleRepository;
+    @Mock
+    private TimeTrackingEntryRepository timeTrackingEntryRepository;
+    @Mock
+    private PayslipRepository payslipRepository;
+    @Mock
+    private EmailService emailService;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PayrollService payrollService;
+    private PayrollRunService runService;
+    private final AtomicLong payslipIds = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        payrollService = new PayrollService();
+        ReflectionTestUtils.setField(payrollService, "taxCalculationService", new TaxCalculationService());
+        meterRegistry = new SimpleMeterRegistry();
+        runService = new PayrollRunService(scheduleRepository, timeTrackingEntryRepository, payslipRepository,
+                payrollService, emailService, entityManager, jdbcTemplate, transactionManager, meterRegistry, 2, 2);
+        lenient().doAnswer(invocation -> {
+            ((Payslip) invocation.getArgument(0)).setId(payslipIds.incrementAndGet());
+            return null;
+        }).when(entityManager).persist(any(Payslip.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        runService.shutdown();
+    }
+
+    @Test
+    void runScheduled_bulkLoadsPeriodAndGeneratesVersionedPayslips() {
+        User alice = user(1L, "alice", true);
+        User bob = user(2L, "bob", false);
+        User carol = user(3L, "carol", false);
+        when(scheduleRepository.findDueWithUsers(RUN_DATE))
+                .thenReturn(List.of(schedule(11L, alice), schedule(12L, bob), schedule(13L, carol)));
+        when(timeTrackingEntryRepository.findByUserIdInAndEntryTimestampBetween(any(), any(), any()))
+                .thenReturn(List.of(entry(alice, TimeTrackingEntry.PunchType.START, 0),
+                        entry(alice, TimeTrackingEntry.PunchType.ENDE, 170)));
+        when(payslipRepository.findLatestVersions(eq(PERIOD_START), eq(PERIOD_END), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{2L, 2}));
+
+        PayrollRunService.RunReport report = runService.runScheduled(RUN_DATE);
+
+        assertEquals(3, report.scheduled());
+        assertEquals(3, report.generated());
+        assertEquals(0, report.failed());
+        assertEquals(List.of("load", "compute", "persist"), List.copyOf(report.stages().keySet()));
+        verify(timeTrackingEntryRepository, times(1)).findByUserIdInAndEntryTimestampBetween(any(), any(), any());
+        verify(payslipRepository, times(1)).findLatestVersions(any(), any(), any());
+
+        ArgumentCaptor<Payslip> persisted = ArgumentCaptor.forClass(Payslip.class);
+        verify(entityManager, times(3)).persist(persisted.capture());
+        Payslip alicePayslip = find(persisted.getAllValues(), alice);
+        assertEquals(1725.0, alicePayslip.getGrossSalary());
+        assertEquals(1, alicePayslip.getVersion());
+        assertEquals(PERIOD_START, alicePayslip.getPeriodStart());
+        assertEquals(3, find(persisted.getAllValues(), bob).getVersion());
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        ArgumentCaptor<Collection<Long>> advanced = ArgumentCaptor.forClass(Collection.class);
+        verify(scheduleRepository, times(2)).updateNextRun(advanced.capture(), eq(LocalDate.of(2024, 3, 25)));
+        assertEquals(List.of(11L, 12L, 13L), advanced.getAllValues().stream().flatMap(Collection::stream).sorted().toList());
+        verify(emailService, times(3)).sendPayslipGeneratedMail(any(User.class), any(Payslip.class));
+        assertEquals(1, meterRegistry.get("chrono.payroll.run.stage").tag("stage", "persist").timer().count());
+    }
+
+    @Test
+    void runScheduled_rollsBackFailedPartitionAndKeepsItsSchedulesDue() {
+        User alice = user(1L, "alice", false);
+        User bob = user(2L, "bob", false);
+        User carol = user(3L, "carol", false);
+        when(scheduleRepository.findDueWithUsers(RUN_DATE))
+                .thenReturn(List.of(schedule(11L, alice), schedule(12L, bob), schedule(13L, carol)));
+        when(timeTrackingEntryRepository.findByUserIdInAndEntryTimestampBetween(any(), any(), any()))
+                .thenReturn(List.of());
+        when(payslipRepository.findLatestVersions(any(), any(), any())).thenReturn(List.of());
+        doThrow(new IllegalStateException("Deadlock")).when(entityManager)
+                .persist(argThat((Payslip payslip) -> payslip != null && payslip.getUser() == bob));
+
+        PayrollRunService.RunReport report = runService.runScheduled(RUN_DATE);
+
+        assertEquals(1, report.generated());
+        assertEquals(2, report.failed());
+        verify(scheduleRepository).updateNextRun(eq(List.of(13L)), eq(LocalDate.of(2024, 3, 25)));
+        verify(emailService, times(1)).sendPayslipGeneratedMail(eq(carol), any(Payslip.class));
+        verify(emailService, never()).sendPayslipGeneratedMail(eq(alice), any(Payslip.class));
+    }
+
+    @Test
+    void runScheduled_keepsSchedulesDueWhenAdvancingRollsBackTheirPartition() {
+        User alice = user(1L, "alice", false);
+        User bob = user(2L, "bob", false);
+        when(scheduleRepository.findDueWithUsers(RUN_DATE)).thenReturn(List.of(schedule(11L, alice), schedule(12L, bob)));
+        when(timeTrackingEntryRepository.findByUserIdInAndEntryTimestampBetween(any(), any(), any()))
+                .thenReturn(List.of());
+        when(payslipRepository.findLatestVersions(any(), any(), any())).thenReturn(List.of());
+        when(scheduleRepository.updateNextRun(any(), any())).thenThrow(new IllegalStateException("Lock timeout"));
+
+        PayrollRunService.RunReport report = runService.runScheduled(RUN_DATE);
+
+        assertEquals(0, report.generated());
+        assertEquals(2, report.failed());
+        verify(transactionManager, never()).commit(any());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void runScheduled_handlesMonthEndForFiveThousandEmployeesInFewQueries() {
+        runService.shutdown();
+        runService = new PayrollRunService(scheduleRepository, timeTrackingEntryRepository, payslipRepository,
+                payrollService, emailService, entityManager, jdbcTemplate, transactionManager, meterRegistry, 250, 4);
+        List<PayslipSchedule> schedules = new ArrayList<>();
+        List<TimeTrackingEntry> entries = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) {
+            User user = user(id, "user" + id, id % 2 == 0);
+            schedules.add(schedule(10_000 + id, user));
+            entries.add(entry(user, TimeTrackingEntry.PunchType.START, 0));
+            entries.add(entry(user, TimeTrackingEntry.PunchType.ENDE, 160));
+        }
+        when(scheduleRepository.findDueWithUsers(RUN_DATE)).thenReturn(schedules);
+        when(timeTrackingEntryRepository.findByUserIdInAndEntryTimestampBetween(any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    Collection<Long> ids = invocation.getArgument(0);
+                    return entries.stream().filter(entry -> ids.contains(entry.getUser().getId())).toList();
+                });
+        when(payslipRepository.findLatestVersions(any(), any(), any())).thenReturn(List.of());
+
+        PayrollRunService.RunReport report = runService.runScheduled(RUN_DATE);
+
+        assertEquals(5000, report.generated());
+        assertTrue(report.duration().compareTo(Duration.ofSeconds(10)) < 0, "Lohnlauf dauerte " + report.duration());
+        verify(timeTrackingEntryRepository, times(5)).findByUserIdInAndEntryTimestampBetween(any(), any(), any());
+        verify(payslipRepository, times(5)).findLatestVersions(any(), any(), any());
+        verify(entityManager, times(5000)).persist(any(Payslip.class));
+        verify(jdbcTemplate, times(20)).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+    }
+
+    private Payslip find(List<Payslip> payslips, User user) {
+        return payslips.stream().filter(payslip -> payslip.getUser() == user).findFirst().orElseThrow();
+    }
+
+    private PayslipSchedule schedule(Long id, User user) {
+        PayslipSchedule schedule = new PayslipSchedule();
+        schedule.setId(id);
+        schedule.setUser(user);
+        schedule.setDayOfMonth(25);
+        schedule.setNextRun(RUN_DATE);
+        return schedule;
+    }
+
+    private TimeTrackingEntry entry(User user, TimeTrackingEntry.PunchType type, int hours) {
+        TimeTrackingEntry entry = new TimeTrackingEntry();
+        entry.setUser(user);
+        entry.setPunchType(type);
+        entry.setEntryTimestamp(PERIOD_START.atStartOfDay().plusHours(hours));
+        return entry;
+    }
+
+    private User user(Long id, String username, boolean hourly) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setIsHourly(hourly);
+        user.setHourlyRate(10.0);
+        user.setMonthlySalary(4000.0);
+        return user;
+    }
+}
@@ -66,7 +66,7 @@ class PayrollServiceTest {
         LocalDate start = LocalDate.of(2024, 1, 1);
         LocalDate end = LocalDate.of(2024, 1, 31);
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(user));
 
         TimeTrackingEntry startEntry = new TimeTrackingEntry();
         startEntry.setPunchType(TimeTrackingEntry.PunchType.START);
@@ -114,7 +114,7 @@ class PayrollServiceTest {
         LocalDate start = LocalDate.of(2024, 1, 1);
         LocalDate end = LocalDate.of(2024, 1, 31);
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(user));
         when(timeTrackingEntryRepository
                 .findByUserAndEntryTimestampBetweenOrderByEntryTimestampAsc(eq(user), any(), any()))
                 .thenReturn(Collections.emptyList());
@@ -167,5 +167,26 @@ class PayrollServiceTest {
         assertThrows(IllegalStateException.class, () -> payrollService.deletePayslip(3L));
         verify(payslipRepository, never()).delete(any());
     }
-}
 
+    @Test
+    void deletePayslip_restoresPaidOvertimeOnLockedUser() {
+        User user = new User();
+        user.setId(1L);
+        user.setTrackingBalanceInMinutes(30);
+        User detached = new User();
+        detached.setId(1L);
+        Payslip ps = new Payslip();
+        ps.setId(4L);
+        ps.setUser(detached);
+        ps.setPayoutOvertime(true);
+        ps.setOvertimeHours(1.5);
+        when(payslipRepository.findById(4L)).thenReturn(Optional.of(ps));
+        when(userRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(user));
+
+        payrollService.deletePayslip(4L);
+
+        assertEquals(120, user.getTrackingBalanceInMinutes());
+        verify(userRepository).save(user);
+        verify(payslipRepository).delete(ps);
+    }
+}
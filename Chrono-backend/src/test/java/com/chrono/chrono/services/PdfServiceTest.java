@@ -0,0 +1,108 @@
+package com.chrono.chrono.services;
+
+import com.chrono.chrono.entities.Company;
+import com.chrono.chrono.entities.PayComponent;
+import com.chrono.chrono.entities.Payslip;
+import com.chrono.chrono.entities.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PdfServiceTest {
+
+    @Mock
+    private VacationService vacationService;
+
+    @InjectMocks
+    private PdfService pdfService;
+
+    @Test
+    void writePayslipPdf_streamsDocumentsWithoutClosingTheStream() throws Exception {
+        when(vacationService.calculateRemainingVacationDays(eq("alice"), anyInt())).thenReturn(12.5);
+        Payslip ps = payslip(company());
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ZipOutputStream zip = new ZipOutputStream(buffer);
+        for (String lang : new String[]{"de", "en"}) {
+            zip.putNextEntry(new ZipEntry("payslip-" + lang + ".pdf"));
+            pdfService.writePayslipPdf(ps, lang, zip);
+            zip.closeEntry();
+        }
+        zip.finish();
+
+        ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+        int entries = 0;
+        while (in.getNextEntry() != null) {
+            assertEquals("%PDF-", new String(in.readNBytes(5)));
+            entries++;
+        }
+        assertEquals(2, entries);
+    }
+
+    @Test
+    void template_isReusedUntilCompanyChangesOrIsEvicted() {
+        Company company = company();
+
+        PayslipPdfTemplate first = pdfService.template(company, false);
+        assertSame(first, pdfService.template(company, false));
+        assertNotSame(first, pdfService.template(company, true));
+
+        company.setName("Chrono AG");
+        PayslipPdfTemplate renamed = pdfService.template(company, false);
+        assertNotSame(first, renamed);
+
+        pdfService.evictTemplates(company.getId());
+        assertNotSame(renamed, pdfService.template(company, false));
+    }
+
+    @Test
+    void template_translatesComponentsOnlyInGerman() {
+        Company company = company();
+
+        assertEquals("Grundlohn", pdfService.template(company, false).componentName("Base salary"));
+        assertEquals("AHV/IV/EO", pdfService.template(company, false).componentName("AHV/IV/EO"));
+        assertEquals("Base salary", pdfService.template(company, true).componentName("Base salary"));
+    }
+
+    private Company company() {
+        Company company = new Company();
+        company.setId(7L);
+        company.setName("Chrono GmbH");
+        company.setAddressLine1("Musterstrasse 5");
+        return company;
+    }
+
+    private Payslip payslip(Company company) {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("alice");
+        user.setFirstName("Alice");
+        user.setLastName("Muster");
+        user.setCompany(company);
+        Payslip ps = new Payslip();
+        ps.setId(5L);
+        ps.setUser(user);
+        ps.setPeriodStart(LocalDate.of(2024, 1, 1));
+        ps.setPeriodEnd(LocalDate.of(2024, 1, 31));
+        ps.setGrossSalary(4000.0);
+        ps.setDeductions(500.0);
+        ps.setNetSalary(3500.0);
+        ps.getEarnings().add(new PayComponent("Base salary", 4000.0));
+        ps.getDeductionsList().add(new PayComponent("AHV/IV/EO", 500.0));
+        return ps;
+    }
+}
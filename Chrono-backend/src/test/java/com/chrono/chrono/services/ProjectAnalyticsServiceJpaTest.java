@@ -0,0 +1,233 @@
+package com.chrono.chrono.services;
+
+import com.chrono.chrono.entities.Company;
+import com.chrono.chrono.entities.Customer;
+import com.chrono.chrono.entities.Project;
+import com.chrono.chrono.entities.Task;
+import com.chrono.chrono.entities.TimeTrackingEntry;
+import com.chrono.chrono.entities.User;
+import com.chrono.chrono.repositories.CompanyRepository;
+import com.chrono.chrono.repositories.CustomerRepository;
+import com.chrono.chrono.repositories.ProjectRepository;
+import com.chrono.chrono.repositories.TaskRepository;
+import com.chrono.chrono.repositories.TimeTrackingEntryRepository;
+import com.chrono.chrono.repositories.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Projektauswertung und Abrechnungssumme gegen H2 mit den Stempelungen der früheren
+ * Java-Paarbildung. Die Vorberechnung läuft in einer eigenen Transaktion und braucht
+ * committete Stempelungen, daher wird nach jedem Test aufgeräumt.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProjectAnalyticsServiceJpaTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 5);
+
+    @Autowired
+    private CompanyRepository companyRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private ProjectRepository projectRepository;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TimeTrackingEntryRepository timeTrackingEntryRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Company company;
+    private Customer customer;
+    private Project root;
+    private Project child;
+    private Task billableTask;
+    private Task nonBillableTask;
+    private Task reviewTask;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        company = new Company();
+        company.setName("TestCo");
+        company.setCustomerTrackingEnabled(true);
+        company = companyRepository.save(company);
+
+        customer = new Customer();
+        customer.setName("Customer");
+        customer.setCompany(company);
+        customer = customerRepository.save(customer);
+
+        root = project("Root", null);
+        child = project("Child", root);
+        billableTask = task(root, "Umsetzung", true);
+        nonBillableTask = task(root, "Intern", false);
+        reviewTask = task(child, "Review", true);
+
+        user = new User();
+        user.setUsername("alice");
+        user.setPassword("secret");
+        user.setCountry("DE");
+        user.setPersonnelNumber("PN-1");
+        user.setCompany(company);
+        user = userRepository.save(user);
+
+        LocalDateTime base = DAY.atTime(8, 0);
+        // Nachtschicht über den Bereichsbeginn: Projekt nur am START, Dauer aus den Zeitstempeln
+        entry(DAY.minusDays(1).atTime(22, 0), TimeTrackingEntry.PunchType.START, child, null, null);
+        entry(DAY.atTime(2, 0), TimeTrackingEntry.PunchType.ENDE, null, null, null);
+        // Stempelungen aus dem früheren ReportServiceTest
+        entry(base, TimeTrackingEntry.PunchType.START, root, billableTask, null);
+        entry(base.plusMinutes(200), TimeTrackingEntry.PunchType.ENDE, root, billableTask, 200);
+        entry(base.plusMinutes(200), TimeTrackingEntry.PunchType.START, root, nonBillableTask, null);
+        entry(base.plusMinutes(300), TimeTrackingEntry.PunchType.ENDE, root, nonBillableTask, 100);
+        entry(base.plusHours(6), TimeTrackingEntry.PunchType.START, child, billableTask, null);
+        entry(base.plusHours(7), TimeTrackingEntry.PunchType.ENDE, child, billableTask, 60);
+        entry(base.plusHours(7), TimeTrackingEntry.PunchType.START, child, nonBillableTask, null);
+        entry(base.plusHours(7).plusMinutes(30), TimeTrackingEntry.PunchType.ENDE, child, nonBillableTask, 30);
+        // Projekt nur über die Aufgabe am ENDE
+        entry(base.plusHours(8), TimeTrackingEntry.PunchType.START, null, null, null);
+        entry(base.plusHours(9), TimeTrackingEntry.PunchType.ENDE, null, reviewTask, null);
+        // Folgetag, ohne Aufgabe
+        entry(DAY.plusDays(1).atTime(8, 0), TimeTrackingEntry.PunchType.START, root, null, null);
+        entry(DAY.plusDays(1).atTime(9, 0), TimeTrackingEntry.PunchType.ENDE, root, null, 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM project_time_monthly");
+        jdbcTemplate.update("DELETE FROM project_time_monthly_state");
+        timeTrackingEntryRepository.deleteAll();
+        userRepository.deleteAll();
+        taskRepository.deleteAll();
+        projectRepository.delete(child);
+        projectRepository.delete(root);
+        customerRepository.deleteAll();
+        companyRepository.deleteAll();
+    }
+
+    @Test
+    void aggregate_pairsPunchesResolvesProjectsAndSplitsBillableMinutes() {
+        List<ProjectAnalyticsService.ProjectMinutes> rows = service(false).aggregate(company.getId(), DAY, DAY);
+
+        assertThat(rows)
+                .extracting(ProjectAnalyticsService.ProjectMinutes::projectId,
+                        ProjectAnalyticsService.ProjectMinutes::taskId,
+                        ProjectAnalyticsService.ProjectMinutes::userId,
+                        ProjectAnalyticsService.ProjectMinutes::minutes,
+                        ProjectAnalyticsService.ProjectMinutes::billableMinutes)
+                .containsExactlyInAnyOrder(
+                        tuple(root.getId(), billableTask.getId(), user.getId(), 200L, 200L),
+                        tuple(root.getId(), nonBillableTask.getId(), user.getId(), 100L, 0L),
+                        tuple(child.getId(), billableTask.getId(), user.getId(), 60L, 60L),
+                        tuple(child.getId(), nonBillableTask.getId(), user.getId(), 30L, 0L),
+                        tuple(child.getId(), null, user.getId(), 240L, 0L),
+                        tuple(child.getId(), reviewTask.getId(), user.getId(), 60L, 60L));
+        assertThat(totalsByProject(rows)).containsExactlyInAnyOrderEntriesOf(Map.of(
+                root.getId(), List.of(300L, 200L),
+                child.getId(), List.of(390L, 120L)));
+    }
+
+    @Test
+    void aggregate_readsClosedMonthsFromMonthlyCacheWithSameTotals() {
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 1, 31);
+        List<ProjectAnalyticsService.ProjectMinutes> raw = service(false).aggregate(company.getId(), from, to);
+
+        ProjectAnalyticsService cached = service(true);
+        List<ProjectAnalyticsService.ProjectMinutes> first = cached.aggregate(company.getId(), from, to);
+        List<ProjectAnalyticsService.ProjectMinutes> second = cached.aggregate(company.getId(), from, to);
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM project_time_monthly_state WHERE company_id = ?", Long.class, company.getId()))
+                .isEqualTo(1L);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT SUM(minutes) FROM project_time_monthly WHERE company_id = ?", Long.class, company.getId()))
+                .isEqualTo(750L);
+        assertThat(first).containsExactlyInAnyOrderElementsOf(raw);
+        assertThat(second).containsExactlyInAnyOrderElementsOf(raw);
+        assertThat(totalsByProject(second)).containsExactlyInAnyOrderEntriesOf(Map.of(
+                root.getId(), List.of(360L, 200L),
+                child.getId(), List.of(390L, 120L)));
+    }
+
+    @Test
+    void sumBillableMinutesByProjectAndTask_skipsNonBillableTasksAndPunchesWithoutDuration() {
+        List<Object[]> rows = timeTrackingEntryRepository.sumBillableMinutesByProjectAndTask(
+                List.of(root.getId(), child.getId()), DAY.atStartOfDay(), DAY.plusDays(1).atTime(23, 59, 59));
+
+        assertThat(rows)
+                .extracting(row -> row[0], row -> row[2], row -> ((Number) row[4]).longValue())
+                .containsExactly(
+                        tuple(root.getId(), billableTask.getId(), 200L),
+                        tuple(child.getId(), billableTask.getId(), 60L),
+                        tuple(root.getId(), null, 60L));
+    }
+
+    private ProjectAnalyticsService service(boolean cacheEnabled) {
+        return new ProjectAnalyticsService(entityManager, jdbcTemplate, transactionManager, cacheEnabled,
+                Clock.fixed(Instant.parse("2024-03-15T10:00:00Z"), ZoneOffset.UTC));
+    }
+
+    private static Map<Long, List<Long>> totalsByProject(List<ProjectAnalyticsService.ProjectMinutes> rows) {
+        return rows.stream().collect(Collectors.groupingBy(ProjectAnalyticsService.ProjectMinutes::projectId,
+                Collectors.collectingAndThen(Collectors.toList(), list -> List.of(
+                        list.stream().mapToLong(ProjectAnalyticsService.ProjectMinutes::minutes).sum(),
+                        list.stream().mapToLong(ProjectAnalyticsService.ProjectMinutes::billableMinutes).sum()))));
+    }
+
+    private Project project(String name, Project parent) {
+        Project project = new Project();
+        project.setName(name);
+        project.setCustomer(customer);
+        project.setParent(parent);
+        return projectRepository.save(project);
+    }
+
+    private Task task(Project project, String name, boolean billable) {
+        Task task = new Task();
+        task.setProject(project);
+        task.setName(name);
+        task.setBillable(billable);
+        return taskRepository.save(task);
+    }
+
+    private void entry(LocalDateTime timestamp, TimeTrackingEntry.PunchType type, Project project, Task task,
+                       Integer durationMinutes) {
+        TimeTrackingEntry entry = new TimeTrackingEntry(user, project != null ? customer : null, project, timestamp,
+                type, TimeTrackingEntry.PunchSource.MANUAL_PUNCH);
+        entry.setTask(task);
+        entry.setDurationMinutes(durationMinutes);
+        timeTrackingEntryRepository.save(entry);
+    }
+}
@@ -0,0 +1,88 @@
+package com.chrono.chrono.services;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Date;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProjectAnalyticsServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 5, 15);
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void plan_readsEverythingRawWhenCacheIsDisabled() {
+        List<ProjectAnalyticsService.Segment> segments = ProjectAnalyticsService.plan(
+                LocalDate.of(2024, 1, 10), LocalDate.of(2024, 4, 20), TODAY, false);
+
+        assertEquals(List.of(new ProjectAnalyticsService.Segment(
+                LocalDate.of(2024, 1, 10), LocalDate.of(2024, 4, 20), false)), segments);
+    }
+
+    @Test
+    void plan_usesCacheOnlyForFullClosedMonths() {
+        List<ProjectAnalyticsService.Segment> segments = ProjectAnalyticsService.plan(
+                LocalDate.of(2024, 1, 10), LocalDate.of(2024, 5, 10), TODAY, true);
+
+        assertEquals(List.of(
+                new ProjectAnalyticsService.Segment(LocalDate.of(2024, 1, 10), LocalDate.of(2024, 1, 31), false),
+                new ProjectAnalyticsService.Segment(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 4, 30), true),
+                new ProjectAnalyticsService.Segment(LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 10), false)),
+                segments);
+    }
+
+    @Test
+    void plan_keepsPartialMonthRaw() {
+        List<ProjectAnalyticsService.Segment> segments = ProjectAnalyticsService.plan(
+                LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 30), TODAY, true);
+
+        assertEquals(1, segments.size());
+        assertFalse(segments.get(0).cached());
+    }
+
+    @Test
+    void invalidate_dropsOwnAndFollowingMonthButNeverTheCurrentOne() {
+        ProjectAnalyticsService service = new ProjectAnalyticsService(entityManager, jdbcTemplate,
+                transactionManager, true, Clock.fixed(Instant.parse("2024-05-15T10:00:00Z"), ZoneOffset.UTC));
+
+        service.invalidate(42L, LocalDateTime.of(2024, 3, 31, 22, 0), LocalDateTime.of(2024, 5, 2, 8, 0));
+
+        verify(jdbcTemplate).update(contains("project_time_monthly_state"), eq(Date.valueOf("2024-03-01")), eq(42L));
+        verify(jdbcTemplate).update(contains("project_time_monthly_state"), eq(Date.valueOf("2024-04-01")), eq(42L));
+        verify(jdbcTemplate, times(4)).update(anyString(), any(Date.class), eq(42L));
+    }
+
+    @Test
+    void invalidate_doesNothingWhenCacheIsDisabled() {
+        ProjectAnalyticsService service = new ProjectAnalyticsService(entityManager, jdbcTemplate,
+                transactionManager, false, Clock.systemUTC());
+
+        service.invalidate(42L, LocalDateTime.of(2024, 3, 31, 22, 0));
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,84 @@
+package com.chrono.chrono.services;
+
+import com.chrono.chrono.entities.ReadAccessAudit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.Duration;
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReadAccessAuditServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReadAccessAuditService auditService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Batch grösser als die Queue und langes Intervall: nur die expliziten flush()-Aufrufe schreiben
+        auditService = new ReadAccessAuditService(jdbcTemplate, meterRegistry, 3, 5, Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        auditService.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_writesQueuedEventsAsOneBatchAndCountsDroppedEvents() {
+        auditService.record("alice", "/api/a");
+        auditService.record("alice", "/api/b");
+        auditService.record("bob", "/api/c");
+        auditService.record("bob", "/api/d"); // Queue voll
+
+        int written = auditService.flush();
+
+        ArgumentCaptor<Collection<ReadAccessAudit>> batches = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), batches.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(3, batches.getValue().size());
+        assertEquals(3, written);
+        assertEquals(0, auditService.getPendingCount());
+        assertEquals(1.0, meterRegistry.get("chrono.audit.read_access.events").tag("outcome", "dropped").counter().count());
+        assertEquals(3.0, meterRegistry.get("chrono.audit.read_access.events").tag("outcome", "written").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_keepsEventsQueuedWhenBatchInsertFails() {
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataAccessResourceFailureException("db down"))
+                .thenReturn(new int[][]{{1, 1}});
+
+        auditService.record("alice", "/api/a");
+        auditService.record("alice", "/api/b");
+
+        assertEquals(0, auditService.flush());
+        assertEquals(2, auditService.getPendingCount());
+
+        assertEquals(2, auditService.flush());
+        assertEquals(0, auditService.getPendingCount());
+        assertEquals(1.0, meterRegistry.get("chrono.audit.read_access.batch.failures").counter().count());
+    }
+}
@@ -1,11 +1,10 @@
 package com.chrono.chrono.services;
 
+import com.chrono.chrono.dto.DailyTimeSummaryDTO;
 import com.chrono.chrono.dto.ProjectHierarchyNodeDTO;
 import com.chrono.chrono.entities.Company;
 import com.chrono.chrono.entities.Customer;
 import com.chrono.chrono.entities.Project;
-import com.chrono.chrono.entities.Task;
-import com.chrono.chrono.entities.TimeTrackingEntry;
 import com.chrono.chrono.entities.User;
 import com.chrono.chrono.repositories.ProjectRepository;
 import com.chrono.chrono.repositories.TimeTrackingEntryRepository;
@@ -16,15 +15,16 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,6 +42,9 @@ class ReportServiceTest {
     @Mock
     private TimeTrackingEntryRepository timeTrackingEntryRepository;
 
+    @Mock
+    private ProjectAnalyticsService projectAnalyticsService;
+
     @InjectMocks
     private ReportService reportService;
 
@@ -71,59 +74,13 @@ class ReportServiceTest {
         when(projectRepository.findByCustomerCompanyIdOrderByNameAsc(companyId))
                 .thenReturn(List.of(root, child));
 
-        User user = new User();
-        user.setId(42L);
-
-        Task billableTask = new Task();
-        billableTask.setBillable(true);
-        Task nonBillableTask = new Task();
-        nonBillableTask.setBillable(false);
-
-        LocalDateTime base = LocalDateTime.of(2024, 1, 5, 8, 0);
-
-        TimeTrackingEntry rootStartBillable = new TimeTrackingEntry(user, customer, root, base,
-                TimeTrackingEntry.PunchType.START, TimeTrackingEntry.PunchSource.MANUAL_PUNCH);
-        rootStartBillable.setTask(billableTask);
-        TimeTrackingEntry rootEndBillable = new TimeTrackingEntry(user, customer, root, base.plusMinutes(200),
-                TimeTrackingEntry.PunchType.ENDE, TimeTrackingEntry.PunchSource.MANUAL_PUNCH);
-        rootEndBillable.setDurationMinutes(200);
-        rootEndBillable.setTask(billableTask);
-
-        TimeTrackingEntry rootStartNonBillable = new TimeTrackingEntry(user, customer, root, base.plusMinutes(200),
-                TimeTrackingEntry.PunchType.START, TimeTrackingEntry.PunchSource.MANUAL_PUNCH);
-        rootStartNonBillable.setTask(nonBillableTask);
-        TimeTrackingEntry rootEndNonBillable = new TimeTrackingEntry(user, customer, root, base.plusMinutes(300),
-                TimeTrackingEntry.PunchType.ENDE, TimeTrackingEntry.PunchSource.MANUAL_PUNCH);
-        rootEndNonBillable.setDurationMinutes(100);
-        rootEndNonBillable.setTask(nonBillableTask);
-
-        TimeTrackingEntry childStartBillable = new TimeTrackingEntry(user, customer, child, base.plusHours(6),
-                TimeTrackingEntry.PunchType.START, TimeTrackingEntry.PunchSource.MANUAL_PUNCH);
-        childStartBillable.setTask(billableTask);
-        TimeTrackingEntry childEndBillable = new TimeTrackingEntry(user, customer, child, base.plusHours(7),
-                TimeTrackingEntry.PunchType.ENDE, TimeTrackingEntry.PunchSource.MANUAL_PUNCH);
-        childEndBillable.setDurationMinutes(60);
-        childEndBillable.setTask(billableTask);
-
-        TimeTrackingEntry childStartNonBillable = new TimeTrackingEntry(user, customer, child, base.plusHours(7),
-                TimeTrackingEntry.PunchType.START, TimeTrackingEntry.PunchSource.MANUAL_PUNCH);
-        childStartNonBillable.setTask(nonBillableTask);
-        TimeTrackingEntry childEndNonBillable = new TimeTrackingEntry(user, customer, child, base.plusHours(7).plusMinutes(30),
-                TimeTrackingEntry.PunchType.ENDE, TimeTrackingEntry.PunchSource.MANUAL_PUNCH);
-        childEndNonBillable.setDurationMinutes(30);
-        childEndNonBillable.setTask(nonBillableTask);
-
-        when(timeTrackingEntryRepository.findByCompanyIdAndEntryTimestampBetween(eq(companyId), any(), any()))
-                .thenReturn(Stream.of(
-                        rootStartBillable,
-                        rootEndBillable,
-                        rootStartNonBillable,
-                        rootEndNonBillable,
-                        childStartBillable,
-                        childEndBillable,
-                        childStartNonBillable,
-                        childEndNonBillable
-                ).toList());
+        // Summen je Projekt, Aufgabe und User, wie sie die Datenbank liefert
+        when(projectAnalyticsService.aggregate(companyId, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)))
+                .thenReturn(List.of(
+                        new ProjectAnalyticsService.ProjectMinutes(1L, 100L, 42L, 200, 200),
+                        new ProjectAnalyticsService.ProjectMinutes(1L, 101L, 42L, 100, 0),
+                        new ProjectAnalyticsService.ProjectMinutes(2L, 100L, 42L, 60, 60),
+                        new ProjectAnalyticsService.ProjectMinutes(2L, 101L, 42L, 30, 0)));
 
         List<ProjectHierarchyNodeDTO> analytics = reportService.getProjectAnalytics(
                 companyId,
@@ -146,4 +103,34 @@ class ReportServiceTest {
         assertEquals(60L, childNode.getBillableMinutes());
         assertEquals(0.75, childNode.getUtilization(), 0.0001);
     }
+
+    @Test
+    void writeCsv_readsRangeMonthByMonthInAscendingOrder() throws Exception {
+        User user = new User();
+        user.setUsername("alice");
+        user.setFirstName("Alice");
+        user.setLastName("Muster");
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+        LocalDate jan = LocalDate.of(2024, 1, 30);
+        LocalDate jan2 = LocalDate.of(2024, 1, 31);
+        LocalDate feb = LocalDate.of(2024, 2, 2);
+        when(timeTrackingService.getUserHistory("alice", LocalDate.of(2024, 1, 15), LocalDate.of(2024, 1, 31)))
+                .thenReturn(List.of(day(jan2, 60), day(jan, 30)));
+        when(timeTrackingService.getUserHistory("alice", LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 10)))
+                .thenReturn(List.of(day(feb, 45)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reportService.writeCsv("alice", LocalDate.of(2024, 1, 15), LocalDate.of(2024, 2, 10), out);
+        String csv = out.toString(StandardCharsets.UTF_8);
+
+        verify(timeTrackingService).getUserHistory("alice", LocalDate.of(2024, 1, 15), LocalDate.of(2024, 1, 31));
+        verify(timeTrackingService).getUserHistory("alice", LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 10));
+        assertTrue(csv.indexOf("30.01.2024;30;") < csv.indexOf("31.01.2024;60;"));
+        assertTrue(csv.indexOf("31.01.2024;60;") < csv.indexOf("02.02.2024;45;"));
+        assertTrue(csv.contains("Gesamte Arbeitszeit (Min);135\n"));
+    }
+
+    private DailyTimeSummaryDTO day(LocalDate date, int workedMinutes) {
+        return new DailyTimeSummaryDTO("alice", date, workedMinutes, 0, List.of(), null, false, null);
+    }
 }
@@ -34,6 +34,8 @@ class SickLeaveServiceTest {
     private UserRepository userRepository;
     @Mock
     private TimeTrackingService timeTrackingService;
+    @Mock
+    private WorkScheduleService workScheduleService;
 
     @InjectMocks
     private SickLeaveService sickLeaveService;
@@ -89,7 +91,7 @@ class SickLeaveServiceTest {
         assertThat(updated.getEndDate()).isEqualTo(newDate);
         assertThat(updated.isHalfDay()).isTrue();
         assertThat(updated.getComment()).isEqualTo("Updated comment");
-        verify(timeTrackingService).rebuildUserBalance(employee);
+        verify(timeTrackingService).updateUserBalanceForRange(employee, LocalDate.of(2024, 3, 1), newDate);
         verify(sickLeaveRepository).save(sickLeave);
     }
 
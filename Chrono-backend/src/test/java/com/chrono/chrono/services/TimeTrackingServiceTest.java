@@ -2,16 +2,20 @@ package com.chrono.chrono.services;
 
 import com.chrono.chrono.dto.DailyTimeSummaryDTO;
 import com.chrono.chrono.entities.DailyNote;
+import com.chrono.chrono.entities.DailyTimeSummary;
 import com.chrono.chrono.entities.TimeTrackingEntry;
 import com.chrono.chrono.entities.User;
+import com.chrono.chrono.entities.UserBalanceDelta;
 import com.chrono.chrono.entities.VacationRequest;
 import com.chrono.chrono.repositories.CustomerRepository;
 import com.chrono.chrono.repositories.DailyNoteRepository;
+import com.chrono.chrono.repositories.DailyTimeSummaryRepository;
 import com.chrono.chrono.repositories.PayslipRepository;
 import com.chrono.chrono.repositories.ProjectRepository;
 import com.chrono.chrono.repositories.SickLeaveRepository;
 import com.chrono.chrono.repositories.TaskRepository;
 import com.chrono.chrono.repositories.TimeTrackingEntryRepository;
+import com.chrono.chrono.repositories.UserBalanceDeltaRepository;
 import com.chrono.chrono.repositories.UserRepository;
 import com.chrono.chrono.repositories.VacationRequestRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -24,6 +28,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.ZoneId;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -34,6 +39,8 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -59,6 +66,12 @@ class TimeTrackingServiceTest {
     private TaskRepository taskRepository;
     @Mock
     private PayslipRepository payslipRepository;
+    @Mock
+    private UserBalanceDeltaRepository balanceDeltaRepository;
+    @Mock
+    private DailyTimeSummaryRepository dailySummaryRepository;
+    @Mock
+    private BalanceTraceService balanceTraceService;
 
     @InjectMocks
     private TimeTrackingService timeTrackingService;
@@ -115,6 +128,20 @@ class TimeTrackingServiceTest {
     }
 
 
+    @Test
+    void computeDailyWorkDifference_recordsTraceOnlyForTracedUser() {
+        TimeTrackingEntry start = entry(user, date.atTime(9, 0), TimeTrackingEntry.PunchType.START);
+        TimeTrackingEntry end = entry(user, date.atTime(16, 0), TimeTrackingEntry.PunchType.ENDE);
+
+        when(dailyNoteRepository.findByUserAndNoteDate(user, date)).thenReturn(Optional.empty());
+        when(workScheduleService.computeExpectedWorkMinutes(eq(user), eq(date), any())).thenReturn(480);
+        when(balanceTraceService.isTracing(user)).thenReturn(true);
+
+        timeTrackingService.computeDailyWorkDifference(user, date, Collections.emptyList(), List.of(start, end));
+
+        verify(balanceTraceService).record(user, date, BalanceTraceService.PeriodType.DAY, 420, 480, -60);
+    }
+
     @Test
     void computeDailyWorkDifference_companyVacationWithPunchesCountsWorkedTimeInsteadOfVacation() {
         TimeTrackingEntry start = entry(user, date.atTime(9, 0), TimeTrackingEntry.PunchType.START);
@@ -192,6 +219,129 @@ class TimeTrackingServiceTest {
         assertTrue(summary.isNeedsCorrection());
     }
 
+    @Test
+    void updateUserBalanceForDay_adjustsBalanceByDifferenceToStoredDelta() {
+        LocalDate today = LocalDate.now(ZoneId.of("Europe/Berlin"));
+        user.setTrackingBalanceInMinutes(100);
+        UserBalanceDelta first = new UserBalanceDelta(user, today.minusDays(10), UserBalanceDelta.PeriodType.DAY, 0);
+        UserBalanceDelta stored = new UserBalanceDelta(user, today, UserBalanceDelta.PeriodType.DAY, -480);
+        TimeTrackingEntry start = entry(user, today.atTime(8, 0), TimeTrackingEntry.PunchType.START);
+        TimeTrackingEntry end = entry(user, today.atTime(16, 0), TimeTrackingEntry.PunchType.ENDE);
+
+        when(userRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(user));
+        when(balanceDeltaRepository.findFirstByUserOrderByPeriodStartAsc(user)).thenReturn(Optional.of(first));
+        when(balanceDeltaRepository.findFirstByUserOrderByPeriodStartDesc(user)).thenReturn(Optional.of(stored));
+        when(balanceDeltaRepository.findByUserAndPeriodStartBetween(user, today, today)).thenReturn(List.of(stored));
+        when(vacationRequestRepository.findByUserAndApprovedTrue(user)).thenReturn(Collections.emptyList());
+        when(timeTrackingEntryRepository.findByUserAndEntryTimestampBetweenOrderByEntryTimestampAsc(
+                user, today.atStartOfDay(), today.plusDays(1).atStartOfDay())).thenReturn(List.of(start, end));
+        when(dailyNoteRepository.findByUserAndNoteDate(user, today)).thenReturn(Optional.empty());
+        when(workScheduleService.computeExpectedWorkMinutes(eq(user), eq(today), any())).thenReturn(480);
+
+        timeTrackingService.updateUserBalanceForDay(user, today);
+
+        assertEquals(580, user.getTrackingBalanceInMinutes());
+        assertEquals(0, stored.getDeltaMinutes());
+        verify(userRepository).save(user);
+    }
+
+    @Test
+    void updateUserBalanceForDay_hourlyUserFallsBackToFullRebuild() {
+        user.setIsHourly(true);
+        LocalDate today = LocalDate.now(ZoneId.of("Europe/Berlin"));
+        TimeTrackingEntry start = entry(user, today.atTime(9, 0), TimeTrackingEntry.PunchType.START);
+        TimeTrackingEntry end = entry(user, today.atTime(12, 0), TimeTrackingEntry.PunchType.ENDE);
+
+        when(userRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(user));
+        when(timeTrackingEntryRepository.findByUserOrderByEntryTimestampAsc(user)).thenReturn(List.of(start, end));
+        when(payslipRepository.findByUser(user)).thenReturn(Collections.emptyList());
+
+        timeTrackingService.updateUserBalanceForDay(user, today);
+
+        assertEquals(180, user.getTrackingBalanceInMinutes());
+        verify(balanceDeltaRepository).deleteByUser(user);
+    }
+
+    @Test
+    void getUserHistoryForRange_usesStoredSummariesAndComputesMissingDaysWithoutWriting() {
+        LocalDate nextDay = date.plusDays(1);
+        DailyTimeSummary stored = new DailyTimeSummary(user, date);
+        stored.setWorkedMinutes(180);
+        stored.setEntryCount(2);
+        stored.setFirstStartTime(LocalTime.of(9, 0));
+        stored.setLastEndTime(LocalTime.of(12, 0));
+        TimeTrackingEntry start = entry(user, date.atTime(9, 0), TimeTrackingEntry.PunchType.START);
+        TimeTrackingEntry end = entry(user, date.atTime(12, 0), TimeTrackingEntry.PunchType.ENDE);
+        TimeTrackingEntry nextStart = entry(user, nextDay.atTime(8, 0), TimeTrackingEntry.PunchType.START);
+        TimeTrackingEntry nextEnd = entry(user, nextDay.atTime(10, 30), TimeTrackingEntry.PunchType.ENDE);
+        stored.setEntriesChecksum(TimeTrackingService.entriesChecksum(List.of(start, end)));
+
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+        when(dailySummaryRepository.findByUserAndSummaryDateBetweenOrderBySummaryDateDesc(user, date, nextDay))
+                .thenReturn(List.of(stored));
+        when(timeTrackingEntryRepository.findByUserAndEntryTimestampBetweenOrderByEntryTimestampAsc(
+                user, date.atStartOfDay(), nextDay.plusDays(1).atStartOfDay()))
+                .thenReturn(List.of(start, end, nextStart, nextEnd));
+        when(dailyNoteRepository.findByUserAndNoteDateBetween(user, date, nextDay)).thenReturn(Collections.emptyList());
+
+        List<DailyTimeSummaryDTO> history = timeTrackingService.getUserHistory("alice", date, nextDay);
+
+        assertEquals(2, history.size());
+        assertEquals(nextDay, history.get(0).getDate());
+        assertEquals(150, history.get(0).getWorkedMinutes());
+        assertEquals(date, history.get(1).getDate());
+        assertEquals(180, history.get(1).getWorkedMinutes());
+        assertEquals(2, history.get(1).getEntries().size());
+        verify(dailySummaryRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void getUserHistoryForRange_recomputesSummaryWhenPunchTimeChangedWithSameCount() {
+        TimeTrackingEntry start = entry(user, date.atTime(9, 0), TimeTrackingEntry.PunchType.START);
+        TimeTrackingEntry end = entry(user, date.atTime(12, 0), TimeTrackingEntry.PunchType.ENDE);
+        DailyTimeSummary stored = new DailyTimeSummary(user, date);
+        stored.setWorkedMinutes(180);
+        stored.setEntryCount(2);
+        stored.setEntriesChecksum(TimeTrackingService.entriesChecksum(List.of(start, end)));
+        end.setEntryTimestamp(date.atTime(13, 0));
+
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+        when(dailySummaryRepository.findByUserAndSummaryDateBetweenOrderBySummaryDateDesc(user, date, date))
+                .thenReturn(List.of(stored));
+        when(timeTrackingEntryRepository.findByUserAndEntryTimestampBetweenOrderByEntryTimestampAsc(
+                user, date.atStartOfDay(), date.plusDays(1).atStartOfDay()))
+                .thenReturn(List.of(start, end));
+        when(dailyNoteRepository.findByUserAndNoteDateBetween(user, date, date)).thenReturn(Collections.emptyList());
+
+        List<DailyTimeSummaryDTO> history = timeTrackingService.getUserHistory("alice", date, date);
+
+        assertEquals(240, history.get(0).getWorkedMinutes());
+        assertEquals(180, stored.getWorkedMinutes());
+        verify(dailySummaryRepository, never()).saveAll(any());
+        verify(dailySummaryRepository, never()).save(any());
+    }
+
+    @Test
+    void refreshDailySummaries_locksUserAndUpdatesExistingRowInPlace() {
+        TimeTrackingEntry start = entry(user, date.atTime(9, 0), TimeTrackingEntry.PunchType.START);
+        TimeTrackingEntry end = entry(user, date.atTime(13, 0), TimeTrackingEntry.PunchType.ENDE);
+        DailyTimeSummary stored = new DailyTimeSummary(user, date);
+        stored.setWorkedMinutes(180);
+        stored.setEntryCount(2);
+
+        when(dailySummaryRepository.findForUpdate(user, date, date)).thenReturn(List.of(stored));
+        when(timeTrackingEntryRepository.findByUserAndEntryTimestampBetweenOrderByEntryTimestampAsc(
+                user, date.atStartOfDay(), date.plusDays(1).atStartOfDay()))
+                .thenReturn(List.of(start, end));
+
+        timeTrackingService.refreshDailySummaries(user, date, date);
+
+        verify(userRepository).findByIdForUpdate(user.getId());
+        verify(dailySummaryRepository).saveAll(List.of(stored));
+        assertEquals(240, stored.getWorkedMinutes());
+        assertEquals(TimeTrackingService.entriesChecksum(List.of(start, end)), stored.getEntriesChecksum());
+    }
+
     private TimeTrackingEntry entry(User user, LocalDateTime timestamp, TimeTrackingEntry.PunchType type) {
         TimeTrackingEntry entry = new TimeTrackingEntry();
         entry.setUser(user);
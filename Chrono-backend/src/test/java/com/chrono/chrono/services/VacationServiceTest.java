@@ -17,6 +17,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -43,6 +44,8 @@ class VacationServiceTest {
     private HolidayService holidayService;
     @Mock
     private ExternalNotificationService externalNotificationService;
+    @Mock
+    private TimeTrackingService timeTrackingService;
 
     @InjectMocks
     private VacationService vacationService;
@@ -91,6 +94,8 @@ class VacationServiceTest {
         when(vacationRequestRepository.save(any(VacationRequest.class))).thenAnswer(invocation -> invocation.getArgument(0));
         when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
         when(workScheduleService.isDayOff(eq(employee), any(LocalDate.class))).thenReturn(false);
+        when(holidayService.holidaysBetween(any(LocalDate.class), any(LocalDate.class), any()))
+                .thenAnswer(invocation -> HolidayService.HolidayRange.of(invocation.getArgument(0), invocation.getArgument(1), List.of()));
 
         VacationRequest updated = vacationService.adminUpdateVacation(
                 10L,
@@ -134,8 +139,8 @@ class VacationServiceTest {
 
         when(userRepository.findByUsername("worker")).thenReturn(Optional.of(employee));
         when(vacationRequestRepository.findByUserAndApprovedTrue(employee)).thenReturn(java.util.List.of(holidayOverlapVacation));
-        when(holidayService.isHoliday(LocalDate.of(2024, 1, 1), null)).thenReturn(true);
-        when(holidayService.isHoliday(LocalDate.of(2024, 1, 2), null)).thenReturn(false);
+        when(holidayService.holidaysBetween(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 2), null))
+                .thenReturn(HolidayService.HolidayRange.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 2), List.of(LocalDate.of(2024, 1, 1))));
         when(workScheduleService.isDayOff(eq(employee), any(LocalDate.class))).thenReturn(false);
 
         double remaining = vacationService.calculateRemainingVacationDays("worker", 2024);
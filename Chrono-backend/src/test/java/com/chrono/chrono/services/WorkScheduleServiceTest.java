@@ -17,6 +17,8 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
@@ -77,5 +79,28 @@ class WorkScheduleServiceTest {
         assertEquals(240, minutes);
 
     }
-}
 
+    @Test
+    void computeExpectedWorkMinutes_loadsCalendarDataOncePerUserUntilInvalidated() {
+        User user = new User();
+        user.setId(7L);
+        user.setDailyWorkHours(8.0);
+        LocalDate monday = LocalDate.of(2024, 1, 1);
+
+        when(sickLeaveRepository.findByUser(user)).thenReturn(Collections.emptyList());
+        when(userHolidayOptionRepository.findByUser(user)).thenReturn(Collections.emptyList());
+        when(ruleRepo.findByUser(user)).thenReturn(Collections.emptyList());
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(480, workScheduleService.computeExpectedWorkMinutes(user, monday.plusDays(i), Collections.emptyList()));
+        }
+        verify(sickLeaveRepository, times(1)).findByUser(user);
+        verify(ruleRepo, times(1)).findByUser(user);
+
+        workScheduleService.invalidateUserCalendar(user);
+        workScheduleService.computeExpectedWorkMinutes(user, monday, Collections.emptyList());
+
+        verify(sickLeaveRepository, times(2)).findByUser(user);
+        verify(userHolidayOptionRepository, times(2)).findByUser(user);
+    }
+}
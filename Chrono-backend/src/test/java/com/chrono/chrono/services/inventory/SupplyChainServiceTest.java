@@ -13,7 +13,10 @@ import com.chrono.chrono.repositories.accounting.VendorInvoiceRepository;
 import com.chrono.chrono.repositories.inventory.StockLevelRepository;
 import com.chrono.chrono.services.accounting.AccountingService;
 import com.chrono.chrono.services.accounting.AccountsPayableService;
+import com.chrono.chrono.warehouse.service.MovementLedgerService;
+import com.chrono.chrono.warehouse.service.SensorTelemetryService;
 import com.chrono.chrono.warehouse.service.WarehouseIntelligenceService;
+import com.chrono.chrono.warehouse.service.WarehouseKpiService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
@@ -27,7 +30,9 @@ import java.util.List;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
-@Import({AccountingService.class, AccountsPayableService.class, WarehouseIntelligenceService.class, SupplyChainService.class})
+@Import({AccountingService.class, AccountsPayableService.class, MovementLedgerService.class,
+        SensorTelemetryService.class, WarehouseKpiService.class, WarehouseIntelligenceService.class,
+        SupplyChainService.class})
 @ActiveProfiles("test")
 class SupplyChainServiceTest {
 
@@ -40,6 +45,9 @@ class SupplyChainServiceTest {
     @Autowired
     private VendorInvoiceRepository vendorInvoiceRepository;
 
+    @Autowired
+    private WarehouseKpiService warehouseKpiService;
+
     @Test
     void receivePurchaseOrderUpdatesStockAndCreatesInvoice() {
         Product product = new Product();
@@ -142,6 +150,9 @@ class SupplyChainServiceTest {
 
         StockLevel updated = stockLevelRepository.findByProductAndWarehouse(product, warehouse).orElseThrow();
         assertThat(updated.getQuantity()).isEqualByComparingTo(new BigDecimal("17"));
+        assertThat(warehouseKpiService.snapshot().getKpis())
+                .containsEntry("on_time_delivery", 100.0)
+                .hasEntrySatisfying("pick_rate", picks -> assertThat(picks).isGreaterThanOrEqualTo(1.0));
     }
 
     @Test
@@ -255,5 +266,8 @@ class SupplyChainServiceTest {
         assertThat(firstWave.getOrders()).isNotEmpty();
         assertThat(firstWave.getStops()).isNotEmpty();
         assertThat(firstWave.getStops().get(0).getQuantity()).isPositive();
+        assertThat(response.getStrategy()).isIn("ZONE", "CLUSTERED");
+        assertThat(response.getBaselineDistance()).isGreaterThanOrEqualTo(response.getTotalDistance());
+        assertThat(response.getDistanceSavings()).isGreaterThanOrEqualTo(0);
     }
 }
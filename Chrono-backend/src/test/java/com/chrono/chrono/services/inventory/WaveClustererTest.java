@@ -0,0 +1,59 @@
+package com.chrono.chrono.services.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WaveClustererTest {
+
+    // Plätze 0/1 liegen nebeneinander, 2/3 am anderen Ende der Halle
+    private static final double[][] DISTANCES = {
+            {0, 1, 40, 41},
+            {1, 0, 39, 40},
+            {40, 39, 0, 1},
+            {41, 40, 1, 0}
+    };
+
+    @Test
+    void groupsOrdersWithSharedOrNearbyLocations() {
+        List<WaveClusterer.Order> orders = List.of(
+                new WaveClusterer.Order(2, new int[]{0}),
+                new WaveClusterer.Order(2, new int[]{2}),
+                new WaveClusterer.Order(2, new int[]{0, 1}),
+                new WaveClusterer.Order(2, new int[]{3}));
+
+        List<int[]> waves = new WaveClusterer(ForkJoinPool.commonPool(), DISTANCES, 100).cluster(orders, 2, 0);
+
+        assertThat(waves).containsExactly(new int[]{0, 2}, new int[]{1, 3});
+    }
+
+    @Test
+    void respectsUnitCapacityAndKeepsSeedPriority() {
+        List<WaveClusterer.Order> orders = List.of(
+                new WaveClusterer.Order(5, new int[]{0}),
+                new WaveClusterer.Order(4, new int[]{0}),
+                new WaveClusterer.Order(3, new int[]{1}),
+                new WaveClusterer.Order(1, new int[]{3}));
+
+        List<int[]> waves = new WaveClusterer(ForkJoinPool.commonPool(), DISTANCES, 100).cluster(orders, 3, 8);
+
+        assertThat(waves).containsExactly(new int[]{0, 2}, new int[]{1, 3});
+        assertThat(waves.stream().mapToInt(wave -> wave.length).sum()).isEqualTo(orders.size());
+    }
+
+    @Test
+    void sharedLocationsScoreHigherThanDistantOnes() {
+        boolean[] inWave = {true, false, false, false};
+        double[] nearest = {0, 1, 40, 41};
+
+        double shared = WaveClusterer.affinity(new WaveClusterer.Order(1, new int[]{0}), inWave, nearest, 1);
+        double near = WaveClusterer.affinity(new WaveClusterer.Order(1, new int[]{1}), inWave, nearest, 1);
+        double far = WaveClusterer.affinity(new WaveClusterer.Order(1, new int[]{3}), inWave, nearest, 1);
+
+        assertThat(shared).isEqualTo(1.0);
+        assertThat(near).isLessThan(shared).isGreaterThan(far);
+    }
+}
@@ -0,0 +1,114 @@
+package com.chrono.chrono.utils;
+
+import com.chrono.chrono.entities.Company;
+import com.chrono.chrono.entities.Role;
+import com.chrono.chrono.entities.User;
+import com.chrono.chrono.services.CustomUserDetailsService;
+import com.chrono.chrono.services.PrincipalCacheService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private CustomUserDetailsService customUserDetailsService;
+    @Mock
+    private PrincipalCacheService principalCacheService;
+
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filter;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "SECRET_KEY", "test-secret-test-secret-test-secret-1234");
+        ReflectionTestUtils.setField(jwtUtil, "expirationMillis", 60_000L);
+        filter = new JwtAuthenticationFilter(jwtUtil, customUserDetailsService, principalCacheService, true);
+
+        Company company = new Company();
+        company.setId(5L);
+        user = new User();
+        user.setId(1L);
+        user.setUsername("alice");
+        user.setCompany(company);
+        user.setRoles(Set.of(new Role("ROLE_ADMIN")));
+        user.setTokenVersion(3);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticatesFromClaimsWithoutLoadingUserDetails() throws Exception {
+        when(principalCacheService.get("alice")).thenReturn(Optional.of(cached(3)));
+
+        filter.doFilter(requestWithToken(jwtUtil.generateTokenWithUser(user)), new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        assertEquals("alice", auth.getName());
+        assertTrue(auth.getAuthorities().stream().map(GrantedAuthority::getAuthority).anyMatch("ROLE_ADMIN"::equals));
+        assertEquals(5L, ((JwtPrincipal) auth.getPrincipal()).getCompanyId());
+        verifyNoInteractions(customUserDetailsService);
+    }
+
+    @Test
+    void rejectsTokenWithOutdatedVersion() throws Exception {
+        String token = jwtUtil.generateTokenWithUser(user);
+        when(principalCacheService.get("alice")).thenReturn(Optional.of(cached(4)));
+
+        filter.doFilter(requestWithToken(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void rejectsLegacyTokenWithoutVersionAfterRevocation() throws Exception {
+        // Token wie vor Einführung der Token-Version: nur Rollen, kein "tv"-Claim
+        String legacyToken = jwtUtil.generateTokenWithRoles(
+                new org.springframework.security.core.userdetails.User("alice", "secret",
+                        List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+        when(principalCacheService.get("alice")).thenReturn(Optional.of(cached(4)));
+
+        filter.doFilter(requestWithToken(legacyToken), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(customUserDetailsService);
+    }
+
+    private PrincipalCacheService.CachedPrincipal cached(long tokenVersion) {
+        return new PrincipalCacheService.CachedPrincipal(1L, "alice", tokenVersion, false, false, 5L,
+                List.of("ROLE_ADMIN"), System.currentTimeMillis());
+    }
+
+    private static MockHttpServletRequest requestWithToken(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/timetracking/history");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,77 @@
+package com.chrono.chrono.warehouse.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoxPackerTest {
+
+    private static final BoxPacker.BoxType SMALL = new BoxPacker.BoxType("S", "Small", 20, 20, 20, 10);
+    private static final BoxPacker.BoxType LARGE = new BoxPacker.BoxType("L", "Large", 40, 40, 40, 50);
+
+    @Test
+    void placementsStayInsideBoxWithoutOverlapOrOverweight() {
+        Random random = new Random(11);
+        List<BoxPacker.Unit> units = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            units.add(new BoxPacker.Unit("P" + (i % 5), 4 + random.nextInt(15), 3 + random.nextInt(12),
+                    2 + random.nextInt(10), 0.2 + random.nextDouble() * 2));
+        }
+
+        BoxPacker.Result result = BoxPacker.packAll(units, List.of(SMALL, LARGE));
+
+        assertNotNull(result);
+        int placed = 0;
+        for (BoxPacker.PackedBox box : result.best().boxes()) {
+            List<BoxPacker.Placement> placements = box.placements();
+            placed += placements.size();
+            assertTrue(box.weightKg() <= box.type().maxWeightKg() + 1e-9);
+            for (int i = 0; i < placements.size(); i++) {
+                BoxPacker.Placement a = placements.get(i);
+                assertTrue(a.x() + a.length() <= box.type().length() + 1e-6);
+                assertTrue(a.y() + a.width() <= box.type().width() + 1e-6);
+                assertTrue(a.z() + a.height() <= box.type().height() + 1e-6);
+                for (int j = i + 1; j < placements.size(); j++) {
+                    BoxPacker.Placement b = placements.get(j);
+                    boolean overlap = a.x() < b.x() + b.length() - 1e-6 && b.x() < a.x() + a.length() - 1e-6
+                            && a.y() < b.y() + b.width() - 1e-6 && b.y() < a.y() + a.width() - 1e-6
+                            && a.z() < b.z() + b.height() - 1e-6 && b.z() < a.z() + a.height() - 1e-6;
+                    assertFalse(overlap, "Überlappung in " + box.type().id());
+                }
+            }
+        }
+        assertEquals(units.size(), placed);
+    }
+
+    @Test
+    void rotatesItemsToFit() {
+        BoxPacker.Unit board = new BoxPacker.Unit("BOARD", 5, 18, 35, 1);
+
+        BoxPacker.Packing packing = BoxPacker.pack(List.of(board), LARGE);
+
+        assertNotNull(packing);
+        BoxPacker.Placement placement = packing.boxes().get(0).placements().get(0);
+        assertEquals(5, placement.height(), 1e-9);
+        assertNull(BoxPacker.pack(List.of(board), SMALL));
+    }
+
+    @Test
+    void movesRemainderIntoSmallerLastBox() {
+        List<BoxPacker.Unit> units = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            units.add(new BoxPacker.Unit("CUBE", 20, 20, 20, 1));
+        }
+
+        BoxPacker.Result result = BoxPacker.packAll(units, List.of(SMALL, LARGE));
+
+        // 8 Würfel füllen einen grossen Karton, der neunte kommt in einen kleinen
+        List<BoxPacker.PackedBox> boxes = result.best().boxes();
+        assertEquals(2, boxes.size());
+        assertEquals("L", boxes.get(0).type().id());
+        assertEquals("S", boxes.get(1).type().id());
+    }
+}
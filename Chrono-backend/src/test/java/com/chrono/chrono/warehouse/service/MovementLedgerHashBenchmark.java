@@ -0,0 +1,88 @@
+package com.chrono.chrono.warehouse.service;
+
+import com.chrono.chrono.warehouse.model.MovementLogEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bewegungen pro Sekunde: bisheriges Hashing (String-Konkatenation, {@code MessageDigest.getInstance}
+ * pro Aufruf, {@code String.format} pro Byte) gegen die verkettete Variante aus {@link LedgerHasher}
+ * sowie den vollständigen {@link MovementLedgerService#append}-Pfad (ohne Datenbank).
+ * <p>
+ * Start: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.chrono.chrono.warehouse.service.MovementLedgerHashBenchmark}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MovementLedgerHashBenchmark {
+
+    private static final String PRODUCT_ID = "SKU-AR-GLV";
+    private static final String FROM = "A-01-01";
+    private static final String TO = "B-01-02";
+
+    private MovementLedgerService ledger;
+    private Instant timestamp;
+    private String previousHash;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ledger = new MovementLedgerService(null, null, null, 1000, 1000, 288, 5000, 1);
+        timestamp = Instant.now();
+        previousHash = LedgerHasher.GENESIS_HASH;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String legacyHash() throws NoSuchAlgorithmException {
+        String payload = PRODUCT_ID + FROM + TO + 5 + timestamp;
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] hashed = digest.digest(payload.getBytes());
+        StringBuilder sb = new StringBuilder();
+        for (byte b : hashed) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String chainedHash() {
+        return LedgerHasher.chain(previousHash, PRODUCT_ID, FROM, TO, 5, timestamp);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public MovementLogEntry appendMovement() {
+        return ledger.append(new MovementLogEntry(UUID.randomUUID().toString(), PRODUCT_ID, FROM, TO, 5,
+                timestamp, null));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MovementLedgerHashBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,321 @@
+package com.chrono.chrono.warehouse.service;
+
+import com.chrono.chrono.entities.inventory.WarehouseLedgerCheckpoint;
+import com.chrono.chrono.entities.inventory.WarehouseLedgerDailyAggregate;
+import com.chrono.chrono.entities.inventory.WarehouseLedgerEntry;
+import com.chrono.chrono.repositories.inventory.WarehouseLedgerCheckpointRepository;
+import com.chrono.chrono.repositories.inventory.WarehouseLedgerDailyAggregateRepository;
+import com.chrono.chrono.repositories.inventory.WarehouseLedgerEntryRepository;
+import com.chrono.chrono.warehouse.dto.LedgerVerificationResponse;
+import com.chrono.chrono.warehouse.model.MovementLogEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MovementLedgerServiceTest {
+
+    @Mock
+    private WarehouseLedgerEntryRepository entryRepository;
+
+    @Mock
+    private WarehouseLedgerDailyAggregateRepository aggregateRepository;
+
+    @Mock
+    private WarehouseLedgerCheckpointRepository checkpointRepository;
+
+    private static MovementLogEntry movement(String productId, String from, String to, int quantity, Instant timestamp) {
+        return new MovementLogEntry(UUID.randomUUID().toString(), productId, from, to, quantity, timestamp, "");
+    }
+
+    private static WarehouseLedgerEntry entity(long id, String productId, String from, String to, int quantity) {
+        WarehouseLedgerEntry entity = new WarehouseLedgerEntry();
+        entity.setId(id);
+        entity.setMovementId(UUID.randomUUID().toString());
+        entity.setProductId(productId);
+        entity.setFromLocation(from);
+        entity.setToLocation(to);
+        entity.setQuantity(quantity);
+        entity.setRecordedAt(Instant.now());
+        return entity;
+    }
+
+    @Test
+    void appendAggregatesPerProductAndDay() {
+        MovementLedgerService ledger = new MovementLedgerService(null, null, null, 2, 100, 10, 100, 1);
+        Instant now = Instant.now();
+        LocalDate today = LocalDate.now();
+
+        ledger.append(movement("SKU-1", "A-01", null, 5, now));
+        ledger.append(movement("SKU-1", null, "A-01", 2, now));
+        ledger.append(movement("SKU-1", "A-01", "B-01", 3, now));
+        ledger.append(movement("SKU-2", "A-01", null, 7, now));
+
+        NavigableMap<LocalDate, MovementLedgerService.DailyMovement> series =
+                ledger.dailySeries("SKU-1", today.minusDays(30), today);
+        assertEquals(1, series.size());
+        MovementLedgerService.DailyMovement day = series.get(today);
+        assertEquals(5, day.inbound());
+        assertEquals(8, day.outbound());
+        assertEquals(3, day.movements());
+        assertEquals(3, day.netOutbound());
+
+        assertTrue(ledger.dailySeries("SKU-1", today.minusDays(30), today.minusDays(1)).isEmpty());
+        assertTrue(ledger.history("UNKNOWN").isEmpty());
+        assertEquals(4, ledger.countSince(now.minus(1, ChronoUnit.HOURS)));
+        assertEquals(4, ledger.getLastSequence());
+
+        List<MovementLogEntry> recent = ledger.recentEntries();
+        assertEquals(2, recent.size());
+        assertEquals("SKU-2", recent.get(1).getProductId());
+    }
+
+    @Test
+    void loadReplaysOnlyEntriesAfterCheckpoint() {
+        MovementLedgerService ledger = new MovementLedgerService(entryRepository, aggregateRepository,
+                checkpointRepository, 10, 100, 10, 2, 2);
+        LocalDate today = LocalDate.now();
+
+        WarehouseLedgerDailyAggregate snapshot = new WarehouseLedgerDailyAggregate();
+        snapshot.setProductId("SKU-1");
+        snapshot.setMovementDate(today.minusDays(1));
+        snapshot.setOutboundQuantity(10);
+        snapshot.setMovementCount(2);
+        WarehouseLedgerEntry replayed = entity(6L, "SKU-1", "A-01", null, 3);
+
+        when(checkpointRepository.findTopByOrderByIdDesc())
+                .thenReturn(Optional.of(new WarehouseLedgerCheckpoint(5L, null, Instant.now())));
+        when(aggregateRepository.findAll()).thenReturn(List.of(snapshot));
+        when(entryRepository.findByIdGreaterThanOrderByIdAsc(eq(5L), any(Pageable.class)))
+                .thenReturn(List.of(replayed));
+        when(entryRepository.findByRecordedAtGreaterThanEqualOrderByIdAsc(any(Instant.class)))
+                .thenReturn(List.of(replayed));
+        when(entryRepository.findAllByOrderByIdDesc(any(Pageable.class))).thenReturn(List.of(replayed));
+
+        ledger.load();
+
+        NavigableMap<LocalDate, MovementLedgerService.DailyMovement> history = ledger.history("SKU-1");
+        assertEquals(10, history.get(today.minusDays(1)).outbound());
+        assertEquals(3, history.get(today).outbound());
+        assertEquals(6L, ledger.getLastSequence());
+        assertEquals(1, ledger.countSince(Instant.now().minus(1, ChronoUnit.DAYS)));
+        assertEquals(1, ledger.recentEntries().size());
+    }
+
+    @Test
+    void snapshotWritesChangedAggregatesAndCheckpoint() {
+        MovementLedgerService ledger = new MovementLedgerService(entryRepository, aggregateRepository,
+                checkpointRepository, 10, 100, 2, 2, 2);
+        LocalDate today = LocalDate.now();
+
+        when(entryRepository.save(any(WarehouseLedgerEntry.class))).thenAnswer(invocation -> {
+            WarehouseLedgerEntry saved = invocation.getArgument(0);
+            saved.setId(1L);
+            return saved;
+        });
+        when(aggregateRepository.findByProductIdAndMovementDate("SKU-1", today)).thenReturn(Optional.empty());
+        when(checkpointRepository.save(any(WarehouseLedgerCheckpoint.class))).thenAnswer(invocation -> {
+            WarehouseLedgerCheckpoint saved = invocation.getArgument(0);
+            saved.setId(3L);
+            return saved;
+        });
+
+        ledger.append(movement("SKU-1", "A-01", null, 4, Instant.now()));
+
+        assertEquals(1, ledger.snapshot());
+
+        ArgumentCaptor<WarehouseLedgerDailyAggregate> aggregateCaptor =
+                ArgumentCaptor.forClass(WarehouseLedgerDailyAggregate.class);
+        verify(aggregateRepository).save(aggregateCaptor.capture());
+        assertEquals("SKU-1", aggregateCaptor.getValue().getProductId());
+        assertEquals(4, aggregateCaptor.getValue().getOutboundQuantity());
+        assertEquals(1, aggregateCaptor.getValue().getMovementCount());
+
+        ArgumentCaptor<WarehouseLedgerCheckpoint> checkpointCaptor =
+                ArgumentCaptor.forClass(WarehouseLedgerCheckpoint.class);
+        verify(checkpointRepository).save(checkpointCaptor.capture());
+        assertEquals(1L, checkpointCaptor.getValue().getLastSequence());
+        assertNotNull(checkpointCaptor.getValue().getLastHash());
+        verify(checkpointRepository).deleteByIdLessThan(2L);
+
+        assertEquals(0, ledger.snapshot());
+    }
+
+    @Test
+    void appendChainsHashesAndVerifiesInMemory() {
+        MovementLedgerService ledger = new MovementLedgerService(null, null, null, 10, 100, 10, 100, 1);
+        Instant now = Instant.now();
+
+        MovementLogEntry first = ledger.append(movement("SKU-1", "A-01", null, 5, now));
+        MovementLogEntry second = ledger.append(movement("SKU-1", null, "A-01", 2, now));
+
+        assertEquals(LedgerHasher.GENESIS_HASH, first.getPreviousHash());
+        assertEquals(first.getHash(), second.getPreviousHash());
+        assertEquals(64, second.getHash().length());
+        assertEquals(2L, second.getSequence());
+        assertTrue(ledger.verifyChain().isValid());
+
+        second.setQuantity(200);
+        LedgerVerificationResponse tampered = ledger.verifyChain();
+        assertFalse(tampered.isValid());
+        assertEquals(2L, tampered.getFirstInvalidSequence());
+    }
+
+    @Test
+    void verifyChainChecksSegmentBoundariesAndCheckpoints() {
+        MovementLedgerService ledger = new MovementLedgerService(entryRepository, aggregateRepository,
+                checkpointRepository, 10, 100, 10, 2, 2);
+        Instant now = Instant.now();
+        List<WarehouseLedgerEntry> chain = new ArrayList<>();
+        String previous = LedgerHasher.GENESIS_HASH;
+        for (long id = 1; id <= 3; id++) {
+            WarehouseLedgerEntry entry = entity(id, "SKU-1", "A-01", null, (int) id);
+            entry.setRecordedAt(now);
+            entry.setPreviousHash(previous);
+            entry.setHash(LedgerHasher.chain(previous, "SKU-1", "A-01", null, (int) id, now));
+            previous = entry.getHash();
+            chain.add(entry);
+        }
+
+        when(entryRepository.findTopByOrderByIdDesc()).thenReturn(Optional.of(chain.get(2)));
+        when(checkpointRepository.findAllByOrderByLastSequenceAsc())
+                .thenReturn(List.of(new WarehouseLedgerCheckpoint(2L, chain.get(1).getHash(), now)));
+        when(entryRepository.findByIdBetweenOrderByIdAsc(1L, 2L)).thenReturn(chain.subList(0, 2));
+        when(entryRepository.findByIdBetweenOrderByIdAsc(3L, 3L)).thenReturn(chain.subList(2, 3));
+
+        LedgerVerificationResponse intact = ledger.verifyChain();
+        assertTrue(intact.isValid());
+        assertEquals(3, intact.getVerifiedEntries());
+        assertEquals(2, intact.getSegments());
+        assertEquals(1, intact.getCheckpointsVerified());
+
+        chain.get(2).setPreviousHash(LedgerHasher.GENESIS_HASH);
+        chain.get(2).setHash(LedgerHasher.chain(LedgerHasher.GENESIS_HASH, "SKU-1", "A-01", null, 3, now));
+        LedgerVerificationResponse broken = ledger.verifyChain();
+        assertFalse(broken.isValid());
+        assertEquals(3L, broken.getFirstInvalidSequence());
+    }
+
+    @Test
+    void persistedEntriesVerifyAfterReloadWithMicrosecondPrecision() {
+        MovementLedgerService ledger = new MovementLedgerService(entryRepository, aggregateRepository,
+                checkpointRepository, 10, 100, 10, 100, 1);
+        List<WarehouseLedgerEntry> saved = new ArrayList<>();
+        when(entryRepository.save(any(WarehouseLedgerEntry.class))).thenAnswer(invocation -> {
+            WarehouseLedgerEntry entity = invocation.getArgument(0);
+            entity.setId(saved.size() + 1L);
+            saved.add(entity);
+            return entity;
+        });
+        Instant withNanos = Instant.parse("2024-05-15T10:00:00.123456789Z");
+
+        ledger.append(movement("SKU-1", "A-01", null, 5, withNanos));
+        ledger.append(movement("SKU-1", null, "A-01", 2, withNanos.plusNanos(999)));
+
+        // recorded_at ist TIMESTAMP(6): so kommen die Einträge aus der Datenbank zurück
+        List<WarehouseLedgerEntry> reloaded = new ArrayList<>();
+        for (WarehouseLedgerEntry entry : saved) {
+            assertEquals(0, entry.getRecordedAt().getNano() % 1000);
+            WarehouseLedgerEntry copy = entity(entry.getId(), entry.getProductId(), entry.getFromLocation(),
+                    entry.getToLocation(), entry.getQuantity());
+            copy.setMovementId(entry.getMovementId());
+            copy.setRecordedAt(entry.getRecordedAt().truncatedTo(ChronoUnit.MICROS));
+            copy.setPreviousHash(entry.getPreviousHash());
+            copy.setHash(entry.getHash());
+            reloaded.add(copy);
+        }
+        when(entryRepository.findTopByOrderByIdDesc()).thenReturn(Optional.of(reloaded.get(1)));
+        when(entryRepository.findByIdBetweenOrderByIdAsc(1L, 2L)).thenReturn(reloaded);
+
+        LedgerVerificationResponse result = ledger.verifyChain();
+        assertTrue(result.isValid());
+        assertEquals(2, result.getVerifiedEntries());
+    }
+
+    @Test
+    void appendLeavesChainUntouchedWhenInsertFails() {
+        MovementLedgerService ledger = new MovementLedgerService(entryRepository, aggregateRepository,
+                checkpointRepository, 10, 100, 10, 100, 1);
+        when(entryRepository.save(any(WarehouseLedgerEntry.class)))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"))
+                .thenAnswer(invocation -> {
+                    WarehouseLedgerEntry entity = invocation.getArgument(0);
+                    entity.setId(1L);
+                    return entity;
+                });
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> ledger.append(movement("SKU-1", "A-01", null, 5, Instant.now())));
+
+        assertTrue(ledger.recentEntries().isEmpty());
+        assertTrue(ledger.dailySeries("SKU-1", LocalDate.now().minusDays(1), LocalDate.now()).isEmpty());
+
+        MovementLogEntry next = ledger.append(movement("SKU-1", "A-01", null, 5, Instant.now()));
+        assertEquals(LedgerHasher.GENESIS_HASH, next.getPreviousHash());
+    }
+
+    @Test
+    void appendInsideTransactionWaitsForCommit() {
+        MovementLedgerService ledger = new MovementLedgerService(null, null, null, 10, 100, 10, 100, 1);
+        List<MovementLogEntry> notified = new CopyOnWriteArrayList<>();
+        ledger.addAppendListener(notified::add);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ledger.append(movement("SKU-1", "A-01", null, 5, Instant.now()));
+            assertTrue(ledger.recentEntries().isEmpty());
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        ledger.shutdown();
+
+        assertEquals(1, ledger.recentEntries().size());
+        assertEquals(1, notified.size());
+        assertNotNull(notified.get(0).getHash());
+    }
+
+    @Test
+    void appendInsideRolledBackTransactionIsDiscarded() {
+        MovementLedgerService ledger = new MovementLedgerService(entryRepository, aggregateRepository,
+                checkpointRepository, 10, 100, 10, 100, 1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ledger.append(movement("SKU-1", "A-01", null, 5, Instant.now()));
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        ledger.shutdown();
+
+        verify(entryRepository, never()).save(any(WarehouseLedgerEntry.class));
+        assertTrue(ledger.recentEntries().isEmpty());
+        assertEquals(0, ledger.getLastSequence());
+    }
+}
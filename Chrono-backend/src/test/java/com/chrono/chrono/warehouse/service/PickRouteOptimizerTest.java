@@ -0,0 +1,79 @@
+package com.chrono.chrono.warehouse.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PickRouteOptimizerTest {
+
+    private static double[][] randomInstance(int stops, long seed) {
+        Random random = new Random(seed);
+        double[][] points = new double[stops + 1][2];
+        for (int i = 1; i <= stops; i++) {
+            points[i][0] = random.nextInt(100);
+            points[i][1] = random.nextInt(100);
+        }
+        double[][] distances = new double[stops + 1][stops + 1];
+        for (int i = 0; i <= stops; i++) {
+            for (int j = 0; j <= stops; j++) {
+                distances[i][j] = Math.hypot(points[i][0] - points[j][0], points[i][1] - points[j][1]);
+            }
+        }
+        return distances;
+    }
+
+    private static int[] withDepot(int[] order) {
+        int[] tour = new int[order.length + 1];
+        System.arraycopy(order, 0, tour, 1, order.length);
+        return tour;
+    }
+
+    @Test
+    void optimiseReturnsPermutationShorterThanNearestNeighbour() {
+        double[][] distances = randomInstance(60, 42L);
+
+        double nearestNeighbour = PickRouteOptimizer.length(PickRouteOptimizer.nearestNeighbour(distances), distances);
+        int[] order = PickRouteOptimizer.optimise(distances, 200_000_000L);
+
+        assertArrayEquals(java.util.stream.IntStream.rangeClosed(1, 60).toArray(),
+                Arrays.stream(order).sorted().toArray());
+        assertTrue(PickRouteOptimizer.length(withDepot(order), distances) < nearestNeighbour);
+    }
+
+    @Test
+    void optimiseStaysCloseToExhaustiveSearchOnSmallRoutes() {
+        // Lokale Suche garantiert kein Optimum, soll aber nah herankommen
+        for (long seed = 1; seed <= 20; seed++) {
+            double[][] distances = randomInstance(7, seed);
+
+            int[] order = PickRouteOptimizer.optimise(distances, 200_000_000L);
+
+            double optimum = bruteForce(distances, new int[]{1, 2, 3, 4, 5, 6, 7}, 0);
+            double length = PickRouteOptimizer.length(withDepot(order), distances);
+            assertTrue(length <= optimum * 1.05, "seed " + seed + ": " + length + " > " + optimum);
+        }
+    }
+
+    private static double bruteForce(double[][] distances, int[] stops, int fixed) {
+        if (fixed == stops.length) {
+            return PickRouteOptimizer.length(withDepot(stops), distances);
+        }
+        double best = Double.MAX_VALUE;
+        for (int i = fixed; i < stops.length; i++) {
+            int[] candidate = stops.clone();
+            candidate[fixed] = stops[i];
+            candidate[i] = stops[fixed];
+            best = Math.min(best, bruteForce(distances, candidate, fixed + 1));
+        }
+        return best;
+    }
+
+    @Test
+    void optimiseHandlesTrivialRoutes() {
+        assertEquals(0, PickRouteOptimizer.optimise(new double[][]{{0}}, 1_000_000L).length);
+        assertArrayEquals(new int[]{1}, PickRouteOptimizer.optimise(new double[][]{{0, 2}, {2, 0}}, 1_000_000L));
+    }
+}
@@ -0,0 +1,92 @@
+package com.chrono.chrono.warehouse.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    @Test
+    void findsProductsBySkuOrLongestNameInFreeText() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put("SKU-100", "Smart Glove", "Wearables");
+        index.put("SKU-200", "Smart Glove Pro", "Wearables");
+        index.put("SKU-300", "Chrono Bot", "Robotics");
+
+        assertEquals(Optional.of("SKU-300"), index.findMentioned("Wie viel Bestand hat sku-300?"));
+        assertEquals(Optional.of("SKU-200"), index.findMentioned("Nachschub für den Smart-Glove PRO"));
+        assertEquals(Optional.of("SKU-100"), index.findMentioned("smart glove, bitte"));
+        assertTrue(index.findMentioned("Smart Bot").isEmpty());
+        assertTrue(index.findMentioned(" ").isEmpty());
+    }
+
+    @Test
+    void updatesAndRemovalsReplaceOldPostings() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put("SKU-1", "Pallet Wrap", "Packaging");
+        index.put("SKU-1", "Stretch Film", "Packaging");
+
+        assertTrue(index.findMentioned("pallet wrap").isEmpty());
+        assertEquals(Optional.of("SKU-1"), index.findMentioned("stretch film"));
+
+        index.remove("SKU-1");
+        assertEquals(0, index.size());
+        assertTrue(index.findMentioned("stretch film").isEmpty());
+        assertTrue(index.findMentioned("SKU-1").isEmpty());
+        assertTrue(index.mostSimilar("stretch film", 0.5).isEmpty());
+    }
+
+    @Test
+    void queriesDoNotGrowTokenPool() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put("SKU-1", "Stretch Film", "Packaging");
+        int pooled = index.pooledTokens();
+
+        index.findMentioned("Wie viel Stretch Film liegt im Lager Nord?");
+        index.mostSimilar("vollkommen unbekannte Anfrage 4711", 0.5);
+
+        assertEquals(pooled, index.pooledTokens());
+    }
+
+    @Test
+    void mostSimilarRespectsThresholdAndPrefersSmallestIdOnTies() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put("B", "industrial safety helmet", "Safety");
+        index.put("A", "industrial safety helmet", "PPE");
+        index.put("C", "industrial cable reel", "Electrical");
+
+        ProductSearchIndex.Entry match = index.mostSimilar("Safety Helmet Industrial XL", 0.6).orElseThrow();
+        assertEquals("A", match.productId());
+        assertEquals("PPE", match.category());
+        assertTrue(index.mostSimilar("industrial drill", 0.6).isEmpty());
+    }
+
+    @Test
+    void keywordScoresCountEachKeywordOnce() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        Map<String, Integer> scores = ProductSearchIndex.keywordScores(index.tokenize("Sensor-Kit mit Sensoren"),
+                Map.of("Electronics", List.of("sensor", "kit"), "Tools", List.of("drill")));
+
+        assertEquals(Map.of("Electronics", 4), scores);
+    }
+
+    @Test
+    void lookupsStayFastWithManyProducts() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        for (int i = 0; i < 100_000; i++) {
+            index.put("SKU-" + i, "Produkt Serie " + (i % 500) + " Variante " + i, "General");
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(Optional.of("SKU-4242"), index.findMentioned("Bestand von produkt serie 242 variante 4242?"));
+        }
+        assertEquals("SKU-77", index.mostSimilar("Produkt Serie 77 Variante 77", 0.9).orElseThrow().productId());
+        // großzügige Grenze: ein linearer Scan über 100k Namen läge um Größenordnungen darüber
+        assertTrue(System.nanoTime() - start < 2_000_000_000L);
+    }
+}
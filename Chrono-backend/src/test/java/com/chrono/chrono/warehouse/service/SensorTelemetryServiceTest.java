@@ -0,0 +1,120 @@
+package com.chrono.chrono.warehouse.service;
+
+import com.chrono.chrono.warehouse.dto.SensorBatchResponse;
+import com.chrono.chrono.warehouse.dto.SensorReadingRequest;
+import com.chrono.chrono.warehouse.dto.SensorRollupResponse;
+import com.chrono.chrono.warehouse.model.SensorAlert;
+import com.chrono.chrono.warehouse.model.SensorReading;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SensorTelemetryServiceTest {
+
+    private static final Instant BASE = Instant.parse("2025-03-01T08:00:00Z");
+
+    private static SensorReadingRequest reading(String locationId, double temperature, Instant timestamp) {
+        SensorReadingRequest request = new SensorReadingRequest();
+        request.setLocationId(locationId);
+        request.setTemperature(temperature);
+        request.setHumidity(40);
+        request.setWeight(100);
+        request.setTimestamp(timestamp);
+        return request;
+    }
+
+    @Test
+    void ringBufferKeepsOnlyTheNewestReadings() {
+        SensorTelemetryService service = new SensorTelemetryService(8, 10, 100, 10, null, null, null, null);
+        for (int i = 0; i < 20; i++) {
+            service.record(reading("A-01-01", i, BASE.plusSeconds(i)));
+        }
+
+        List<SensorReading> readings = service.readings("A-01-01");
+
+        assertEquals(8, readings.size());
+        assertEquals(12.0, readings.get(0).getTemperature());
+        assertEquals(19.0, readings.get(7).getTemperature());
+        assertEquals(BASE.plusSeconds(19), readings.get(7).getTimestamp());
+    }
+
+    @Test
+    void rollupsAggregateBeyondTheRawBuffer() {
+        SensorTelemetryService service = new SensorTelemetryService(4, 10, 100, 10, null, null, null, null);
+        // zwei Stunden mit je 30 Werten, Puffer hält nur vier Rohwerte
+        for (int i = 0; i < 60; i++) {
+            service.record(reading("B-01-02", 10 + (i % 30), BASE.plusSeconds(i * 120L)));
+        }
+
+        List<SensorRollupResponse> hourly = service.rollups("B-01-02", "1h");
+
+        assertEquals(2, hourly.size());
+        SensorRollupResponse first = hourly.get(0);
+        assertEquals(BASE, first.getBucketStart());
+        assertEquals(30, first.getCount());
+        assertEquals(10.0, first.getTemperatureMin());
+        assertEquals(39.0, first.getTemperatureMax());
+        assertEquals(24.5, first.getTemperatureAvg());
+        assertEquals(60, service.rollups("B-01-02", "1d").get(0).getCount());
+        assertEquals(60, service.rollups("B-01-02", "1m").stream().mapToInt(SensorRollupResponse::getCount).sum());
+        assertThrows(IllegalArgumentException.class, () -> service.rollups("B-01-02", "5m"));
+    }
+
+    @Test
+    void alertsFireOnlyWhenThresholdIsFirstCrossed() {
+        SensorTelemetryService service = new SensorTelemetryService(16, 10, 100, 10, 2.0, 30.0, null, null);
+
+        service.record(reading("C-03-05", 20, BASE));
+        service.record(reading("C-03-05", 31, BASE.plusSeconds(1)));
+        service.record(reading("C-03-05", 35, BASE.plusSeconds(2)));
+        service.record(reading("C-03-05", 25, BASE.plusSeconds(3)));
+        service.record(reading("C-03-05", 32, BASE.plusSeconds(4)));
+        service.record(reading("C-03-05", 1, BASE.plusSeconds(5)));
+
+        List<SensorAlert> alerts = service.recentAlerts();
+
+        assertEquals(3, alerts.size());
+        assertEquals("below", alerts.get(0).getDirection());
+        assertEquals(1.0, alerts.get(0).getValue());
+        assertEquals("above", alerts.get(1).getDirection());
+        assertEquals(32.0, alerts.get(1).getValue());
+        assertEquals(30.0, alerts.get(2).getThreshold());
+        assertEquals(BASE.plusSeconds(1), alerts.get(2).getTimestamp());
+    }
+
+    @Test
+    void batchIngestGroupsByLocationAndRejectsInvalidReadings() {
+        SensorTelemetryService service = new SensorTelemetryService(16, 2, 100, 10, null, 30.0, null, null);
+        List<SensorReadingRequest> batch = new ArrayList<>();
+        batch.add(reading("A-01-01", 20, BASE));
+        batch.add(reading("A-02-03", 31, BASE));
+        batch.add(reading("A-01-01", 21, BASE.plusSeconds(1)));
+        batch.add(reading("B-01-02", 22, BASE));
+        batch.add(reading("A-02-03", Double.NaN, BASE.plusSeconds(1)));
+        batch.add(reading(" ", 22, BASE));
+
+        SensorBatchResponse response = service.recordBatch(batch);
+
+        assertEquals(3, response.getAccepted());
+        assertEquals(3, response.getRejected());
+        assertEquals(1, response.getAlerts().size());
+        assertEquals("A-02-03", response.getAlerts().get(0).getLocationId());
+        assertEquals(2, service.readings("A-01-01").size());
+        assertTrue(service.readings("B-01-02").isEmpty());
+        assertEquals(31.0, service.maxTemperature().orElseThrow());
+        assertThrows(IllegalStateException.class, () -> service.record(reading("B-01-02", 20, BASE)));
+    }
+
+    @Test
+    void batchLargerThanLimitIsRejected() {
+        SensorTelemetryService service = new SensorTelemetryService(16, 10, 2, 10, null, null, null, null);
+        List<SensorReadingRequest> batch = List.of(reading("A", 1, BASE), reading("A", 2, BASE), reading("A", 3, BASE));
+
+        assertThrows(IllegalArgumentException.class, () -> service.recordBatch(batch));
+        assertTrue(service.readings("A").isEmpty());
+    }
+}
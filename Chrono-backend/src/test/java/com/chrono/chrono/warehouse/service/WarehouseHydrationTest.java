@@ -0,0 +1,102 @@
+package com.chrono.chrono.warehouse.service;
+
+import com.chrono.chrono.entities.inventory.Product;
+import com.chrono.chrono.entities.inventory.StockLevel;
+import com.chrono.chrono.entities.inventory.Warehouse;
+import com.chrono.chrono.repositories.inventory.ProductRepository;
+import com.chrono.chrono.repositories.inventory.StockLevelRepository;
+import com.chrono.chrono.repositories.inventory.WarehouseRepository;
+import com.chrono.chrono.warehouse.model.InventoryItem;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {"spring.jpa.hibernate.ddl-auto=create-drop", "app.warehouse.sync.page-size=2"})
+@Import({MovementLedgerService.class, SensorTelemetryService.class, WarehouseKpiService.class,
+        WarehouseIntelligenceService.class})
+@ActiveProfiles("test")
+class WarehouseHydrationTest {
+
+    @Autowired
+    private WarehouseIntelligenceService service;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private StockLevelRepository stockLevelRepository;
+
+    private Product product(String sku) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName("Widget " + sku);
+        product.setUnitCost(new BigDecimal("10.00"));
+        return productRepository.saveAndFlush(product);
+    }
+
+    private Warehouse warehouse(String code) {
+        Warehouse warehouse = new Warehouse();
+        warehouse.setCode(code);
+        warehouse.setName("Lager " + code);
+        return warehouseRepository.saveAndFlush(warehouse);
+    }
+
+    private StockLevel stock(Product product, Warehouse warehouse, String quantity) {
+        StockLevel level = new StockLevel();
+        level.setProduct(product);
+        level.setWarehouse(warehouse);
+        level.setQuantity(new BigDecimal(quantity));
+        return stockLevelRepository.saveAndFlush(level);
+    }
+
+    private Optional<InventoryItem> inventory(String productId, String locationId) {
+        return service.listInventory().stream()
+                .filter(item -> item.getProductId().equals(productId) && item.getLocationId().equals(locationId))
+                .findFirst();
+    }
+
+    @Test
+    void refreshLoadsStockLevelsAcrossPages() {
+        Warehouse warehouse = warehouse("PAGE-1");
+        for (int i = 1; i <= 5; i++) {
+            stock(product("SKU-PAGE-" + i), warehouse, String.valueOf(i * 10));
+        }
+
+        service.refreshFromDatabase();
+
+        for (int i = 1; i <= 5; i++) {
+            assertThat(inventory("SKU-PAGE-" + i, "PAGE-1")).get()
+                    .extracting(InventoryItem::getQuantity).isEqualTo(i * 10);
+        }
+    }
+
+    @Test
+    void syncChangesAppliesRowsChangedSinceTheWatermark() {
+        Product product = product("SKU-SYNC");
+        Warehouse warehouse = warehouse("SYNC-1");
+        StockLevel level = stock(product, warehouse, "12");
+
+        service.syncChanges();
+        assertThat(inventory("SKU-SYNC", "SYNC-1")).get().extracting(InventoryItem::getQuantity).isEqualTo(12);
+
+        level.setQuantity(new BigDecimal("5"));
+        stockLevelRepository.saveAndFlush(level);
+        product.setName("Renamed Widget");
+        productRepository.saveAndFlush(product);
+
+        service.syncChanges();
+        assertThat(inventory("SKU-SYNC", "SYNC-1")).get().extracting(InventoryItem::getQuantity).isEqualTo(5);
+        assertThat(service.listProducts())
+                .anySatisfy(response -> assertThat(response.getName()).isEqualTo("Renamed Widget"));
+    }
+}
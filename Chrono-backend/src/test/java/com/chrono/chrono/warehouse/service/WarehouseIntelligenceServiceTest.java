@@ -1,9 +1,18 @@
 package com.chrono.chrono.warehouse.service;
 
+import com.chrono.chrono.entities.inventory.InventoryTombstone;
+import com.chrono.chrono.entities.inventory.Product;
+import com.chrono.chrono.entities.inventory.Warehouse;
+import com.chrono.chrono.repositories.inventory.InventoryTombstoneRepository;
+import com.chrono.chrono.repositories.inventory.ProductRepository;
+import com.chrono.chrono.repositories.inventory.StockLevelRepository;
+import com.chrono.chrono.repositories.inventory.WarehouseRepository;
 import com.chrono.chrono.warehouse.dto.BoxRecommendationRequest;
 import com.chrono.chrono.warehouse.dto.BoxRecommendationResponse;
+import com.chrono.chrono.warehouse.dto.KpiDashboardResponse;
 import com.chrono.chrono.warehouse.dto.PickRouteRequest;
 import com.chrono.chrono.warehouse.dto.PickRouteResponse;
+import com.chrono.chrono.warehouse.dto.PredictiveReplenishmentResponse;
 import com.chrono.chrono.warehouse.dto.ProductRequest;
 import com.chrono.chrono.warehouse.dto.ProductResponse;
 import com.chrono.chrono.warehouse.model.InventoryItem;
@@ -11,9 +20,24 @@ import com.chrono.chrono.warehouse.model.MovementLogEntry;
 import com.chrono.chrono.warehouse.model.WarehouseLocation;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class WarehouseIntelligenceServiceTest {
 
@@ -78,6 +102,141 @@ class WarehouseIntelligenceServiceTest {
         assertEquals(5, destinationLocation.getOccupied());
     }
 
+    @Test
+    void applyStockMovementIsSafeUnderConcurrentUpdates() throws Exception {
+        WarehouseIntelligenceService service = new WarehouseIntelligenceService();
+        Product product = new Product();
+        product.setId(42L);
+        product.setSku("SKU-CONC-01");
+        product.setName("Concurrency Label Pack");
+        Warehouse warehouse = new Warehouse();
+        warehouse.setId(7L);
+        warehouse.setCode("D-01-01");
+        warehouse.setName("Dock");
+
+        int threads = 8;
+        int movementsPerThread = 250;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < movementsPerThread; j++) {
+                        service.applyStockMovement(product, warehouse, BigDecimal.ONE, null);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<InventoryItem> entries = service.listInventory().stream()
+                .filter(item -> item.getProductId().equals("SKU-CONC-01"))
+                .toList();
+        assertEquals(1, entries.size());
+        assertEquals(threads * movementsPerThread, entries.get(0).getQuantity());
+
+        WarehouseLocation location = service.listLocations().stream()
+                .filter(candidate -> candidate.getId().equals("D-01-01"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(location.getCapacity(), location.getOccupied());
+    }
+
+    @Test
+    void opposingMovementsBetweenTwoLocationsDoNotDeadlock() throws Exception {
+        WarehouseIntelligenceService service = new WarehouseIntelligenceService();
+        service.recordMovement("SKU-AR-01", "A-01-01", "C-03-05", 12);
+
+        int movementsPerThread = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> forward = executor.submit(() -> moveRepeatedly(service, "A-01-01", "C-03-05", movementsPerThread));
+            Future<?> backward = executor.submit(() -> moveRepeatedly(service, "C-03-05", "A-01-01", movementsPerThread));
+            forward.get(30, TimeUnit.SECONDS);
+            backward.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int total = service.listInventory().stream()
+                .filter(item -> item.getProductId().equals("SKU-AR-01"))
+                .filter(item -> item.getLocationId().equals("A-01-01") || item.getLocationId().equals("C-03-05"))
+                .mapToInt(InventoryItem::getQuantity)
+                .sum();
+        assertEquals(24, total);
+    }
+
+    private static void moveRepeatedly(WarehouseIntelligenceService service, String from, String to, int times) {
+        for (int i = 0; i < times; i++) {
+            try {
+                service.recordMovement("SKU-AR-01", from, to, 1);
+            } catch (IllegalStateException emptyOrFull) {
+                // Quelle leer oder Ziel voll: die Gegenrichtung füllt wieder auf
+            }
+        }
+    }
+
+    @Test
+    void recordMovementRemovesEmptiedSourceEntry() {
+        WarehouseIntelligenceService service = new WarehouseIntelligenceService();
+
+        service.recordMovement("SKU-AR-01", "A-01-01", "C-03-05", 24);
+
+        assertTrue(service.listInventory().stream()
+                .noneMatch(item -> item.getProductId().equals("SKU-AR-01")
+                        && item.getLocationId().equals("A-01-01")));
+        WarehouseLocation source = service.listLocations().stream()
+                .filter(location -> location.getId().equals("A-01-01"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(0, source.getOccupied());
+        assertThrows(IllegalStateException.class,
+                () -> service.recordMovement("SKU-AR-01", "A-01-01", "C-03-05", 1));
+    }
+
+    @Test
+    void kpiDashboardFollowsMovementsIncrementally() {
+        WarehouseIntelligenceService service = new WarehouseIntelligenceService();
+        assertEquals(24 * 1299.0 + 140 * 149.0, service.buildKpiDashboard().getKpis().get("inventory_value"));
+
+        service.recordMovement("SKU-AR-GLV", "B-01-02", null, 10);
+        service.recordMovement("SKU-AR-01", "A-01-01", "C-03-05", 4);
+        service.recordOrderFulfilment(false);
+        service.recordOrderFulfilment(true);
+
+        KpiDashboardResponse dashboard = service.buildKpiDashboard();
+        assertEquals(24 * 1299.0 + 130 * 149.0, dashboard.getKpis().get("inventory_value"));
+        assertEquals(1.0, dashboard.getKpis().get("pick_rate"));
+        assertEquals(10.0, dashboard.getKpis().get("picked_units_24h"));
+        assertEquals(50.0, dashboard.getKpis().get("on_time_delivery"));
+    }
+
+    @Test
+    void replenishmentBatchMatchesSingleAnalysisAndRefreshesAfterMovements() {
+        WarehouseIntelligenceService service = new WarehouseIntelligenceService();
+        PredictiveReplenishmentResponse before = service.analyseReplenishment("SKU-AR-GLV", 0.95);
+
+        service.recordMovement("SKU-AR-GLV", "B-01-02", null, 91);
+
+        Map<String, WarehouseIntelligenceService.ReplenishmentInsight> batch = service.analyseReplenishmentBatch(
+                List.of("SKU-AR-GLV", "SKU-AR-01", " "), 0.95);
+        PredictiveReplenishmentResponse single = service.analyseReplenishment("SKU-AR-GLV", 0.95);
+        PredictiveReplenishmentResponse batched = batch.get("SKU-AR-GLV").analytics();
+
+        assertEquals(2, batch.size());
+        assertEquals(before.getAverageDailyDemand() + 1.0, single.getAverageDailyDemand(), 1e-9);
+        assertEquals(single.getAverageDailyDemand(), batched.getAverageDailyDemand(), 1e-9);
+        assertEquals(single.getDemandVolatility(), batched.getDemandVolatility(), 1e-9);
+        assertEquals(single.getReorderPoint(), batched.getReorderPoint());
+        assertEquals(single.getDailyDemandForecast(), batched.getDailyDemandForecast());
+        assertEquals(service.forecastInventory("SKU-AR-GLV").getForecast(),
+                batch.get("SKU-AR-GLV").forecast().getForecast());
+    }
+
     @Test
     void planPickRouteOptimisesByDistance() {
         WarehouseIntelligenceService service = new WarehouseIntelligenceService();
@@ -104,7 +263,7 @@ class WarehouseIntelligenceServiceTest {
         WarehouseIntelligenceService service = new WarehouseIntelligenceService();
         BoxRecommendationRequest request = new BoxRecommendationRequest();
         BoxRecommendationRequest.Item item = new BoxRecommendationRequest.Item();
-        item.setProductId("SKU-AR-01");
+        item.setProductId("SKU-AR-GLV");
         item.setQuantity(3);
         request.setItems(List.of(item));
 
@@ -114,5 +273,73 @@ class WarehouseIntelligenceServiceTest {
         assertTrue(response.getBoxesRequired() >= 1);
         assertFalse(response.getAlternatives().isEmpty());
         assertTrue(response.getTotalVolumeCubicM() > 0);
+        assertEquals(response.getBoxesRequired(), response.getBoxes().size());
+        assertEquals(3, response.getBoxes().stream().mapToInt(box -> box.getPlacements().size()).sum());
+    }
+
+    @Test
+    void recommend3dBoxPacksDimensionsAndCachesRepeatedMixes() {
+        WarehouseIntelligenceService service = new WarehouseIntelligenceService();
+        BoxRecommendationRequest.Item tray = new BoxRecommendationRequest.Item();
+        tray.setProductId("TRAY");
+        tray.setQuantity(4);
+        tray.setLengthCm(28.0);
+        tray.setWidthCm(18.0);
+        tray.setHeightCm(3.0);
+        tray.setWeightKg(0.5);
+        BoxRecommendationRequest request = new BoxRecommendationRequest();
+        request.setItems(List.of(tray));
+
+        BoxRecommendationResponse response = service.recommend3dBox(request);
+
+        // Vier flache Schalen gestapelt passen in den kleinsten Karton
+        assertEquals("BOX-S", response.getRecommendedBoxId());
+        assertEquals(1, response.getBoxesRequired());
+        BoxRecommendationResponse.PackedBox box = response.getBoxes().get(0);
+        assertEquals(4, box.getPlacements().size());
+        assertEquals(2.0, box.getWeightKg(), 1e-9);
+        assertTrue(box.getCentreOfGravityCm().get(2) < 7.5);
+        assertSame(response, service.recommend3dBox(request));
+    }
+
+    @Test
+    void recommend3dBoxRejectsItemsLargerThanEveryCarton() {
+        WarehouseIntelligenceService service = new WarehouseIntelligenceService();
+        BoxRecommendationRequest.Item pole = new BoxRecommendationRequest.Item();
+        pole.setProductId("POLE");
+        pole.setQuantity(1);
+        pole.setLengthCm(120.0);
+        pole.setWidthCm(5.0);
+        pole.setHeightCm(5.0);
+        BoxRecommendationRequest request = new BoxRecommendationRequest();
+        request.setItems(List.of(pole));
+
+        assertThrows(IllegalStateException.class, () -> service.recommend3dBox(request));
+    }
+
+    @Test
+    void syncChangesDropsProductsDeletedSinceLastSync() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        InventoryTombstoneRepository tombstoneRepository = mock(InventoryTombstoneRepository.class);
+        WarehouseIntelligenceService service = new WarehouseIntelligenceService(productRepository,
+                mock(WarehouseRepository.class), mock(StockLevelRepository.class), tombstoneRepository,
+                new MovementLedgerService(), new SensorTelemetryService(), new WarehouseKpiService(),
+                Duration.ofMillis(50), 10, 500, Duration.ofMinutes(1), Duration.ofDays(7));
+        Product entity = new Product();
+        entity.setId(41L);
+        entity.setSku("SKU-GONE");
+        entity.setName("Discontinued Scanner");
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(List.of(entity));
+        service.refreshFromDatabase();
+        assertTrue(service.listProducts().stream().anyMatch(product -> product.getId().equals("SKU-GONE")));
+
+        when(tombstoneRepository.findByDeletedAtAfterAndIdGreaterThanOrderByIdAsc(any(), eq(0L), any()))
+                .thenReturn(List.of(new InventoryTombstone(InventoryTombstone.EntityType.PRODUCT, 41L, 41L, null,
+                        Instant.now())));
+        service.syncChanges();
+        service.syncChanges();
+
+        assertTrue(service.listProducts().stream().noneMatch(product -> product.getId().equals("SKU-GONE")));
+        verify(tombstoneRepository, times(2)).deleteOlderThan(any());
     }
 }
@@ -0,0 +1,130 @@
+package com.chrono.chrono.warehouse.service;
+
+import com.chrono.chrono.warehouse.dto.KpiDashboardResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarehouseKpiServiceTest {
+
+    private static final class TestClock extends Clock {
+
+        private Instant now = Instant.parse("2025-03-03T08:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    @Test
+    void slidingWindowExpiresOldBucketsIntoPreviousWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(60_000, 6);
+        counter.add(0, 5);
+        counter.add(25_000, 3);
+
+        assertEquals(8, counter.current(59_999));
+        assertEquals(3, counter.current(60_000));
+        assertEquals(5, counter.previous(60_000));
+        assertEquals(0, counter.current(90_000));
+        assertEquals(8, counter.previous(90_000));
+        assertEquals(0, counter.previous(500_000));
+    }
+
+    @Test
+    void inventoryValueFollowsStockChangesAndCostUpdates() {
+        WarehouseKpiService service = new WarehouseKpiService(new TestClock(), 60);
+        service.resetInventory(Map.of("A", 10, "B", 4), Map.of("A", new BigDecimal("2.50"), "B", new BigDecimal("10")));
+
+        service.recordStockChange("A", 6, new BigDecimal("2.50"));
+        service.recordStockChange("B", -1, null);
+        service.recordStockChange("B", 0, new BigDecimal("12"));
+
+        assertEquals(40 + 36, service.value(WarehouseKpiService.INVENTORY_VALUE), 1e-9);
+        // ohne Abgang zählt der ganze Bestand als Überbestand
+        assertEquals(76, service.value(WarehouseKpiService.OVERSTOCK_VALUE), 1e-9);
+
+        service.resetInventory(Map.of("A", 2), Map.of());
+        assertEquals(5, service.value(WarehouseKpiService.INVENTORY_VALUE), 1e-9);
+    }
+
+    @Test
+    void picksDriveRatesTurnoverAndOverstock() {
+        TestClock clock = new TestClock();
+        WarehouseKpiService service = new WarehouseKpiService(clock, 10);
+        service.resetInventory(Map.of("A", 100), Map.of("A", new BigDecimal("4")));
+
+        for (int i = 0; i < 7; i++) {
+            service.recordPick("A", 7, new BigDecimal("4"));
+            service.recordStockChange("A", -7, new BigDecimal("4"));
+        }
+
+        // 49 Stück in 7 Tagen = 7 pro Tag, 10 Tage Reichweite = 70 Stück; 51 Stück Bestand
+        assertEquals(7, service.value(WarehouseKpiService.PICK_RATE));
+        assertEquals(49, service.value(WarehouseKpiService.PICKED_UNITS_24H));
+        assertEquals(0, service.value(WarehouseKpiService.OVERSTOCK_VALUE), 1e-9);
+        assertEquals(49 * 4 * 52 / 204.0, service.value(WarehouseKpiService.INVENTORY_TURNOVER), 1e-9);
+
+        clock.advance(Duration.ofMinutes(61));
+        service.recordPick("A", 1, new BigDecimal("4"));
+        KpiDashboardResponse dashboard = service.snapshot();
+        assertEquals(1.0, dashboard.getKpis().get(WarehouseKpiService.PICK_RATE));
+        assertEquals(-85.71, dashboard.getTrends().get(WarehouseKpiService.PICK_RATE));
+    }
+
+    @Test
+    void deliveryAndReturnRatesUseTheWeeklyWindow() {
+        TestClock clock = new TestClock();
+        WarehouseKpiService service = new WarehouseKpiService(clock, 60);
+        service.recordOrderFulfilled(true);
+        service.recordOrderFulfilled(true);
+        service.recordOrderFulfilled(false);
+        service.recordOrderFulfilled(true);
+        service.recordReturn();
+
+        assertEquals(75, service.value(WarehouseKpiService.ON_TIME_DELIVERY));
+        assertEquals(25, service.value(WarehouseKpiService.RETURN_RATE));
+
+        clock.advance(Duration.ofDays(7));
+        service.recordOrderFulfilled(true);
+        KpiDashboardResponse dashboard = service.snapshot();
+        assertEquals(100.0, dashboard.getKpis().get(WarehouseKpiService.ON_TIME_DELIVERY));
+        assertEquals(25.0, dashboard.getTrends().get(WarehouseKpiService.ON_TIME_DELIVERY));
+        assertEquals(-25.0, dashboard.getTrends().get(WarehouseKpiService.RETURN_RATE));
+    }
+
+    @Test
+    void gaugesExposeTheSameCounters() {
+        WarehouseKpiService service = new WarehouseKpiService(new TestClock(), 60);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        service.registerGauges(registry);
+
+        service.recordOrderFulfilled(true);
+
+        assertEquals(100, registry.get("chrono.warehouse.kpi").tag("kpi", "on_time_delivery").gauge().value());
+        assertEquals(7, registry.find("chrono.warehouse.kpi").gauges().size());
+    }
+}
@@ -0,0 +1,32 @@
+package com.chrono.chrono.warehouse.service;
+
+import com.chrono.chrono.warehouse.model.WarehouseLocation;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarehouseTopologyTest {
+
+    @Test
+    void walksAroundBlockedLocationsAndRebuildsOnlyOnChange() {
+        Map<String, WarehouseLocation> locations = new ConcurrentHashMap<>();
+        WarehouseLocation target = new WarehouseLocation("T-01", "A", 3, 0, 0, 10);
+        WarehouseLocation obstacle = new WarehouseLocation("X-01", "A", 1, 0, 0, 10);
+        locations.put(target.getId(), target);
+        locations.put(obstacle.getId(), obstacle);
+        WarehouseTopology topology = new WarehouseTopology(locations);
+
+        WarehouseTopology.DistanceMatrix open = topology.current();
+        assertEquals(3.0, open.fromDepot("T-01"), 1e-9);
+        assertSame(open, topology.current());
+
+        obstacle.setBlocked(true);
+        WarehouseTopology.DistanceMatrix detour = topology.current();
+        assertNotSame(open, detour);
+        assertEquals(5.0, detour.fromDepot("T-01"), 1e-9);
+        assertEquals(2.0, detour.between(detour.node("T-01"), detour.node("X-01")), 1e-9);
+    }
+}